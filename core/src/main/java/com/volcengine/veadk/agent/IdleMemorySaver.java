@@ -0,0 +1,347 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.agent;
+
+import com.google.adk.agents.CallbackContext;
+import com.google.adk.agents.Callbacks;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.sessions.Session;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.genai.types.Content;
+import com.volcengine.veadk.utils.ReadonlyContextAccessorUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * After-agent callback saving sessions to memory once a conversation pauses, instead of after
+ * every turn like {@link SaveSessionToMemoryCallback}.
+ *
+ * <p>A finished turn only marks its session as pending. The session is saved when no turn has
+ * finished for the idle delay, when it has gathered the maximum number of unsaved turns, when
+ * {@link #endSession(Session)} is called, or on {@link #close()}, which also runs on JVM shutdown.
+ * Saves are handed to a bounded worker pool by the timer thread, never by the agent's thread or
+ * the caller of {@link #endSession(Session)}; when the pool's queue is full the timer thread waits
+ * for room, slowing further saves down rather than dropping them.
+ */
+public class IdleMemorySaver implements Callbacks.AfterAgentCallback, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IdleMemorySaver.class);
+
+    private static final Duration DEFAULT_IDLE_DELAY = Duration.ofSeconds(30);
+    private static final int DEFAULT_MAX_TURNS = 10;
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final long idleDelayMillis;
+    private final int maxTurns;
+    private final ScheduledExecutorService timers;
+    private final ThreadPoolExecutor workers;
+    private final Thread shutdownHook;
+
+    // Sessions with unsaved turns, keyed by app, user and session id
+    private final Map<String, Pending> pending = new HashMap<>();
+    private boolean closed = false;
+
+    private final AtomicLong turns = new AtomicLong();
+    private final AtomicLong idleSaves = new AtomicLong();
+    private final AtomicLong turnLimitSaves = new AtomicLong();
+    private final AtomicLong sessionEndSaves = new AtomicLong();
+    private final AtomicLong shutdownSaves = new AtomicLong();
+    private final AtomicLong failedSaves = new AtomicLong();
+
+    public IdleMemorySaver() {
+        this(DEFAULT_IDLE_DELAY, DEFAULT_MAX_TURNS, DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create an idle memory saver
+     * @param idleDelay How long a session must be idle before it is saved
+     * @param maxTurns Number of unsaved turns after which a session is saved without waiting
+     * @param workers Number of threads saving sessions
+     * @param queueCapacity Number of saves that may wait for a worker
+     */
+    public IdleMemorySaver(Duration idleDelay, int maxTurns, int workers, int queueCapacity) {
+        if (idleDelay.isNegative() || idleDelay.isZero()) {
+            throw new IllegalArgumentException("idleDelay must be positive.");
+        }
+        if (maxTurns <= 0 || workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "maxTurns, workers and queueCapacity must be positive.");
+        }
+        this.idleDelayMillis = idleDelay.toMillis();
+        this.maxTurns = maxTurns;
+        this.timers =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("veadk-memory-saver-timer-%d")
+                                .setDaemon(true)
+                                .build());
+        this.workers =
+                new ThreadPoolExecutor(
+                        workers,
+                        workers,
+                        0,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("veadk-memory-saver-%d")
+                                .setDaemon(true)
+                                .build(),
+                        (task, executor) -> {
+                            // Only the timer thread hands saves over, so only it waits
+                            if (executor.isShutdown()) {
+                                throw new RejectedExecutionException("Memory saver is closed");
+                            }
+                            try {
+                                executor.getQueue().put(task);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new RejectedExecutionException(e);
+                            }
+                        });
+        // Queued saves need running workers, since a waiting hand-off bypasses execute
+        this.workers.prestartAllCoreThreads();
+
+        this.shutdownHook = new Thread(this::close, "veadk-memory-saver-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public Maybe<Content> call(CallbackContext callbackContext) {
+        InvocationContext invocationContext =
+                ReadonlyContextAccessorUtil.getInvocationContext(callbackContext);
+        turnCompleted(invocationContext.memoryService(), invocationContext.session());
+        return Maybe.empty();
+    }
+
+    /**
+     * Record a finished turn of a session, to be saved later
+     * @param memoryService The memory service to save the session to
+     * @param session The session, including the turn
+     */
+    public void turnCompleted(BaseMemoryService memoryService, Session session) {
+        turns.incrementAndGet();
+        synchronized (this) {
+            if (!closed) {
+                String key = key(session);
+                Pending entry = pending.computeIfAbsent(key, k -> new Pending());
+                entry.memoryService = memoryService;
+                entry.session = session;
+                entry.turns++;
+                if (entry.timer != null) {
+                    entry.timer.cancel(false);
+                }
+                boolean turnLimit = entry.turns >= maxTurns;
+                entry.timer =
+                        timers.schedule(
+                                () -> {
+                                    if (claim(key, entry)) {
+                                        handOff(entry, turnLimit ? turnLimitSaves : idleSaves);
+                                    }
+                                },
+                                turnLimit ? 0 : idleDelayMillis,
+                                TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        // Closed: save right away, like the per-turn callback, but off the agent's thread
+        memoryService
+                .addSessionToMemory(session)
+                .subscribeOn(Schedulers.io())
+                .subscribe(
+                        () -> log.debug("Saved session {}", session.id()),
+                        err -> log.error("Failed to save session", err));
+    }
+
+    /**
+     * Save the unsaved turns of a session now, e.g. when the session is closed or deleted
+     * @param session The session
+     * @return Completable that completes once the session is saved, or at once if it has no
+     *     unsaved turns
+     */
+    public Completable endSession(Session session) {
+        Pending entry;
+        synchronized (this) {
+            entry = pending.get(key(session));
+        }
+        if (entry == null) {
+            return Completable.complete();
+        }
+        return Completable.fromFuture(save(key(session), entry, sessionEndSaves));
+    }
+
+    public Stats stats() {
+        int pendingSessions;
+        synchronized (this) {
+            pendingSessions = pending.size();
+        }
+        return new Stats(
+                turns.get(),
+                idleSaves.get(),
+                turnLimitSaves.get(),
+                sessionEndSaves.get(),
+                shutdownSaves.get(),
+                failedSaves.get(),
+                pendingSessions);
+    }
+
+    /**
+     * Statistics of the saver.
+     *
+     * @param turns Turns finished
+     * @param idleSaves Sessions saved after being idle
+     * @param turnLimitSaves Sessions saved after reaching the maximum unsaved turns
+     * @param sessionEndSaves Sessions saved at session end
+     * @param shutdownSaves Sessions saved on close
+     * @param failedSaves Saves that failed
+     * @param pendingSessions Sessions with unsaved turns
+     */
+    public record Stats(
+            long turns,
+            long idleSaves,
+            long turnLimitSaves,
+            long sessionEndSaves,
+            long shutdownSaves,
+            long failedSaves,
+            int pendingSessions) {
+
+        public long saves() {
+            return idleSaves + turnLimitSaves + sessionEndSaves + shutdownSaves;
+        }
+
+        public double turnsPerSave() {
+            return saves() == 0 ? 0 : (double) turns / saves();
+        }
+    }
+
+    /** Stop the timers and save every session with unsaved turns. */
+    @Override
+    public void close() {
+        Map<String, Pending> unsaved;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unsaved = new HashMap<>(pending);
+        }
+        unsaved.forEach((key, entry) -> save(key, entry, shutdownSaves));
+        // Saving cancelled every idle timer, so the timer thread ends once it handed the saves over
+        timers.shutdown();
+        try {
+            timers.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            workers.shutdown();
+            if (!workers.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Not every session was saved to memory on close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down
+        }
+    }
+
+    /**
+     * Have the timer thread hand a pending session to the workers, unless it was saved or replaced
+     * meanwhile
+     * @param key The session key
+     * @param entry The pending session
+     * @param counter Counter of the reason for saving
+     * @return Future completing once the session is saved
+     */
+    private CompletableFuture<Void> save(String key, Pending entry, AtomicLong counter) {
+        if (claim(key, entry)) {
+            try {
+                timers.execute(() -> handOff(entry, counter));
+            } catch (RejectedExecutionException e) {
+                saveFailed(entry, e);
+            }
+        }
+        return entry.saved;
+    }
+
+    // Take a session off the pending ones, unless it was saved or replaced meanwhile
+    private synchronized boolean claim(String key, Pending entry) {
+        if (!pending.remove(key, entry)) {
+            return false;
+        }
+        if (entry.timer != null) {
+            entry.timer.cancel(false);
+        }
+        return true;
+    }
+
+    // Runs on the timer thread, waiting while the workers' queue is full
+    private void handOff(Pending entry, AtomicLong counter) {
+        try {
+            workers.execute(
+                    () -> {
+                        try {
+                            entry.memoryService.addSessionToMemory(entry.session).blockingAwait();
+                            counter.incrementAndGet();
+                            log.debug(
+                                    "Saved session {} after {} turns",
+                                    entry.session.id(),
+                                    entry.turns);
+                        } catch (RuntimeException e) {
+                            saveFailed(entry, e);
+                        } finally {
+                            entry.saved.complete(null);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            saveFailed(entry, e);
+        }
+    }
+
+    private void saveFailed(Pending entry, RuntimeException e) {
+        failedSaves.incrementAndGet();
+        log.error("Failed to save session " + entry.session.id(), e);
+        entry.saved.complete(null);
+    }
+
+    private static String key(Session session) {
+        return session.appName() + "/" + session.userId() + "/" + session.id();
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<Void> saved = new CompletableFuture<>();
+        private BaseMemoryService memoryService;
+        private Session session;
+        private int turns;
+        private ScheduledFuture<?> timer;
+    }
+}
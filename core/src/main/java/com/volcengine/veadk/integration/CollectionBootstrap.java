@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.integration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Makes sure a Viking collection exists before a service uses it.
+ *
+ * <p>Collections known to exist are remembered for the whole process, so further services on the
+ * same collection skip the check. The mode is chosen with the DATABASE_VIKING_COLLECTION_BOOTSTRAP
+ * environment variable:
+ *
+ * <ul>
+ *   <li>sync (default): check, and create if missing, before the constructor returns
+ *   <li>async: check in the background; requests wait until the collection is ready
+ *   <li>skip: assume the collection exists and never check
+ * </ul>
+ */
+public final class CollectionBootstrap {
+
+    private static final Logger log = LoggerFactory.getLogger(CollectionBootstrap.class);
+
+    private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newCachedThreadPool(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("veadk-collection-bootstrap-%d")
+                            .setDaemon(true)
+                            .build());
+
+    // Checks done or in flight, keyed by service kind and collection name
+    private static final Map<String, CompletableFuture<Void>> CHECKS = new ConcurrentHashMap<>();
+
+    private CollectionBootstrap() {}
+
+    public enum Mode {
+        SYNC,
+        ASYNC,
+        SKIP;
+
+        /**
+         * Parse a mode name, ignoring case
+         * @param value The mode name, or null for SYNC
+         * @return The mode
+         */
+        public static Mode parse(String value) {
+            if (value == null || value.isBlank()) {
+                return SYNC;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        "Unknown collection bootstrap mode: "
+                                + value
+                                + ". Expected sync, async or skip.");
+            }
+        }
+    }
+
+    /**
+     * Make sure a collection exists
+     * @param kind The kind of service owning the collection, e.g. vikingmemory
+     * @param collectionName The collection name
+     * @param mode How to check the collection
+     * @param exists Checks whether the collection exists
+     * @param create Creates the collection, returning whether it succeeded
+     * @return Future completing once the collection is ready
+     */
+    public static CompletableFuture<Void> bootstrap(
+            String kind,
+            String collectionName,
+            Mode mode,
+            BooleanSupplier exists,
+            BooleanSupplier create) {
+        if (mode == Mode.SKIP) {
+            return READY;
+        }
+
+        String key = kind + "/" + collectionName;
+        CompletableFuture<Void> known = CHECKS.get(key);
+        if (mode == Mode.SYNC) {
+            // Checks that failed or found no collection are removed, so a done check succeeded
+            if (known != null && known.isDone() && !known.isCompletedExceptionally()) {
+                return READY;
+            }
+            if (ensure(collectionName, exists, create)) {
+                CHECKS.put(key, READY);
+            }
+            return READY;
+        }
+
+        if (known != null) {
+            return known;
+        }
+        CompletableFuture<Void> check = new CompletableFuture<>();
+        known = CHECKS.putIfAbsent(key, check);
+        if (known != null) {
+            return known;
+        }
+        EXECUTOR.execute(
+                () -> {
+                    try {
+                        if (!ensure(collectionName, exists, create)) {
+                            // Let the next service on this collection try again
+                            CHECKS.remove(key, check);
+                        }
+                        check.complete(null);
+                    } catch (RuntimeException e) {
+                        CHECKS.remove(key, check);
+                        check.completeExceptionally(e);
+                    }
+                });
+        return check;
+    }
+
+    /**
+     * Make sure a collection exists, checking again on use if a background check failed
+     * @param kind The kind of service owning the collection, e.g. vikingmemory
+     * @param collectionName The collection name
+     * @param mode How to check the collection
+     * @param exists Checks whether the collection exists
+     * @param create Creates the collection, returning whether it succeeded
+     * @return Readiness of the collection
+     */
+    public static Readiness readiness(
+            String kind,
+            String collectionName,
+            Mode mode,
+            BooleanSupplier exists,
+            BooleanSupplier create) {
+        return new Readiness(
+                kind,
+                collectionName,
+                mode,
+                exists,
+                create,
+                bootstrap(kind, collectionName, mode, exists, create));
+    }
+
+    /**
+     * Readiness of one service's collection. A failed check is not kept: the next {@link
+     * #await()} starts a new one, so a transient error does not fail the service for good.
+     */
+    public static final class Readiness {
+
+        private final String kind;
+        private final String collectionName;
+        private final Mode mode;
+        private final BooleanSupplier exists;
+        private final BooleanSupplier create;
+        private volatile CompletableFuture<Void> check;
+
+        private Readiness(
+                String kind,
+                String collectionName,
+                Mode mode,
+                BooleanSupplier exists,
+                BooleanSupplier create,
+                CompletableFuture<Void> check) {
+            this.kind = kind;
+            this.collectionName = collectionName;
+            this.mode = mode;
+            this.exists = exists;
+            this.create = create;
+            this.check = check;
+        }
+
+        /**
+         * The current check
+         * @return Future completing once the collection is ready
+         */
+        public CompletableFuture<Void> future() {
+            return check;
+        }
+
+        /** Wait until the collection is ready, first checking again if the last check failed. */
+        public void await() {
+            CompletableFuture<Void> current = check;
+            if (current.isCompletedExceptionally()) {
+                current = bootstrap(kind, collectionName, mode, exists, create);
+                check = current;
+            }
+            current.join();
+        }
+    }
+
+    /** Forget all known collections. */
+    static void clear() {
+        CHECKS.clear();
+    }
+
+    private static boolean ensure(
+            String collectionName, BooleanSupplier exists, BooleanSupplier create) {
+        if (exists.getAsBoolean() || create.getAsBoolean()) {
+            return true;
+        }
+        log.warn("Viking collection {} could not be created", collectionName);
+        return false;
+    }
+}
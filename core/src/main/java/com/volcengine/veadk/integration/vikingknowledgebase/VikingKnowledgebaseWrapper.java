@@ -31,6 +31,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import org.apache.http.Header;
 import org.apache.http.message.BasicHeader;
 import org.slf4j.Logger;
@@ -134,6 +136,9 @@ public class VikingKnowledgebaseWrapper extends BaseServiceImpl {
                 }
             };
 
+    // Notified with the collection name after a document is added through any wrapper
+    private static final List<Consumer<String>> DOC_ADDED_LISTENERS = new CopyOnWriteArrayList<>();
+
     public VikingKnowledgebaseWrapper(String accessKey, String secretKey) {
         super(SERVICE_INFO, API_INFO_LIST);
         setAccessKey(accessKey);
@@ -200,6 +205,16 @@ public class VikingKnowledgebaseWrapper extends BaseServiceImpl {
         }
     }
 
+    /**
+     * Listen for documents added to any collection, e.g. to drop cached search results
+     * @param listener Called with the collection name after a document is added
+     * @return Runnable that removes the listener
+     */
+    public static Runnable addDocAddedListener(Consumer<String> listener) {
+        DOC_ADDED_LISTENERS.add(listener);
+        return () -> DOC_ADDED_LISTENERS.remove(listener);
+    }
+
     public boolean addDoc(String collectionName, String tosUrl) {
         try {
             Map<String, Object> body = new HashMap<>();
@@ -222,7 +237,13 @@ public class VikingKnowledgebaseWrapper extends BaseServiceImpl {
             JsonNode rootNode = JSONUtil.parseJson(response.getData());
             JsonNode docId = rootNode.path("data").path("doc_id");
 
-            return !docId.isMissingNode() && !docId.isNull();
+            boolean added = !docId.isMissingNode() && !docId.isNull();
+            if (added) {
+                for (Consumer<String> listener : DOC_ADDED_LISTENERS) {
+                    listener.accept(collectionName);
+                }
+            }
+            return added;
         } catch (IOException e) {
             log.error("addDoc failed", e);
             return false;
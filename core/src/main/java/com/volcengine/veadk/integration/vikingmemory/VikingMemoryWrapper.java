@@ -17,6 +17,7 @@ package com.volcengine.veadk.integration.vikingmemory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.adk.memory.MemoryEntry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.genai.types.Content;
 import com.google.genai.types.Part;
 import com.volcengine.error.SdkError;
@@ -31,9 +32,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.http.Header;
 import org.apache.http.message.BasicHeader;
 import org.slf4j.Logger;
@@ -43,6 +50,17 @@ public class VikingMemoryWrapper extends BaseServiceImpl {
 
     private static final Logger log = LoggerFactory.getLogger(VikingMemoryWrapper.class);
 
+    private static final int MAX_CONCURRENT_SEARCHES = 8;
+
+    // Shared by all wrappers, since they all talk to the same memory backend
+    private static final ExecutorService SEARCH_EXECUTOR =
+            Executors.newFixedThreadPool(
+                    MAX_CONCURRENT_SEARCHES,
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("veadk-memory-search-%d")
+                            .setDaemon(true)
+                            .build());
+
     private static ServiceInfo SERVICE_INFO =
             new ServiceInfo(
                     new HashMap<String, Object>() {
@@ -231,6 +249,77 @@ public class VikingMemoryWrapper extends BaseServiceImpl {
     public List<MemoryEntry> searchMemory(
             String collectionName, String userId, String query, int topK, List<String> eventTypes)
             throws Exception {
+        List<MemoryEntry> memoryEntries = new ArrayList<>();
+        for (ScoredMemory memory :
+                searchScoredMemory(collectionName, userId, query, topK, eventTypes)) {
+            memoryEntries.add(memory.entry());
+        }
+        return memoryEntries;
+    }
+
+    /**
+     * Search memories for several queries of one user at once. The queries run concurrently, with
+     * at most {@value #MAX_CONCURRENT_SEARCHES} searches in flight across all wrappers. A failed
+     * query contributes no memories
+     * @param collectionName The collection name
+     * @param userId The user id
+     * @param queries The queries
+     * @param topK Maximum number of memories per query
+     * @param eventTypes The memory types to search
+     * @return Memories of all queries, with duplicate summaries removed, best score first
+     */
+    public List<MemoryEntry> searchMemoryBatch(
+            String collectionName,
+            String userId,
+            List<String> queries,
+            int topK,
+            List<String> eventTypes) {
+        List<Future<List<ScoredMemory>>> searches = new ArrayList<>();
+        for (String query : new LinkedHashSet<>(queries)) {
+            searches.add(
+                    SEARCH_EXECUTOR.submit(
+                            () ->
+                                    searchScoredMemory(
+                                            collectionName, userId, query, topK, eventTypes)));
+        }
+
+        // Keep the best score of each summary, and its rank within its query for ties
+        Map<String, ScoredMemory> best = new HashMap<>();
+        Map<String, Integer> ranks = new HashMap<>();
+        for (Future<List<ScoredMemory>> search : searches) {
+            List<ScoredMemory> memories;
+            try {
+                memories = search.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                searches.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Interrupted while searching memories", e);
+            } catch (ExecutionException e) {
+                log.error("searchMemoryBatch query failed, collectionName:" + collectionName, e);
+                continue;
+            }
+            for (int rank = 0; rank < memories.size(); rank++) {
+                ScoredMemory memory = memories.get(rank);
+                ScoredMemory known = best.get(memory.summary());
+                if (known == null || memory.score() > known.score()) {
+                    best.put(memory.summary(), memory);
+                    ranks.put(memory.summary(), rank);
+                }
+            }
+        }
+
+        return best.values().stream()
+                .sorted(
+                        Comparator.comparingDouble(ScoredMemory::score)
+                                .reversed()
+                                .thenComparing(memory -> ranks.get(memory.summary())))
+                .map(ScoredMemory::entry)
+                .toList();
+    }
+
+    private List<ScoredMemory> searchScoredMemory(
+            String collectionName, String userId, String query, int topK, List<String> eventTypes)
+            throws Exception {
         Map<String, Object> filter = new HashMap<>();
         filter.put("user_id", userId);
         filter.put("memory_type", eventTypes);
@@ -255,18 +344,23 @@ public class VikingMemoryWrapper extends BaseServiceImpl {
 
         JsonNode rootNode = JSONUtil.parseJson(response.getData());
         JsonNode resultList = rootNode.path("data").path("result_list");
-        List<MemoryEntry> memoryEntries = new ArrayList<>();
+        List<ScoredMemory> memories = new ArrayList<>();
 
         if (!resultList.isMissingNode() && !resultList.isNull() && resultList.isArray()) {
             for (JsonNode resultNode : resultList) {
                 JsonNode summaryNode = resultNode.path("memory_info").path("summary");
                 if (!summaryNode.isMissingNode() && !summaryNode.isNull()) {
-                    memoryEntries.add(buildMemoryEntry("user", summaryNode.asText()));
+                    String summary = summaryNode.asText();
+                    memories.add(
+                            new ScoredMemory(
+                                    buildMemoryEntry("user", summary),
+                                    summary,
+                                    resultNode.path("score").asDouble(0)));
                 }
             }
         }
 
-        return memoryEntries;
+        return memories;
     }
 
     private MemoryEntry buildMemoryEntry(String role, String text) {
@@ -279,4 +373,6 @@ public class VikingMemoryWrapper extends BaseServiceImpl {
                                 .build())
                 .build();
     }
+
+    private record ScoredMemory(MemoryEntry entry, String summary, double score) {}
 }
@@ -15,9 +15,60 @@
  */
 package com.volcengine.veadk.knowledgebase;
 
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
+import java.util.List;
 
 public interface BaseKnowledgebaseService {
 
     Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query);
+
+    /**
+     * Search the knowledgebase with per-call settings. The default only applies the metadata
+     * filter, to the entries of a plain search, so services override it to honour the settings
+     * they support
+     * @param query The query
+     * @param options The search settings
+     * @return The matching entries, best first
+     */
+    default Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        if (options.metadataFilter().isEmpty()) {
+            return searchKnowledgebase(query);
+        }
+        return searchKnowledgebase(query)
+                .map(
+                        response -> {
+                            if (response.getKnowledgebaseEntries() == null) {
+                                return response;
+                            }
+                            SearchKnowledgebaseResponse filtered =
+                                    new SearchKnowledgebaseResponse();
+                            filtered.setKnowledgebaseEntries(
+                                    response.getKnowledgebaseEntries().stream()
+                                            .filter(options::matches)
+                                            .toList());
+                            return filtered;
+                        });
+    }
+
+    /**
+     * Stream the entries of a search as they become available, so that a caller can stop early.
+     * Services with a slow refinement stage, such as rerank, may offer to emit the entries of a
+     * fast first stage before the refined ones. Each entry is emitted once. The default emits the
+     * entries of a single search
+     * @param query The query
+     * @param options The search settings
+     * @return The matching entries, the earliest found first
+     */
+    default Flowable<KnowledgebaseEntry> streamKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        return searchKnowledgebase(query, options)
+                .flattenAsFlowable(
+                        response ->
+                                response.getKnowledgebaseEntries() == null
+                                        ? List.of()
+                                        : response.getKnowledgebaseEntries());
+    }
 }
@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.VikingKnowledgebaseWrapper;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Knowledgebase service caching the search results of another one.
+ *
+ * <p>Queries differing only in case and whitespace share a result. Results are kept for a TTL, and
+ * the least recently used ones are evicted beyond the entry bound. Concurrent searches for the same
+ * query share a single search of the wrapped service. When created with the collection name, the
+ * cache is cleared whenever a document is added to that collection through {@link
+ * VikingKnowledgebaseWrapper#addDoc(String, String)}; {@link #invalidate()} clears it explicitly.
+ * Searches with per-call options are cached per query and settings, the deadline aside. Under a
+ * deadline a service may skip optional work such as rerank, so such a result is only cached under
+ * the settings the service reports having applied, and not at all when it reports none. Empty
+ * results are not cached, since the Viking client also answers failed searches with no entries.
+ */
+public class CachingKnowledgebaseService implements BaseKnowledgebaseService, AutoCloseable {
+
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final BaseKnowledgebaseService knowledgebaseService;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Clock clock;
+    private final Runnable removeListener;
+
+    // Results in access order, eldest first
+    private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Single<SearchKnowledgebaseResponse>> inFlight = new HashMap<>();
+    // Incremented on invalidation, so that searches started before it are not cached
+    private long generation = 0;
+
+    private long hits = 0;
+    private long sharedSearches = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    public CachingKnowledgebaseService(BaseKnowledgebaseService knowledgebaseService) {
+        this(knowledgebaseService, null);
+    }
+
+    /**
+     * Create a caching knowledgebase service cleared when documents are added to its collection
+     * @param knowledgebaseService The knowledgebase service to cache
+     * @param collectionName The Viking collection searched by the service, or null to only clear
+     *     the cache explicitly
+     */
+    public CachingKnowledgebaseService(
+            BaseKnowledgebaseService knowledgebaseService, String collectionName) {
+        this(knowledgebaseService, collectionName, DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Create a caching knowledgebase service
+     * @param knowledgebaseService The knowledgebase service to cache
+     * @param collectionName The Viking collection searched by the service, or null to only clear
+     *     the cache explicitly
+     * @param ttl How long a result is served without searching again
+     * @param maxEntries Maximum number of cached results
+     */
+    public CachingKnowledgebaseService(
+            BaseKnowledgebaseService knowledgebaseService,
+            String collectionName,
+            Duration ttl,
+            int maxEntries) {
+        this(knowledgebaseService, collectionName, ttl, maxEntries, Clock.systemUTC());
+    }
+
+    CachingKnowledgebaseService(
+            BaseKnowledgebaseService knowledgebaseService,
+            String collectionName,
+            Duration ttl,
+            int maxEntries,
+            Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive.");
+        }
+        this.knowledgebaseService = knowledgebaseService;
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.removeListener =
+                collectionName == null
+                        ? () -> {}
+                        : VikingKnowledgebaseWrapper.addDocAddedListener(
+                                added -> {
+                                    if (collectionName.equals(added)) {
+                                        invalidate();
+                                    }
+                                });
+    }
+
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+        String key = normalize(query);
+        return cached(
+                key, key, () -> knowledgebaseService.searchKnowledgebase(query), response -> key);
+    }
+
+    /**
+     * Search with the given settings, answering from the cache when the same query was searched
+     * with the same settings
+     * @param query The query
+     * @param options The search settings
+     * @return The search response of the wrapped service
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        String key = normalize(query) + '\n' + settings(options);
+        Supplier<Single<SearchKnowledgebaseResponse>> searcher =
+                () -> knowledgebaseService.searchKnowledgebase(query, options);
+        if (options.deadline() == null) {
+            return cached(key, key, searcher, response -> key);
+        }
+        // Searches without a deadline never join one that may have skipped optional work
+        return cached(
+                key,
+                key + "\ndeadline",
+                searcher,
+                response ->
+                        response.getAppliedOptions() == null
+                                ? null
+                                : normalize(query) + '\n' + settings(response.getAppliedOptions()));
+    }
+
+    /** Drop every cached result, e.g. after documents were added to the knowledgebase. */
+    public synchronized void invalidate() {
+        lru.clear();
+        inFlight.clear();
+        generation++;
+        invalidations++;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, sharedSearches, misses, evictions, invalidations, lru.size());
+    }
+
+    /** Stop listening for added documents. */
+    @Override
+    public void close() {
+        removeListener.run();
+    }
+
+    /**
+     * Answer from the cache, from an identical search in flight, or by searching
+     * @param key Key of the cached results answering the search
+     * @param flightKey Key of the searches in flight the search can join
+     * @param searcher Searches the wrapped service
+     * @param storeKey Key to cache a response under, or null to not cache it
+     * @return The search response
+     */
+    private Single<SearchKnowledgebaseResponse> cached(
+            String key,
+            String flightKey,
+            Supplier<Single<SearchKnowledgebaseResponse>> searcher,
+            Function<SearchKnowledgebaseResponse, String> storeKey) {
+        return Single.defer(
+                () -> {
+                    synchronized (this) {
+                        Entry entry = lru.get(key);
+                        if (entry != null && clock.millis() - entry.storedAt <= ttlMillis) {
+                            hits++;
+                            return Single.just(entry.response);
+                        }
+                        if (entry != null) {
+                            lru.remove(key);
+                        }
+                        Single<SearchKnowledgebaseResponse> search = inFlight.get(flightKey);
+                        if (search != null) {
+                            sharedSearches++;
+                            return search;
+                        }
+                        misses++;
+                        long startedAt = generation;
+                        search =
+                                Single.defer(searcher::get)
+                                        .doOnSuccess(
+                                                response ->
+                                                        store(
+                                                                storeKey.apply(response),
+                                                                response,
+                                                                startedAt))
+                                        .doFinally(() -> finishSearch(flightKey, startedAt))
+                                        .cache();
+                        inFlight.put(flightKey, search);
+                        return search;
+                    }
+                });
+    }
+
+    private synchronized void store(
+            String key, SearchKnowledgebaseResponse response, long startedAt) {
+        if (key == null
+                || startedAt != generation
+                || response.getKnowledgebaseEntries() == null
+                || response.getKnowledgebaseEntries().isEmpty()) {
+            return;
+        }
+        lru.put(key, new Entry(response, clock.millis()));
+        Iterator<String> eldest = lru.keySet().iterator();
+        while (lru.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private synchronized void finishSearch(String key, long startedAt) {
+        if (startedAt == generation) {
+            inFlight.remove(key);
+        }
+    }
+
+    private static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // The settings changing the result of a search; the deadline is left out
+    private static String settings(SearchKnowledgebaseOptions options) {
+        return options.topK()
+                + "|"
+                + options.rerank()
+                + "|"
+                + options.chunkDiffusionCount()
+                + "|"
+                + new TreeMap<>(options.metadataFilter());
+    }
+
+    private record Entry(SearchKnowledgebaseResponse response, long storedAt) {}
+
+    /**
+     * Counters of a caching knowledgebase service.
+     *
+     * @param hits Searches answered from the cache
+     * @param sharedSearches Searches that joined an identical search in flight
+     * @param misses Searches sent to the wrapped service
+     * @param evictions Results evicted by the entry bound
+     * @param invalidations Times the cache was cleared
+     * @param entries Results currently cached
+     */
+    public record Stats(
+            long hits,
+            long sharedSearches,
+            long misses,
+            long evictions,
+            long invalidations,
+            int entries) {
+
+        public double hitRate() {
+            long searches = hits + sharedSearches + misses;
+            return searches == 0 ? 0 : (double) (hits + sharedSearches) / searches;
+        }
+    }
+}
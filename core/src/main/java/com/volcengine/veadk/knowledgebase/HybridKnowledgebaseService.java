@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Knowledgebase service searching several knowledgebases at once, e.g. the Viking collections of
+ * an app together with a local keyword or vector index, so that one LoadKnowledgebaseTool covers
+ * all of them.
+ *
+ * <p>Sources are searched in parallel, each with its own timeout. A source that fails or misses
+ * its deadline is left out of the result rather than delaying the turn. Results are merged with
+ * weighted reciprocal-rank fusion: an entry scores {@code weight / (60 + rank)} in each source
+ * returning it, and entries with the same content are returned once with their scores summed.
+ * Ranks are used instead of raw scores since sources score on unrelated scales.
+ */
+public class HybridKnowledgebaseService implements BaseKnowledgebaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridKnowledgebaseService.class);
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+    private static final int RANK_CONSTANT = 60;
+
+    private final List<Source> sources;
+    private final int topK;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    /**
+     * A knowledgebase searched by the hybrid service
+     * @param name Name of the source, used in logs
+     * @param service The knowledgebase service
+     * @param weight Weight of the source's ranks in the fused score
+     * @param timeout How long to wait for the source before leaving it out, positive
+     */
+    public record Source(
+            String name, BaseKnowledgebaseService service, double weight, Duration timeout) {
+
+        public Source {
+            Objects.requireNonNull(service, "service must be set");
+            if (weight <= 0) {
+                throw new IllegalArgumentException("weight must be positive");
+            }
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("timeout must be positive");
+            }
+        }
+
+        /**
+         * A source of weight 1 waited for 2 seconds
+         * @param name Name of the source, used in logs
+         * @param service The knowledgebase service
+         */
+        public Source(String name, BaseKnowledgebaseService service) {
+            this(name, service, 1, DEFAULT_TIMEOUT);
+        }
+    }
+
+    /**
+     * Statistics of the hybrid service
+     * @param searches Number of searches
+     * @param timeouts Number of source searches left out for missing their deadline
+     * @param failures Number of source searches left out for failing
+     * @param duplicates Number of entries returned by more than one source and merged
+     */
+    public record Stats(long searches, long timeouts, long failures, long duplicates) {}
+
+    public HybridKnowledgebaseService(List<Source> sources) {
+        this(sources, 5);
+    }
+
+    /**
+     * Create a hybrid knowledgebase service
+     * @param sources The knowledgebases to search
+     * @param topK Maximum number of entries returned by a search
+     */
+    public HybridKnowledgebaseService(List<Source> sources, int topK) {
+        if (sources.isEmpty() || topK <= 0) {
+            throw new IllegalArgumentException("sources must not be empty and topK positive");
+        }
+        this.sources = List.copyOf(sources);
+        this.topK = topK;
+    }
+
+    /**
+     * Search every source and fuse their results
+     * @param query The query
+     * @return The best entries across sources, best first
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+        return search(query, null, topK);
+    }
+
+    /**
+     * Search every source with the given settings and fuse their results. A source is also left
+     * out once the deadline has passed
+     * @param query The query
+     * @param options The search settings, passed on to every source
+     * @return The best entries across sources, best first
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        return search(query, options, options.topK());
+    }
+
+    /**
+     * Stream the entries of every source as they arrive, without waiting for the slowest source.
+     * Entries are not fused, and a source is cut off at its timeout or the deadline
+     * @param query The query
+     * @param options The search settings, passed on to every source
+     * @return The entries of all sources, each content once, the earliest found first
+     */
+    @Override
+    public Flowable<KnowledgebaseEntry> streamKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        return Flowable.defer(
+                () -> {
+                    this.searches.incrementAndGet();
+                    long remaining = options.remainingMillis(System.currentTimeMillis());
+                    List<Flowable<KnowledgebaseEntry>> streams = new ArrayList<>(sources.size());
+                    for (Source source : sources) {
+                        long timeout =
+                                Math.max(0, Math.min(source.timeout().toMillis(), remaining));
+                        streams.add(
+                                Flowable.defer(
+                                                () ->
+                                                        source.service()
+                                                                .streamKnowledgebase(
+                                                                        query, options))
+                                        .subscribeOn(Schedulers.io())
+                                        // The timer only fires if the source is still running
+                                        .takeUntil(
+                                                Flowable.timer(timeout, TimeUnit.MILLISECONDS)
+                                                        .doOnNext(
+                                                                tick -> timedOut(source, timeout)))
+                                        .onErrorResumeNext(
+                                                e -> {
+                                                    failures.incrementAndGet();
+                                                    log.warn(
+                                                            "Knowledgebase {} search failed",
+                                                            source.name(),
+                                                            e);
+                                                    return Flowable.empty();
+                                                }));
+                    }
+                    return Flowable.merge(streams).distinct(HybridKnowledgebaseService::key);
+                });
+    }
+
+    public Stats stats() {
+        return new Stats(searches.get(), timeouts.get(), failures.get(), duplicates.get());
+    }
+
+    private Single<SearchKnowledgebaseResponse> search(
+            String query, SearchKnowledgebaseOptions options, int topK) {
+        return Single.defer(
+                () -> {
+                    this.searches.incrementAndGet();
+                    long remaining =
+                            options == null
+                                    ? Long.MAX_VALUE
+                                    : options.remainingMillis(System.currentTimeMillis());
+                    List<Single<List<KnowledgebaseEntry>>> searches =
+                            new ArrayList<>(sources.size());
+                    for (Source source : sources) {
+                        long timeout =
+                                Math.max(0, Math.min(source.timeout().toMillis(), remaining));
+                        searches.add(search(source, query, options, timeout));
+                    }
+                    return Single.zip(searches, results -> fuse(results, topK));
+                });
+    }
+
+    private Single<List<KnowledgebaseEntry>> search(
+            Source source, String query, SearchKnowledgebaseOptions options, long timeoutMillis) {
+        return Single.defer(
+                        () ->
+                                options == null
+                                        ? source.service().searchKnowledgebase(query)
+                                        : source.service().searchKnowledgebase(query, options))
+                .subscribeOn(Schedulers.io())
+                .<List<KnowledgebaseEntry>>map(
+                        response ->
+                                response.getKnowledgebaseEntries() == null
+                                        ? List.of()
+                                        : response.getKnowledgebaseEntries())
+                .timeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .onErrorReturn(
+                        e -> {
+                            if (e instanceof TimeoutException) {
+                                timedOut(source, timeoutMillis);
+                            } else {
+                                failures.incrementAndGet();
+                                log.warn("Knowledgebase {} search failed", source.name(), e);
+                            }
+                            return List.of();
+                        });
+    }
+
+    private void timedOut(Source source, long timeoutMillis) {
+        timeouts.incrementAndGet();
+        log.warn("Knowledgebase {} missed its {} ms deadline", source.name(), timeoutMillis);
+    }
+
+    private SearchKnowledgebaseResponse fuse(Object[] results, int topK) {
+        // Fused entries by content, in order of first appearance
+        Map<String, Fused> fused = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            @SuppressWarnings("unchecked")
+            List<KnowledgebaseEntry> entries = (List<KnowledgebaseEntry>) results[i];
+            double weight = sources.get(i).weight();
+            for (int rank = 0; rank < entries.size(); rank++) {
+                KnowledgebaseEntry entry = entries.get(rank);
+                double score = weight / (RANK_CONSTANT + rank + 1);
+                Fused existing = fused.get(key(entry));
+                if (existing == null) {
+                    fused.put(key(entry), new Fused(entry, score));
+                } else {
+                    existing.score += score;
+                    duplicates.incrementAndGet();
+                }
+            }
+        }
+        List<Fused> ranked = new ArrayList<>(fused.values());
+        // Stable sort, ties keep the order of the sources
+        ranked.sort((a, b) -> Double.compare(b.score, a.score));
+        List<KnowledgebaseEntry> entries = new ArrayList<>(Math.min(topK, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < topK; i++) {
+            entries.add(ranked.get(i).entry);
+        }
+        SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+        response.setKnowledgebaseEntries(entries);
+        return response;
+    }
+
+    // Entries differing only in whitespace are the same chunk indexed in two sources
+    private static String key(KnowledgebaseEntry entry) {
+        String content = entry.getContent();
+        return content == null ? "" : content.strip().replaceAll("\\s+", " ");
+    }
+
+    private static final class Fused {
+
+        private final KnowledgebaseEntry entry;
+        private double score;
+
+        private Fused(KnowledgebaseEntry entry, double score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+}
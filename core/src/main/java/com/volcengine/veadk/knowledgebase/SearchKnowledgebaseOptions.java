@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Per-call settings of a knowledgebase search. Services ignore the settings they do not support.
+ *
+ * @param topK Maximum number of entries returned
+ * @param rerank Whether to rerank the retrieved chunks, more relevant but slower and costlier
+ * @param chunkDiffusionCount Neighbouring chunks returned around each retrieved chunk
+ * @param metadataFilter Metadata fields an entry must have, empty for no filter
+ * @param deadline When the caller needs the result by, or null for no deadline. Services use it to
+ *     skip optional work rather than to cancel the search
+ */
+public record SearchKnowledgebaseOptions(
+        int topK,
+        boolean rerank,
+        int chunkDiffusionCount,
+        Map<String, String> metadataFilter,
+        Instant deadline) {
+
+    public SearchKnowledgebaseOptions {
+        if (topK <= 0 || chunkDiffusionCount < 0) {
+            throw new IllegalArgumentException(
+                    "topK must be positive and chunkDiffusionCount not negative.");
+        }
+        metadataFilter = metadataFilter == null ? Map.of() : Map.copyOf(metadataFilter);
+    }
+
+    /** The settings of searches without options: 5 reranked entries with 3 neighbouring chunks. */
+    public static SearchKnowledgebaseOptions defaults() {
+        return new SearchKnowledgebaseOptions(5, true, 3, Map.of(), null);
+    }
+
+    public SearchKnowledgebaseOptions withTopK(int topK) {
+        return new SearchKnowledgebaseOptions(
+                topK, rerank, chunkDiffusionCount, metadataFilter, deadline);
+    }
+
+    public SearchKnowledgebaseOptions withRerank(boolean rerank) {
+        return new SearchKnowledgebaseOptions(
+                topK, rerank, chunkDiffusionCount, metadataFilter, deadline);
+    }
+
+    public SearchKnowledgebaseOptions withChunkDiffusionCount(int chunkDiffusionCount) {
+        return new SearchKnowledgebaseOptions(
+                topK, rerank, chunkDiffusionCount, metadataFilter, deadline);
+    }
+
+    public SearchKnowledgebaseOptions withMetadataFilter(Map<String, String> metadataFilter) {
+        return new SearchKnowledgebaseOptions(
+                topK, rerank, chunkDiffusionCount, metadataFilter, deadline);
+    }
+
+    public SearchKnowledgebaseOptions withDeadline(Instant deadline) {
+        return new SearchKnowledgebaseOptions(
+                topK, rerank, chunkDiffusionCount, metadataFilter, deadline);
+    }
+
+    /**
+     * Time left until the deadline
+     * @param nowMillis The current time in epoch milliseconds
+     * @return Milliseconds left, negative once passed, or Long.MAX_VALUE without a deadline
+     */
+    public long remainingMillis(long nowMillis) {
+        return deadline == null ? Long.MAX_VALUE : deadline.toEpochMilli() - nowMillis;
+    }
+
+    /**
+     * Whether an entry passes the metadata filter
+     * @param entry The entry
+     * @return Whether the entry has every field of the filter, with the same value
+     */
+    public boolean matches(KnowledgebaseEntry entry) {
+        if (metadataFilter.isEmpty()) {
+            return true;
+        }
+        Map<String, String> metadata = entry.getMetadata();
+        return metadata != null && metadata.entrySet().containsAll(metadataFilter.entrySet());
+    }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 public class SearchKnowledgebaseResponse {
 
     private ImmutableList<KnowledgebaseEntry> knowledgebaseEntries;
+    private SearchKnowledgebaseOptions appliedOptions;
 
     public void setKnowledgebaseEntries(List<KnowledgebaseEntry> knowledgebaseEntries) {
         this.knowledgebaseEntries = ImmutableList.copyOf(knowledgebaseEntries);
@@ -31,4 +32,20 @@ public class SearchKnowledgebaseResponse {
     public ImmutableList<KnowledgebaseEntry> getKnowledgebaseEntries() {
         return knowledgebaseEntries;
     }
+
+    /**
+     * Record the settings the search ran with, e.g. after rerank was dropped to meet a deadline
+     * @param appliedOptions The settings applied by the service
+     */
+    public void setAppliedOptions(SearchKnowledgebaseOptions appliedOptions) {
+        this.appliedOptions = appliedOptions;
+    }
+
+    /**
+     * The settings the search ran with
+     * @return The applied settings, or null when the service does not report them
+     */
+    public SearchKnowledgebaseOptions getAppliedOptions() {
+        return appliedOptions;
+    }
 }
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.utils.JSONUtil;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Append-only file of knowledgebase chunks, one JSON object per line, identified by their line
+ * number.
+ *
+ * <p>Only the line offsets are kept in memory; chunks are read from the file when returned by a
+ * search. A last line without its newline, left by a crash, is dropped on open.
+ */
+final class ChunkStore implements AutoCloseable {
+
+    record Chunk(String content, Map<String, String> metadata) {}
+
+    private final FileChannel channel;
+    // offsets[i] is where chunk i starts, offsets[size] where the next one will
+    private long[] offsets;
+    private int size;
+
+    private ChunkStore(FileChannel channel, long[] offsets, int size) {
+        this.channel = channel;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * Open a chunk file, creating it if missing
+     * @param path The chunk file
+     * @return The opened store
+     * @throws IOException If the file cannot be read
+     */
+    static ChunkStore open(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileChannel channel =
+                FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        long[] offsets = new long[1024];
+        int size = 0;
+        long position = 0;
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(0)));
+        int b;
+        while ((b = in.read()) != -1) {
+            position++;
+            if (b == '\n') {
+                if (size + 1 == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[++size] = position;
+            }
+        }
+        ChunkStore store = new ChunkStore(channel, offsets, size);
+        store.truncate(size);
+        return store;
+    }
+
+    /**
+     * Append a chunk
+     * @param entry The chunk content and metadata
+     * @return The id of the chunk
+     * @throws IOException If the chunk cannot be written
+     */
+    synchronized int append(KnowledgebaseEntry entry) throws IOException {
+        byte[] line =
+                (JSONUtil.toJson(new Chunk(entry.getContent(), entry.getMetadata())) + "\n")
+                        .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        long position = offsets[size];
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        if (size + 1 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[size + 1] = position;
+        return size++;
+    }
+
+    /**
+     * Read a chunk
+     * @param id The chunk id
+     * @return The chunk content and metadata
+     * @throws IOException If the chunk cannot be read
+     */
+    KnowledgebaseEntry get(int id) throws IOException {
+        long start;
+        long end;
+        synchronized (this) {
+            if (id < 0 || id >= size) {
+                throw new IndexOutOfBoundsException("no chunk " + id);
+            }
+            start = offsets[id];
+            end = offsets[id + 1];
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Chunk " + id + " is truncated");
+            }
+        }
+        Chunk chunk =
+                JSONUtil.fromJson(
+                        new String(buffer.array(), StandardCharsets.UTF_8),
+                        new TypeReference<Chunk>() {});
+        return new KnowledgebaseEntry(chunk.content(), chunk.metadata());
+    }
+
+    /**
+     * Forget the chunks from an id on, e.g. those whose vector was lost in a crash
+     * @param newSize Number of chunks to keep
+     * @throws IOException If the file cannot be truncated
+     */
+    synchronized void truncate(int newSize) throws IOException {
+        if (newSize <= size) {
+            size = newSize;
+            channel.truncate(offsets[size]);
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+/**
+ * Settings of document chunking.
+ *
+ * @param chunkTokens Maximum estimated tokens of a chunk
+ * @param overlapTokens Estimated tokens a chunk repeats from the end of the previous one
+ * @param parallelism Number of threads chunking documents
+ */
+public record ChunkingOptions(int chunkTokens, int overlapTokens, int parallelism) {
+
+    public ChunkingOptions {
+        if (chunkTokens <= 0 || overlapTokens < 0 || overlapTokens >= chunkTokens) {
+            throw new IllegalArgumentException(
+                    "chunkTokens must be positive and overlapTokens between 0 and chunkTokens.");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+    }
+
+    /** Chunks of 512 tokens overlapping by 64, chunked on every available processor. */
+    public static ChunkingOptions defaults() {
+        return new ChunkingOptions(512, 64, Runtime.getRuntime().availableProcessors());
+    }
+}
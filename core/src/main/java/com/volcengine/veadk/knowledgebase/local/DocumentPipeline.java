@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns document files into chunks for a local knowledgebase.
+ *
+ * <p>Files are read as a stream of blocks of about a million characters, cut at line breaks, so
+ * that no file has to fit in memory. Blocks are chunked in parallel on a fork-join pool while the
+ * following ones are read, and the chunks come out in file order. At most one block per thread is
+ * held ahead of the consumer, which pulls the entries at its own pace, e.g.
+ * {@code pipeline.read(directory).buffer(256).concatMapCompletable(service::addDocuments)}.
+ *
+ * <p>Markdown and plain text are chunked as they are, HTML is reduced to its text first. Each entry
+ * carries the path of its file as "source" and its position in the file as "chunk_index". PDF
+ * files are skipped, since their text has to be extracted with a PDF library first.
+ */
+public class DocumentPipeline implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentPipeline.class);
+
+    private static final int DEFAULT_BLOCK_CHARS = 1 << 20;
+    private static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "md", "markdown");
+    private static final Set<String> HTML_EXTENSIONS = Set.of("html", "htm");
+
+    private final TextChunker chunker;
+    private final int parallelism;
+    private final int blockChars;
+    private final ForkJoinPool pool;
+    private final Scheduler scheduler;
+
+    public DocumentPipeline() {
+        this(ChunkingOptions.defaults());
+    }
+
+    public DocumentPipeline(ChunkingOptions options) {
+        this(options, DEFAULT_BLOCK_CHARS);
+    }
+
+    DocumentPipeline(ChunkingOptions options, int blockChars) {
+        this.chunker = new TextChunker(options.chunkTokens(), options.overlapTokens());
+        this.parallelism = options.parallelism();
+        this.blockChars = blockChars;
+        this.pool =
+                new ForkJoinPool(
+                        options.parallelism(),
+                        pool -> {
+                            ForkJoinWorkerThread thread =
+                                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                            thread.setName("veadk-chunking-" + thread.getPoolIndex());
+                            return thread;
+                        },
+                        null,
+                        false);
+        this.scheduler = Schedulers.from(pool);
+    }
+
+    /**
+     * Chunk the text, Markdown and HTML files under a directory. PDF files are skipped with a
+     * warning, since their text must be extracted first
+     * @param directory The directory, searched recursively
+     * @return The chunks of the files in path order
+     */
+    public Flowable<KnowledgebaseEntry> read(Path directory) {
+        return Flowable.defer(
+                () -> {
+                    List<Path> files;
+                    try (Stream<Path> walk = Files.walk(directory)) {
+                        files =
+                                walk.filter(Files::isRegularFile)
+                                        .filter(DocumentPipeline::isDocument)
+                                        .sorted()
+                                        .toList();
+                    }
+                    return read(files);
+                });
+    }
+
+    /**
+     * Chunk files. HTML files are recognized by their extension, and any other file except PDF is
+     * read as UTF-8 text
+     * @param files The files
+     * @return The chunks of the files in the given order
+     */
+    public Flowable<KnowledgebaseEntry> read(List<Path> files) {
+        return Flowable.defer(
+                () -> {
+                    ChunkNumbering numbering = new ChunkNumbering();
+                    return Flowable.fromIterable(files)
+                            .concatMap(this::blocks)
+                            .concatMapEager(
+                                    block ->
+                                            Single.fromCallable(() -> chunker.chunk(block.text()))
+                                                    .subscribeOn(scheduler)
+                                                    .flattenAsFlowable(chunks -> chunks)
+                                                    .map(
+                                                            content ->
+                                                                    new Chunk(
+                                                                            block.source(),
+                                                                            content)),
+                                    parallelism,
+                                    1)
+                            .map(numbering::entry);
+                });
+    }
+
+    /** Stop the chunking threads. */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private Flowable<Block> blocks(Path file) {
+        String extension = extension(file);
+        if (extension.equals("pdf")) {
+            log.warn("Skipping {}: extract the text of PDF documents before chunking", file);
+            return Flowable.empty();
+        }
+        boolean html = HTML_EXTENSIONS.contains(extension);
+        return Flowable.generate(
+                () -> new BlockReader(file, blockChars, html),
+                (reader, emitter) -> {
+                    String text = reader.next();
+                    if (text == null) {
+                        emitter.onComplete();
+                    } else {
+                        emitter.onNext(new Block(file.toString(), text));
+                    }
+                },
+                BlockReader::close);
+    }
+
+    private static boolean isDocument(Path file) {
+        String extension = extension(file);
+        return TEXT_EXTENSIONS.contains(extension)
+                || HTML_EXTENSIONS.contains(extension)
+                || extension.equals("pdf");
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private record Block(String source, String text) {}
+
+    private record Chunk(String source, String content) {}
+
+    // Numbers the chunks of each file, which arrive in order
+    private static final class ChunkNumbering {
+
+        private String source;
+        private int index;
+
+        KnowledgebaseEntry entry(Chunk chunk) {
+            if (!chunk.source().equals(source)) {
+                source = chunk.source();
+                index = 0;
+            }
+            return new KnowledgebaseEntry(
+                    chunk.content(),
+                    Map.of("source", chunk.source(), "chunk_index", String.valueOf(index++)));
+        }
+    }
+
+    private static final class BlockReader implements AutoCloseable {
+
+        private final Reader reader;
+        private final char[] buffer;
+        private final HtmlText html;
+        private int length = 0;
+        private boolean eof = false;
+
+        BlockReader(Path file, int blockChars, boolean html) throws IOException {
+            this.reader =
+                    new InputStreamReader(
+                            Files.newInputStream(file),
+                            StandardCharsets.UTF_8
+                                    .newDecoder()
+                                    .onMalformedInput(CodingErrorAction.REPLACE)
+                                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+            this.buffer = new char[blockChars];
+            this.html = html ? new HtmlText() : null;
+        }
+
+        /**
+         * Read the next block
+         * @return The text of the block, or null at the end of the file
+         * @throws IOException If the file cannot be read
+         */
+        String next() throws IOException {
+            while (!eof && length < buffer.length) {
+                int read = reader.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    length += read;
+                }
+            }
+            if (length == 0) {
+                return null;
+            }
+            int end = eof ? length : cut();
+            String text = new String(buffer, 0, end);
+            System.arraycopy(buffer, end, buffer, 0, length - end);
+            length -= end;
+            return html == null ? text : html.text(text);
+        }
+
+        // End the block after its last line break, or else its last whitespace, searching only the
+        // second half so that every block makes progress
+        private int cut() {
+            for (int i = length - 1; i > length / 2; i--) {
+                if (buffer[i] == '\n') {
+                    return i + 1;
+                }
+            }
+            for (int i = length - 1; i > length / 2; i--) {
+                if (Character.isWhitespace(buffer[i])) {
+                    return i + 1;
+                }
+            }
+            return Character.isHighSurrogate(buffer[length - 1]) ? length - 1 : length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
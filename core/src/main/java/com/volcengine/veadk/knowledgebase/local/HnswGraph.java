@@ -0,0 +1,363 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hierarchical navigable small world graph over the vectors of a {@link VectorStore}, for
+ * approximate nearest neighbour search by cosine similarity.
+ *
+ * <p>Node ids are the vector ids. Inserts are serialized, while searches never lock: the neighbour
+ * lists of a node are replaced copy-on-write, and a node is linked from the graph only after its
+ * own lists are published. The graph is persisted with {@link #write(Path)}, so a restart only
+ * inserts the vectors added since the last write.
+ */
+final class HnswGraph {
+
+    static final int DEFAULT_M = 16;
+    static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+    private static final int MAGIC = 0x484e5357;
+    private static final int MAX_LEVEL = 16;
+    private static final int[] NO_NEIGHBOURS = new int[0];
+
+    private final VectorStore vectors;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    // Neighbour lists of each node, indexed by level
+    private volatile AtomicReferenceArray<int[][]> links = new AtomicReferenceArray<>(1024);
+    private volatile Entry entry;
+    private volatile int size;
+
+    record Entry(int node, int level) {}
+
+    record Scored(int node, float similarity) {}
+
+    HnswGraph(VectorStore vectors) {
+        this(vectors, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    /**
+     * Create an empty graph
+     * @param vectors The vectors to index
+     * @param m Neighbours per node on the upper levels, twice as many on level 0
+     * @param efConstruction Candidates considered when linking a new node
+     */
+    HnswGraph(VectorStore vectors, int m, int efConstruction) {
+        if (m < 2 || efConstruction < m) {
+            throw new IllegalArgumentException(
+                    "m must be at least 2 and efConstruction at least m");
+        }
+        this.vectors = vectors;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * Read a graph written by {@link #write(Path)}
+     * @param path The graph file
+     * @param vectors The vectors the graph indexes
+     * @return The graph, empty when the file does not exist
+     * @throws IOException If the file is corrupt or indexes vectors the store does not hold
+     */
+    static HnswGraph read(Path path, VectorStore vectors) throws IOException {
+        HnswGraph graph = new HnswGraph(vectors);
+        if (!Files.exists(path)) {
+            return graph;
+        }
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a graph file: " + path);
+            }
+            int size = in.readInt();
+            int entryNode = in.readInt();
+            int entryLevel = in.readInt();
+            if (size > vectors.count() || entryNode >= size) {
+                throw new IOException("Graph " + path + " is ahead of its vectors");
+            }
+            AtomicReferenceArray<int[][]> links = new AtomicReferenceArray<>(Math.max(1024, size));
+            for (int node = 0; node < size; node++) {
+                int[][] levels = new int[in.readInt()][];
+                for (int level = 0; level < levels.length; level++) {
+                    int[] neighbours = new int[in.readInt()];
+                    for (int i = 0; i < neighbours.length; i++) {
+                        neighbours[i] = in.readInt();
+                    }
+                    levels[level] = neighbours;
+                }
+                links.set(node, levels);
+            }
+            graph.links = links;
+            graph.entry = entryNode < 0 ? null : new Entry(entryNode, entryLevel);
+            graph.size = size;
+        }
+        return graph;
+    }
+
+    /**
+     * Write the graph to a new file that atomically replaces path
+     * @param path The graph file
+     * @throws IOException If the file cannot be written
+     */
+    synchronized void write(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(entry == null ? -1 : entry.node());
+            out.writeInt(entry == null ? -1 : entry.level());
+            for (int node = 0; node < size; node++) {
+                int[][] levels = links.get(node);
+                out.writeInt(levels.length);
+                for (int[] neighbours : levels) {
+                    out.writeInt(neighbours.length);
+                    for (int neighbour : neighbours) {
+                        out.writeInt(neighbour);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Link a vector into the graph. Vectors must be inserted in id order
+     * @param node The vector id
+     */
+    synchronized void insert(int node) {
+        if (node != size) {
+            throw new IllegalArgumentException("expected node " + size + " but got " + node);
+        }
+        float[] vector = vectors.get(node);
+        int level = randomLevel();
+        ensureCapacity(node + 1);
+
+        Entry current = entry;
+        int[][] nodeLinks = new int[level + 1][];
+        if (current == null) {
+            Arrays.fill(nodeLinks, NO_NEIGHBOURS);
+            links.set(node, nodeLinks);
+            size = node + 1;
+            entry = new Entry(node, level);
+            return;
+        }
+
+        VectorStore.Scorer scorer = vectors.scorer(vector);
+        Scored nearest = new Scored(current.node(), scorer.score(current.node()));
+        for (int l = current.level(); l > level; l--) {
+            nearest = greedy(scorer, nearest, l);
+        }
+        // Choose the neighbours on every level before publishing, as readers may already follow
+        // the links of this node once a neighbour links back to it
+        for (int l = level; l >= 0; l--) {
+            if (l > current.level()) {
+                nodeLinks[l] = NO_NEIGHBOURS;
+                continue;
+            }
+            List<Scored> candidates = searchLayer(scorer, nearest, efConstruction, l);
+            nodeLinks[l] = ids(selectNeighbours(candidates, l == 0 ? maxM0 : m));
+            nearest = candidates.get(0);
+        }
+        links.set(node, nodeLinks);
+        size = node + 1;
+        for (int l = Math.min(level, current.level()); l >= 0; l--) {
+            for (int neighbour : nodeLinks[l]) {
+                link(neighbour, node, l);
+            }
+        }
+        if (level > current.level()) {
+            entry = new Entry(node, level);
+        }
+    }
+
+    /**
+     * Find the nearest vectors to a query
+     * @param query The normalized query
+     * @param k Number of results
+     * @param ef Size of the candidate list, larger is slower but more accurate
+     * @return Up to k vectors, most similar first
+     */
+    List<Scored> search(float[] query, int k, int ef) {
+        Entry current = entry;
+        if (current == null) {
+            return List.of();
+        }
+        VectorStore.Scorer scorer = vectors.scorer(query);
+        Scored nearest = new Scored(current.node(), scorer.score(current.node()));
+        for (int l = current.level(); l > 0; l--) {
+            nearest = greedy(scorer, nearest, l);
+        }
+        List<Scored> results = searchLayer(scorer, nearest, Math.max(ef, k), 0);
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private Scored greedy(VectorStore.Scorer scorer, Scored start, int level) {
+        Scored best = start;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : neighbours(best.node(), level)) {
+                float similarity = scorer.score(neighbour);
+                if (similarity > best.similarity()) {
+                    best = new Scored(neighbour, similarity);
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    private List<Scored> searchLayer(VectorStore.Scorer scorer, Scored start, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        visited.set(start.node());
+        PriorityQueue<Scored> candidates =
+                new PriorityQueue<>(Comparator.comparingDouble(Scored::similarity).reversed());
+        PriorityQueue<Scored> results =
+                new PriorityQueue<>(Comparator.comparingDouble(Scored::similarity));
+        candidates.add(start);
+        results.add(start);
+        while (!candidates.isEmpty()) {
+            Scored candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity() < results.peek().similarity()) {
+                break;
+            }
+            for (int neighbour : neighbours(candidate.node(), level)) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float similarity = scorer.score(neighbour);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Scored scored = new Scored(neighbour, similarity);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Scored> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Scored::similarity).reversed());
+        return sorted;
+    }
+
+    // Keep candidates that are closer to the base than to any neighbour already kept, which
+    // spreads links across clusters, then fill up with the closest of the rest
+    private List<Scored> selectNeighbours(List<Scored> candidates, int max) {
+        List<Scored> selected = new ArrayList<>(max);
+        List<Scored> skipped = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            VectorStore.Scorer scorer = vectors.scorer(vectors.get(candidate.node()));
+            boolean diverse = true;
+            for (Scored kept : selected) {
+                if (scorer.score(kept.node()) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    private void link(int from, int to, int level) {
+        int[][] current = links.get(from);
+        int[] neighbours = current[level];
+        int max = level == 0 ? maxM0 : m;
+        int[] updated;
+        if (neighbours.length < max) {
+            updated = Arrays.copyOf(neighbours, neighbours.length + 1);
+            updated[neighbours.length] = to;
+        } else {
+            VectorStore.Scorer scorer = vectors.scorer(vectors.get(from));
+            List<Scored> candidates = new ArrayList<>(neighbours.length + 1);
+            for (int neighbour : neighbours) {
+                candidates.add(new Scored(neighbour, scorer.score(neighbour)));
+            }
+            candidates.add(new Scored(to, scorer.score(to)));
+            candidates.sort(Comparator.comparingDouble(Scored::similarity).reversed());
+            updated = ids(selectNeighbours(candidates, max));
+        }
+        int[][] copy = current.clone();
+        copy[level] = updated;
+        links.set(from, copy);
+    }
+
+    private int[] neighbours(int node, int level) {
+        int[][] levels = links.get(node);
+        return levels == null || level >= levels.length ? NO_NEIGHBOURS : levels[level];
+    }
+
+    private int randomLevel() {
+        double level = -Math.log(1 - random.nextDouble()) * levelMultiplier;
+        return (int) Math.min(level, MAX_LEVEL);
+    }
+
+    private void ensureCapacity(int required) {
+        AtomicReferenceArray<int[][]> current = links;
+        if (required <= current.length()) {
+            return;
+        }
+        AtomicReferenceArray<int[][]> grown = new AtomicReferenceArray<>(current.length() * 2);
+        for (int i = 0; i < size; i++) {
+            grown.set(i, current.get(i));
+        }
+        links = grown;
+    }
+
+    private static int[] ids(List<Scored> scored) {
+        int[] ids = new int[scored.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = scored.get(i).node();
+        }
+        return ids;
+    }
+}
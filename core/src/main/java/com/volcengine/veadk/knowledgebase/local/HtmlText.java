@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the text of an HTML document given in consecutive parts. Tags, comments and the
+ * content of scripts and styles are dropped, block elements become line breaks and common entities
+ * are decoded. A tag split across parts is handled by keeping its state between calls.
+ */
+final class HtmlText {
+
+    private static final Set<String> SKIPPED = Set.of("script", "style", "noscript", "template");
+    private static final Set<String> BLOCKS =
+            Set.of(
+                    "p",
+                    "div",
+                    "br",
+                    "li",
+                    "tr",
+                    "td",
+                    "th",
+                    "h1",
+                    "h2",
+                    "h3",
+                    "h4",
+                    "h5",
+                    "h6",
+                    "section",
+                    "article",
+                    "header",
+                    "footer",
+                    "blockquote",
+                    "pre",
+                    "table",
+                    "ul",
+                    "ol",
+                    "hr",
+                    "title");
+    private static final Pattern ENTITY = Pattern.compile("&(#x?[0-9a-fA-F]+|[a-zA-Z]+);");
+
+    private final StringBuilder tag = new StringBuilder();
+    private boolean inTag = false;
+    // Element whose content is being dropped, or null
+    private String skipping = null;
+
+    /**
+     * Extract the text of the next part of the document
+     * @param html The part
+     * @return Its text
+     */
+    String text(String html) {
+        StringBuilder text = new StringBuilder(html.length());
+        for (int i = 0; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (inTag) {
+                if (c == '>' && !(isComment() && !endsWith(tag, "--"))) {
+                    endTag(text);
+                } else {
+                    tag.append(c);
+                }
+            } else if (c == '<') {
+                inTag = true;
+                tag.setLength(0);
+            } else if (skipping == null) {
+                text.append(c);
+            }
+        }
+        return decode(text.toString())
+                .replaceAll("[ \\t\\x0B\\f\\r]+", " ")
+                .replaceAll(" ?\\n[\\s]*", "\n");
+    }
+
+    private void endTag(StringBuilder text) {
+        inTag = false;
+        if (isComment()) {
+            return;
+        }
+        boolean closing = tag.length() > 0 && tag.charAt(0) == '/';
+        int start = closing ? 1 : 0;
+        int end = start;
+        while (end < tag.length()
+                && !Character.isWhitespace(tag.charAt(end))
+                && tag.charAt(end) != '/') {
+            end++;
+        }
+        String name = tag.substring(start, end).toLowerCase(Locale.ROOT);
+        if (skipping != null) {
+            if (closing && name.equals(skipping)) {
+                skipping = null;
+            }
+        } else if (!closing && SKIPPED.contains(name)) {
+            skipping = name;
+        } else if (BLOCKS.contains(name)) {
+            text.append('\n');
+        }
+    }
+
+    private boolean isComment() {
+        return tag.length() >= 3
+                && tag.charAt(0) == '!'
+                && tag.charAt(1) == '-'
+                && tag.charAt(2) == '-';
+    }
+
+    private static boolean endsWith(StringBuilder builder, String suffix) {
+        return builder.length() >= suffix.length()
+                && builder.substring(builder.length() - suffix.length()).equals(suffix);
+    }
+
+    private static String decode(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        Matcher matcher = ENTITY.matcher(text);
+        StringBuilder decoded = new StringBuilder(text.length());
+        while (matcher.find()) {
+            String entity = matcher.group(1);
+            String replacement =
+                    switch (entity) {
+                        case "amp" -> "&";
+                        case "lt" -> "<";
+                        case "gt" -> ">";
+                        case "quot" -> "\"";
+                        case "apos" -> "'";
+                        case "nbsp" -> " ";
+                        default -> codePoint(entity);
+                    };
+            matcher.appendReplacement(decoded, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(decoded);
+        return decoded.toString();
+    }
+
+    // The character of a numeric entity, or the entity itself when it is not one
+    private static String codePoint(String entity) {
+        try {
+            if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                return Character.toString(Integer.parseInt(entity.substring(2), 16));
+            }
+            if (entity.startsWith("#")) {
+                return Character.toString(Integer.parseInt(entity.substring(1)));
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a valid code point, keep the entity as written
+        }
+        return "&" + entity + ";";
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory inverted index of the documents added since the last segment was written. It is
+ * searched like a segment, and written as one once large enough.
+ */
+final class KeywordBuffer {
+
+    private final int base;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int[] lengths = new int[1024];
+    private int size = 0;
+    private long totalLength = 0;
+
+    /**
+     * Create an empty buffer
+     * @param base Id of the first document added to the buffer
+     */
+    KeywordBuffer(int base) {
+        this.base = base;
+    }
+
+    /**
+     * Add the next document
+     * @param tokens Tokens of the document
+     * @return The document id
+     */
+    synchronized int add(List<String> tokens) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        int document = size;
+        frequencies.forEach(
+                (token, frequency) ->
+                        postings.computeIfAbsent(token, k -> new Postings())
+                                .add(document, frequency));
+        if (size == lengths.length) {
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        lengths[size++] = tokens.size();
+        totalLength += tokens.size();
+        return base + document;
+    }
+
+    synchronized int docFrequency(String term) {
+        Postings matches = postings.get(term);
+        return matches == null ? 0 : matches.count;
+    }
+
+    /**
+     * Visit the postings of a term
+     * @param term The term
+     * @param visitor Receives the absolute id, term frequency and length of each document
+     */
+    synchronized void postings(String term, KeywordSegment.PostingVisitor visitor) {
+        Postings matches = postings.get(term);
+        if (matches == null) {
+            return;
+        }
+        for (int i = 0; i < matches.count; i++) {
+            int document = matches.documents[i];
+            visitor.visit(base + document, matches.frequencies[i], lengths[document]);
+        }
+    }
+
+    /**
+     * Write the buffered documents as a segment
+     * @param path The segment file
+     * @throws IOException If the segment cannot be written
+     */
+    synchronized void write(Path path) throws IOException {
+        List<Map.Entry<byte[], Postings>> terms = new ArrayList<>(postings.size());
+        postings.forEach(
+                (term, matches) ->
+                        terms.add(Map.entry(term.getBytes(StandardCharsets.UTF_8), matches)));
+        terms.sort(Map.Entry.comparingByKey(Arrays::compareUnsigned));
+        KeywordSegmentWriter writer = new KeywordSegmentWriter(base, Arrays.copyOf(lengths, size));
+        for (Map.Entry<byte[], Postings> term : terms) {
+            Postings matches = term.getValue();
+            writer.add(term.getKey(), matches.documents, matches.frequencies, matches.count);
+        }
+        writer.write(path);
+    }
+
+    int base() {
+        return base;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long totalLength() {
+        return totalLength;
+    }
+
+    private static final class Postings {
+
+        private int[] documents = new int[2];
+        private int[] frequencies = new int[2];
+        private int count = 0;
+
+        void add(int document, int frequency) {
+            if (count == documents.length) {
+                documents = Arrays.copyOf(documents, count * 2);
+                frequencies = Arrays.copyOf(frequencies, count * 2);
+            }
+            documents[count] = document;
+            frequencies[count] = frequency;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,476 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
+import com.volcengine.veadk.utils.TokenizerUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Knowledgebase that finds chunks by their keywords, scored with BM25, for exact-term lookups such
+ * as product codes and error ids where vector search is slow and imprecise.
+ *
+ * <p>Chunks are tokenized into lower-case words, single CJK characters and pairs of adjacent CJK
+ * characters. Queries look up single CJK characters only where no pair covers them, since the
+ * postings of common characters span most of a CJK corpus. The inverted index is made of immutable,
+ * memory-mapped segments with delta and varint compressed postings, plus an in-memory buffer of the
+ * latest chunks that is written as a segment every 10000 chunks and on {@link #flush()}. Segments
+ * of similar size are merged ten at a time, so a search visits few of them. The chunks file is the
+ * source of truth: on open, chunks not covered by a segment are indexed again, and segments left
+ * over by an interrupted merge are removed.
+ */
+public class KeywordKnowledgebaseService implements BaseKnowledgebaseService, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeywordKnowledgebaseService.class);
+
+    private static final String CHUNK_FILE = "chunks.jsonl";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)-(\\d+)\\.idx");
+    // Runs of CJK characters long enough to form pairs, as told apart by TokenizerUtil.isCjk
+    private static final Pattern CJK_RUN =
+            Pattern.compile("[\\p{IsHan}\\p{IsHiragana}\\p{IsKatakana}\\p{IsHangul}]{2,}");
+    private static final int DEFAULT_FLUSH_DOCUMENTS = 10_000;
+    private static final int DEFAULT_MERGE_FACTOR = 10;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Candidates ranked per returned chunk when a metadata filter drops some of them
+    private static final int FILTER_OVERSAMPLING = 10;
+
+    private final Path directory;
+    private final int topK;
+    private final int flushDocuments;
+    private final int mergeFactor;
+    private final ChunkStore chunks;
+    // Replaced as a whole, so a search sees a consistent set of segments
+    private volatile State state;
+
+    private record State(List<KeywordSegment> segments, KeywordBuffer buffer) {}
+
+    /**
+     * Create a keyword knowledgebase
+     * @param directory The directory holding the knowledgebase files
+     */
+    public KeywordKnowledgebaseService(Path directory) {
+        this(directory, 5);
+    }
+
+    /**
+     * Create a keyword knowledgebase
+     * @param directory The directory holding the knowledgebase files
+     * @param topK Maximum number of chunks returned by a search
+     */
+    public KeywordKnowledgebaseService(Path directory, int topK) {
+        this(directory, topK, DEFAULT_FLUSH_DOCUMENTS, DEFAULT_MERGE_FACTOR);
+    }
+
+    KeywordKnowledgebaseService(Path directory, int topK, int flushDocuments, int mergeFactor) {
+        if (topK <= 0 || flushDocuments <= 0 || mergeFactor < 2) {
+            throw new IllegalArgumentException(
+                    "topK and flushDocuments must be positive and mergeFactor at least 2");
+        }
+        this.directory = directory;
+        this.topK = topK;
+        this.flushDocuments = flushDocuments;
+        this.mergeFactor = mergeFactor;
+        try {
+            this.chunks = ChunkStore.open(directory.resolve(CHUNK_FILE));
+            List<KeywordSegment> segments = openSegments(chunks.size());
+            int indexed =
+                    segments.isEmpty()
+                            ? 0
+                            : segments.get(segments.size() - 1).base()
+                                    + segments.get(segments.size() - 1).docCount();
+            KeywordBuffer buffer = new KeywordBuffer(indexed);
+            for (int id = indexed; id < chunks.size(); id++) {
+                buffer.add(analyze(chunks.get(id).getContent()));
+            }
+            this.state = new State(segments, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open knowledgebase " + directory, e);
+        }
+    }
+
+    /**
+     * Split text into the terms of the index: lower-case words, single CJK characters and pairs
+     * of adjacent CJK characters
+     * @param text The text
+     * @return The terms in text order, words and characters first
+     */
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>(TokenizerUtil.tokenize(text));
+        terms.addAll(TokenizerUtil.cjkBigrams(text));
+        return terms;
+    }
+
+    /**
+     * Split a query into the terms to look up: the terms of {@link #analyze(String)}, less the
+     * single CJK characters that are part of a pair
+     * @param query The query
+     * @return The distinct terms in query order, words and characters first
+     */
+    static List<String> queryTerms(String query) {
+        List<String> terms =
+                new ArrayList<>(TokenizerUtil.tokenize(CJK_RUN.matcher(query).replaceAll(" ")));
+        terms.addAll(TokenizerUtil.cjkBigrams(query));
+        return terms.stream().distinct().toList();
+    }
+
+    /**
+     * Add documents to the knowledgebase
+     * @param entries The document chunks, with the metadata returned alongside them by searches
+     * @return Completable that completes once the chunks are searchable
+     */
+    public Completable addDocuments(List<KnowledgebaseEntry> entries) {
+        return Completable.fromAction(() -> insert(entries));
+    }
+
+    /**
+     * Add a document to the knowledgebase
+     * @param content The document chunk
+     * @param metadata The metadata returned alongside the chunk by searches
+     * @return Completable that completes once the chunk is searchable
+     */
+    public Completable addDocument(String content, Map<String, String> metadata) {
+        return addDocuments(List.of(new KnowledgebaseEntry(content, metadata)));
+    }
+
+    /**
+     * Search the chunks sharing the most distinctive terms with a query
+     * @param query The query
+     * @return The best matching chunks, best first
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+        return Single.fromCallable(
+                () -> search(query, SearchKnowledgebaseOptions.defaults().withTopK(topK)));
+    }
+
+    /**
+     * Search the chunks sharing the most distinctive terms with a query. The topK and the
+     * metadata filter of the options apply; the filter is applied to the ten best candidates per
+     * chunk returned, so a selective filter may return fewer than topK chunks
+     * @param query The query
+     * @param options The search settings
+     * @return The best matching chunks, best first
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        return Single.fromCallable(() -> search(query, options));
+    }
+
+    /**
+     * Number of chunks in the knowledgebase
+     * @return The number of chunks
+     */
+    public int size() {
+        KeywordBuffer buffer = state.buffer();
+        return buffer.base() + buffer.size();
+    }
+
+    /**
+     * Number of segments searched besides the in-memory buffer
+     * @return The number of segments
+     */
+    public int segmentCount() {
+        return state.segments().size();
+    }
+
+    /**
+     * Write the buffered chunks as a segment, so that a restart does not need to index them again
+     * @throws UncheckedIOException If the segment cannot be written
+     */
+    public synchronized void flush() {
+        try {
+            writeBuffer();
+            mergeTiers();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush knowledgebase " + directory, e);
+        }
+    }
+
+    /**
+     * Merge every segment into one, e.g. after a bulk load. Buffered chunks are written first
+     * @throws UncheckedIOException If the merged segment cannot be written
+     */
+    public synchronized void merge() {
+        try {
+            writeBuffer();
+            if (state.segments().size() > 1) {
+                merge(state.segments());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to merge knowledgebase " + directory, e);
+        }
+    }
+
+    /** Write the buffered chunks and close the knowledgebase files. */
+    @Override
+    public synchronized void close() {
+        try {
+            writeBuffer();
+        } catch (IOException e) {
+            log.warn("Failed to write keyword segment of {}", directory, e);
+        }
+        try {
+            for (KeywordSegment segment : state.segments()) {
+                segment.close();
+            }
+            chunks.close();
+        } catch (IOException e) {
+            log.warn("Failed to close knowledgebase {}", directory, e);
+        }
+    }
+
+    private synchronized void insert(List<KnowledgebaseEntry> entries) throws IOException {
+        for (KnowledgebaseEntry entry : entries) {
+            chunks.append(entry);
+            state.buffer().add(analyze(entry.getContent()));
+            if (state.buffer().size() >= flushDocuments) {
+                writeBuffer();
+                mergeTiers();
+            }
+        }
+    }
+
+    private SearchKnowledgebaseResponse search(String query, SearchKnowledgebaseOptions options)
+            throws IOException {
+        State current = state;
+        KeywordBuffer buffer = current.buffer();
+        long documents = buffer.base() + buffer.size();
+        long totalLength = buffer.totalLength();
+        for (KeywordSegment segment : current.segments()) {
+            totalLength += segment.totalLength();
+        }
+        double averageLength = Math.max(1, (double) totalLength / Math.max(1, documents));
+
+        // Indexed by chunk id; chunks added after the search started are left out
+        float[] scores = new float[(int) documents];
+        for (String term : queryTerms(query)) {
+            byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+            int[] found = new int[current.segments().size()];
+            long docFrequency = buffer.docFrequency(term);
+            for (int i = 0; i < found.length; i++) {
+                found[i] = current.segments().get(i).find(bytes);
+                if (found[i] >= 0) {
+                    docFrequency += current.segments().get(i).docFrequency(found[i]);
+                }
+            }
+            if (docFrequency == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (documents - docFrequency + 0.5) / (docFrequency + 0.5));
+            // BM25 with the parts that do not depend on the posting computed once per term
+            float weight = (float) (idf * (K1 + 1));
+            float base = (float) (K1 * (1 - B));
+            float perLength = (float) (K1 * B / averageLength);
+            KeywordSegment.PostingVisitor visitor =
+                    (document, frequency, length) -> {
+                        if (document < scores.length) {
+                            scores[document] +=
+                                    weight * frequency / (frequency + base + perLength * length);
+                        }
+                    };
+            for (int i = 0; i < found.length; i++) {
+                if (found[i] >= 0) {
+                    current.segments().get(i).postings(found[i], visitor);
+                }
+            }
+            buffer.postings(term, visitor);
+        }
+
+        // Keep the best candidates, ties going to the older chunk
+        int candidates =
+                options.metadataFilter().isEmpty()
+                        ? options.topK()
+                        : options.topK() * FILTER_OVERSAMPLING;
+        Comparator<Integer> worstFirst =
+                Comparator.<Integer>comparingDouble(document -> scores[document])
+                        .thenComparing(Comparator.reverseOrder());
+        PriorityQueue<Integer> best = new PriorityQueue<>(worstFirst);
+        for (int document = 0; document < scores.length; document++) {
+            if (scores[document] > 0
+                    && (best.size() < candidates
+                            || worstFirst.compare(document, best.peek()) > 0)) {
+                best.add(document);
+                if (best.size() > candidates) {
+                    best.poll();
+                }
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort(worstFirst.reversed());
+        List<KnowledgebaseEntry> entries = new ArrayList<>(ranked.size());
+        for (int document : ranked) {
+            KnowledgebaseEntry entry = chunks.get(document);
+            if (options.matches(entry)) {
+                entries.add(entry);
+                if (entries.size() == options.topK()) {
+                    break;
+                }
+            }
+        }
+        SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+        response.setKnowledgebaseEntries(entries);
+        return response;
+    }
+
+    private void writeBuffer() throws IOException {
+        KeywordBuffer buffer = state.buffer();
+        if (buffer.size() == 0) {
+            return;
+        }
+        // A segment must never cover chunks that are not on disk
+        chunks.force();
+        Path path = segmentPath(buffer.base(), buffer.size());
+        buffer.write(path);
+        List<KeywordSegment> segments = new ArrayList<>(state.segments());
+        segments.add(KeywordSegment.open(path));
+        state = new State(segments, new KeywordBuffer(buffer.base() + buffer.size()));
+    }
+
+    // Merge the newest segments once mergeFactor of them are of the same size tier
+    private void mergeTiers() throws IOException {
+        while (true) {
+            List<KeywordSegment> segments = state.segments();
+            int newest = segments.size() - 1;
+            if (newest < 0) {
+                return;
+            }
+            int tier = tier(segments.get(newest).docCount());
+            int run = 1;
+            while (run <= newest && tier(segments.get(newest - run).docCount()) == tier) {
+                run++;
+            }
+            if (run < mergeFactor) {
+                return;
+            }
+            merge(segments.subList(segments.size() - run, segments.size()));
+        }
+    }
+
+    private int tier(int docCount) {
+        if (docCount <= flushDocuments) {
+            return 0;
+        }
+        return (int) (Math.log((double) docCount / flushDocuments) / Math.log(mergeFactor));
+    }
+
+    private void merge(List<KeywordSegment> run) throws IOException {
+        int base = run.get(0).base();
+        int docCount = 0;
+        for (KeywordSegment segment : run) {
+            docCount += segment.docCount();
+        }
+        Path path = segmentPath(base, docCount);
+        KeywordSegmentWriter.merge(run, path);
+
+        List<KeywordSegment> segments = new ArrayList<>(state.segments());
+        int first = segments.indexOf(run.get(0));
+        List<KeywordSegment> merged = List.copyOf(run);
+        segments.subList(first, first + merged.size()).clear();
+        segments.add(first, KeywordSegment.open(path));
+        state = new State(segments, state.buffer());
+        // Searches still holding the old segments keep reading their mappings
+        for (KeywordSegment segment : merged) {
+            try {
+                segment.close();
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                log.warn("Failed to delete merged keyword segment {}", segment.path(), e);
+            }
+        }
+        log.debug("Merged {} keyword segments of {} into {}", merged.size(), directory, path);
+    }
+
+    // Keep the segments covering the chunks from 0 without gaps. Others are left over by a crash:
+    // contained in a merged segment, or covering chunks lost from the chunk file
+    private List<KeywordSegment> openSegments(int documents) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.toList();
+        }
+        List<int[]> ranges = new ArrayList<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            Matcher matcher = SEGMENT_FILE.matcher(name);
+            if (matcher.matches()) {
+                ranges.add(
+                        new int[] {
+                            Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))
+                        });
+            } else if (name.endsWith(".idx.tmp")) {
+                Files.deleteIfExists(path);
+            }
+        }
+        // Larger segments first, so that merged segments win over their parts
+        ranges.sort(
+                Comparator.<int[]>comparingInt(range -> range[0])
+                        .thenComparing(range -> range[1], Comparator.reverseOrder()));
+
+        List<KeywordSegment> segments = new ArrayList<>();
+        int covered = 0;
+        for (int[] range : ranges) {
+            Path path = segmentPath(range[0], range[1]);
+            KeywordSegment segment =
+                    range[0] == covered && range[0] + range[1] <= documents ? open(path) : null;
+            if (segment != null && segment.base() == range[0] && segment.docCount() == range[1]) {
+                segments.add(segment);
+                covered += range[1];
+            } else {
+                if (segment != null) {
+                    segment.close();
+                }
+                if (range[0] + range[1] > covered) {
+                    log.warn("Removing stale keyword segment {}", path);
+                }
+                Files.deleteIfExists(path);
+            }
+        }
+        return segments;
+    }
+
+    private static KeywordSegment open(Path path) {
+        try {
+            return KeywordSegment.open(path);
+        } catch (IOException e) {
+            log.warn("Failed to open keyword segment {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path segmentPath(int base, int docCount) {
+        return directory.resolve("segment-" + base + "-" + docCount + ".idx");
+    }
+}
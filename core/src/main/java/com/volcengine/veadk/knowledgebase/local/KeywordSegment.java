@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable, memory-mapped inverted index over a contiguous range of documents.
+ *
+ * <p>The file holds a header {@code [int magic][int base][int docCount][int termCount][long
+ * totalLength]}, the token count of each document, a table of terms sorted by their UTF-8 bytes
+ * {@code [int termOffset][int termLength][int docFrequency][int postingsOffset][int
+ * postingsLength]}, the term bytes, and the postings: pairs of varint document gap and frequency.
+ * Terms are found by binary search directly in the mapping, so opening a segment reads nothing.
+ */
+final class KeywordSegment implements AutoCloseable {
+
+    static final int MAGIC = 0x4b575347;
+    static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+    static final int TERM_ENTRY_BYTES = 5 * Integer.BYTES;
+
+    /** Receives the postings of a term. */
+    interface PostingVisitor {
+        void visit(int document, int frequency, int length);
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int base;
+    private final int docCount;
+    private final int termCount;
+    private final long totalLength;
+    private final int termTable;
+
+    private KeywordSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.base = buffer.getInt(Integer.BYTES);
+        this.docCount = buffer.getInt(2 * Integer.BYTES);
+        this.termCount = buffer.getInt(3 * Integer.BYTES);
+        this.totalLength = buffer.getLong(4 * Integer.BYTES);
+        this.termTable = HEADER_BYTES + docCount * Integer.BYTES;
+    }
+
+    /**
+     * Map a segment file
+     * @param path The segment file
+     * @return The opened segment
+     * @throws IOException If the file cannot be mapped or is not a segment
+     */
+    static KeywordSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Not a keyword segment: " + path);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a keyword segment: " + path);
+        }
+        return new KeywordSegment(path, channel, buffer);
+    }
+
+    /**
+     * Find a term
+     * @param term The term, in UTF-8
+     * @return Index of the term in the segment, or -1 when absent
+     */
+    int find(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = compare(middle, term);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The bytes of a term
+     * @param index Index of the term
+     * @return The term, in UTF-8
+     */
+    byte[] term(int index) {
+        int entry = termTable + index * TERM_ENTRY_BYTES;
+        byte[] term = new byte[buffer.getInt(entry + Integer.BYTES)];
+        buffer.get(buffer.getInt(entry), term);
+        return term;
+    }
+
+    int docFrequency(int index) {
+        return buffer.getInt(termTable + index * TERM_ENTRY_BYTES + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Visit the postings of a term
+     * @param index Index of the term
+     * @param visitor Receives the absolute id, term frequency and length of each document
+     */
+    void postings(int index, PostingVisitor visitor) {
+        int entry = termTable + index * TERM_ENTRY_BYTES;
+        int position = buffer.getInt(entry + 3 * Integer.BYTES);
+        int end = position + buffer.getInt(entry + 4 * Integer.BYTES);
+        int document = 0;
+        while (position < end) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                gap |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            int frequency = 0;
+            shift = 0;
+            do {
+                b = buffer.get(position++);
+                frequency |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            document += gap;
+            visitor.visit(base + document, frequency, length(document));
+        }
+    }
+
+    /**
+     * Token count of a document
+     * @param document Id of the document, relative to the segment base
+     * @return The token count
+     */
+    int length(int document) {
+        return buffer.getInt(HEADER_BYTES + document * Integer.BYTES);
+    }
+
+    int base() {
+        return base;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    long totalLength() {
+        return totalLength;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Compares unsigned bytes, the order terms are written in
+    private int compare(int index, byte[] term) {
+        int entry = termTable + index * TERM_ENTRY_BYTES;
+        int offset = buffer.getInt(entry);
+        int length = buffer.getInt(entry + Integer.BYTES);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int compared = Integer.compare(buffer.get(offset + i) & 0xff, term[i] & 0xff);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Writes an immutable {@link KeywordSegment}. Terms must be added in ascending order of their
+ * UTF-8 bytes, each with its documents in ascending order.
+ */
+final class KeywordSegmentWriter {
+
+    private final int base;
+    private final int[] lengths;
+    private final List<byte[]> terms = new ArrayList<>();
+    private final List<int[]> entries = new ArrayList<>();
+    private final ByteArrayOutputStream postings = new ByteArrayOutputStream();
+
+    /**
+     * Create a writer
+     * @param base Id of the first document of the segment
+     * @param lengths Token count of each document of the segment
+     */
+    KeywordSegmentWriter(int base, int[] lengths) {
+        this.base = base;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Add the postings of a term
+     * @param term The term, in UTF-8
+     * @param documents Ids of the documents containing the term, relative to the segment base
+     * @param frequencies Occurrences of the term in each document
+     * @param count Number of postings to take from the arrays
+     */
+    void add(byte[] term, int[] documents, int[] frequencies, int count) {
+        int start = postings.size();
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(documents[i] - previous);
+            writeVarint(frequencies[i]);
+            previous = documents[i];
+        }
+        terms.add(term);
+        // docFrequency, postings start and postings length, resolved on write
+        entries.add(new int[] {count, start, postings.size() - start});
+    }
+
+    /**
+     * Write the segment to a new file that atomically replaces path
+     * @param path The segment file
+     * @throws IOException If the file cannot be written
+     */
+    void write(Path path) throws IOException {
+        long totalLength = 0;
+        for (int length : lengths) {
+            totalLength += length;
+        }
+        int termTable = KeywordSegment.HEADER_BYTES + lengths.length * Integer.BYTES;
+        int termBytes = termTable + terms.size() * KeywordSegment.TERM_ENTRY_BYTES;
+        int postingsStart = termBytes;
+        for (byte[] term : terms) {
+            postingsStart += term.length;
+        }
+        if ((long) postingsStart + postings.size() > Integer.MAX_VALUE) {
+            throw new IOException("Keyword segment is too large: " + path);
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(KeywordSegment.MAGIC);
+            out.writeInt(base);
+            out.writeInt(lengths.length);
+            out.writeInt(terms.size());
+            out.writeLong(totalLength);
+            for (int length : lengths) {
+                out.writeInt(length);
+            }
+            int termOffset = termBytes;
+            for (int i = 0; i < terms.size(); i++) {
+                int[] entry = entries.get(i);
+                out.writeInt(termOffset);
+                out.writeInt(terms.get(i).length);
+                out.writeInt(entry[0]);
+                out.writeInt(postingsStart + entry[1]);
+                out.writeInt(entry[2]);
+                termOffset += terms.get(i).length;
+            }
+            for (byte[] term : terms) {
+                out.write(term);
+            }
+            postings.writeTo(out);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Merge adjacent segments into one
+     * @param segments Segments covering contiguous document ranges, in document order
+     * @param path The file of the merged segment
+     * @throws IOException If the merged segment cannot be written
+     */
+    static void merge(List<KeywordSegment> segments, Path path) throws IOException {
+        int base = segments.get(0).base();
+        int docCount = 0;
+        for (KeywordSegment segment : segments) {
+            docCount += segment.docCount();
+        }
+        int[] lengths = new int[docCount];
+        for (KeywordSegment segment : segments) {
+            for (int i = 0; i < segment.docCount(); i++) {
+                lengths[segment.base() - base + i] = segment.length(i);
+            }
+        }
+        KeywordSegmentWriter writer = new KeywordSegmentWriter(base, lengths);
+
+        PriorityQueue<Cursor> cursors =
+                new PriorityQueue<>(
+                        Comparator.comparing(Cursor::term, Arrays::compareUnsigned)
+                                .thenComparingInt(Cursor::segment));
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).termCount() > 0) {
+                cursors.add(new Cursor(i, 0, segments.get(i).term(0)));
+            }
+        }
+        int[][] postings = {new int[16], new int[16]};
+        int[] count = {0};
+        while (!cursors.isEmpty()) {
+            byte[] term = cursors.peek().term();
+            count[0] = 0;
+            while (!cursors.isEmpty() && Arrays.equals(term, cursors.peek().term())) {
+                Cursor cursor = cursors.poll();
+                KeywordSegment segment = segments.get(cursor.segment());
+                segment.postings(
+                        cursor.index(),
+                        (document, frequency, length) -> {
+                            if (count[0] == postings[0].length) {
+                                postings[0] = Arrays.copyOf(postings[0], count[0] * 2);
+                                postings[1] = Arrays.copyOf(postings[1], count[0] * 2);
+                            }
+                            postings[0][count[0]] = document - base;
+                            postings[1][count[0]] = frequency;
+                            count[0]++;
+                        });
+                int next = cursor.index() + 1;
+                if (next < segment.termCount()) {
+                    cursors.add(new Cursor(cursor.segment(), next, segment.term(next)));
+                }
+            }
+            writer.add(term, postings[0], postings[1], count[0]);
+        }
+        writer.write(path);
+    }
+
+    private record Cursor(int segment, int index, byte[] term) {}
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7f) != 0) {
+            postings.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        postings.write(value);
+    }
+}
@@ -0,0 +1,347 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
+import com.volcengine.veadk.model.BaseEmbedding;
+import com.volcengine.veadk.utils.VectorUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Knowledgebase that keeps documents and their embeddings on local disk and searches them with an
+ * HNSW graph, for development and single-node deployments without a Viking knowledgebase.
+ *
+ * <p>The directory holds three files: the normalized vectors in a memory-mapped file, the chunks
+ * as JSON lines, and the graph, written on {@link #flush()}, on {@link #close()} and every 1000
+ * inserts. On open, vectors added after the last graph write are linked again, so a restart never
+ * rebuilds the whole index. Searches run concurrently with inserts.
+ *
+ * <p>With {@link VectorIndex#PRODUCT_QUANTIZED} no graph is kept. Instead a product quantizer is
+ * trained on open and on {@link #flush()}, again whenever the knowledgebase has doubled since, and
+ * searches scan its codes and re-score the best candidates exactly. Until the first training,
+ * searches scan the vectors exactly.
+ */
+public class LocalKnowledgebaseService implements BaseKnowledgebaseService, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalKnowledgebaseService.class);
+
+    private static final String VECTOR_FILE = "vectors.bin";
+    private static final String CHUNK_FILE = "chunks.jsonl";
+    private static final String GRAPH_FILE = "graph.hnsw";
+    private static final int EF_SEARCH = 64;
+    // Candidates searched per returned chunk when a metadata filter drops some of them
+    private static final int FILTER_OVERSAMPLING = 10;
+    private static final int GRAPH_WRITE_INTERVAL = 1000;
+    private static final int PQ_DIMENSIONS_PER_SUBSPACE = 4;
+    private static final int PQ_TRAINING_SAMPLE = 10_000;
+    private static final int PQ_ITERATIONS = 8;
+    private static final int PQ_RESCORE = 10;
+    private static final long PQ_SEED = 42;
+
+    private final Path directory;
+    private final BaseEmbedding embedding;
+    private final int topK;
+    private final VectorStore vectors;
+    private final ChunkStore chunks;
+    // Null with the product quantized index
+    private final HnswGraph graph;
+    // Null until the quantizer is trained, and with the HNSW index
+    private volatile PqIndex pqIndex;
+    // Number of vectors the quantizer was trained with
+    private int trainedOn = 0;
+    private int unwrittenInserts = 0;
+
+    /**
+     * Create a knowledgebase storing float vectors
+     * @param directory The directory holding the knowledgebase files
+     * @param embedding The embedding model of documents and queries
+     */
+    public LocalKnowledgebaseService(Path directory, BaseEmbedding embedding) {
+        this(directory, embedding, VectorEncoding.FLOAT32, 5);
+    }
+
+    /**
+     * Create a knowledgebase
+     * @param directory The directory holding the knowledgebase files
+     * @param embedding The embedding model of documents and queries
+     * @param encoding How to store vectors; must match the encoding of an existing knowledgebase
+     * @param topK Maximum number of chunks returned by a search
+     */
+    public LocalKnowledgebaseService(
+            Path directory, BaseEmbedding embedding, VectorEncoding encoding, int topK) {
+        this(directory, embedding, encoding, topK, VectorIndex.HNSW);
+    }
+
+    /**
+     * Create a knowledgebase
+     * @param directory The directory holding the knowledgebase files
+     * @param embedding The embedding model of documents and queries
+     * @param encoding How to store vectors; must match the encoding of an existing knowledgebase
+     * @param topK Maximum number of chunks returned by a search
+     * @param index How to find the nearest vectors
+     */
+    public LocalKnowledgebaseService(
+            Path directory,
+            BaseEmbedding embedding,
+            VectorEncoding encoding,
+            int topK,
+            VectorIndex index) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        this.directory = directory;
+        this.embedding = embedding;
+        this.topK = topK;
+        try {
+            this.vectors = VectorStore.open(directory.resolve(VECTOR_FILE), encoding);
+            this.chunks = ChunkStore.open(directory.resolve(CHUNK_FILE));
+            // A crash may leave a chunk without its vector, or the other way round
+            int count = Math.min(vectors.count(), chunks.size());
+            vectors.truncate(count);
+            chunks.truncate(count);
+            if (index == VectorIndex.PRODUCT_QUANTIZED) {
+                this.graph = null;
+                trainQuantizer();
+            } else {
+                this.graph = openGraph();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open knowledgebase " + directory, e);
+        }
+    }
+
+    /**
+     * Add documents to the knowledgebase
+     * @param entries The document chunks, with the metadata returned alongside them by searches
+     * @return Completable that completes once the chunks are searchable
+     */
+    public Completable addDocuments(List<KnowledgebaseEntry> entries) {
+        List<String> texts = new ArrayList<>(entries.size());
+        for (KnowledgebaseEntry entry : entries) {
+            texts.add(entry.getContent());
+        }
+        return embedding
+                .embedAll(texts)
+                .flatMapCompletable(
+                        embeddings -> Completable.fromAction(() -> insert(entries, embeddings)));
+    }
+
+    /**
+     * Add a document to the knowledgebase
+     * @param content The document chunk
+     * @param metadata The metadata returned alongside the chunk by searches
+     * @return Completable that completes once the chunk is searchable
+     */
+    public Completable addDocument(String content, Map<String, String> metadata) {
+        return addDocuments(List.of(new KnowledgebaseEntry(content, metadata)));
+    }
+
+    /**
+     * Search the chunks most similar to a query
+     * @param query The query
+     * @return The best matching chunks, best first
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+        return embedding
+                .embed(query)
+                .map(
+                        vector ->
+                                search(
+                                        VectorUtil.normalize(vector),
+                                        SearchKnowledgebaseOptions.defaults().withTopK(topK)));
+    }
+
+    /**
+     * Search the chunks most similar to a query. The topK and the metadata filter of the options
+     * apply; the filter is applied to ten candidates per chunk returned, so a selective filter may
+     * return fewer than topK chunks
+     * @param query The query
+     * @param options The search settings
+     * @return The best matching chunks, best first
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        return embedding.embed(query).map(vector -> search(VectorUtil.normalize(vector), options));
+    }
+
+    /**
+     * Number of chunks in the knowledgebase
+     * @return The number of chunks
+     */
+    public int size() {
+        return vectors.count();
+    }
+
+    /**
+     * Write every file to disk, so that a restart does not need to link any vector again. With the
+     * product quantized index, train the quantizer if it is untrained or the knowledgebase has
+     * doubled since it was
+     * @throws UncheckedIOException If a file cannot be written
+     */
+    public synchronized void flush() {
+        try {
+            chunks.force();
+            vectors.force();
+            if (graph != null) {
+                graph.write(directory.resolve(GRAPH_FILE));
+            } else if (pqIndex == null || vectors.count() >= 2 * trainedOn) {
+                trainQuantizer();
+            }
+            unwrittenInserts = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush knowledgebase " + directory, e);
+        }
+    }
+
+    /** Flush and close the knowledgebase files. */
+    @Override
+    public synchronized void close() {
+        try {
+            if (graph != null) {
+                graph.write(directory.resolve(GRAPH_FILE));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write knowledgebase graph of {}", directory, e);
+        }
+        try {
+            chunks.close();
+            vectors.close();
+        } catch (IOException e) {
+            log.warn("Failed to close knowledgebase {}", directory, e);
+        }
+    }
+
+    private HnswGraph openGraph() throws IOException {
+        HnswGraph opened;
+        try {
+            opened = HnswGraph.read(directory.resolve(GRAPH_FILE), vectors);
+        } catch (IOException e) {
+            log.warn("Rebuilding knowledgebase graph of {}: {}", directory, e.getMessage());
+            opened = new HnswGraph(vectors);
+        }
+        int linked = opened.size();
+        for (int node = linked; node < vectors.count(); node++) {
+            opened.insert(node);
+        }
+        if (linked < vectors.count()) {
+            log.debug("Linked {} vectors of {}", vectors.count() - linked, directory);
+            opened.write(directory.resolve(GRAPH_FILE));
+        }
+        return opened;
+    }
+
+    // Train on an evenly spread sample of the vectors, then encode all of them
+    private void trainQuantizer() {
+        int count = vectors.count();
+        if (count == 0) {
+            return;
+        }
+        int step = Math.max(1, count / PQ_TRAINING_SAMPLE);
+        List<float[]> sample = new ArrayList<>();
+        for (int id = 0; id < count; id += step) {
+            sample.add(vectors.get(id));
+        }
+        ProductQuantizer quantizer =
+                ProductQuantizer.train(
+                        sample,
+                        Math.max(1, vectors.dimension() / PQ_DIMENSIONS_PER_SUBSPACE),
+                        PQ_ITERATIONS,
+                        PQ_SEED);
+        PqIndex trained = new PqIndex(vectors, quantizer);
+        trained.sync();
+        pqIndex = trained;
+        trainedOn = count;
+        log.debug("Trained product quantizer of {} on {} vectors", directory, sample.size());
+    }
+
+    private synchronized void insert(List<KnowledgebaseEntry> entries, List<float[]> embeddings)
+            throws IOException {
+        for (int i = 0; i < entries.size(); i++) {
+            chunks.append(entries.get(i));
+            int node = vectors.add(VectorUtil.normalize(embeddings.get(i)));
+            if (graph == null) {
+                continue;
+            }
+            graph.insert(node);
+            if (++unwrittenInserts >= GRAPH_WRITE_INTERVAL) {
+                graph.write(directory.resolve(GRAPH_FILE));
+                unwrittenInserts = 0;
+            }
+        }
+        if (pqIndex != null) {
+            pqIndex.sync();
+        }
+    }
+
+    private List<HnswGraph.Scored> nearest(float[] query, int k) {
+        if (graph != null) {
+            return graph.search(query, k, Math.max(EF_SEARCH, k));
+        }
+        PqIndex current = pqIndex;
+        if (current != null) {
+            return current.search(query, k, PQ_RESCORE);
+        }
+        // Untrained: score every vector exactly
+        int count = vectors.count();
+        VectorStore.Scorer scorer = vectors.scorer(query);
+        List<HnswGraph.Scored> scored = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            scored.add(new HnswGraph.Scored(id, scorer.score(id)));
+        }
+        scored.sort(Comparator.comparingDouble(HnswGraph.Scored::similarity).reversed());
+        return scored.size() > k ? scored.subList(0, k) : scored;
+    }
+
+    private SearchKnowledgebaseResponse search(float[] query, SearchKnowledgebaseOptions options)
+            throws IOException {
+        List<KnowledgebaseEntry> entries = new ArrayList<>();
+        if (vectors.dimension() != 0 && query.length != vectors.dimension()) {
+            throw new IllegalArgumentException(
+                    "query dimension " + query.length + " differs from " + vectors.dimension());
+        }
+        int candidates =
+                options.metadataFilter().isEmpty()
+                        ? options.topK()
+                        : options.topK() * FILTER_OVERSAMPLING;
+        for (HnswGraph.Scored scored : nearest(query, candidates)) {
+            KnowledgebaseEntry entry = chunks.get(scored.node());
+            if (options.matches(entry)) {
+                entries.add(entry);
+                if (entries.size() == options.topK()) {
+                    break;
+                }
+            }
+        }
+        SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+        response.setKnowledgebaseEntries(entries);
+        return response;
+    }
+}
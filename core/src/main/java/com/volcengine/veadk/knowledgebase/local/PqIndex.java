@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Brute-force index over product-quantized copies of the vectors of a {@link VectorStore}.
+ *
+ * <p>The codes take one byte per subspace and stay on heap, so a scan reads a fraction of the
+ * memory of the full vectors. The best candidates of the scan are re-scored exactly against the
+ * store before the results are cut to size. Node ids are the vector ids, and {@link #sync()}
+ * encodes the vectors added to the store since the previous call. Searches never lock.
+ */
+final class PqIndex {
+
+    private final VectorStore vectors;
+    private final ProductQuantizer quantizer;
+    private volatile byte[] codes;
+    private volatile int size;
+
+    PqIndex(VectorStore vectors, ProductQuantizer quantizer) {
+        if (vectors.dimension() != 0 && vectors.dimension() != quantizer.dimension()) {
+            throw new IllegalArgumentException(
+                    "vector dimensions differ: "
+                            + quantizer.dimension()
+                            + " vs "
+                            + vectors.dimension());
+        }
+        this.vectors = vectors;
+        this.quantizer = quantizer;
+        this.codes = new byte[1024 * quantizer.subspaces()];
+    }
+
+    /** Encode the vectors added to the store since the previous call. */
+    synchronized void sync() {
+        int count = vectors.count();
+        int width = quantizer.subspaces();
+        byte[] current = codes;
+        if ((long) count * width > current.length) {
+            long grown = Math.max((long) current.length * 2, (long) count * width);
+            if (grown > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Product quantized index is full");
+            }
+            current = Arrays.copyOf(current, (int) grown);
+            codes = current;
+        }
+        for (int id = size; id < count; id++) {
+            System.arraycopy(quantizer.encode(vectors.get(id)), 0, current, id * width, width);
+        }
+        // Publish the size last, so readers only see complete codes
+        size = count;
+    }
+
+    /**
+     * Find the nearest vectors to a query
+     * @param query The normalized query
+     * @param k Number of results
+     * @param rescore How many candidates per result to re-score exactly, larger is slower but
+     *     more accurate
+     * @return Up to k vectors, most similar first, with exact similarities
+     */
+    List<HnswGraph.Scored> search(float[] query, int k, int rescore) {
+        int count = size;
+        byte[] current = codes;
+        int width = quantizer.subspaces();
+        int candidates = Math.max(k, k * rescore);
+        float[] table = quantizer.table(query);
+        PriorityQueue<HnswGraph.Scored> best =
+                new PriorityQueue<>(Comparator.comparingDouble(HnswGraph.Scored::similarity));
+        for (int id = 0; id < count; id++) {
+            float similarity = quantizer.score(table, current, id * width);
+            if (best.size() < candidates) {
+                best.add(new HnswGraph.Scored(id, similarity));
+            } else if (similarity > best.peek().similarity()) {
+                best.poll();
+                best.add(new HnswGraph.Scored(id, similarity));
+            }
+        }
+
+        VectorStore.Scorer scorer = vectors.scorer(query);
+        List<HnswGraph.Scored> results = new ArrayList<>(best.size());
+        for (HnswGraph.Scored candidate : best) {
+            results.add(new HnswGraph.Scored(candidate.node(), scorer.score(candidate.node())));
+        }
+        results.sort(Comparator.comparingDouble(HnswGraph.Scored::similarity).reversed());
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    int size() {
+        return size;
+    }
+}
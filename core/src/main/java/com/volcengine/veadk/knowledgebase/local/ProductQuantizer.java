@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Product quantizer compressing a vector to one byte per subspace.
+ *
+ * <p>The dimensions are split into contiguous subspaces, and each subspace has a codebook of up to
+ * 256 centroids learned with k-means. A vector is encoded as the index of the nearest centroid in
+ * every subspace. Queries are scored without decoding: {@link #table(float[])} computes the dot
+ * product of each query slice with every centroid once, and {@link #score(float[], byte[], int)}
+ * then sums one table entry per subspace.
+ */
+final class ProductQuantizer {
+
+    static final int MAX_CENTROIDS = 256;
+
+    private final int dimension;
+    // Subspace j covers dimensions bounds[j] until bounds[j + 1]
+    private final int[] bounds;
+    private final int centroids;
+    // Centroid c of subspace j starts at codebooks[j][c * width(j)]
+    private final float[][] codebooks;
+
+    private ProductQuantizer(int dimension, int[] bounds, int centroids, float[][] codebooks) {
+        this.dimension = dimension;
+        this.bounds = bounds;
+        this.centroids = centroids;
+        this.codebooks = codebooks;
+    }
+
+    /**
+     * Learn the codebooks from a sample of vectors
+     * @param sample The training vectors, all of the same dimension
+     * @param subspaces Number of subspaces, i.e. bytes per code
+     * @param iterations Number of k-means iterations
+     * @param seed Seed choosing the initial centroids
+     * @return The trained quantizer
+     */
+    static ProductQuantizer train(List<float[]> sample, int subspaces, int iterations, long seed) {
+        if (sample.isEmpty()) {
+            throw new IllegalArgumentException("the training sample is empty");
+        }
+        int dimension = sample.get(0).length;
+        if (subspaces < 1 || subspaces > dimension) {
+            throw new IllegalArgumentException(
+                    "subspaces must be between 1 and " + dimension + ": " + subspaces);
+        }
+        int[] bounds = new int[subspaces + 1];
+        for (int j = 0; j <= subspaces; j++) {
+            bounds[j] = j * dimension / subspaces;
+        }
+        int centroids = Math.min(MAX_CENTROIDS, sample.size());
+        List<Integer> order = new ArrayList<>(sample.size());
+        for (int i = 0; i < sample.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(seed));
+
+        float[][] codebooks = new float[subspaces][];
+        for (int j = 0; j < subspaces; j++) {
+            codebooks[j] = kMeans(sample, order, bounds[j], bounds[j + 1], centroids, iterations);
+        }
+        return new ProductQuantizer(dimension, bounds, centroids, codebooks);
+    }
+
+    /**
+     * Encode a vector
+     * @param vector The vector, of the trained dimension
+     * @return One centroid index per subspace
+     */
+    byte[] encode(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "vector dimensions differ: " + vector.length + " vs " + dimension);
+        }
+        byte[] code = new byte[subspaces()];
+        for (int j = 0; j < code.length; j++) {
+            code[j] = (byte) nearest(vector, bounds[j], bounds[j + 1], codebooks[j], centroids);
+        }
+        return code;
+    }
+
+    /**
+     * Precompute the dot products of a query with all centroids
+     * @param query The query, of the trained dimension
+     * @return The table passed to {@link #score(float[], byte[], int)}
+     */
+    float[] table(float[] query) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                    "vector dimensions differ: " + query.length + " vs " + dimension);
+        }
+        float[] table = new float[subspaces() * MAX_CENTROIDS];
+        for (int j = 0; j < subspaces(); j++) {
+            int start = bounds[j];
+            int width = bounds[j + 1] - start;
+            float[] codebook = codebooks[j];
+            for (int c = 0; c < centroids; c++) {
+                float sum = 0f;
+                for (int d = 0; d < width; d++) {
+                    sum += query[start + d] * codebook[c * width + d];
+                }
+                table[j * MAX_CENTROIDS + c] = sum;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Approximate dot product of a query with an encoded vector
+     * @param table The table of the query
+     * @param codes Encoded vectors, one after the other
+     * @param offset Start of the vector's code
+     * @return The approximate similarity
+     */
+    float score(float[] table, byte[] codes, int offset) {
+        int subspaces = subspaces();
+        float s0 = 0f;
+        float s1 = 0f;
+        int j = 0;
+        for (int bound = subspaces & ~1; j < bound; j += 2) {
+            s0 += table[j * MAX_CENTROIDS + (codes[offset + j] & 0xff)];
+            s1 += table[(j + 1) * MAX_CENTROIDS + (codes[offset + j + 1] & 0xff)];
+        }
+        if (j < subspaces) {
+            s0 += table[j * MAX_CENTROIDS + (codes[offset + j] & 0xff)];
+        }
+        return s0 + s1;
+    }
+
+    int subspaces() {
+        return bounds.length - 1;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    private static float[] kMeans(
+            List<float[]> sample,
+            List<Integer> order,
+            int start,
+            int end,
+            int centroids,
+            int iterations) {
+        int width = end - start;
+        float[] codebook = new float[centroids * width];
+        for (int c = 0; c < centroids; c++) {
+            System.arraycopy(sample.get(order.get(c)), start, codebook, c * width, width);
+        }
+        int[] assignment = new int[sample.size()];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < sample.size(); i++) {
+                assignment[i] = nearest(sample.get(i), start, end, codebook, centroids);
+            }
+            float[] sums = new float[codebook.length];
+            int[] counts = new int[centroids];
+            for (int i = 0; i < sample.size(); i++) {
+                float[] vector = sample.get(i);
+                int c = assignment[i];
+                counts[c]++;
+                for (int d = 0; d < width; d++) {
+                    sums[c * width + d] += vector[start + d];
+                }
+            }
+            for (int c = 0; c < centroids; c++) {
+                // An empty cluster keeps its previous centroid
+                if (counts[c] > 0) {
+                    for (int d = 0; d < width; d++) {
+                        codebook[c * width + d] = sums[c * width + d] / counts[c];
+                    }
+                }
+            }
+        }
+        return codebook;
+    }
+
+    // Nearest centroid by euclidean distance, which keeps the dot product error of the code small
+    private static int nearest(
+            float[] vector, int start, int end, float[] codebook, int centroids) {
+        int width = end - start;
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centroids; c++) {
+            float distance = 0f;
+            for (int d = 0; d < width; d++) {
+                float diff = vector[start + d] - codebook[c * width + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
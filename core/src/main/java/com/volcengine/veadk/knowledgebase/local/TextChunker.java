@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import com.volcengine.veadk.retrieval.ResultPacker;
+import com.volcengine.veadk.utils.TokenizerUtil;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into chunks of a bounded number of estimated tokens.
+ *
+ * <p>Chunks end at sentence or line boundaries where possible, including the sentence punctuation
+ * of CJK text, which does not separate words with spaces. A sentence longer than a chunk is split
+ * between words, and CJK text between characters; words are never split unless a single one
+ * exceeds a chunk. Consecutive chunks share whole sentences up to the overlap.
+ */
+public final class TextChunker {
+
+    private final int chunkTokens;
+    private final int overlapTokens;
+
+    /**
+     * Create a chunker
+     * @param chunkTokens Maximum estimated tokens of a chunk
+     * @param overlapTokens Estimated tokens a chunk repeats from the end of the previous one
+     */
+    public TextChunker(int chunkTokens, int overlapTokens) {
+        if (chunkTokens <= 0 || overlapTokens < 0 || overlapTokens >= chunkTokens) {
+            throw new IllegalArgumentException(
+                    "chunkTokens must be positive and overlapTokens between 0 and chunkTokens.");
+        }
+        this.chunkTokens = chunkTokens;
+        this.overlapTokens = overlapTokens;
+    }
+
+    /**
+     * Split a text into chunks
+     * @param text The text
+     * @return The chunks in text order, without blank ones
+     */
+    public List<String> chunk(String text) {
+        List<String> chunks = new ArrayList<>();
+        // Pieces of the current chunk with their token counts
+        ArrayDeque<String> pieces = new ArrayDeque<>();
+        ArrayDeque<Integer> pieceTokens = new ArrayDeque<>();
+        int tokens = 0;
+        // Whether the current chunk has pieces beyond the overlap of the previous one
+        boolean fresh = false;
+
+        for (String piece : pieces(text)) {
+            int count = ResultPacker.estimateTokens(piece);
+            if (count == 0 && pieces.isEmpty()) {
+                continue;
+            }
+            if (tokens + count > chunkTokens && fresh) {
+                add(chunks, pieces);
+                fresh = false;
+                while (!pieces.isEmpty()
+                        && (tokens > overlapTokens || tokens + count > chunkTokens)) {
+                    pieces.removeFirst();
+                    tokens -= pieceTokens.removeFirst();
+                }
+            }
+            pieces.addLast(piece);
+            pieceTokens.addLast(count);
+            tokens += count;
+            fresh |= count > 0;
+        }
+        if (fresh) {
+            add(chunks, pieces);
+        }
+        return chunks;
+    }
+
+    // Sentences and lines of at most chunkTokens each, keeping their trailing whitespace
+    private List<String> pieces(String text) {
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (endsSentence(text, codePoint, i)) {
+                while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                addPiece(pieces, text.substring(start, i));
+                start = i;
+            }
+        }
+        if (start < text.length()) {
+            addPiece(pieces, text.substring(start));
+        }
+        return pieces;
+    }
+
+    private static boolean endsSentence(String text, int codePoint, int next) {
+        switch (codePoint) {
+            case '\n', '。', '！', '？', '；', '…':
+                return true;
+            case '.', '!', '?':
+                return next == text.length() || Character.isWhitespace(text.charAt(next));
+            default:
+                return false;
+        }
+    }
+
+    private void addPiece(List<String> pieces, String sentence) {
+        if (ResultPacker.estimateTokens(sentence) <= chunkTokens) {
+            pieces.add(sentence);
+            return;
+        }
+        // Too long for a chunk: pack its words, or CJK characters, into pieces that fit
+        StringBuilder piece = new StringBuilder();
+        int tokens = 0;
+        for (String word : words(sentence)) {
+            int count = ResultPacker.estimateTokens(word);
+            if (tokens + count > chunkTokens && piece.length() > 0) {
+                pieces.add(piece.toString());
+                piece.setLength(0);
+                tokens = 0;
+            }
+            if (count > chunkTokens) {
+                // A single word longer than a chunk, e.g. an encoded blob
+                int maxChars = chunkTokens * 4;
+                int offset = 0;
+                while (offset < word.length()) {
+                    int end = Math.min(word.length(), offset + maxChars);
+                    if (end < word.length() && Character.isHighSurrogate(word.charAt(end - 1))) {
+                        end--;
+                    }
+                    pieces.add(word.substring(offset, end));
+                    offset = end;
+                }
+                continue;
+            }
+            piece.append(word);
+            tokens += count;
+        }
+        if (piece.length() > 0) {
+            pieces.add(piece.toString());
+        }
+    }
+
+    // Words with their trailing whitespace, each CJK character being a word of its own along with
+    // the punctuation following it
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+            boolean boundary =
+                    next == text.length()
+                            || TokenizerUtil.isCjk(text.codePointAt(next))
+                            || (TokenizerUtil.isCjk(codePoint)
+                                    && !isClosingPunctuation(text.codePointAt(next)))
+                            || (Character.isWhitespace(codePoint)
+                                    && !Character.isWhitespace(text.charAt(next)));
+            if (boundary) {
+                words.add(text.substring(start, next));
+                start = next;
+            }
+            i = next;
+        }
+        return words;
+    }
+
+    // Punctuation such as ， or 」 belongs to the character before it
+    private static boolean isClosingPunctuation(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.OTHER_PUNCTUATION
+                || type == Character.END_PUNCTUATION
+                || type == Character.FINAL_QUOTE_PUNCTUATION;
+    }
+
+    private static void add(List<String> chunks, ArrayDeque<String> pieces) {
+        String chunk = String.join("", pieces).strip();
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+    }
+}
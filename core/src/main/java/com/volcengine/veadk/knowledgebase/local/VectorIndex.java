@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+/** How {@link LocalKnowledgebaseService} finds the vectors nearest to a query. */
+public enum VectorIndex {
+    /** HNSW graph written alongside the vectors, fast at any size. */
+    HNSW,
+    /**
+     * Scan of product-quantized codes held on heap, whose best candidates are re-scored exactly.
+     * No graph is built; the quantizer is trained on open and on flush, and searches scan the
+     * vectors exactly until then.
+     */
+    PRODUCT_QUANTIZED
+}
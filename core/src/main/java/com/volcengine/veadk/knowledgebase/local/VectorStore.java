@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import com.volcengine.veadk.utils.VectorUtil;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only, memory-mapped file of normalized vectors, identified by their insertion order.
+ *
+ * <p>The file starts with a header {@code [int magic][int dimension][int encoding][int count]}. The
+ * count is written after each vector, so a vector is only visible once completely written. Reads
+ * never lock: the mapping is only replaced when the file grows, and earlier mappings stay valid.
+ */
+final class VectorStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x564b4256;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int DIMENSION_OFFSET = Integer.BYTES;
+    private static final int COUNT_OFFSET = 3 * Integer.BYTES;
+    private static final int INITIAL_SIZE = 1024 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final VectorEncoding encoding;
+    private volatile MappedByteBuffer buffer;
+    private volatile int dimension;
+    private volatile int count;
+
+    private VectorStore(
+            Path path,
+            FileChannel channel,
+            MappedByteBuffer buffer,
+            VectorEncoding encoding,
+            int dimension,
+            int count) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.encoding = encoding;
+        this.dimension = dimension;
+        this.count = count;
+    }
+
+    /**
+     * Open a vector file, creating it if missing
+     * @param path The vector file
+     * @param encoding The encoding of new files, which existing files must match
+     * @return The opened store
+     * @throws IOException If the file cannot be mapped or was written with another encoding
+     */
+    static VectorStore open(Path path, VectorEncoding encoding) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileChannel channel =
+                FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        MappedByteBuffer buffer =
+                channel.map(
+                        FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(DIMENSION_OFFSET, 0);
+            buffer.putInt(2 * Integer.BYTES, encoding.ordinal());
+            buffer.putInt(COUNT_OFFSET, 0);
+            return new VectorStore(path, channel, buffer, encoding, 0, 0);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a vector file: " + path);
+        }
+        int stored = buffer.getInt(2 * Integer.BYTES);
+        if (stored != encoding.ordinal()) {
+            channel.close();
+            throw new IOException(
+                    "Vector file "
+                            + path
+                            + " is encoded as "
+                            + VectorEncoding.values()[stored]
+                            + ", not "
+                            + encoding);
+        }
+        return new VectorStore(
+                path,
+                channel,
+                buffer,
+                encoding,
+                buffer.getInt(DIMENSION_OFFSET),
+                buffer.getInt(COUNT_OFFSET));
+    }
+
+    /**
+     * Append a vector. The first vector fixes the dimension of the store
+     * @param vector The normalized vector
+     * @return The id of the vector
+     * @throws IOException If the file cannot be grown
+     */
+    synchronized int add(float[] vector) throws IOException {
+        if (dimension == 0) {
+            dimension = vector.length;
+            buffer.putInt(DIMENSION_OFFSET, dimension);
+        } else if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "vector dimensions differ: " + vector.length + " vs " + dimension);
+        }
+        int id = count;
+        int offset = offset(id);
+        ensureCapacity((long) offset + recordBytes());
+        MappedByteBuffer target = buffer;
+        if (encoding == VectorEncoding.FLOAT32) {
+            for (int i = 0; i < vector.length; i++) {
+                target.putFloat(offset + i * Float.BYTES, vector[i]);
+            }
+        } else {
+            byte[] quantized = new byte[vector.length];
+            target.putFloat(offset, VectorUtil.quantizeInt8(vector, quantized));
+            target.put(offset + Float.BYTES, quantized);
+        }
+        target.putInt(COUNT_OFFSET, id + 1);
+        count = id + 1;
+        return id;
+    }
+
+    /**
+     * Create a scorer comparing one query against stored vectors
+     * @param query The normalized query, of the store's dimension
+     * @return A scorer, to be used by a single thread
+     */
+    Scorer scorer(float[] query) {
+        return new Scorer(query);
+    }
+
+    /**
+     * Decode a stored vector
+     * @param id The vector id
+     * @return The vector, approximated when stored as INT8
+     */
+    float[] get(int id) {
+        MappedByteBuffer source = buffer;
+        int offset = offset(id);
+        float[] vector = new float[dimension];
+        if (encoding == VectorEncoding.FLOAT32) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = source.getFloat(offset + i * Float.BYTES);
+            }
+        } else {
+            float scale = source.getFloat(offset);
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = source.get(offset + Float.BYTES + i) * scale;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Forget the vectors from an id on, e.g. those whose chunk was lost in a crash
+     * @param newCount Number of vectors to keep
+     */
+    synchronized void truncate(int newCount) {
+        if (newCount < count) {
+            buffer.putInt(COUNT_OFFSET, newCount);
+            count = newCount;
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private int recordBytes() {
+        return encoding == VectorEncoding.FLOAT32
+                ? dimension * Float.BYTES
+                : Float.BYTES + dimension;
+    }
+
+    private int offset(int id) {
+        return HEADER_BYTES + id * recordBytes();
+    }
+
+    private void ensureCapacity(long required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long size = Math.max((long) buffer.capacity() * 2, required);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Vector file is full: " + path);
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Scores stored vectors against one query. Each vector is copied in bulk into a scratch array
+     * and multiplied with the unrolled kernels of {@link VectorUtil}. For INT8 stores the query is
+     * quantized too, so the product is computed on integers and scaled once.
+     */
+    final class Scorer {
+
+        private final float[] query;
+        private final float[] floats;
+        private final byte[] quantizedQuery;
+        private final float queryScale;
+        private final byte[] bytes;
+        private MappedByteBuffer mapped;
+        private FloatBuffer view;
+
+        private Scorer(float[] query) {
+            this.query = query;
+            if (encoding == VectorEncoding.FLOAT32) {
+                this.floats = new float[query.length];
+                this.quantizedQuery = null;
+                this.queryScale = 0f;
+                this.bytes = null;
+            } else {
+                this.floats = null;
+                this.quantizedQuery = new byte[query.length];
+                this.queryScale = VectorUtil.quantizeInt8(query, quantizedQuery);
+                this.bytes = new byte[query.length];
+            }
+        }
+
+        /**
+         * Dot product of the query with a stored vector, i.e. their cosine similarity
+         * @param id The vector id
+         * @return The similarity
+         */
+        float score(int id) {
+            MappedByteBuffer source = buffer;
+            int offset = offset(id);
+            if (floats != null) {
+                if (mapped != source) {
+                    // The file grew since the last call, so view the new mapping
+                    mapped = source;
+                    view = source.asFloatBuffer();
+                }
+                view.get(offset / Float.BYTES, floats);
+                return VectorUtil.dot(query, floats, query.length);
+            }
+            float scale = source.getFloat(offset);
+            source.get(offset + Float.BYTES, bytes);
+            return VectorUtil.dotInt8(quantizedQuery, bytes, query.length) * queryScale * scale;
+        }
+    }
+}
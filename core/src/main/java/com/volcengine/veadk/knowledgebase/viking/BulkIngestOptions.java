@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.viking;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings of {@link VikingBulkIngester}.
+ *
+ * @param workers Documents added concurrently
+ * @param requestsPerSecond Maximum rate of AddDoc requests, retries included, to stay within the
+ *     API quota
+ * @param maxAttempts Attempts per document before it is reported as failed
+ * @param initialBackoff Wait before the first retry of a document, doubled on each further retry
+ * @param maxBackoff Longest wait between two attempts
+ */
+public record BulkIngestOptions(
+        int workers,
+        double requestsPerSecond,
+        int maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff) {
+
+    public BulkIngestOptions {
+        if (workers <= 0 || requestsPerSecond <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException(
+                    "workers, requestsPerSecond and maxAttempts must be positive.");
+        }
+        Objects.requireNonNull(initialBackoff, "initialBackoff must be set.");
+        Objects.requireNonNull(maxBackoff, "maxBackoff must be set.");
+    }
+
+    public static BulkIngestOptions defaults() {
+        return new BulkIngestOptions(8, 10, 5, Duration.ofSeconds(1), Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.viking;
+
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Drops the optional, slow parts of a Viking knowledgebase search when they are unlikely to pay
+ * off. Rerank is the dominant cost of a search.
+ *
+ * <p>The policy keeps the latencies of recent searches, with and without rerank, over a sliding
+ * window. Rerank is skipped when the p95 latency of reranked searches is above the configured
+ * ceiling, or when the time left before the search deadline is below that p95. Once the
+ * latencies age out of the window, rerank is tried again. When even the p95 of searches without
+ * rerank exceeds the time left, chunk diffusion is skipped as well. Until 20 searches of a kind
+ * are recorded, its p95 is taken to be the ceiling.
+ */
+public class RerankPolicy {
+
+    private static final Duration DEFAULT_MAX_RERANK_P95 = Duration.ofMillis(1500);
+    private static final Duration DEFAULT_WINDOW = Duration.ofMinutes(5);
+    private static final int MIN_SAMPLES = 20;
+    private static final int MAX_SAMPLES = 1000;
+
+    private final long maxRerankP95Millis;
+    private final long windowMillis;
+    private final Clock clock;
+
+    // Latencies as {recordedAt, millis}, oldest first
+    private final ArrayDeque<long[]> reranked = new ArrayDeque<>();
+    private final ArrayDeque<long[]> plain = new ArrayDeque<>();
+
+    private long rerankSkips = 0;
+    private long diffusionSkips = 0;
+
+    /**
+     * Statistics of the policy
+     * @param rerankSkips Searches whose rerank was skipped
+     * @param diffusionSkips Searches whose chunk diffusion was skipped
+     * @param rerankP95Millis p95 latency of recent reranked searches, or -1 with too few of them
+     * @param plainP95Millis p95 latency of recent searches without rerank, or -1 with too few of
+     *     them
+     */
+    public record Stats(
+            long rerankSkips, long diffusionSkips, long rerankP95Millis, long plainP95Millis) {}
+
+    public RerankPolicy() {
+        this(DEFAULT_MAX_RERANK_P95, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Create a rerank policy
+     * @param maxRerankP95 Skip rerank while reranked searches are slower than this at p95
+     * @param window How long latencies are remembered
+     */
+    public RerankPolicy(Duration maxRerankP95, Duration window) {
+        this(maxRerankP95, window, Clock.systemUTC());
+    }
+
+    RerankPolicy(Duration maxRerankP95, Duration window, Clock clock) {
+        this.maxRerankP95Millis = maxRerankP95.toMillis();
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Decide the settings a search actually runs with
+     * @param requested The settings asked for by the caller
+     * @return The requested settings, without rerank or chunk diffusion when they do not fit
+     */
+    public synchronized SearchKnowledgebaseOptions apply(SearchKnowledgebaseOptions requested) {
+        long now = clock.millis();
+        expire(now);
+        long remaining = requested.remainingMillis(now);
+        SearchKnowledgebaseOptions applied = requested;
+
+        if (applied.rerank()) {
+            long rerankP95 = p95(reranked);
+            long expected = rerankP95 < 0 ? maxRerankP95Millis : rerankP95;
+            if (rerankP95 > maxRerankP95Millis || remaining < expected) {
+                applied = applied.withRerank(false);
+                rerankSkips++;
+            }
+        }
+        if (applied.chunkDiffusionCount() > 0) {
+            long plainP95 = p95(plain);
+            long expected = plainP95 < 0 ? maxRerankP95Millis : plainP95;
+            if (remaining < expected) {
+                applied = applied.withChunkDiffusionCount(0);
+                diffusionSkips++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Record the latency of a search
+     * @param reranked Whether the search was reranked
+     * @param latencyMillis How long the search took
+     */
+    public synchronized void record(boolean reranked, long latencyMillis) {
+        ArrayDeque<long[]> samples = reranked ? this.reranked : plain;
+        samples.addLast(new long[] {clock.millis(), latencyMillis});
+        if (samples.size() > MAX_SAMPLES) {
+            samples.removeFirst();
+        }
+    }
+
+    public synchronized Stats stats() {
+        expire(clock.millis());
+        return new Stats(rerankSkips, diffusionSkips, p95(reranked), p95(plain));
+    }
+
+    private void expire(long now) {
+        for (ArrayDeque<long[]> samples : Arrays.asList(reranked, plain)) {
+            Iterator<long[]> oldest = samples.iterator();
+            while (oldest.hasNext() && now - oldest.next()[0] > windowMillis) {
+                oldest.remove();
+            }
+        }
+    }
+
+    private static long p95(ArrayDeque<long[]> samples) {
+        if (samples.size() < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] latencies = new long[samples.size()];
+        int i = 0;
+        for (long[] sample : samples) {
+            latencies[i++] = sample[1];
+        }
+        Arrays.sort(latencies);
+        return latencies[(int) Math.ceil(latencies.length * 0.95) - 1];
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.viking;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.volcengine.veadk.integration.vikingknowledgebase.VikingKnowledgebaseWrapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adds many TOS documents to a Viking knowledgebase collection.
+ *
+ * <p>A fixed number of workers add documents concurrently, all sharing one rate limit so that the
+ * run stays within the API quota. A rejected or failed document is retried with exponential
+ * backoff and jitter. Every added document is appended to a checkpoint file, written through to
+ * disk, and documents already listed there are skipped: an interrupted run is resumed by starting
+ * it again with the same checkpoint. Documents failing every attempt are reported and left out of
+ * the checkpoint, so the next run tries them again. Progress is available from {@link #stats()}
+ * while the run is going, and logged every 1000 documents.
+ */
+public class VikingBulkIngester {
+
+    private static final Logger log = LoggerFactory.getLogger(VikingBulkIngester.class);
+
+    private static final int LOG_INTERVAL = 1000;
+
+    private final VikingKnowledgebaseWrapper wrapper;
+    private final String collectionName;
+    private final BulkIngestOptions options;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private volatile long startedAt = 0;
+    private volatile long finishedAt = 0;
+
+    /**
+     * Progress of the current or last run
+     * @param total Documents of the run, skipped ones included
+     * @param skipped Documents already in the checkpoint
+     * @param added Documents added by this run
+     * @param failed Documents that failed every attempt
+     * @param retries Attempts beyond the first one
+     * @param elapsedMillis Time since the run started, or its duration once finished
+     */
+    public record Stats(
+            long total, long skipped, long added, long failed, long retries, long elapsedMillis) {
+
+        public long remaining() {
+            return total - skipped - added - failed;
+        }
+
+        public double addedPerSecond() {
+            return elapsedMillis == 0 ? 0 : added * 1000.0 / elapsedMillis;
+        }
+    }
+
+    /**
+     * Outcome of a run
+     * @param stats Final progress of the run
+     * @param failedUrls Documents that failed every attempt, in input order
+     */
+    public record Report(Stats stats, List<String> failedUrls) {}
+
+    /**
+     * Create a bulk ingester
+     * @param wrapper The Viking knowledgebase client
+     * @param collectionName The collection to add documents to
+     * @param options Concurrency, rate limit and retry settings
+     */
+    public VikingBulkIngester(
+            VikingKnowledgebaseWrapper wrapper, String collectionName, BulkIngestOptions options) {
+        this.wrapper = wrapper;
+        this.collectionName = collectionName;
+        this.options = options;
+    }
+
+    /**
+     * Add documents, skipping those already in the checkpoint. Blocks until every document is
+     * added or has failed every attempt
+     * @param tosUrls The TOS paths of the documents; duplicates are added once
+     * @param checkpoint File listing the documents added so far, created if missing
+     * @return The outcome of the run
+     * @throws IOException If the checkpoint cannot be read or written
+     * @throws InterruptedException If interrupted while waiting for the workers, which are stopped
+     */
+    public Report ingest(List<String> tosUrls, Path checkpoint)
+            throws IOException, InterruptedException {
+        Set<String> done = readCheckpoint(checkpoint);
+        ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+        Set<String> unique = new LinkedHashSet<>(tosUrls);
+        for (String tosUrl : unique) {
+            if (!done.contains(tosUrl)) {
+                pending.add(tosUrl);
+            }
+        }
+        total.set(unique.size());
+        skipped.set(unique.size() - pending.size());
+        added.set(0);
+        failed.set(0);
+        retries.set(0);
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        log.info(
+                "Adding {} documents to {}, {} already in the checkpoint",
+                pending.size(),
+                collectionName,
+                skipped.get());
+
+        Set<String> failedUrls = ConcurrentHashMap.newKeySet();
+        RateLimiter rateLimiter = RateLimiter.create(options.requestsPerSecond());
+        ExecutorService workers =
+                Executors.newFixedThreadPool(
+                        options.workers(),
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("veadk-kb-ingest-%d")
+                                .setDaemon(true)
+                                .build());
+        try (FileChannel out =
+                FileChannel.open(
+                        checkpoint,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND,
+                        StandardOpenOption.DSYNC)) {
+            for (int i = 0; i < options.workers(); i++) {
+                workers.execute(() -> work(pending, rateLimiter, out, failedUrls));
+            }
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting, the workers end once the queue is drained
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            throw e;
+        } finally {
+            finishedAt = System.currentTimeMillis();
+        }
+
+        Stats stats = stats();
+        log.info(
+                "Added {} documents to {} in {} ms ({} per second), {} failed",
+                stats.added(),
+                collectionName,
+                stats.elapsedMillis(),
+                String.format("%.1f", stats.addedPerSecond()),
+                stats.failed());
+        List<String> failedInOrder = new ArrayList<>();
+        for (String tosUrl : unique) {
+            if (failedUrls.contains(tosUrl)) {
+                failedInOrder.add(tosUrl);
+            }
+        }
+        return new Report(stats, failedInOrder);
+    }
+
+    public Stats stats() {
+        long end = finishedAt == 0 ? System.currentTimeMillis() : finishedAt;
+        return new Stats(
+                total.get(),
+                skipped.get(),
+                added.get(),
+                failed.get(),
+                retries.get(),
+                startedAt == 0 ? 0 : end - startedAt);
+    }
+
+    private void work(
+            ConcurrentLinkedQueue<String> pending,
+            RateLimiter rateLimiter,
+            FileChannel checkpoint,
+            Set<String> failedUrls) {
+        String tosUrl;
+        while (!Thread.currentThread().isInterrupted() && (tosUrl = pending.poll()) != null) {
+            try {
+                if (add(tosUrl, rateLimiter)) {
+                    record(checkpoint, tosUrl);
+                    long count = added.incrementAndGet();
+                    if (count % LOG_INTERVAL == 0) {
+                        Stats stats = stats();
+                        log.info(
+                                "Added {} of {} documents to {} ({} per second)",
+                                count,
+                                stats.total() - stats.skipped(),
+                                collectionName,
+                                String.format("%.1f", stats.addedPerSecond()));
+                    }
+                } else {
+                    failed.incrementAndGet();
+                    failedUrls.add(tosUrl);
+                    log.warn(
+                            "Giving up on document {} after {} attempts",
+                            tosUrl,
+                            options.maxAttempts());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // The document is added but not checkpointed, stop rather than add it twice later
+                log.error("Failed to write checkpoint, stopping bulk ingestion", e);
+                pending.clear();
+            }
+        }
+    }
+
+    private boolean add(String tosUrl, RateLimiter rateLimiter) throws InterruptedException {
+        long backoff = options.initialBackoff().toMillis();
+        for (int attempt = 1; attempt <= options.maxAttempts(); attempt++) {
+            if (attempt > 1) {
+                retries.incrementAndGet();
+                // Full jitter, so workers rejected together do not retry together
+                Thread.sleep(ThreadLocalRandom.current().nextLong(0, backoff + 1));
+                backoff = Math.min(backoff * 2, options.maxBackoff().toMillis());
+            }
+            rateLimiter.acquire();
+            try {
+                if (wrapper.addDoc(collectionName, tosUrl)) {
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Adding document {} failed", tosUrl, e);
+            }
+        }
+        return false;
+    }
+
+    private synchronized void record(FileChannel checkpoint, String tosUrl) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((tosUrl + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            checkpoint.write(line);
+        }
+    }
+
+    // A last line without its newline was cut by a crash; its document is added again
+    private static Set<String> readCheckpoint(Path checkpoint) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!Files.exists(checkpoint)) {
+            return done;
+        }
+        String content = Files.readString(checkpoint, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n');
+        if (end < content.length() - 1) {
+            try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.WRITE)) {
+                channel.truncate(
+                        content.substring(0, end + 1).getBytes(StandardCharsets.UTF_8).length);
+            }
+        }
+        Iterator<String> lines = content.substring(0, end + 1).lines().iterator();
+        while (lines.hasNext()) {
+            String line = lines.next();
+            if (!line.isEmpty()) {
+                done.add(line);
+            }
+        }
+        return done;
+    }
+}
@@ -15,20 +15,55 @@
  */
 package com.volcengine.veadk.knowledgebase.viking;
 
+import com.volcengine.veadk.integration.CollectionBootstrap;
 import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
 import com.volcengine.veadk.integration.vikingknowledgebase.VikingKnowledgebaseWrapper;
 import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
 import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
 import com.volcengine.veadk.utils.EnvUtil;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class VikingKnowledgebaseService implements BaseKnowledgebaseService {
 
     private VikingKnowledgebaseWrapper wrapper;
     private String appName;
+    private final CollectionBootstrap.Readiness ready;
+    private final RerankPolicy rerankPolicy;
+    private final boolean earlyPlainResults;
+    // Ingester of the most recently started bulk run, for its progress
+    private volatile VikingBulkIngester lastIngester;
 
     public VikingKnowledgebaseService(String appName) {
+        this(appName, null);
+    }
+
+    /**
+     * Create a knowledgebase service that drops rerank and chunk diffusion when they do not fit
+     * @param appName The application name, used as the Viking collection name
+     * @param rerankPolicy Decides the settings each search runs with, or null to always run the
+     *     requested ones
+     */
+    public VikingKnowledgebaseService(String appName, RerankPolicy rerankPolicy) {
+        this(appName, rerankPolicy, false);
+    }
+
+    /**
+     * Create a knowledgebase service
+     * @param appName The application name, used as the Viking collection name
+     * @param rerankPolicy Decides the settings each search runs with, or null to always run the
+     *     requested ones
+     * @param earlyPlainResults Whether streamed searches with rerank or chunk diffusion also run a
+     *     plain search, whose entries arrive first. This costs a second search per stream
+     */
+    public VikingKnowledgebaseService(
+            String appName, RerankPolicy rerankPolicy, boolean earlyPlainResults) {
         if (null != appName && !appName.matches("^[a-zA-Z][a-zA-Z0-9_]*$")) {
             throw new IllegalArgumentException(
                     "appName can only contain English letters, numbers, and underscores, and must"
@@ -36,20 +71,152 @@ public class VikingKnowledgebaseService implements BaseKnowledgebaseService {
         }
         wrapper = new VikingKnowledgebaseWrapper(EnvUtil.getAccessKey(), EnvUtil.getSecretKey());
         this.appName = appName;
-        if (!wrapper.isCollectionExists(appName)) {
-            wrapper.createCollection(appName);
-        }
+        this.rerankPolicy = rerankPolicy;
+        this.earlyPlainResults = earlyPlainResults;
+        this.ready =
+                CollectionBootstrap.readiness(
+                        "vikingknowledgebase",
+                        appName,
+                        CollectionBootstrap.Mode.parse(EnvUtil.getVikingCollectionBootstrap()),
+                        () -> wrapper.isCollectionExists(appName),
+                        () -> wrapper.createCollection(appName));
+    }
+
+    /**
+     * Readiness of the knowledgebase collection. Requests wait on it, so waiting is only needed to
+     * surface bootstrap failures early
+     * @return Future completing once the collection is ready
+     */
+    public CompletableFuture<Void> ready() {
+        return ready.future();
+    }
+
+    /**
+     * Add a document stored on TOS to the knowledgebase
+     * @param tosUrl The TOS path of the document
+     * @return Whether the document was accepted
+     */
+    public Single<Boolean> addDoc(String tosUrl) {
+        return Single.fromCallable(
+                () -> {
+                    ready.await();
+                    return wrapper.addDoc(this.appName, tosUrl);
+                });
+    }
+
+    /**
+     * Add many documents stored on TOS with the default bulk settings, resuming from a checkpoint
+     * @param tosUrls The TOS paths of the documents
+     * @param checkpoint File listing the documents added so far, created if missing
+     * @return The outcome of the run
+     */
+    public Single<VikingBulkIngester.Report> addDocs(List<String> tosUrls, Path checkpoint) {
+        return addDocs(tosUrls, checkpoint, BulkIngestOptions.defaults());
+    }
+
+    /**
+     * Add many documents stored on TOS concurrently, resuming from a checkpoint. See {@link
+     * VikingBulkIngester}
+     * @param tosUrls The TOS paths of the documents
+     * @param checkpoint File listing the documents added so far, created if missing
+     * @param options Concurrency, rate limit and retry settings
+     * @return The outcome of the run
+     */
+    public Single<VikingBulkIngester.Report> addDocs(
+            List<String> tosUrls, Path checkpoint, BulkIngestOptions options) {
+        return Single.fromCallable(
+                () -> {
+                    ready.await();
+                    VikingBulkIngester ingester =
+                            new VikingBulkIngester(wrapper, this.appName, options);
+                    lastIngester = ingester;
+                    return ingester.ingest(tosUrls, checkpoint);
+                });
     }
 
     @Override
     public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+        return searchKnowledgebase(query, SearchKnowledgebaseOptions.defaults());
+    }
+
+    /**
+     * Search the knowledgebase. With a rerank policy, rerank and chunk diffusion are dropped when
+     * recent latencies or the deadline leave no room for them
+     * @param query The query
+     * @param options The search settings
+     * @return The matching entries, best first
+     */
+    @Override
+    public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
         return Single.fromCallable(
                 () -> {
+                    ready.await();
+                    SearchKnowledgebaseOptions applied =
+                            rerankPolicy == null ? options : rerankPolicy.apply(options);
+                    long start = System.nanoTime();
                     List<KnowledgebaseEntry> entries =
-                            wrapper.searchKnowledge(this.appName, query, 5, null, true, 3);
+                            wrapper.searchKnowledge(
+                                    this.appName,
+                                    query,
+                                    applied.topK(),
+                                    applied.metadataFilter().isEmpty()
+                                            ? null
+                                            : applied.metadataFilter(),
+                                    applied.rerank(),
+                                    applied.chunkDiffusionCount());
+                    if (rerankPolicy != null) {
+                        rerankPolicy.record(
+                                applied.rerank(), (System.nanoTime() - start) / 1_000_000);
+                    }
                     SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
                     response.setKnowledgebaseEntries(entries);
+                    response.setAppliedOptions(applied);
                     return response;
                 });
     }
+
+    /**
+     * Stream the entries of a search, in the order of the requested settings. With early plain
+     * results enabled and rerank or chunk diffusion asked for, a plain search runs alongside the
+     * refined one and its entries are emitted first, in plain order; the refined search then only
+     * adds the entries the plain one missed, so up to twice topK entries are emitted. A failed
+     * plain search only delays the entries until the refined one answers
+     * @param query The query
+     * @param options The search settings
+     * @return The matching entries, the earliest found first
+     */
+    @Override
+    public Flowable<KnowledgebaseEntry> streamKnowledgebase(
+            String query, SearchKnowledgebaseOptions options) {
+        if (!earlyPlainResults || (!options.rerank() && options.chunkDiffusionCount() == 0)) {
+            return BaseKnowledgebaseService.super.streamKnowledgebase(query, options);
+        }
+        Flowable<KnowledgebaseEntry> plain =
+                searchKnowledgebase(query, options.withRerank(false).withChunkDiffusionCount(0))
+                        .subscribeOn(Schedulers.io())
+                        .flattenAsFlowable(SearchKnowledgebaseResponse::getKnowledgebaseEntries)
+                        .onErrorComplete();
+        Flowable<KnowledgebaseEntry> refined =
+                searchKnowledgebase(query, options)
+                        .subscribeOn(Schedulers.io())
+                        .flattenAsFlowable(SearchKnowledgebaseResponse::getKnowledgebaseEntries);
+        return Flowable.concatArrayEager(plain, refined).distinct(KnowledgebaseEntry::getContent);
+    }
+
+    /**
+     * Progress of the most recently started bulk ingestion, updated while it runs
+     * @return Ingestion progress, or empty when addDocs was never called
+     */
+    public Optional<VikingBulkIngester.Stats> ingestStats() {
+        return Optional.ofNullable(lastIngester).map(VikingBulkIngester::stats);
+    }
+
+    /**
+     * Statistics of the rerank policy
+     * @return Policy statistics, or empty when searches always run the requested settings
+     */
+    public Optional<RerankPolicy.Stats> rerankPolicyStats() {
+        return Optional.ofNullable(rerankPolicy).map(RerankPolicy::stats);
+    }
 }
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory;
+
+import com.google.adk.events.Event;
+import com.google.adk.sessions.Session;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * High-water marks of the session events already ingested into memory.
+ *
+ * <p>Marks are keyed by app, user and session id rather than by Session instance, so they still
+ * apply when a session is re-hydrated from the session service. The events of a failed ingestion
+ * are queued on their session and handed out by its next claim, even when later claims have
+ * moved the mark past them in the meantime. The least recently used sessions are dropped beyond
+ * the bound; a session without a mark is ingested in full again.
+ */
+public class SessionWatermarks {
+
+    private final Map<String, SessionState> sessions;
+
+    public SessionWatermarks(int maxSessions) {
+        this.sessions =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, SessionState> eldest) {
+                        return size() > maxSessions;
+                    }
+                };
+    }
+
+    /**
+     * Take the events of failed claims and the events added since the last claim, and move the
+     * mark past them, so concurrent ingestions of the same session never send an event twice
+     * @param session The session to ingest
+     * @return Claim holding the events to ingest, oldest first
+     */
+    public synchronized Claim claim(Session session) {
+        String key = key(session);
+        List<Event> events = session.events();
+        SessionState state = sessions.get(key);
+        List<Event> claimed = new ArrayList<>();
+        if (state == null) {
+            state = new SessionState();
+            sessions.put(key, state);
+            claimed.addAll(events);
+        } else {
+            claimed.addAll(state.failed);
+            state.failed.clear();
+            claimed.addAll(eventsAfter(events, state.mark));
+        }
+        if (!events.isEmpty()) {
+            Event last = events.get(events.size() - 1);
+            state.mark = new Watermark(last.id(), last.timestamp());
+        }
+        return new Claim(key, state, List.copyOf(claimed));
+    }
+
+    /**
+     * Queue the events of a failed ingestion for the next claim of their session. Nothing is
+     * queued when the session was dropped since the claim, as its next claim takes every event
+     * @param claim The failed claim
+     */
+    public synchronized void rollback(Claim claim) {
+        SessionState state = sessions.get(claim.key);
+        if (state != claim.state || claim.events.isEmpty()) {
+            return;
+        }
+        state.failed.addAll(claim.events);
+        state.failed.sort(Comparator.comparingLong(Event::timestamp));
+    }
+
+    private static List<Event> eventsAfter(List<Event> events, Watermark watermark) {
+        if (watermark == null) {
+            return events;
+        }
+        if (watermark.eventId() != null) {
+            for (int i = events.size() - 1; i >= 0; i--) {
+                if (watermark.eventId().equals(events.get(i).id())) {
+                    return events.subList(i + 1, events.size());
+                }
+            }
+        }
+        // The marked event is gone, e.g. the history was truncated; fall back to its timestamp
+        return events.stream().filter(event -> event.timestamp() > watermark.timestamp()).toList();
+    }
+
+    private static String key(Session session) {
+        return session.appName() + "/" + session.userId() + "/" + session.id();
+    }
+
+    private record Watermark(String eventId, long timestamp) {}
+
+    // The mark of a session and the events of its failed claims, oldest first
+    private static final class SessionState {
+
+        private Watermark mark;
+        private final List<Event> failed = new ArrayList<>();
+    }
+
+    /** Events claimed for one ingestion of a session. */
+    public static final class Claim {
+
+        private final String key;
+        private final SessionState state;
+        private final List<Event> events;
+
+        private Claim(String key, SessionState state, List<Event> events) {
+            this.key = key;
+            this.state = state;
+            this.events = events;
+        }
+
+        public List<Event> events() {
+            return events;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.local;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory inverted index over tokenized documents, scored with BM25.
+ *
+ * <p>Documents are identified by their insertion order, starting at 0.
+ */
+final class KeywordIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, List<Posting>> postings = new HashMap<>();
+    private final List<Integer> documentLengths = new ArrayList<>();
+    private long totalLength = 0;
+
+    /**
+     * Add the next document
+     * @param tokens Tokens of the document
+     * @return The document number
+     */
+    int add(List<String> tokens) {
+        int document = documentLengths.size();
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        frequencies.forEach(
+                (token, frequency) ->
+                        postings.computeIfAbsent(token, k -> new ArrayList<>())
+                                .add(new Posting(document, frequency)));
+        documentLengths.add(tokens.size());
+        totalLength += tokens.size();
+        return document;
+    }
+
+    int size() {
+        return documentLengths.size();
+    }
+
+    /**
+     * Score the documents sharing at least one token with the query
+     * @param queryTokens Tokens of the query
+     * @return BM25 score by document number
+     */
+    Map<Integer, Double> score(List<String> queryTokens) {
+        Map<Integer, Double> scores = new HashMap<>();
+        int documents = documentLengths.size();
+        if (documents == 0) {
+            return scores;
+        }
+        double averageLength = (double) totalLength / documents;
+        for (String token : queryTokens.stream().distinct().toList()) {
+            List<Posting> matches = postings.get(token);
+            if (matches == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documents - matches.size() + 0.5) / (matches.size() + 0.5));
+            for (Posting posting : matches) {
+                double length = documentLengths.get(posting.document());
+                double tf =
+                        posting.frequency()
+                                * (K1 + 1)
+                                / (posting.frequency() + K1 * (1 - B + B * length / averageLength));
+                scores.merge(posting.document(), idf * tf, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    private record Posting(int document, int frequency) {}
+}
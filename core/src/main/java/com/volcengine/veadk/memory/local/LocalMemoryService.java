@@ -0,0 +1,379 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.local;
+
+import com.google.adk.events.Event;
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.model.BaseEmbedding;
+import com.volcengine.veadk.utils.VectorUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory service that keeps memories on local disk, for development and single-node deployments
+ * without a Viking memory collection.
+ *
+ * <p>The user messages of each app and user are appended to their own memory-mapped segment file
+ * under the base directory, and indexed in memory when the segment is first used: a BM25 keyword
+ * index, and the normalized message embeddings when an embedding model is configured. Keyword
+ * searches never leave the process, while semantic searches embed the query with the embedding
+ * model first. Events already stored are skipped, so a session can be added again after every
+ * turn. Duplicate memories can be removed with {@link #compact(String, String)}.
+ *
+ * <p>Searching a user without memories creates no file. At most a fixed number of users have their
+ * segment open; beyond that the least recently used one is closed, and reopened when used again.
+ */
+public class LocalMemoryService implements BaseMemoryService, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalMemoryService.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int DEFAULT_MAX_OPEN_USERS = 1024;
+
+    private final Path directory;
+    private final BaseEmbedding embedding;
+    private final int topK;
+    private final int maxOpenUsers;
+    private final Map<String, UserMemory> users = new ConcurrentHashMap<>();
+    // Orders uses of the open users, to find the least recently used one
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Create a memory service searching by keywords only
+     * @param directory The directory holding the segment files
+     */
+    public LocalMemoryService(Path directory) {
+        this(directory, null);
+    }
+
+    /**
+     * Create a memory service
+     * @param directory The directory holding the segment files
+     * @param embedding The embedding model for semantic search, or null to search by keywords only
+     */
+    public LocalMemoryService(Path directory, BaseEmbedding embedding) {
+        this(directory, embedding, 5);
+    }
+
+    /**
+     * Create a memory service
+     * @param directory The directory holding the segment files
+     * @param embedding The embedding model for semantic search, or null to search by keywords only
+     * @param topK Maximum number of memories returned by a search
+     */
+    public LocalMemoryService(Path directory, BaseEmbedding embedding, int topK) {
+        this(directory, embedding, topK, DEFAULT_MAX_OPEN_USERS);
+    }
+
+    /**
+     * Create a memory service
+     * @param directory The directory holding the segment files
+     * @param embedding The embedding model for semantic search, or null to search by keywords only
+     * @param topK Maximum number of memories returned by a search
+     * @param maxOpenUsers Maximum number of users whose segment is kept open
+     */
+    public LocalMemoryService(Path directory, BaseEmbedding embedding, int topK, int maxOpenUsers) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        if (maxOpenUsers <= 0) {
+            throw new IllegalArgumentException("maxOpenUsers must be positive");
+        }
+        this.directory = directory;
+        this.embedding = embedding;
+        this.topK = topK;
+        this.maxOpenUsers = maxOpenUsers;
+    }
+
+    /**
+     * Add the user messages of a session to memory. Messages already stored are skipped
+     * @param session The session
+     * @return Completable that completes once the messages are written to disk
+     */
+    @Override
+    public Completable addSessionToMemory(Session session) {
+        return Completable.fromAction(() -> ingest(session));
+    }
+
+    /**
+     * Search the memories of a user
+     * @param appName The application name
+     * @param userId The user id
+     * @param query The query
+     * @return The best matching memories, best first
+     */
+    @Override
+    public Single<SearchMemoryResponse> searchMemory(String appName, String userId, String query) {
+        if (embedding == null) {
+            return Single.fromCallable(() -> search(appName, userId, query, null));
+        }
+        return embedding
+                .embed(query)
+                .map(vector -> search(appName, userId, query, VectorUtil.normalize(vector)));
+    }
+
+    /**
+     * Rewrite the segment of a user, keeping only the newest copy of each distinct memory
+     * @param appName The application name
+     * @param userId The user id
+     * @return Completable that completes once the segment is rewritten
+     */
+    public Completable compact(String appName, String userId) {
+        return Completable.fromAction(
+                () -> {
+                    int dropped = withUser(appName, userId, false, UserMemory::compact, 0);
+                    log.debug(
+                            "Compacted memories of {}/{}: {} duplicates removed",
+                            appName,
+                            userId,
+                            dropped);
+                });
+    }
+
+    /**
+     * Number of searchable memories of a user
+     * @param appName The application name
+     * @param userId The user id
+     * @return The number of memories
+     */
+    public int size(String appName, String userId) {
+        try {
+            return withUser(appName, userId, false, UserMemory::size, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Number of users whose segment is open
+     * @return The number of open users
+     */
+    int openUsers() {
+        return users.size();
+    }
+
+    /** Flush and close every open segment. */
+    @Override
+    public void close() {
+        for (String key : users.keySet()) {
+            evict(key);
+        }
+    }
+
+    private void ingest(Session session) throws IOException {
+        // Embed outside the lock of the user, which searches and eviction wait on
+        List<Event> events =
+                withUser(
+                        session.appName(),
+                        session.userId(),
+                        false,
+                        memory -> newEvents(session, memory),
+                        null);
+        if (events == null) {
+            events = newEvents(session, null);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<String> texts = new ArrayList<>();
+        for (Event event : events) {
+            texts.add(event.content().get().parts().get().get(0).text().get());
+        }
+        List<float[]> vectors =
+                embedding == null ? Collections.nCopies(texts.size(), null) : embedAll(texts);
+        List<MemoryRecord> records = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            records.add(
+                    new MemoryRecord(event.id(), event.timestamp(), texts.get(i), vectors.get(i)));
+        }
+        // Records stored concurrently in the meantime are skipped by add
+        withUser(session.appName(), session.userId(), true, memory -> memory.add(records), 0);
+    }
+
+    // User messages with text that are not stored yet; memory is null for a user without memories
+    private static List<Event> newEvents(Session session, UserMemory memory) {
+        List<Event> events = new ArrayList<>();
+        for (Event event : session.events()) {
+            if ("user".equals(event.author())
+                    && event.id() != null
+                    && (memory == null || !memory.contains(event.id()))
+                    && event.content().isPresent()
+                    && event.content().get().parts().isPresent()
+                    && !event.content().get().parts().get().isEmpty()
+                    && event.content().get().parts().get().get(0).text().isPresent()
+                    && !event.content().get().parts().get().get(0).text().get().isBlank()) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = embedding.embedAll(texts).blockingGet();
+        List<float[]> normalized = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            normalized.add(VectorUtil.normalize(vector));
+        }
+        return normalized;
+    }
+
+    private SearchMemoryResponse search(String appName, String userId, String query, float[] vector)
+            throws IOException {
+        List<MemoryEntry> memoryEntries = new ArrayList<>();
+        List<MemoryRecord> records =
+                withUser(
+                        appName,
+                        userId,
+                        false,
+                        memory -> memory.search(query, vector, topK),
+                        List.of());
+        for (MemoryRecord record : records) {
+            memoryEntries.add(buildMemoryEntry(record));
+        }
+        return SearchMemoryResponse.builder().setMemories(memoryEntries).build();
+    }
+
+    /**
+     * Run an action on the open memory of a user. The memory is locked for the action, so it
+     * cannot be evicted meanwhile
+     * @param appName The application name
+     * @param userId The user id
+     * @param create Whether to create the segment of a user without memories
+     * @param action The action
+     * @param missing The result when the user has no segment and create is false
+     * @return The result of the action
+     * @throws IOException If the segment cannot be opened, or the action fails
+     */
+    private <T> T withUser(
+            String appName, String userId, boolean create, UserAction<T> action, T missing)
+            throws IOException {
+        String key = encode(appName) + "/" + encode(userId);
+        while (true) {
+            UserMemory memory = users.get(key);
+            if (memory == null) {
+                Path path =
+                        directory.resolve(encode(appName)).resolve(encode(userId) + SEGMENT_SUFFIX);
+                if (!create && !Files.exists(path)) {
+                    return missing;
+                }
+                memory = open(key, path);
+            }
+            synchronized (memory) {
+                // Evicted since it was looked up, so look it up again
+                if (memory.isClosed()) {
+                    continue;
+                }
+                memory.touch(clock.incrementAndGet());
+                return action.apply(memory);
+            }
+        }
+    }
+
+    private UserMemory open(String key, Path path) {
+        boolean[] opened = {false};
+        UserMemory memory =
+                users.computeIfAbsent(
+                        key,
+                        ignored -> {
+                            try {
+                                opened[0] = true;
+                                return UserMemory.open(path);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(
+                                        "Failed to open memory segment " + path, e);
+                            }
+                        });
+        if (opened[0] && users.size() > maxOpenUsers) {
+            evictLeastRecentlyUsed(key);
+        }
+        return memory;
+    }
+
+    private void evictLeastRecentlyUsed(String keep) {
+        String oldest = null;
+        long oldestUse = Long.MAX_VALUE;
+        for (Map.Entry<String, UserMemory> entry : users.entrySet()) {
+            long lastUse = entry.getValue().lastUse();
+            if (!entry.getKey().equals(keep) && lastUse < oldestUse) {
+                oldest = entry.getKey();
+                oldestUse = lastUse;
+            }
+        }
+        if (oldest != null) {
+            evict(oldest);
+        }
+    }
+
+    private void evict(String key) {
+        UserMemory memory = users.remove(key);
+        if (memory == null) {
+            return;
+        }
+        try {
+            memory.close();
+        } catch (IOException e) {
+            log.warn("Failed to close memory segment", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface UserAction<T> {
+        T apply(UserMemory memory) throws IOException;
+    }
+
+    // App names and user ids may contain any character, so file names use their base64 form
+    private static String encode(String name) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MemoryEntry buildMemoryEntry(MemoryRecord record) {
+        return MemoryEntry.builder()
+                .author("user")
+                .content(
+                        Content.builder()
+                                .role("user")
+                                .parts(
+                                        Collections.singletonList(
+                                                Part.builder().text(record.text()).build()))
+                                .build())
+                .timestamp(Instant.ofEpochMilli(record.timestamp()).toString())
+                .build();
+    }
+}
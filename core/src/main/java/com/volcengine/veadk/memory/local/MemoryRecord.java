@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.local;
+
+/**
+ * A user message stored in a memory segment.
+ *
+ * @param eventId Id of the session event the message came from
+ * @param timestamp Event timestamp in epoch milliseconds
+ * @param text The message text
+ * @param vector Normalized embedding of the text, or null without an embedder
+ */
+record MemoryRecord(String eventId, long timestamp, String text, float[] vector) {}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.local;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped file of memory records.
+ *
+ * <p>Each record is framed as {@code [int length][int crc32][payload]}, and the payload holds the
+ * event id, timestamp, text and optional vector. A zero length marks the end of the records. The
+ * file is mapped in chunks that double when full. On open, a torn or corrupt tail left by a crash
+ * is detected by its checksum and overwritten by the next append.
+ */
+final class MemorySegment implements AutoCloseable {
+
+    private static final int INITIAL_SIZE = 64 * 1024;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int end = 0;
+
+    private MemorySegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Open a segment file, creating it if missing
+     * @param path The segment file
+     * @return The opened segment, positioned after its last valid record
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    static MemorySegment open(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileChannel channel =
+                FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), INITIAL_SIZE);
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Memory segment is too large: " + path);
+        }
+        return new MemorySegment(
+                path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    /**
+     * Write records into a new segment that atomically replaces the file at path
+     * @param path The segment file to replace
+     * @param records The records to keep
+     * @throws IOException If the new segment cannot be written
+     */
+    static void rewrite(Path path, List<MemoryRecord> records) throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        try (MemorySegment segment = open(compacted)) {
+            segment.append(records);
+            segment.force();
+        }
+        Files.move(
+                compacted,
+                path,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read every valid record from the start of the file
+     * @return The records in append order
+     */
+    List<MemoryRecord> read() {
+        List<MemoryRecord> records = new ArrayList<>();
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            if (crc(payload) != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            records.add(decode(payload));
+            position += HEADER_BYTES + length;
+        }
+        end = position;
+        return records;
+    }
+
+    /**
+     * Append records after the last valid record
+     * @param records The records to append
+     * @throws IOException If the file cannot be grown
+     */
+    void append(List<MemoryRecord> records) throws IOException {
+        for (MemoryRecord record : records) {
+            byte[] payload = encode(record);
+            // Leave room for the end marker after the record
+            ensureCapacity(end + HEADER_BYTES + payload.length + Integer.BYTES);
+            buffer.putInt(end + Integer.BYTES, crc(payload));
+            buffer.put(end + HEADER_BYTES, payload);
+            // Publish the length last, so a crash mid-write leaves an invalid record
+            buffer.putInt(end, payload.length);
+            end += HEADER_BYTES + payload.length;
+            buffer.putInt(end, 0);
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void ensureCapacity(int required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long size = Math.max((long) buffer.capacity() * 2, required);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Memory segment is full: " + path);
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static byte[] encode(MemoryRecord record) {
+        byte[] eventId = record.eventId().getBytes(StandardCharsets.UTF_8);
+        byte[] text = record.text().getBytes(StandardCharsets.UTF_8);
+        float[] vector = record.vector() == null ? new float[0] : record.vector();
+        ByteBuffer payload =
+                ByteBuffer.allocate(
+                        Long.BYTES
+                                + Integer.BYTES * 3
+                                + eventId.length
+                                + text.length
+                                + vector.length * Float.BYTES);
+        payload.putLong(record.timestamp());
+        payload.putInt(eventId.length).put(eventId);
+        payload.putInt(text.length).put(text);
+        payload.putInt(vector.length);
+        for (float value : vector) {
+            payload.putFloat(value);
+        }
+        return payload.array();
+    }
+
+    private static MemoryRecord decode(byte[] bytes) {
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        long timestamp = payload.getLong();
+        byte[] eventId = new byte[payload.getInt()];
+        payload.get(eventId);
+        byte[] text = new byte[payload.getInt()];
+        payload.get(text);
+        float[] vector = new float[payload.getInt()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = payload.getFloat();
+        }
+        return new MemoryRecord(
+                new String(eventId, StandardCharsets.UTF_8),
+                timestamp,
+                new String(text, StandardCharsets.UTF_8),
+                vector.length == 0 ? null : vector);
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.local;
+
+import com.volcengine.veadk.utils.TokenizerUtil;
+import com.volcengine.veadk.utils.VectorUtil;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The memories of one user: a segment file plus the indexes built from it when it is opened.
+ *
+ * <p>Records with empty text are tombstones left by compaction. They are not searchable, but keep
+ * the id of their event so that it is never ingested again.
+ */
+final class UserMemory implements AutoCloseable {
+
+    private static final double KEYWORD_WEIGHT = 0.5;
+
+    private MemorySegment segment;
+    // Searchable records, numbered as in the keyword index
+    private final List<MemoryRecord> documents = new ArrayList<>();
+    private final Set<String> eventIds = new HashSet<>();
+    private KeywordIndex keywordIndex = new KeywordIndex();
+    private int tombstones = 0;
+    private boolean closed = false;
+    private volatile long lastUse;
+
+    private UserMemory(MemorySegment segment) {
+        this.segment = segment;
+    }
+
+    static UserMemory open(Path path) throws IOException {
+        MemorySegment segment = MemorySegment.open(path);
+        UserMemory memory = new UserMemory(segment);
+        segment.read().forEach(memory::index);
+        return memory;
+    }
+
+    synchronized boolean contains(String eventId) {
+        return eventIds.contains(eventId);
+    }
+
+    /**
+     * Append records whose event is not stored yet, and make them searchable
+     * @param records The records to add
+     * @return Number of records added
+     * @throws IOException If the segment cannot be written
+     */
+    synchronized int add(List<MemoryRecord> records) throws IOException {
+        List<MemoryRecord> added = new ArrayList<>();
+        Set<String> batch = new HashSet<>();
+        for (MemoryRecord record : records) {
+            if (!eventIds.contains(record.eventId()) && batch.add(record.eventId())) {
+                added.add(record);
+            }
+        }
+        if (added.isEmpty()) {
+            return 0;
+        }
+        segment.append(added);
+        segment.force();
+        added.forEach(this::index);
+        return added.size();
+    }
+
+    /**
+     * Rank memories by BM25 keyword score, blended with cosine similarity when a query vector is
+     * given
+     * @param query The query text
+     * @param vector Normalized query embedding, or null for keyword search only
+     * @param topK Maximum number of memories to return
+     * @return The best memories, best first
+     */
+    synchronized List<MemoryRecord> search(String query, float[] vector, int topK) {
+        Map<Integer, Double> keywordScores = keywordIndex.score(TokenizerUtil.tokenize(query));
+        double maxKeywordScore =
+                keywordScores.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+
+        Map<Integer, Double> scores = new HashMap<>();
+        if (vector == null) {
+            scores.putAll(keywordScores);
+        } else {
+            for (int document = 0; document < documents.size(); document++) {
+                float[] documentVector = documents.get(document).vector();
+                double keyword =
+                        maxKeywordScore == 0
+                                ? 0
+                                : keywordScores.getOrDefault(document, 0.0) / maxKeywordScore;
+                double semantic =
+                        documentVector == null || documentVector.length != vector.length
+                                ? 0
+                                : VectorUtil.dot(vector, documentVector);
+                double score = KEYWORD_WEIGHT * keyword + (1 - KEYWORD_WEIGHT) * semantic;
+                if (score > 0) {
+                    scores.put(document, score);
+                }
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(
+                        Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder())
+                                // Newer memories first on ties
+                                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(topK)
+                .map(entry -> documents.get(entry.getKey()))
+                .toList();
+    }
+
+    /**
+     * Rewrite the segment, keeping only the newest copy of each distinct memory text. Dropped
+     * records and old tombstones are kept as tombstones
+     * @return Number of records turned into tombstones
+     * @throws IOException If the segment cannot be rewritten
+     */
+    synchronized int compact() throws IOException {
+        Set<String> seenTexts = new HashSet<>();
+        List<MemoryRecord> kept = new ArrayList<>();
+        int dropped = 0;
+        for (int i = documents.size() - 1; i >= 0; i--) {
+            MemoryRecord record = documents.get(i);
+            if (seenTexts.add(normalize(record.text()))) {
+                kept.add(0, record);
+            } else {
+                dropped++;
+            }
+        }
+        if (dropped == 0) {
+            return 0;
+        }
+
+        Set<String> keptIds = new HashSet<>();
+        kept.forEach(record -> keptIds.add(record.eventId()));
+        List<MemoryRecord> rewritten = new ArrayList<>();
+        for (String eventId : eventIds) {
+            if (!keptIds.contains(eventId)) {
+                rewritten.add(new MemoryRecord(eventId, 0, "", null));
+            }
+        }
+        rewritten.addAll(kept);
+
+        Path path = segment.path();
+        segment.close();
+        MemorySegment.rewrite(path, rewritten);
+        segment = MemorySegment.open(path);
+
+        documents.clear();
+        eventIds.clear();
+        keywordIndex = new KeywordIndex();
+        tombstones = 0;
+        segment.read().forEach(this::index);
+        return dropped;
+    }
+
+    synchronized int size() {
+        return documents.size();
+    }
+
+    synchronized int tombstones() {
+        return tombstones;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Record a use, for least recently used eviction
+     * @param time The position of the use in the order of all uses
+     */
+    void touch(long time) {
+        lastUse = time;
+    }
+
+    long lastUse() {
+        return lastUse;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            segment.close();
+        }
+    }
+
+    private void index(MemoryRecord record) {
+        eventIds.add(record.eventId());
+        if (record.text().isEmpty()) {
+            tombstones++;
+            return;
+        }
+        documents.add(record);
+        keywordIndex.add(TokenizerUtil.tokenize(record.text()));
+    }
+
+    private static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,415 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.tiered;
+
+import com.google.adk.events.Event;
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.memory.SessionWatermarks;
+import com.volcengine.veadk.utils.TokenizerUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Memory service keeping the recent memories of each user in process, in front of a remote memory
+ * service such as VikingMemoryService.
+ *
+ * <p>The hot tier holds the user messages added to memory and the results of recent searches. Only
+ * the messages added since a session was last saved are added to it. A search is answered from it
+ * alone when its best match covers the minimum share of the query tokens; otherwise the cold tier
+ * is searched, the weaker hot matches follow its results, and its results are added to the hot
+ * tier for a TTL, so that the hot tier does not keep serving what the cold tier has since changed.
+ * Sessions are always written to the cold tier as well. The hot tier is bounded per user and in
+ * total, dropping the oldest memories of a user first and the least recently used users first.
+ */
+public class TieredMemoryService implements BaseMemoryService {
+
+    private static final int DEFAULT_MAX_ENTRIES_PER_USER = 200;
+    private static final int DEFAULT_MAX_ENTRIES = 20_000;
+    private static final double DEFAULT_MIN_SCORE = 0.6;
+    private static final int DEFAULT_TOP_K = 5;
+    private static final Duration DEFAULT_SEARCH_RESULT_TTL = Duration.ofMinutes(10);
+    private static final int MAX_TRACKED_SESSIONS = 10_000;
+
+    private final BaseMemoryService coldTier;
+    private final int maxEntriesPerUser;
+    private final int maxEntries;
+    private final double minScore;
+    private final int topK;
+    private final long searchResultTtlMillis;
+    private final Clock clock;
+    private final SessionWatermarks watermarks = new SessionWatermarks(MAX_TRACKED_SESSIONS);
+
+    // Hot memories keyed by app and user, least recently used user first. Each user's memories
+    // are oldest first
+    private final LinkedHashMap<String, Deque<HotMemory>> users =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private int entries = 0;
+    private long hotHits = 0;
+    private long coldSearches = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    public TieredMemoryService(BaseMemoryService coldTier) {
+        this(
+                coldTier,
+                DEFAULT_MAX_ENTRIES_PER_USER,
+                DEFAULT_MAX_ENTRIES,
+                DEFAULT_MIN_SCORE,
+                DEFAULT_TOP_K);
+    }
+
+    /**
+     * Create a tiered memory service
+     * @param coldTier The memory service storing every memory
+     * @param maxEntriesPerUser Maximum number of hot memories of one user
+     * @param maxEntries Maximum number of hot memories of all users
+     * @param minScore Share of the query tokens the best hot memory must cover to answer a search
+     * @param topK Maximum number of hot memories returned by a search
+     */
+    public TieredMemoryService(
+            BaseMemoryService coldTier,
+            int maxEntriesPerUser,
+            int maxEntries,
+            double minScore,
+            int topK) {
+        this(coldTier, maxEntriesPerUser, maxEntries, minScore, topK, DEFAULT_SEARCH_RESULT_TTL);
+    }
+
+    /**
+     * Create a tiered memory service
+     * @param coldTier The memory service storing every memory
+     * @param maxEntriesPerUser Maximum number of hot memories of one user
+     * @param maxEntries Maximum number of hot memories of all users
+     * @param minScore Share of the query tokens the best hot memory must cover to answer a search
+     * @param topK Maximum number of hot memories returned by a search
+     * @param searchResultTtl How long the results of a cold search stay in the hot tier
+     */
+    public TieredMemoryService(
+            BaseMemoryService coldTier,
+            int maxEntriesPerUser,
+            int maxEntries,
+            double minScore,
+            int topK,
+            Duration searchResultTtl) {
+        this(
+                coldTier,
+                maxEntriesPerUser,
+                maxEntries,
+                minScore,
+                topK,
+                searchResultTtl,
+                Clock.systemUTC());
+    }
+
+    TieredMemoryService(
+            BaseMemoryService coldTier,
+            int maxEntriesPerUser,
+            int maxEntries,
+            double minScore,
+            int topK,
+            Duration searchResultTtl,
+            Clock clock) {
+        if (maxEntriesPerUser <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Hot tier limits must be positive.");
+        }
+        if (minScore <= 0 || minScore > 1) {
+            throw new IllegalArgumentException("minScore must be in (0, 1].");
+        }
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive.");
+        }
+        if (searchResultTtl.isNegative() || searchResultTtl.isZero()) {
+            throw new IllegalArgumentException("searchResultTtl must be positive.");
+        }
+        this.coldTier = coldTier;
+        this.maxEntriesPerUser = maxEntriesPerUser;
+        this.maxEntries = maxEntries;
+        this.minScore = minScore;
+        this.topK = topK;
+        this.searchResultTtlMillis = searchResultTtl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Add the new user messages of a session to the hot tier, then write the session to the cold
+     * tier
+     * @param session The session
+     * @return Completable that completes once the cold tier has stored the session
+     */
+    @Override
+    public Completable addSessionToMemory(Session session) {
+        return Completable.fromAction(
+                        () ->
+                                remember(
+                                        session.appName(),
+                                        session.userId(),
+                                        userMessages(watermarks.claim(session).events()),
+                                        List.of(),
+                                        Long.MAX_VALUE))
+                .andThen(Completable.defer(() -> coldTier.addSessionToMemory(session)));
+    }
+
+    /**
+     * Search the memories of a user, from the hot tier alone when its best match is good enough
+     * @param appName The application name
+     * @param userId The user id
+     * @param query The query
+     * @return The good hot matches, or the cold results followed by the weaker hot matches they do
+     *     not already hold
+     */
+    @Override
+    public Single<SearchMemoryResponse> searchMemory(String appName, String userId, String query) {
+        return Single.defer(
+                () -> {
+                    HotMatches hot = searchHot(appName, userId, query);
+                    if (hot.answered()) {
+                        return Single.just(
+                                SearchMemoryResponse.builder().setMemories(hot.memories()).build());
+                    }
+                    return coldTier.searchMemory(appName, userId, query)
+                            .doOnSuccess(
+                                    response ->
+                                            remember(
+                                                    appName,
+                                                    userId,
+                                                    response.memories(),
+                                                    TokenizerUtil.tokenize(query),
+                                                    clock.millis() + searchResultTtlMillis))
+                            .map(response -> merge(response, hot.memories()));
+                });
+    }
+
+    private static SearchMemoryResponse merge(SearchMemoryResponse cold, List<MemoryEntry> hot) {
+        if (hot.isEmpty()) {
+            return cold;
+        }
+        List<MemoryEntry> merged = new ArrayList<>(cold.memories());
+        Set<String> texts = new HashSet<>();
+        cold.memories().forEach(entry -> texts.add(text(entry)));
+        for (MemoryEntry entry : hot) {
+            if (texts.add(text(entry))) {
+                merged.add(entry);
+            }
+        }
+        return SearchMemoryResponse.builder().setMemories(merged).build();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hotHits, coldSearches, entries, users.size(), evictions, expirations);
+    }
+
+    /**
+     * Statistics of the hot tier.
+     *
+     * @param hotHits Searches answered by the hot tier alone
+     * @param coldSearches Searches sent to the cold tier, including those merged with hot matches
+     * @param entries Memories in the hot tier
+     * @param users Users with memories in the hot tier
+     * @param evictions Memories dropped to stay within the limits
+     * @param expirations Search results dropped once their TTL passed
+     */
+    public record Stats(
+            long hotHits,
+            long coldSearches,
+            int entries,
+            int users,
+            long evictions,
+            long expirations) {
+
+        public double hotHitRate() {
+            long searches = hotHits + coldSearches;
+            return searches == 0 ? 0 : (double) hotHits / searches;
+        }
+    }
+
+    private synchronized HotMatches searchHot(String appName, String userId, String query) {
+        Deque<HotMemory> memories = users.get(key(appName, userId));
+        Set<String> queryTokens = new HashSet<>(TokenizerUtil.tokenize(query));
+        List<ScoredMemory> matches = new ArrayList<>();
+        if (memories != null && !queryTokens.isEmpty()) {
+            long now = clock.millis();
+            int age = 0;
+            // Newest first, so that ties favour recent memories
+            for (Iterator<HotMemory> it = memories.descendingIterator(); it.hasNext(); age++) {
+                HotMemory memory = it.next();
+                if (memory.expiresAt() <= now) {
+                    it.remove();
+                    entries--;
+                    expirations++;
+                    continue;
+                }
+                int shared = 0;
+                for (String token : queryTokens) {
+                    if (memory.tokens().contains(token)) {
+                        shared++;
+                    }
+                }
+                if (shared > 0) {
+                    matches.add(
+                            new ScoredMemory(
+                                    memory.entry(), (double) shared / queryTokens.size(), age));
+                }
+            }
+            if (memories.isEmpty()) {
+                users.remove(key(appName, userId));
+            }
+        }
+        matches.sort(
+                Comparator.comparingDouble(ScoredMemory::score)
+                        .reversed()
+                        .thenComparingInt(ScoredMemory::age));
+        // The strongest match decides, however few memories match
+        boolean answered = !matches.isEmpty() && matches.get(0).score() >= minScore;
+        if (answered) {
+            hotHits++;
+        } else {
+            coldSearches++;
+        }
+        return new HotMatches(
+                matches.stream()
+                        .filter(match -> !answered || match.score() >= minScore)
+                        .limit(topK)
+                        .map(ScoredMemory::entry)
+                        .toList(),
+                answered);
+    }
+
+    /**
+     * Add memories to the hot tier of a user
+     * @param appName The application name
+     * @param userId The user id
+     * @param added The memories, oldest first
+     * @param queryTokens Tokens of the query that found the memories, which make the same query
+     *     match them again even when their text does not share its words
+     * @param expiresAt When the memories leave the hot tier, in epoch milliseconds, or
+     *     Long.MAX_VALUE to keep them until evicted
+     */
+    private synchronized void remember(
+            String appName,
+            String userId,
+            List<MemoryEntry> added,
+            List<String> queryTokens,
+            long expiresAt) {
+        if (added.isEmpty()) {
+            return;
+        }
+        Deque<HotMemory> memories =
+                users.computeIfAbsent(key(appName, userId), key -> new ArrayDeque<>());
+        for (MemoryEntry entry : added) {
+            String text = text(entry);
+            if (text.isBlank()) {
+                continue;
+            }
+            Set<String> tokens = new HashSet<>(TokenizerUtil.tokenize(text));
+            tokens.addAll(queryTokens);
+            long expiry = expiresAt;
+            // A memory seen again becomes the newest one, and an added message never expires
+            for (Iterator<HotMemory> it = memories.iterator(); it.hasNext(); ) {
+                HotMemory memory = it.next();
+                if (memory.text().equals(text)) {
+                    tokens.addAll(memory.tokens());
+                    expiry = Math.max(expiry, memory.expiresAt());
+                    it.remove();
+                    entries--;
+                }
+            }
+            memories.addLast(new HotMemory(entry, text, tokens, expiry));
+            entries++;
+            if (memories.size() > maxEntriesPerUser) {
+                memories.removeFirst();
+                entries--;
+                evictions++;
+            }
+        }
+
+        Iterator<Map.Entry<String, Deque<HotMemory>>> eldest = users.entrySet().iterator();
+        while (entries > maxEntries && eldest.hasNext()) {
+            Deque<HotMemory> eldestMemories = eldest.next().getValue();
+            while (entries > maxEntries && !eldestMemories.isEmpty()) {
+                eldestMemories.removeFirst();
+                entries--;
+                evictions++;
+            }
+            if (eldestMemories.isEmpty()) {
+                eldest.remove();
+            }
+        }
+    }
+
+    private static List<MemoryEntry> userMessages(List<Event> events) {
+        List<MemoryEntry> messages = new ArrayList<>();
+        for (Event event : events) {
+            if ("user".equals(event.author())
+                    && event.content().isPresent()
+                    && event.content().get().parts().isPresent()
+                    && !event.content().get().parts().get().isEmpty()
+                    && event.content().get().parts().get().get(0).text().isPresent()) {
+                String text = event.content().get().parts().get().get(0).text().get();
+                messages.add(
+                        MemoryEntry.builder()
+                                .author("user")
+                                .content(
+                                        Content.builder()
+                                                .role("user")
+                                                .parts(
+                                                        Collections.singletonList(
+                                                                Part.builder().text(text).build()))
+                                                .build())
+                                .timestamp(Instant.ofEpochMilli(event.timestamp()).toString())
+                                .build());
+            }
+        }
+        return messages;
+    }
+
+    private static String text(MemoryEntry entry) {
+        StringBuilder text = new StringBuilder();
+        entry.content()
+                .parts()
+                .ifPresent(parts -> parts.forEach(part -> part.text().ifPresent(text::append)));
+        return text.toString();
+    }
+
+    private static String key(String appName, String userId) {
+        return appName + "/" + userId;
+    }
+
+    private record HotMemory(MemoryEntry entry, String text, Set<String> tokens, long expiresAt) {}
+
+    private record HotMatches(List<MemoryEntry> memories, boolean answered) {}
+
+    private record ScoredMemory(MemoryEntry entry, double score, int age) {}
+}
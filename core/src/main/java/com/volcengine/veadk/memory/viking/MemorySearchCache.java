@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.viking;
+
+import com.google.adk.memory.SearchMemoryResponse;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-through cache of memory search results, keyed by app, user and query.
+ *
+ * <p>Results are fresh for a TTL. During the following stale window they are still served, while a
+ * single background search refreshes them. The least recently used results are evicted beyond the
+ * global entry bound. Invalidating a user drops their results and discards searches of that user
+ * still in flight, so a write is never hidden by a result fetched before it.
+ */
+public class MemorySearchCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MemorySearchCache.class);
+
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final int maxEntries;
+    private final Clock clock;
+
+    // All results in access order, eldest first
+    private final LinkedHashMap<Key, Entry> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByUser = new HashMap<>();
+    private final Set<Load> inFlight = new HashSet<>();
+
+    private long hits = 0;
+    private long staleHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Create a memory search cache
+     * @param ttl How long a result is served without searching again
+     * @param staleWindow How long after the TTL a result is still served while it is refreshed
+     * @param maxEntries Maximum number of results cached across all users
+     */
+    public MemorySearchCache(Duration ttl, Duration staleWindow, int maxEntries) {
+        this(ttl, staleWindow, maxEntries, Clock.systemUTC());
+    }
+
+    MemorySearchCache(Duration ttl, Duration staleWindow, int maxEntries, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive.");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.staleMillis = staleWindow.toMillis();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Answer a search from the cache, or run it and cache the result
+     * @param appName The app name
+     * @param userId The user id
+     * @param query The query
+     * @param search Runs the search against the backing store
+     * @return The cached or searched result
+     */
+    public Single<SearchMemoryResponse> get(
+            String appName,
+            String userId,
+            String query,
+            Supplier<Single<SearchMemoryResponse>> search) {
+        return Single.defer(
+                () -> {
+                    Key key = new Key(appName, userId, query);
+                    Load refresh = null;
+                    SearchMemoryResponse cached;
+                    synchronized (this) {
+                        Entry entry = lru.get(key);
+                        long age = entry == null ? Long.MAX_VALUE : clock.millis() - entry.storedAt;
+                        if (age <= ttlMillis) {
+                            hits++;
+                            return Single.just(entry.response);
+                        }
+                        if (age > ttlMillis + staleMillis) {
+                            if (entry != null) {
+                                remove(key);
+                            }
+                            misses++;
+                            return load(startLoad(key), search);
+                        }
+                        staleHits++;
+                        cached = entry.response;
+                        if (!entry.refreshing) {
+                            entry.refreshing = true;
+                            refresh = startLoad(key);
+                        }
+                    }
+                    if (refresh != null) {
+                        load(refresh, search)
+                                .subscribeOn(Schedulers.io())
+                                .subscribe(
+                                        response -> {},
+                                        e -> {
+                                            refreshFailed(key);
+                                            log.warn("Memory search refresh failed", e);
+                                        });
+                    }
+                    return Single.just(cached);
+                });
+    }
+
+    /**
+     * Drop the cached results of a user, e.g. after new memories were written for them
+     * @param appName The app name
+     * @param userId The user id
+     */
+    public synchronized void invalidate(String appName, String userId) {
+        String user = userKey(appName, userId);
+        Set<Key> keys = keysByUser.remove(user);
+        if (keys != null) {
+            keys.forEach(lru::remove);
+        }
+        for (Load load : inFlight) {
+            if (userKey(load.key.appName, load.key.userId).equals(user)) {
+                load.invalidated = true;
+            }
+        }
+        invalidations++;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, staleHits, misses, evictions, invalidations, lru.size());
+    }
+
+    private Load startLoad(Key key) {
+        Load load = new Load(key);
+        inFlight.add(load);
+        return load;
+    }
+
+    private Single<SearchMemoryResponse> load(
+            Load load, Supplier<Single<SearchMemoryResponse>> search) {
+        return Single.defer(search::get)
+                .doOnSuccess(response -> store(load, response))
+                .doFinally(() -> finishLoad(load));
+    }
+
+    private synchronized void store(Load load, SearchMemoryResponse response) {
+        if (load.invalidated) {
+            return;
+        }
+        Key key = load.key;
+        lru.put(key, new Entry(response, clock.millis()));
+        keysByUser.computeIfAbsent(userKey(key.appName, key.userId), k -> new HashSet<>()).add(key);
+
+        Iterator<Key> eldest = lru.keySet().iterator();
+        while (lru.size() > maxEntries && eldest.hasNext()) {
+            Key victim = eldest.next();
+            eldest.remove();
+            removeFromUser(victim);
+            evictions++;
+        }
+    }
+
+    private synchronized void finishLoad(Load load) {
+        inFlight.remove(load);
+    }
+
+    private synchronized void refreshFailed(Key key) {
+        // Let the next stale hit try again
+        Entry entry = lru.get(key);
+        if (entry != null) {
+            entry.refreshing = false;
+        }
+    }
+
+    private void remove(Key key) {
+        lru.remove(key);
+        removeFromUser(key);
+    }
+
+    private void removeFromUser(Key key) {
+        String user = userKey(key.appName, key.userId);
+        Set<Key> keys = keysByUser.get(user);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByUser.remove(user);
+            }
+        }
+    }
+
+    private static String userKey(String appName, String userId) {
+        return appName + "/" + userId;
+    }
+
+    private record Key(String appName, String userId, String query) {}
+
+    private static class Entry {
+        private final SearchMemoryResponse response;
+        private final long storedAt;
+        private boolean refreshing = false;
+
+        private Entry(SearchMemoryResponse response, long storedAt) {
+            this.response = response;
+            this.storedAt = storedAt;
+        }
+    }
+
+    /** A search in flight; compared by identity. */
+    private static class Load {
+        private final Key key;
+        private boolean invalidated = false;
+
+        private Load(Key key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Counters of a memory search cache.
+     *
+     * @param hits Searches answered with a fresh result
+     * @param staleHits Searches answered with a stale result while it was refreshed
+     * @param misses Searches sent to the backing store
+     * @param evictions Results evicted by the entry bound
+     * @param invalidations Users invalidated after a write
+     * @param entries Results currently cached
+     */
+    public record Stats(
+            long hits,
+            long staleHits,
+            long misses,
+            long evictions,
+            long invalidations,
+            int entries) {
+
+        public double hitRate() {
+            long lookups = hits + staleHits + misses;
+            return lookups == 0 ? 0 : (double) (hits + staleHits) / lookups;
+        }
+    }
+}
@@ -19,100 +19,257 @@ import com.google.adk.memory.BaseMemoryService;
 import com.google.adk.memory.MemoryEntry;
 import com.google.adk.memory.SearchMemoryResponse;
 import com.google.adk.sessions.Session;
+import com.volcengine.veadk.integration.CollectionBootstrap;
 import com.volcengine.veadk.integration.vikingmemory.Message;
 import com.volcengine.veadk.integration.vikingmemory.Metadata;
 import com.volcengine.veadk.integration.vikingmemory.VikingMemoryWrapper;
+import com.volcengine.veadk.memory.SessionWatermarks;
 import com.volcengine.veadk.utils.EnvUtil;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Single;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class VikingMemoryService implements BaseMemoryService {
+public class VikingMemoryService implements BaseMemoryService, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(VikingMemoryService.class);
 
+    private static final int DEFAULT_MAX_TRACKED_SESSIONS = 10_000;
+
     private VikingMemoryWrapper vikingMemoryWrapper;
     private String appName;
     private int topK = 5;
     private List<String> builtinEventTypes;
+    private final SessionWatermarks watermarks;
+    private final WriteBehindQueue writeBehindQueue;
+    private final MemorySearchCache searchCache;
+    private final CollectionBootstrap.Readiness ready;
 
     public VikingMemoryService(String appName) {
+        this(appName, DEFAULT_MAX_TRACKED_SESSIONS);
+    }
+
+    /**
+     * Create a memory service
+     * @param appName The application name, used as the Viking collection name
+     * @param maxTrackedSessions How many sessions to remember the ingested events of
+     */
+    public VikingMemoryService(String appName, int maxTrackedSessions) {
+        this(appName, maxTrackedSessions, null);
+    }
+
+    /**
+     * Create a memory service that writes sessions in the background
+     * @param appName The application name, used as the Viking collection name
+     * @param writeBehindOptions Settings of the write-behind queue
+     */
+    public VikingMemoryService(String appName, WriteBehindOptions writeBehindOptions) {
+        this(appName, DEFAULT_MAX_TRACKED_SESSIONS, writeBehindOptions);
+    }
+
+    /**
+     * Create a memory service
+     * @param appName The application name, used as the Viking collection name
+     * @param maxTrackedSessions How many sessions to remember the ingested events of
+     * @param writeBehindOptions Settings of the write-behind queue, or null to write sessions
+     *     before addSessionToMemory completes
+     */
+    public VikingMemoryService(
+            String appName, int maxTrackedSessions, WriteBehindOptions writeBehindOptions) {
+        this(appName, maxTrackedSessions, writeBehindOptions, null);
+    }
+
+    /**
+     * Create a memory service that caches search results
+     * @param appName The application name, used as the Viking collection name
+     * @param searchCache Cache of search results
+     */
+    public VikingMemoryService(String appName, MemorySearchCache searchCache) {
+        this(appName, DEFAULT_MAX_TRACKED_SESSIONS, null, searchCache);
+    }
+
+    /**
+     * Create a memory service
+     * @param appName The application name, used as the Viking collection name
+     * @param maxTrackedSessions How many sessions to remember the ingested events of
+     * @param writeBehindOptions Settings of the write-behind queue, or null to write sessions
+     *     before addSessionToMemory completes
+     * @param searchCache Cache of search results, or null to always search Viking
+     */
+    public VikingMemoryService(
+            String appName,
+            int maxTrackedSessions,
+            WriteBehindOptions writeBehindOptions,
+            MemorySearchCache searchCache) {
         if (null != appName && !appName.matches("^[a-zA-Z][a-zA-Z0-9_]*$")) {
             throw new IllegalArgumentException(
                     "appName can only contain English letters, numbers, and underscores, and must"
                             + " start with an English letter.");
         }
         this.appName = appName;
+        this.watermarks = new SessionWatermarks(maxTrackedSessions);
+        this.searchCache = searchCache;
 
         this.builtinEventTypes = List.of(EnvUtil.getVikingMmemoryType().split(","));
 
         vikingMemoryWrapper =
                 new VikingMemoryWrapper(EnvUtil.getAccessKey(), EnvUtil.getSecretKey());
-        if (!vikingMemoryWrapper.isCollectionExists(appName)) {
-            vikingMemoryWrapper.createCollection(appName, this.builtinEventTypes);
-        }
+        this.ready =
+                CollectionBootstrap.readiness(
+                        "vikingmemory",
+                        appName,
+                        CollectionBootstrap.Mode.parse(EnvUtil.getVikingCollectionBootstrap()),
+                        () -> vikingMemoryWrapper.isCollectionExists(appName),
+                        () -> vikingMemoryWrapper.createCollection(appName, builtinEventTypes));
+
+        this.writeBehindQueue =
+                writeBehindOptions == null
+                        ? null
+                        : new WriteBehindQueue(writeBehindOptions, this::ingest);
     }
 
+    /**
+     * Add the messages of a session to memory. Only the events added since the previous call for
+     * the same session are sent. With write-behind enabled the session is only queued, and a
+     * failed write is retried with the next save of the session
+     * @param session The session
+     * @return Completable that completes once the messages are stored, or queued
+     */
     @Override
     public Completable addSessionToMemory(Session session) {
-        return Completable.fromAction(
+        if (writeBehindQueue != null) {
+            return Completable.fromAction(() -> writeBehindQueue.submit(session));
+        }
+        return Completable.fromAction(() -> ingest(session));
+    }
+
+    /**
+     * Search the memories of a user, answering from the search cache when one is configured
+     * @param appName The Viking collection name
+     * @param userId The user id
+     * @param query The query
+     * @return The matching memories
+     */
+    @Override
+    public Single<SearchMemoryResponse> searchMemory(String appName, String userId, String query) {
+        if (searchCache != null) {
+            return searchCache.get(
+                    appName, userId, query, () -> searchViking(appName, userId, query));
+        }
+        return searchViking(appName, userId, query);
+    }
+
+    /**
+     * Search the memories of a user for several queries at once, e.g. the sub-questions of a
+     * request. The queries run concurrently, and their results are merged by score with duplicate
+     * memories removed. Results are not cached
+     * @param appName The Viking collection name
+     * @param userId The user id
+     * @param queries The queries
+     * @return The matching memories of all queries, best first
+     */
+    public Single<SearchMemoryResponse> searchMemoryBatch(
+            String appName, String userId, List<String> queries) {
+        return Single.fromCallable(
                 () -> {
-                    List<Message> messages =
-                            session.events().stream()
-                                    .filter(
-                                            event -> {
-                                                return "user".equals(event.author())
-                                                        && event.content().isPresent()
-                                                        && event.content().get().parts().isPresent()
-                                                        && event.content()
-                                                                .get()
-                                                                .parts()
-                                                                .get()
-                                                                .get(0)
-                                                                .text()
-                                                                .isPresent();
-                                            })
-                                    .map(
-                                            event -> {
-                                                String content =
-                                                        event.content()
-                                                                .get()
-                                                                .parts()
-                                                                .get()
-                                                                .get(0)
-                                                                .text()
-                                                                .get();
-                                                return new Message("user", content);
-                                            })
-                                    .collect(Collectors.toList());
-
-                    if (messages.isEmpty()) {
-                        return;
-                    }
-
-                    try {
-                        Metadata metadata =
-                                new Metadata(
-                                        session.userId(), "assistant", System.currentTimeMillis());
-                        vikingMemoryWrapper.addSession(session.appName(), messages, metadata);
-                    } catch (Exception e) {
-                        log.error("addSessionToMemory failed", e);
-                        throw new RuntimeException(e);
-                    }
+                    ready.await();
+                    List<MemoryEntry> memoryEntries =
+                            vikingMemoryWrapper.searchMemoryBatch(
+                                    appName, userId, queries, topK, this.builtinEventTypes);
+                    return SearchMemoryResponse.builder().setMemories(memoryEntries).build();
                 });
     }
 
+    /**
+     * Readiness of the memory collection. Requests wait on it, so waiting is only needed to
+     * surface bootstrap failures early
+     * @return Future completing once the collection is ready
+     */
+    public CompletableFuture<Void> ready() {
+        return ready.future();
+    }
+
+    /**
+     * Statistics of the search cache
+     * @return Cache statistics, or empty when search results are not cached
+     */
+    public Optional<MemorySearchCache.Stats> searchCacheStats() {
+        return Optional.ofNullable(searchCache).map(MemorySearchCache::stats);
+    }
+
+    /**
+     * Statistics of the write-behind queue
+     * @return Queue statistics, or empty when sessions are written synchronously
+     */
+    public Optional<WriteBehindQueue.Stats> writeBehindStats() {
+        return Optional.ofNullable(writeBehindQueue).map(WriteBehindQueue::stats);
+    }
+
+    /** Write every queued session. Does nothing when sessions are written synchronously. */
     @Override
-    public Single<SearchMemoryResponse> searchMemory(String appName, String userId, String query) {
+    public void close() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+        }
+    }
+
+    private Single<SearchMemoryResponse> searchViking(String appName, String userId, String query) {
         return Single.fromCallable(
                 () -> {
+                    ready.await();
                     List<MemoryEntry> memoryEntries =
                             vikingMemoryWrapper.searchMemory(
                                     appName, userId, query, topK, this.builtinEventTypes);
                     return SearchMemoryResponse.builder().setMemories(memoryEntries).build();
                 });
     }
+
+    private void ingest(Session session) {
+        ready.await();
+        SessionWatermarks.Claim claim = watermarks.claim(session);
+        List<Message> messages =
+                claim.events().stream()
+                        .filter(
+                                event -> {
+                                    return "user".equals(event.author())
+                                            && event.content().isPresent()
+                                            && event.content().get().parts().isPresent()
+                                            && event.content()
+                                                    .get()
+                                                    .parts()
+                                                    .get()
+                                                    .get(0)
+                                                    .text()
+                                                    .isPresent();
+                                })
+                        .map(
+                                event -> {
+                                    String content =
+                                            event.content().get().parts().get().get(0).text().get();
+                                    return new Message("user", content);
+                                })
+                        .collect(Collectors.toList());
+
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        try {
+            Metadata metadata =
+                    new Metadata(session.userId(), "assistant", System.currentTimeMillis());
+            vikingMemoryWrapper.addSession(session.appName(), messages, metadata);
+            if (searchCache != null) {
+                searchCache.invalidate(session.appName(), session.userId());
+            }
+        } catch (Exception e) {
+            // Send these messages again on the next call
+            watermarks.rollback(claim);
+            log.error("addSessionToMemory failed", e);
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.viking;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings of the write-behind queue of {@link VikingMemoryService}.
+ *
+ * @param queueCapacity Maximum number of sessions waiting to be written
+ * @param flushInterval How often pending sessions are written, at least one millisecond
+ * @param maxBatchSessions Sessions written per flush window; a full window flushes right away
+ * @param workers Threads writing sessions concurrently
+ * @param dropPolicy What to do with a new session when the queue is full
+ */
+public record WriteBehindOptions(
+        int queueCapacity,
+        Duration flushInterval,
+        int maxBatchSessions,
+        int workers,
+        DropPolicy dropPolicy) {
+
+    public WriteBehindOptions {
+        if (queueCapacity <= 0 || maxBatchSessions <= 0 || workers <= 0) {
+            throw new IllegalArgumentException(
+                    "queueCapacity, maxBatchSessions and workers must be positive.");
+        }
+        Objects.requireNonNull(flushInterval, "flushInterval must be set.");
+        if (flushInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("flushInterval must be at least one millisecond.");
+        }
+        Objects.requireNonNull(dropPolicy, "dropPolicy must be set.");
+    }
+
+    public static WriteBehindOptions defaults() {
+        return new WriteBehindOptions(10_000, Duration.ofSeconds(1), 32, 4, DropPolicy.DROP_OLDEST);
+    }
+
+    public enum DropPolicy {
+        /** Reject the new session; its messages are sent the next time it is saved. */
+        DROP_NEWEST,
+        /** Evict the oldest pending session; its messages are sent the next time it is saved. */
+        DROP_OLDEST,
+        /** Write the new session on the calling thread. */
+        CALLER_RUNS
+    }
+}
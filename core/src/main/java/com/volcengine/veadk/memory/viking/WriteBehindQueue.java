@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.viking;
+
+import com.google.adk.sessions.Session;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded write-behind queue of sessions to persist into memory.
+ *
+ * <p>Saving a session only records it as pending. Saves of a session that is already pending are
+ * coalesced into one write of its latest snapshot. Pending sessions are written in flush windows
+ * of up to {@code maxBatchSessions} sessions by a worker pool, either on the flush interval or as
+ * soon as a window is full. Pending sessions are flushed on {@link #close()}; a single JVM shutdown
+ * hook closes the queues still open.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    // Queues closed by the shutdown hook, registered with the first queue
+    private static final Set<WriteBehindQueue> OPEN_QUEUES = ConcurrentHashMap.newKeySet();
+    private static boolean shutdownHookAdded = false;
+
+    private final WriteBehindOptions options;
+    private final Consumer<Session> writer;
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService workers;
+
+    // Pending sessions keyed by app, user and session id, oldest first
+    private final LinkedHashMap<String, Session> pending = new LinkedHashMap<>();
+    private boolean flushRequested = false;
+    private boolean closed = false;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedSessions = new AtomicLong();
+    private final AtomicLong totalFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+
+    /**
+     * Create a write-behind queue
+     * @param options Queue settings
+     * @param writer Writes one session synchronously, throwing on failure
+     */
+    public WriteBehindQueue(WriteBehindOptions options, Consumer<Session> writer) {
+        this.options = options;
+        this.writer = writer;
+        this.flusher =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("veadk-memory-flusher-%d")
+                                .setDaemon(true)
+                                .build());
+        this.workers =
+                Executors.newFixedThreadPool(
+                        options.workers(),
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("veadk-memory-writer-%d")
+                                .setDaemon(true)
+                                .build());
+
+        long intervalMillis = options.flushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(
+                this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        register(this);
+    }
+
+    /**
+     * Queue a session to be written. Never blocks on the network unless the drop policy is
+     * CALLER_RUNS and the queue is full, or the queue is closed
+     * @param session The session to persist
+     */
+    public void submit(Session session) {
+        synchronized (this) {
+            submitted.incrementAndGet();
+            if (!closed) {
+                String key = key(session);
+                if (pending.containsKey(key)) {
+                    // Keep the queue position, but write the latest snapshot
+                    pending.put(key, session);
+                    coalesced.incrementAndGet();
+                    return;
+                }
+                if (pending.size() < options.queueCapacity() || makeRoom()) {
+                    pending.put(key, session);
+                    if (pending.size() >= options.maxBatchSessions() && !flushRequested) {
+                        flushRequested = true;
+                        flusher.execute(this::flush);
+                    }
+                    return;
+                }
+                if (options.dropPolicy() != WriteBehindOptions.DropPolicy.CALLER_RUNS) {
+                    dropped.incrementAndGet();
+                    log.warn("Memory write queue is full, dropped session {}", session.id());
+                    return;
+                }
+            }
+        }
+        // Queue full with CALLER_RUNS, or already closed
+        write(session);
+    }
+
+    public Stats stats() {
+        int queueDepth;
+        synchronized (this) {
+            queueDepth = pending.size();
+        }
+        return new Stats(
+                submitted.get(),
+                coalesced.get(),
+                dropped.get(),
+                written.get(),
+                failed.get(),
+                batches.get(),
+                batchedSessions.get(),
+                queueDepth,
+                totalFlushMillis.get(),
+                maxFlushMillis.get());
+    }
+
+    /** Stop accepting work into the queue and write every pending session. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            flush();
+            workers.shutdown();
+            workers.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        OPEN_QUEUES.remove(this);
+    }
+
+    private static synchronized void register(WriteBehindQueue queue) {
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime()
+                    .addShutdownHook(
+                            new Thread(
+                                    () -> List.copyOf(OPEN_QUEUES).forEach(WriteBehindQueue::close),
+                                    "veadk-memory-shutdown"));
+            shutdownHookAdded = true;
+        }
+        OPEN_QUEUES.add(queue);
+    }
+
+    /**
+     * Evict the oldest pending session under DROP_OLDEST. The evicted session is not lost for
+     * good: its messages are sent the next time it is saved
+     * @return True if a slot was freed
+     */
+    private boolean makeRoom() {
+        if (options.dropPolicy() != WriteBehindOptions.DropPolicy.DROP_OLDEST) {
+            return false;
+        }
+        Iterator<Session> oldest = pending.values().iterator();
+        Session evicted = oldest.next();
+        oldest.remove();
+        dropped.incrementAndGet();
+        log.warn("Memory write queue is full, dropped session {}", evicted.id());
+        return true;
+    }
+
+    /** Write pending sessions one flush window at a time until none are left. */
+    private void flush() {
+        while (true) {
+            List<Session> batch = new ArrayList<>();
+            synchronized (this) {
+                flushRequested = false;
+                Iterator<Session> it = pending.values().iterator();
+                while (it.hasNext() && batch.size() < options.maxBatchSessions()) {
+                    batch.add(it.next());
+                    it.remove();
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            CompletableFuture.allOf(
+                            batch.stream()
+                                    .map(
+                                            session ->
+                                                    CompletableFuture.runAsync(
+                                                            () -> write(session), workers))
+                                    .toArray(CompletableFuture[]::new))
+                    .join();
+            long flushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            batches.incrementAndGet();
+            batchedSessions.addAndGet(batch.size());
+            totalFlushMillis.addAndGet(flushMillis);
+            maxFlushMillis.accumulateAndGet(flushMillis, Math::max);
+        }
+    }
+
+    private void write(Session session) {
+        try {
+            writer.accept(session);
+            written.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Failed to write session {} to memory", session.id(), e);
+        }
+    }
+
+    private static String key(Session session) {
+        return session.appName() + "/" + session.userId() + "/" + session.id();
+    }
+
+    /**
+     * Counters of a write-behind queue.
+     *
+     * @param submitted Sessions submitted
+     * @param coalesced Submissions merged into an already pending session
+     * @param dropped Sessions dropped because the queue was full
+     * @param written Sessions written successfully
+     * @param failed Session writes that failed
+     * @param batches Flush windows written
+     * @param batchedSessions Sessions written across all flush windows
+     * @param queueDepth Sessions currently pending
+     * @param totalFlushMillis Time spent writing flush windows
+     * @param maxFlushMillis Longest time spent on one flush window
+     */
+    public record Stats(
+            long submitted,
+            long coalesced,
+            long dropped,
+            long written,
+            long failed,
+            long batches,
+            long batchedSessions,
+            int queueDepth,
+            long totalFlushMillis,
+            long maxFlushMillis) {
+
+        public double averageBatchSize() {
+            return batches == 0 ? 0 : (double) batchedSessions / batches;
+        }
+
+        public double averageFlushMillis() {
+            return batches == 0 ? 0 : (double) totalFlushMillis / batches;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import com.google.adk.models.LlmRequest;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.Part;
+import com.google.genai.types.ThinkingConfig;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Thinking policy that only pays reasoning latency on turns that are likely to need it.
+ *
+ * <p>Rules, first match wins:
+ *
+ * <ol>
+ *   <li>An explicit {@link ThinkingConfig} on the request config (e.g. set by a before-model
+ *       callback for one invocation): budget 0 disables, a positive budget or {@code
+ *       includeThoughts} enables, a negative budget selects auto.
+ *   <li>Turns that follow a function response are disabled: the model only summarizes tool
+ *       output it already decided to fetch.
+ *   <li>Long user prompts are enabled.
+ *   <li>Short user prompts without tools are disabled.
+ *   <li>Everything else is left to the model with auto.
+ * </ol>
+ */
+public class AdaptiveThinkingPolicy implements ThinkingPolicy {
+
+    private static final int DEFAULT_SHORT_PROMPT_CHARS = 200;
+    private static final int DEFAULT_LONG_PROMPT_CHARS = 2000;
+
+    private final int shortPromptChars;
+    private final int longPromptChars;
+
+    public AdaptiveThinkingPolicy() {
+        this(DEFAULT_SHORT_PROMPT_CHARS, DEFAULT_LONG_PROMPT_CHARS);
+    }
+
+    public AdaptiveThinkingPolicy(int shortPromptChars, int longPromptChars) {
+        if (shortPromptChars > longPromptChars) {
+            throw new IllegalArgumentException(
+                    "shortPromptChars must not be greater than longPromptChars.");
+        }
+        this.shortPromptChars = shortPromptChars;
+        this.longPromptChars = longPromptChars;
+    }
+
+    @Override
+    public String select(LlmRequest llmRequest) {
+        Optional<String> override = explicitOverride(llmRequest);
+        if (override.isPresent()) {
+            return override.get();
+        }
+
+        List<Content> contents = llmRequest.contents();
+        if (contents.isEmpty()) {
+            return AUTO;
+        }
+        Content last = contents.get(contents.size() - 1);
+        if (hasFunctionResponse(last)) {
+            return DISABLED;
+        }
+
+        int promptChars = textLength(last);
+        if (promptChars >= longPromptChars) {
+            return ENABLED;
+        }
+        if (promptChars <= shortPromptChars && llmRequest.tools().isEmpty()) {
+            return DISABLED;
+        }
+        return AUTO;
+    }
+
+    private static Optional<String> explicitOverride(LlmRequest llmRequest) {
+        Optional<ThinkingConfig> thinkingConfig =
+                llmRequest.config().flatMap(GenerateContentConfig::thinkingConfig);
+        if (thinkingConfig.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<Integer> budget = thinkingConfig.get().thinkingBudget();
+        if (budget.isPresent()) {
+            if (budget.get() == 0) {
+                return Optional.of(DISABLED);
+            }
+            return Optional.of(budget.get() > 0 ? ENABLED : AUTO);
+        }
+        if (thinkingConfig.get().includeThoughts().orElse(false)) {
+            return Optional.of(ENABLED);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean hasFunctionResponse(Content content) {
+        return content.parts().orElse(List.of()).stream()
+                .anyMatch(part -> part.functionResponse().isPresent());
+    }
+
+    private static int textLength(Content content) {
+        int length = 0;
+        for (Part part : content.parts().orElse(List.of())) {
+            length += part.text().map(String::length).orElse(0);
+        }
+        return length;
+    }
+}
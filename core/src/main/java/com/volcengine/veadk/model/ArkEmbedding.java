@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.volcengine.ark.runtime.model.embeddings.Embedding;
+import com.volcengine.ark.runtime.model.embeddings.EmbeddingRequest;
+import com.volcengine.ark.runtime.model.embeddings.EmbeddingResult;
+import com.volcengine.ark.runtime.service.ArkService;
+import com.volcengine.veadk.utils.EnvUtil;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ark (Volcengine Ark Runtime) implementation of BaseEmbedding.
+ *
+ * <p>Concurrent {@link #embed(String)} calls are collected into micro-batches: a batch is sent as
+ * soon as it reaches {@code maxBatchSize} texts, or when the oldest pending text has waited {@code
+ * maxLinger}. Results of recent texts are kept in an LRU cache, and identical texts waiting in the
+ * same window share one slot of the batch.
+ */
+public final class ArkEmbedding implements BaseEmbedding {
+
+    private static final Logger log = LoggerFactory.getLogger(ArkEmbedding.class);
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    private static final Duration DEFAULT_MAX_LINGER = Duration.ofMillis(10);
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final int FLUSH_THREADS = 4;
+
+    private final String modelName;
+    private final ArkService arkService;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final Map<String, float[]> cache;
+    private final ScheduledExecutorService executor;
+
+    // Texts waiting for the next batch, guarded by "this"
+    private Map<String, CompletableFuture<float[]>> pending = new LinkedHashMap<>();
+    // Texts already sent but not answered yet, guarded by "this"
+    private final Map<String, CompletableFuture<float[]>> inFlight = new HashMap<>();
+    private ScheduledFuture<?> lingerTask;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedTexts = new AtomicLong();
+
+    public ArkEmbedding(String modelName) {
+        this(modelName, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LINGER, DEFAULT_CACHE_SIZE);
+    }
+
+    public ArkEmbedding(String modelName, int maxBatchSize, Duration maxLinger, int cacheSize) {
+        this(
+                modelName,
+                ArkService.builder().apiKey(EnvUtil.getAgentApiKey()).build(),
+                maxBatchSize,
+                maxLinger,
+                cacheSize);
+    }
+
+    ArkEmbedding(
+            String modelName,
+            ArkService arkService,
+            int maxBatchSize,
+            Duration maxLinger,
+            int cacheSize) {
+        Objects.requireNonNull(modelName, "modelName must be set.");
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive.");
+        }
+        this.modelName = modelName;
+        this.arkService = arkService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.cache =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                        return size() > cacheSize;
+                    }
+                };
+        this.executor =
+                Executors.newScheduledThreadPool(
+                        FLUSH_THREADS,
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("veadk-ark-embedding-%d")
+                                .setDaemon(true)
+                                .build());
+    }
+
+    public String modelName() {
+        return modelName;
+    }
+
+    @Override
+    public Single<float[]> embed(String text) {
+        Objects.requireNonNull(text, "text must be set.");
+        return Single.defer(() -> Single.fromCompletionStage(submit(text)));
+    }
+
+    @Override
+    public Single<List<float[]>> embedAll(List<String> texts) {
+        return Single.defer(
+                () -> {
+                    // Submit everything before waiting so the texts share batches
+                    List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+                    for (String text : texts) {
+                        futures.add(submit(text));
+                    }
+                    return Single.fromCompletionStage(
+                            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                                    .thenApply(
+                                            ignored -> {
+                                                List<float[]> vectors =
+                                                        new ArrayList<>(futures.size());
+                                                futures.forEach(f -> vectors.add(f.join()));
+                                                return vectors;
+                                            }));
+                });
+    }
+
+    /**
+     * Get counters of this embedding client
+     * @return Snapshot of request, cache and batch counters
+     */
+    public Stats stats() {
+        return new Stats(requests.get(), cacheHits.get(), batches.get(), batchedTexts.get());
+    }
+
+    /** Send pending texts and stop the background threads. */
+    public void close() {
+        flushPending();
+        executor.shutdown();
+    }
+
+    /**
+     * Register a text for the next batch
+     * @param text The text to embed
+     * @return Future completed with the embedding vector
+     */
+    private synchronized CompletableFuture<float[]> submit(String text) {
+        requests.incrementAndGet();
+        float[] cached = cache.get(text);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        // Share the result of an identical text that is already waiting or in flight
+        CompletableFuture<float[]> existing = pending.get(text);
+        if (existing == null) {
+            existing = inFlight.get(text);
+        }
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        pending.put(text, future);
+        if (pending.size() >= maxBatchSize) {
+            dispatch(drainPending());
+        } else if (pending.size() == 1) {
+            try {
+                lingerTask =
+                        executor.schedule(this::flushPending, maxLingerNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Already closed, nothing else will join this batch
+                dispatch(drainPending());
+            }
+        }
+        return future;
+    }
+
+    private void flushPending() {
+        Map<String, CompletableFuture<float[]>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = drainPending();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * Take all pending texts as one batch, must hold the lock
+     * @return The drained batch
+     */
+    private Map<String, CompletableFuture<float[]>> drainPending() {
+        if (lingerTask != null) {
+            lingerTask.cancel(false);
+            lingerTask = null;
+        }
+        Map<String, CompletableFuture<float[]>> batch = pending;
+        pending = new LinkedHashMap<>();
+        inFlight.putAll(batch);
+        return batch;
+    }
+
+    private void dispatch(Map<String, CompletableFuture<float[]>> batch) {
+        try {
+            executor.execute(() -> sendBatch(batch));
+        } catch (RejectedExecutionException e) {
+            // Executor already closed, send on the calling thread
+            sendBatch(batch);
+        }
+    }
+
+    /**
+     * Send one batched embedding request and fan the vectors back out
+     * @param batch Texts of the batch and the futures waiting for them
+     */
+    private void sendBatch(Map<String, CompletableFuture<float[]>> batch) {
+        List<String> texts = new ArrayList<>(batch.keySet());
+        batches.incrementAndGet();
+        batchedTexts.addAndGet(texts.size());
+        log.debug("Sending embedding batch of {} texts to model {}", texts.size(), modelName);
+
+        try {
+            EmbeddingResult result =
+                    arkService.createEmbeddings(
+                            EmbeddingRequest.builder().model(modelName).input(texts).build());
+            float[][] vectors = new float[texts.size()][];
+            for (Embedding embedding : result.getData()) {
+                vectors[embedding.getIndex()] = toVector(embedding.getEmbedding());
+            }
+
+            synchronized (this) {
+                for (int i = 0; i < texts.size(); i++) {
+                    if (vectors[i] != null) {
+                        cache.put(texts.get(i), vectors[i]);
+                    }
+                    inFlight.remove(texts.get(i));
+                }
+            }
+            for (int i = 0; i < texts.size(); i++) {
+                CompletableFuture<float[]> future = batch.get(texts.get(i));
+                if (vectors[i] != null) {
+                    future.complete(vectors[i]);
+                } else {
+                    future.completeExceptionally(
+                            new IllegalStateException("No embedding returned for input " + i));
+                }
+            }
+        } catch (Exception e) {
+            log.error("createEmbeddings failed, batch size:{}", texts.size(), e);
+            synchronized (this) {
+                texts.forEach(inFlight::remove);
+            }
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static float[] toVector(List<Double> values) {
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = values.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * Counters of an embedding client.
+     *
+     * @param requests Texts requested through embed calls
+     * @param cacheHits Texts answered from the LRU cache
+     * @param batches Batched requests sent to Ark
+     * @param batchedTexts Texts sent to Ark over all batches
+     */
+    public record Stats(long requests, long cacheHits, long batches, long batchedTexts) {
+
+        public double averageBatchSize() {
+            return batches == 0 ? 0 : (double) batchedTexts / batches;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.google.genai.types.FunctionDeclaration;
 import com.google.genai.types.FunctionResponse;
 import com.google.genai.types.Part;
 import com.google.genai.types.Schema;
+import com.volcengine.ark.runtime.model.Usage;
 import com.volcengine.ark.runtime.model.completion.chat.ChatCompletionChunk;
 import com.volcengine.ark.runtime.model.completion.chat.ChatCompletionRequest;
 import com.volcengine.ark.runtime.model.completion.chat.ChatCompletionResult;
@@ -39,23 +40,38 @@ import com.volcengine.ark.runtime.model.completion.chat.ChatToolCall;
 import com.volcengine.ark.runtime.service.ArkService;
 import com.volcengine.veadk.utils.EnvUtil;
 import com.volcengine.veadk.utils.JSONUtil;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.reactivex.exceptions.UndeliverableException;
+import io.reactivex.plugins.RxJavaPlugins;
 import io.reactivex.rxjava3.core.Flowable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import okhttp3.Call;
+import okhttp3.Dispatcher;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import retrofit2.Invocation;
 
 /**
  * Ark (Volcengine Ark Runtime) implementation of BaseLlm.
  *
  * <p>This adapter maps ADK's LlmRequest/LlmResponse to Ark Responses API semantics and supports
  * both streaming and aggregated (non-streaming) generation.
+ *
+ * <p>Cancelling a generation, e.g. when the client disconnects, aborts its in-flight HTTP call so
+ * the connection is released and the model stops generating. Applications without their own
+ * RxJava 2 error handler can call {@link #installUndeliverableErrorHandler()} at startup to keep
+ * the errors of aborted calls out of stderr.
  */
 public final class ArkLlm extends BaseLlm {
 
@@ -69,20 +85,60 @@ public final class ArkLlm extends BaseLlm {
                     .put("system", ChatMessageRole.SYSTEM)
                     .build();
 
+    private static final AtomicBoolean ERROR_HANDLER_CHECKED = new AtomicBoolean();
+
     private final ArkService arkService;
-    private ChatCompletionRequest.ChatCompletionRequestThinking thinking = null;
+    // Dispatcher of the Ark HTTP client, used to find and abort the calls of cancelled requests
+    private final Dispatcher dispatcher;
+    private final ThinkingPolicy thinkingPolicy;
+    private final ThinkingStats thinkingStats = new ThinkingStats();
 
     public ArkLlm(String modelName) {
-        this(modelName, null);
+        this(modelName, ThinkingPolicy.fixed(null));
     }
 
     public ArkLlm(String modelName, String thinking) {
+        this(modelName, ThinkingPolicy.fixed(StringUtils.isNotBlank(thinking) ? thinking : null));
+    }
+
+    /**
+     * Create an ArkLlm that decides the thinking mode per request
+     * @param modelName The Ark model name
+     * @param thinkingPolicy Policy selecting the thinking mode, e.g. {@link AdaptiveThinkingPolicy}
+     */
+    public ArkLlm(String modelName, ThinkingPolicy thinkingPolicy) {
+        this(modelName, new Dispatcher(), thinkingPolicy);
+    }
+
+    private ArkLlm(String modelName, Dispatcher dispatcher, ThinkingPolicy thinkingPolicy) {
+        this(
+                Objects.requireNonNull(modelName, "modelName must be set."),
+                ArkService.builder()
+                        .apiKey(EnvUtil.getAgentApiKey())
+                        .dispatcher(dispatcher)
+                        .build(),
+                dispatcher,
+                thinkingPolicy);
+    }
+
+    ArkLlm(
+            String modelName,
+            ArkService arkService,
+            Dispatcher dispatcher,
+            ThinkingPolicy thinkingPolicy) {
         super(modelName);
         Objects.requireNonNull(modelName, "modelName must be set.");
-        this.arkService = ArkService.builder().apiKey(EnvUtil.getAgentApiKey()).build();
-        if (StringUtils.isNotBlank(thinking)) {
-            this.thinking = new ChatCompletionRequest.ChatCompletionRequestThinking(thinking);
-        }
+        this.arkService = arkService;
+        this.dispatcher = Objects.requireNonNull(dispatcher, "dispatcher must be set.");
+        this.thinkingPolicy = Objects.requireNonNull(thinkingPolicy, "thinkingPolicy must be set.");
+    }
+
+    /**
+     * Get latency and token usage per thinking mode
+     * @return ThinkingStats of this model
+     */
+    public ThinkingStats thinkingStats() {
+        return thinkingStats;
     }
 
     /**
@@ -93,27 +149,111 @@ public final class ArkLlm extends BaseLlm {
      */
     @Override
     public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+        // Decide the thinking mode of this turn
+        String thinking = thinkingPolicy.select(llmRequest);
+        log.debug("Selected thinking mode {}", thinking);
         // Convert ADK request to Ark request format
-        ChatCompletionRequest arkRequest = toArkRequest(llmRequest);
-        if (stream) {
-            log.debug(
-                    "Sending streaming generateContent request to model {}", arkRequest.getModel());
-            // Handle streaming response
-            return generateContentStreaming(arkRequest);
-        } else {
-            log.debug("Sending generateContent request to model {}", arkRequest.getModel());
-            // Handle non-streaming response
-            return Flowable.fromCallable(() -> arkService.createChatCompletion(arkRequest))
-                    .map(this::toLlmResponse);
+        ChatCompletionRequest arkRequest = toArkRequest(llmRequest, thinking);
+        // Span of the model call, marked when the caller cancels the generation
+        Span span = Span.current();
+        return Flowable.defer(
+                () -> {
+                    final long startNanos = System.nanoTime();
+                    final Usage[] usageHolder = {null};
+                    Flowable<LlmResponse> responses;
+                    if (stream) {
+                        log.debug(
+                                "Sending streaming generateContent request to model {}",
+                                arkRequest.getModel());
+                        // Handle streaming response
+                        responses = generateContentStreaming(arkRequest, usageHolder);
+                    } else {
+                        log.debug(
+                                "Sending generateContent request to model {}",
+                                arkRequest.getModel());
+                        // Handle non-streaming response
+                        responses =
+                                Flowable.fromCallable(
+                                                () -> arkService.createChatCompletion(arkRequest))
+                                        .map(
+                                                result -> {
+                                                    usageHolder[0] = result.getUsage();
+                                                    return toLlmResponse(result);
+                                                });
+                    }
+                    return responses
+                            .doOnComplete(
+                                    () ->
+                                            thinkingStats.record(
+                                                    thinking,
+                                                    TimeUnit.NANOSECONDS.toMillis(
+                                                            System.nanoTime() - startNanos),
+                                                    usageHolder[0] == null
+                                                            ? -1
+                                                            : usageHolder[0].getCompletionTokens()))
+                            .doOnCancel(() -> abort(arkRequest, span));
+                });
+    }
+
+    /**
+     * Abort the in-flight HTTP calls of a cancelled generation
+     * @param arkRequest The Ark request of the cancelled generation
+     * @param span The span of the model call
+     */
+    private void abort(ChatCompletionRequest arkRequest, Span span) {
+        // Retrofit tags each call with its invocation, whose arguments hold our request object
+        List<Call> calls = new ArrayList<>(dispatcher.queuedCalls());
+        calls.addAll(dispatcher.runningCalls());
+        int aborted = 0;
+        for (Call call : calls) {
+            Invocation invocation = call.request().tag(Invocation.class);
+            if (invocation != null
+                    && invocation.arguments().stream().anyMatch(arg -> arg == arkRequest)) {
+                call.cancel();
+                aborted++;
+            }
         }
+        log.debug("Generation cancelled, aborted {} Ark call(s)", aborted);
+
+        span.setStatus(StatusCode.ERROR, "Cancelled");
+        span.setAttribute("veadk.llm.cancelled", true);
+    }
+
+    /**
+     * The Ark SDK reports the IOException of an aborted call to its already cancelled RxJava 2
+     * emitter, which hands it to the global RxJava 2 error handler, printing it to stderr. This
+     * opt-in installs a global handler that only logs these errors and passes any other error to
+     * the uncaught exception handler. It does nothing if the application has set its own handler.
+     */
+    public static void installUndeliverableErrorHandler() {
+        if (!ERROR_HANDLER_CHECKED.compareAndSet(false, true)
+                || RxJavaPlugins.isLockdown()
+                || RxJavaPlugins.getErrorHandler() != null) {
+            return;
+        }
+        RxJavaPlugins.setErrorHandler(
+                error -> {
+                    if (error instanceof UndeliverableException
+                            && error.getCause() instanceof IOException) {
+                        log.debug("Ignoring error of an aborted Ark call", error.getCause());
+                        return;
+                    }
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, error);
+                });
     }
 
     /**
      * Handle streaming content generation
      * @param arkRequest The Ark completion request
+     * @param usageHolder Receives the token usage reported in the final chunk
      * @return Flowable of LlmResponse objects
      */
-    private Flowable<LlmResponse> generateContentStreaming(ChatCompletionRequest arkRequest) {
+    private Flowable<LlmResponse> generateContentStreaming(
+            ChatCompletionRequest arkRequest, Usage[] usageHolder) {
+        // Ask for a final chunk with the token usage, which Ark leaves out of streams otherwise
+        arkRequest.setStreamOptions(
+                new ChatCompletionRequest.ChatCompletionRequestStreamOptions(true));
         // Get streaming response from Ark service
         io.reactivex.Flowable<ChatCompletionChunk> streamResponse =
                 arkService.streamChatCompletion(arkRequest);
@@ -132,8 +272,17 @@ public final class ArkLlm extends BaseLlm {
                     return Flowable.fromPublisher(streamResponse)
                             .concatMap(
                                     chunk -> {
-                                        lastChunkHolder[0] = chunk;
+                                        if (chunk.getUsage() != null) {
+                                            usageHolder[0] = chunk.getUsage();
+                                        }
                                         log.debug("Raw Ark streaming chunk: {}", chunk);
+                                        // The usage chunk comes after the stop chunk, without
+                                        // choices
+                                        if (chunk.getChoices() == null
+                                                || chunk.getChoices().isEmpty()) {
+                                            return Flowable.empty();
+                                        }
+                                        lastChunkHolder[0] = chunk;
 
                                         // Prepare list of responses to emit
                                         List<LlmResponse> responsesToEmit = new ArrayList<>();
@@ -346,9 +495,10 @@ public final class ArkLlm extends BaseLlm {
     /**
      * Convert ADK LlmRequest to Ark ChatCompletionRequest
      * @param llmRequest The ADK request
+     * @param thinking The thinking mode of this request, or null for the model default
      * @return ChatCompletionRequest object for Ark API
      */
-    private ChatCompletionRequest toArkRequest(LlmRequest llmRequest) {
+    private ChatCompletionRequest toArkRequest(LlmRequest llmRequest, String thinking) {
         // Determine model name to use
         String effectiveModelName = llmRequest.model().orElse(model());
 
@@ -364,7 +514,7 @@ public final class ArkLlm extends BaseLlm {
 
         // Add thinking parameter if set
         if (null != thinking) {
-            request.setThinking(thinking);
+            request.setThinking(new ChatCompletionRequest.ChatCompletionRequestThinking(thinking));
         }
 
         // Add tools if any
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import java.util.List;
+
+/**
+ * Text embedding model abstraction.
+ *
+ * <p>Implementations turn text into dense vectors, e.g. for semantic caching or local retrieval.
+ */
+public interface BaseEmbedding {
+
+    /**
+     * Embed a single text
+     * @param text The text to embed
+     * @return Single of the embedding vector
+     */
+    Single<float[]> embed(String text);
+
+    /**
+     * Embed several texts
+     * @param texts The texts to embed
+     * @return Single of the embedding vectors, in the same order as the input texts
+     */
+    default Single<List<float[]>> embedAll(List<String> texts) {
+        return Flowable.fromIterable(texts).concatMapSingle(this::embed).toList();
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import com.google.adk.models.LlmRequest;
+
+/**
+ * Decides the Ark thinking mode of each request sent by {@link ArkLlm}.
+ */
+@FunctionalInterface
+public interface ThinkingPolicy {
+
+    String ENABLED = "enabled";
+    String DISABLED = "disabled";
+    String AUTO = "auto";
+
+    /**
+     * Select the thinking mode for a request
+     * @param llmRequest The request about to be sent
+     * @return One of {@link #ENABLED}, {@link #DISABLED}, {@link #AUTO}, or null to leave the
+     *     model default
+     */
+    String select(LlmRequest llmRequest);
+
+    /**
+     * Policy that always uses the same mode
+     * @param thinking The thinking mode, or null to leave the model default
+     * @return ThinkingPolicy object
+     */
+    static ThinkingPolicy fixed(String thinking) {
+        return llmRequest -> thinking;
+    }
+}
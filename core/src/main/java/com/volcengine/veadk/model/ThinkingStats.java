@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latency and token usage of completed {@link ArkLlm} requests, grouped by thinking mode.
+ *
+ * <p>The averages are raw per mode. A thinking policy sends different prompts to each mode, e.g.
+ * short ones without thinking, so the difference between two modes is not what thinking costs on
+ * the same request.
+ */
+public class ThinkingStats {
+
+    /** Mode name used for requests that left thinking to the model default. */
+    public static final String DEFAULT_MODE = "default";
+
+    private final Map<String, long[]> counters = new TreeMap<>();
+
+    /**
+     * Record a completed request
+     * @param mode The thinking mode the request was sent with, or null for the model default
+     * @param latencyMillis Time from sending the request to the final response
+     * @param completionTokens Completion tokens reported by Ark, or -1 if not reported
+     */
+    synchronized void record(String mode, long latencyMillis, long completionTokens) {
+        long[] values =
+                counters.computeIfAbsent(mode == null ? DEFAULT_MODE : mode, k -> new long[4]);
+        values[0]++;
+        values[1] += latencyMillis;
+        if (completionTokens >= 0) {
+            values[2]++;
+            values[3] += completionTokens;
+        }
+    }
+
+    /**
+     * Get the counters of every mode seen so far
+     * @return Map from thinking mode to its counters
+     */
+    public synchronized Map<String, Mode> modes() {
+        Map<String, Mode> modes = new TreeMap<>();
+        counters.forEach(
+                (mode, values) ->
+                        modes.put(mode, new Mode(values[0], values[1], values[2], values[3])));
+        return modes;
+    }
+
+    /**
+     * Counters of one thinking mode.
+     *
+     * @param requests Completed requests
+     * @param totalLatencyMillis Sum of their latencies
+     * @param usageReports Requests for which Ark reported token usage
+     * @param totalCompletionTokens Sum of the reported completion tokens
+     */
+    public record Mode(
+            long requests, long totalLatencyMillis, long usageReports, long totalCompletionTokens) {
+
+        public double averageLatencyMillis() {
+            return requests == 0 ? 0 : (double) totalLatencyMillis / requests;
+        }
+
+        public double averageCompletionTokens() {
+            return usageReports == 0 ? 0 : (double) totalCompletionTokens / usageReports;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model.cache;
+
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.utils.VectorUtil;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process vector store of past LLM responses, keyed by the embedding of the prompt.
+ *
+ * <p>Entries live in namespaces (one per agent and prompt context) and are searched by cosine
+ * similarity. Entries expire after a TTL, and the least recently used ones are evicted when the
+ * entry count or the estimated memory footprint exceeds its bound.
+ */
+public class SemanticCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final double similarityThreshold;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Clock clock;
+
+    private final Map<String, Map<Long, Entry>> namespaces = new HashMap<>();
+    // All entries across namespaces in access order, eldest first
+    private final LinkedHashMap<Long, Entry> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private long nextId = 0;
+    private long bytes = 0;
+
+    private long lookups = 0;
+    private long hits = 0;
+    private long stores = 0;
+    private long evictions = 0;
+
+    public SemanticCache(double similarityThreshold, Duration ttl, int maxEntries, long maxBytes) {
+        this(similarityThreshold, ttl, maxEntries, maxBytes, Clock.systemUTC());
+    }
+
+    SemanticCache(
+            double similarityThreshold, Duration ttl, int maxEntries, long maxBytes, Clock clock) {
+        if (similarityThreshold <= 0 || similarityThreshold > 1) {
+            throw new IllegalArgumentException("similarityThreshold must be in (0, 1].");
+        }
+        this.similarityThreshold = similarityThreshold;
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * Find the most similar cached response in a namespace
+     * @param namespace The namespace to search
+     * @param vector Embedding of the prompt
+     * @return The cached response if its similarity reaches the threshold
+     */
+    public synchronized Optional<LlmResponse> lookup(String namespace, float[] vector) {
+        lookups++;
+        Map<Long, Entry> entries = namespaces.get(namespace);
+        if (entries == null) {
+            return Optional.empty();
+        }
+
+        float[] query = VectorUtil.normalize(vector);
+        long now = clock.millis();
+        Entry best = null;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        List<Entry> expired = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (now - entry.createdAt > ttlMillis) {
+                expired.add(entry);
+                continue;
+            }
+            float score = VectorUtil.dot(query, entry.vector);
+            if (score > bestScore) {
+                bestScore = score;
+                best = entry;
+            }
+        }
+        expired.forEach(this::remove);
+
+        if (best == null || bestScore < similarityThreshold) {
+            return Optional.empty();
+        }
+        hits++;
+        // Touch the entry so it becomes the most recently used one
+        lru.get(best.id);
+        return Optional.of(best.response);
+    }
+
+    /**
+     * Store a response for a prompt embedding
+     * @param namespace The namespace to store into
+     * @param vector Embedding of the prompt
+     * @param response The final response to replay on later hits
+     */
+    public synchronized void put(String namespace, float[] vector, LlmResponse response) {
+        Entry entry =
+                new Entry(
+                        nextId++,
+                        namespace,
+                        VectorUtil.normalize(vector),
+                        response,
+                        clock.millis(),
+                        estimateBytes(vector, response));
+        namespaces.computeIfAbsent(namespace, k -> new HashMap<>()).put(entry.id, entry);
+        lru.put(entry.id, entry);
+        bytes += entry.bytes;
+        stores++;
+
+        Iterator<Entry> eldest = lru.values().iterator();
+        while ((lru.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            Entry victim = eldest.next();
+            eldest.remove();
+            removeFromNamespace(victim);
+            evictions++;
+        }
+    }
+
+    /**
+     * Drop all entries of a namespace
+     * @param namespace The namespace to clear
+     */
+    public synchronized void invalidate(String namespace) {
+        Map<Long, Entry> entries = namespaces.remove(namespace);
+        if (entries != null) {
+            for (Entry entry : entries.values()) {
+                lru.remove(entry.id);
+                bytes -= entry.bytes;
+            }
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(lookups, hits, stores, evictions, lru.size(), bytes);
+    }
+
+    private void remove(Entry entry) {
+        lru.remove(entry.id);
+        removeFromNamespace(entry);
+    }
+
+    private void removeFromNamespace(Entry entry) {
+        bytes -= entry.bytes;
+        Map<Long, Entry> entries = namespaces.get(entry.namespace);
+        if (entries != null) {
+            entries.remove(entry.id);
+            if (entries.isEmpty()) {
+                namespaces.remove(entry.namespace);
+            }
+        }
+    }
+
+    private static long estimateBytes(float[] vector, LlmResponse response) {
+        long textLength = 0;
+        if (response.content().isPresent() && response.content().get().parts().isPresent()) {
+            for (Part part : response.content().get().parts().get()) {
+                textLength += part.text().map(String::length).orElse(0);
+            }
+        }
+        return ENTRY_OVERHEAD_BYTES + (long) vector.length * Float.BYTES + textLength * 2;
+    }
+
+    private record Entry(
+            long id,
+            String namespace,
+            float[] vector,
+            LlmResponse response,
+            long createdAt,
+            long bytes) {}
+
+    /**
+     * Counters of a semantic cache.
+     *
+     * @param lookups Lookups performed
+     * @param hits Lookups answered from the cache
+     * @param stores Responses stored
+     * @param evictions Entries evicted by the entry or memory bound
+     * @param entries Entries currently cached
+     * @param bytes Estimated memory held by the current entries
+     */
+    public record Stats(
+            long lookups, long hits, long stores, long evictions, int entries, long bytes) {
+
+        public double hitRate() {
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model.cache;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.adk.tools.BaseTool;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.model.BaseEmbedding;
+import io.reactivex.rxjava3.core.Flowable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Semantic response cache in front of another BaseLlm, e.g. ArkLlm.
+ *
+ * <p>The final user turn is embedded and looked up in a {@link SemanticCache} namespace made of
+ * this cache's namespace (typically the agent name) and a hash of the model, system instructions,
+ * tools and the earlier turns of the conversation, so a follow-up is only answered from the cache
+ * within the same conversation history. A hit replays the cached final response without calling the
+ * model; a miss calls the model and stores its final text response.
+ *
+ * <p>Only turns that end with plain user text are cached; tool-call rounds always go to the model.
+ */
+public class SemanticCacheLlm extends BaseLlm {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticCacheLlm.class);
+
+    private final BaseLlm delegate;
+    private final BaseEmbedding embedding;
+    private final SemanticCache cache;
+    private final String namespace;
+
+    public SemanticCacheLlm(
+            BaseLlm delegate, BaseEmbedding embedding, SemanticCache cache, String namespace) {
+        super(delegate.model());
+        this.delegate = delegate;
+        this.embedding = Objects.requireNonNull(embedding, "embedding must be set.");
+        this.cache = Objects.requireNonNull(cache, "cache must be set.");
+        this.namespace = Objects.requireNonNull(namespace, "namespace must be set.");
+    }
+
+    public SemanticCache cache() {
+        return cache;
+    }
+
+    @Override
+    public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+        Optional<String> query = finalUserText(llmRequest);
+        if (query.isEmpty()) {
+            return delegate.generateContent(llmRequest, stream);
+        }
+
+        String key = namespace + "/" + contextHash(llmRequest);
+        return embedding
+                .embed(query.get())
+                .map(Optional::of)
+                .onErrorReturn(
+                        e -> {
+                            log.warn("Embedding failed, bypassing semantic cache", e);
+                            return Optional.empty();
+                        })
+                .flatMapPublisher(
+                        vector -> {
+                            if (vector.isEmpty()) {
+                                return delegate.generateContent(llmRequest, stream);
+                            }
+                            Optional<LlmResponse> hit = cache.lookup(key, vector.get());
+                            if (hit.isPresent()) {
+                                log.debug("Semantic cache hit in namespace {}", key);
+                                return Flowable.just(hit.get());
+                            }
+                            return generateAndStore(llmRequest, stream, key, vector.get());
+                        });
+    }
+
+    /**
+     * Call the delegate model and store its final response
+     * @param llmRequest The request
+     * @param stream Whether to use streaming or not
+     * @param key The cache namespace of the request
+     * @param vector Embedding of the final user turn
+     * @return Flowable of the delegate's responses
+     */
+    private Flowable<LlmResponse> generateAndStore(
+            LlmRequest llmRequest, boolean stream, String key, float[] vector) {
+        return Flowable.defer(
+                () -> {
+                    final LlmResponse[] finalResponse = {null};
+                    return delegate.generateContent(llmRequest, stream)
+                            .doOnNext(
+                                    response -> {
+                                        if (!response.partial().orElse(false)) {
+                                            finalResponse[0] = response;
+                                        }
+                                    })
+                            .doOnComplete(
+                                    () -> {
+                                        if (finalResponse[0] != null
+                                                && isCacheable(finalResponse[0])) {
+                                            cache.put(key, vector, finalResponse[0]);
+                                        }
+                                    });
+                });
+    }
+
+    /**
+     * Extract the text of the final turn if it is a user message
+     * @param llmRequest The request
+     * @return The user text, or empty if the turn is not plain user text
+     */
+    private static Optional<String> finalUserText(LlmRequest llmRequest) {
+        List<Content> contents = llmRequest.contents();
+        if (contents.isEmpty()) {
+            return Optional.empty();
+        }
+        Content last = contents.get(contents.size() - 1);
+        if (!"user".equals(last.role().orElse("user")) || last.parts().isEmpty()) {
+            return Optional.empty();
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (Part part : last.parts().get()) {
+            if (part.functionResponse().isPresent() || part.functionCall().isPresent()) {
+                return Optional.empty();
+            }
+            part.text().ifPresent(text::append);
+        }
+        return text.length() == 0 ? Optional.empty() : Optional.of(text.toString());
+    }
+
+    /**
+     * Only final text answers are replayed, never tool calls
+     * @param response The model response
+     * @return True if the response can be cached
+     */
+    private static boolean isCacheable(LlmResponse response) {
+        if (response.content().isEmpty() || response.content().get().parts().isEmpty()) {
+            return false;
+        }
+        List<Part> parts = response.content().get().parts().get();
+        return !parts.isEmpty()
+                && parts.stream().noneMatch(part -> part.functionCall().isPresent())
+                && parts.stream().anyMatch(part -> part.text().isPresent());
+    }
+
+    /**
+     * Hash everything besides the final user turn that shapes the answer
+     * @param llmRequest The request
+     * @return Hex hash of model, system instructions, tools and earlier turns
+     */
+    private String contextHash(LlmRequest llmRequest) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(llmRequest.model().orElse(model()), StandardCharsets.UTF_8);
+        for (String instruction : llmRequest.getSystemInstructions()) {
+            hasher.putChar('\u0000').putString(instruction, StandardCharsets.UTF_8);
+        }
+        // Sort tools by name so the hash does not depend on map order
+        for (BaseTool tool : new TreeMap<>(llmRequest.tools()).values()) {
+            hasher.putChar('\u0001')
+                    .putString(tool.name(), StandardCharsets.UTF_8)
+                    .putChar('\u0000')
+                    .putString(tool.description(), StandardCharsets.UTF_8);
+        }
+        // Earlier turns, since a follow-up such as "and in red?" depends on them
+        List<Content> contents = llmRequest.contents();
+        for (Content turn : contents.subList(0, Math.max(0, contents.size() - 1))) {
+            hasher.putChar('\u0002').putString(turn.role().orElse(""), StandardCharsets.UTF_8);
+            for (Part part : turn.parts().orElse(List.of())) {
+                hasher.putChar('\u0000');
+                part.text().ifPresent(text -> hasher.putString(text, StandardCharsets.UTF_8));
+                part.functionCall()
+                        .ifPresent(
+                                call ->
+                                        hasher.putString(
+                                                call.name().orElse("")
+                                                        + call.args()
+                                                                .map(TreeMap::new)
+                                                                .orElse(null),
+                                                StandardCharsets.UTF_8));
+                part.functionResponse()
+                        .ifPresent(
+                                response ->
+                                        hasher.putString(
+                                                response.name().orElse("")
+                                                        + response.response()
+                                                                .map(TreeMap::new)
+                                                                .orElse(null),
+                                                StandardCharsets.UTF_8));
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    @Override
+    public BaseLlmConnection connect(LlmRequest llmRequest) {
+        return delegate.connect(llmRequest);
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.SearchMemoryResponse;
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Memory service whose answers depend on the invocation searching, e.g. because it serves
+ * results prefetched for that invocation. Tools that know their invocation should search through
+ * {@link #searchMemory(String, String, String, String)}.
+ */
+public interface InvocationMemoryService extends BaseMemoryService {
+
+    /**
+     * Search the memories of a user on behalf of an invocation
+     * @param invocationId The invocation searching
+     * @param appName The application name
+     * @param userId The user id
+     * @param query The query
+     * @return The matching memories
+     */
+    Single<SearchMemoryResponse> searchMemory(
+            String invocationId, String appName, String userId, String query);
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Prefetches of live invocations, keyed by invocation id, shared by the retrieval stages.
+ *
+ * <p>The agent that starts an invocation starts its prefetch, and only that agent ends it, so
+ * nested agents of the invocation reuse it. A prefetch is also dropped once older than the time to
+ * live, in case its invocation never ends, and the eldest are dropped when more invocations hold
+ * one than allowed. Not thread-safe: the stages call it while holding their own lock.
+ * @param <P> The prefetched results
+ */
+final class InvocationPrefetches<P> {
+
+    private final long ttlMillis;
+    private final int maxInvocations;
+    private final Clock clock;
+    // Called with every prefetch dropped, however it ends
+    private final Consumer<P> onRelease;
+
+    // Eldest first
+    private final LinkedHashMap<String, Entry<P>> entries = new LinkedHashMap<>();
+
+    private record Entry<P>(
+            String agentName, String appName, String userId, long startedAt, P prefetch) {}
+
+    InvocationPrefetches(Duration ttl, int maxInvocations, Clock clock, Consumer<P> onRelease) {
+        if (maxInvocations <= 0) {
+            throw new IllegalArgumentException("maxInvocations must be positive.");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.maxInvocations = maxInvocations;
+        this.clock = clock;
+        this.onRelease = onRelease;
+    }
+
+    /**
+     * Start the prefetch of an invocation, unless it already has one
+     * @param invocationId The invocation id
+     * @param agentName The agent starting the invocation
+     * @param appName The application name
+     * @param userId The user id
+     * @param prefetch Creates the prefetch
+     * @return The new prefetch, or null if the invocation already has one
+     */
+    P start(
+            String invocationId,
+            String agentName,
+            String appName,
+            String userId,
+            Supplier<P> prefetch) {
+        expire();
+        if (entries.containsKey(invocationId)) {
+            return null;
+        }
+        P started = prefetch.get();
+        entries.put(invocationId, new Entry<>(agentName, appName, userId, clock.millis(), started));
+        while (entries.size() > maxInvocations) {
+            Iterator<Entry<P>> eldest = entries.values().iterator();
+            onRelease.accept(eldest.next().prefetch());
+            eldest.remove();
+        }
+        return started;
+    }
+
+    /**
+     * End the prefetch of an invocation
+     * @param invocationId The invocation id
+     * @param agentName The agent finishing, only the agent that started the prefetch ends it
+     */
+    void complete(String invocationId, String agentName) {
+        Entry<P> entry = entries.get(invocationId);
+        if (entry != null && entry.agentName().equals(agentName)) {
+            entries.remove(invocationId);
+            onRelease.accept(entry.prefetch());
+        }
+    }
+
+    /**
+     * The prefetch of an invocation
+     * @param invocationId The invocation id
+     * @return The prefetch, or null if the invocation holds none
+     */
+    P get(String invocationId) {
+        expire();
+        Entry<P> entry = entries.get(invocationId);
+        return entry == null ? null : entry.prefetch();
+    }
+
+    /**
+     * The prefetch of a user, for searches that do not name their invocation. When the user has
+     * several live invocations, e.g. parallel sessions, the search cannot be told apart, so none
+     * is returned rather than another session's prefetch
+     * @param appName The application name
+     * @param userId The user id
+     * @return The prefetch of the user's only live invocation, or null
+     */
+    P onlyOfUser(String appName, String userId) {
+        expire();
+        P found = null;
+        for (Entry<P> entry : entries.values()) {
+            if (entry.appName().equals(appName) && entry.userId().equals(userId)) {
+                if (found != null) {
+                    return null;
+                }
+                found = entry.prefetch();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Every live prefetch, eldest first
+     * @return The prefetches
+     */
+    List<P> all() {
+        expire();
+        List<P> all = new ArrayList<>(entries.size());
+        entries.values().forEach(entry -> all.add(entry.prefetch()));
+        return all;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void expire() {
+        long now = clock.millis();
+        Iterator<Map.Entry<String, Entry<P>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<P> entry = iterator.next().getValue();
+            if (now - entry.startedAt() > ttlMillis) {
+                iterator.remove();
+                onRelease.accept(entry.prefetch());
+            }
+        }
+    }
+
+    /**
+     * The text parts of a content, concatenated
+     * @param content The content
+     * @return The text, empty if the content has no text
+     */
+    static String text(Content content) {
+        StringBuilder text = new StringBuilder();
+        for (Part part : content.parts().orElse(List.of())) {
+            part.text().ifPresent(text::append);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,380 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import com.google.adk.agents.Callbacks;
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.volcengine.veadk.utils.ReadonlyContextAccessorUtil;
+import com.volcengine.veadk.utils.TokenizerUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opt-in prefetch of the user's profile memories.
+ *
+ * <p>When an invocation starts, i.e. when a new user message arrives, the user's top memories for
+ * a profile query (height, age, preferences and so on) are searched in the background and kept
+ * until the invocation ends. loadMemory searches whose tokens are covered by prefetched memories
+ * are answered with those memories instead of searching again. Optionally, the prefetched
+ * memories are also added to the system instructions as a compact snippet, so the model often
+ * does not need to call loadMemory at all.
+ *
+ * <p>To enable it, register {@link #beforeAgentCallback()} and {@link #afterAgentCallback()} on the
+ * root agent and pass {@link #memoryService()} to the Runner. Register {@link
+ * #beforeModelCallback()} on the agents that should see the snippet.
+ *
+ * <p>Searches are only answered from the prefetch of their own invocation. Searches that do not
+ * name their invocation are answered from it only while the user has a single live invocation.
+ */
+public class MemoryPrefetch {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryPrefetch.class);
+
+    private static final String DEFAULT_PROFILE_QUERY =
+            "user profile, personal information, preferences and facts";
+    private static final double DEFAULT_MATCH_THRESHOLD = 0.6;
+    private static final int DEFAULT_MAX_SNIPPET_CHARS = 1000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_INVOCATIONS = 1024;
+    private static final long SNIPPET_WAIT_MILLIS = 500;
+
+    private final BaseMemoryService memoryService;
+    private final String profileQuery;
+    private final double matchThreshold;
+    private final int maxSnippetChars;
+    private final InvocationPrefetches<Single<SearchMemoryResponse>> prefetches;
+
+    private long prefetchCalls = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long snippets = 0;
+
+    public MemoryPrefetch(BaseMemoryService memoryService) {
+        this(
+                memoryService,
+                DEFAULT_PROFILE_QUERY,
+                DEFAULT_MATCH_THRESHOLD,
+                DEFAULT_MAX_SNIPPET_CHARS,
+                DEFAULT_TTL,
+                DEFAULT_MAX_INVOCATIONS);
+    }
+
+    /**
+     * Create a memory prefetch stage
+     * @param memoryService The memory service to prefetch from
+     * @param profileQuery The query used to find the user's top memories
+     * @param matchThreshold Share of the tokens of a search that prefetched memories must cover
+     * @param maxSnippetChars Maximum length of the system snippet
+     * @param ttl How long a prefetch is kept if its invocation never ends
+     * @param maxInvocations Maximum number of invocations with a live prefetch
+     */
+    public MemoryPrefetch(
+            BaseMemoryService memoryService,
+            String profileQuery,
+            double matchThreshold,
+            int maxSnippetChars,
+            Duration ttl,
+            int maxInvocations) {
+        this(
+                memoryService,
+                profileQuery,
+                matchThreshold,
+                maxSnippetChars,
+                ttl,
+                maxInvocations,
+                Clock.systemUTC());
+    }
+
+    MemoryPrefetch(
+            BaseMemoryService memoryService,
+            String profileQuery,
+            double matchThreshold,
+            int maxSnippetChars,
+            Duration ttl,
+            int maxInvocations,
+            Clock clock) {
+        if (matchThreshold <= 0 || matchThreshold > 1) {
+            throw new IllegalArgumentException("matchThreshold must be in (0, 1].");
+        }
+        this.memoryService = Objects.requireNonNull(memoryService, "memoryService must be set.");
+        this.profileQuery = profileQuery;
+        this.matchThreshold = matchThreshold;
+        this.maxSnippetChars = maxSnippetChars;
+        this.prefetches = new InvocationPrefetches<>(ttl, maxInvocations, clock, prefetch -> {});
+    }
+
+    /**
+     * Callback that starts the prefetch of an invocation
+     * @return BeforeAgentCallback to register on the root agent
+     */
+    public Callbacks.BeforeAgentCallback beforeAgentCallback() {
+        return callbackContext -> {
+            Session session =
+                    ReadonlyContextAccessorUtil.getInvocationContext(callbackContext).session();
+            prefetch(
+                    callbackContext.invocationId(),
+                    callbackContext.agentName(),
+                    session.appName(),
+                    session.userId());
+            return Maybe.empty();
+        };
+    }
+
+    /**
+     * Callback that drops the prefetched memories of an invocation once it ends
+     * @return AfterAgentCallback to register on the root agent
+     */
+    public Callbacks.AfterAgentCallback afterAgentCallback() {
+        return callbackContext -> {
+            complete(callbackContext.invocationId(), callbackContext.agentName());
+            return Maybe.empty();
+        };
+    }
+
+    /**
+     * Callback that adds the prefetched memories to the system instructions. It waits briefly for
+     * a prefetch still in flight and adds nothing if it is not done by then
+     * @return BeforeModelCallback to register on the agents that should see the memories
+     */
+    public Callbacks.BeforeModelCallback beforeModelCallback() {
+        return (callbackContext, llmRequestBuilder) -> {
+            Single<SearchMemoryResponse> prefetch = find(callbackContext.invocationId());
+            if (prefetch == null) {
+                return Maybe.empty();
+            }
+            return prefetch.timeout(SNIPPET_WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                    .onErrorReturnItem(
+                            SearchMemoryResponse.builder().setMemories(List.of()).build())
+                    .flatMapMaybe(
+                            response -> {
+                                String snippet = snippet(response);
+                                if (!snippet.isEmpty()) {
+                                    llmRequestBuilder.appendInstructions(List.of(snippet));
+                                    countSnippet();
+                                }
+                                return Maybe.empty();
+                            });
+        };
+    }
+
+    /**
+     * Start searching the top memories of a user. Nested agents of the same invocation reuse the
+     * first prefetch
+     * @param invocationId The invocation id
+     * @param agentName The agent that started the invocation
+     * @param appName The application name
+     * @param userId The user id
+     */
+    public void prefetch(String invocationId, String agentName, String appName, String userId) {
+        Single<SearchMemoryResponse> prefetch;
+        synchronized (this) {
+            prefetch =
+                    prefetches.start(
+                            invocationId,
+                            agentName,
+                            appName,
+                            userId,
+                            () ->
+                                    memoryService
+                                            .searchMemory(appName, userId, profileQuery)
+                                            .subscribeOn(Schedulers.io())
+                                            .cache());
+            if (prefetch == null) {
+                return;
+            }
+            prefetchCalls++;
+        }
+
+        // Subscribe outside the lock, the search runs on the io scheduler
+        prefetch.subscribe(
+                response -> {}, e -> log.warn("Memory prefetch failed for user {}", userId, e));
+    }
+
+    /**
+     * Drop the prefetched memories of an invocation
+     * @param invocationId The invocation id
+     * @param agentName The agent finishing, only the agent that started the prefetch ends it
+     */
+    public synchronized void complete(String invocationId, String agentName) {
+        prefetches.complete(invocationId, agentName);
+    }
+
+    /**
+     * Memory service that answers searches covered by the prefetched memories
+     * @return InvocationMemoryService to pass to the Runner
+     */
+    public InvocationMemoryService memoryService() {
+        return new InvocationMemoryService() {
+            @Override
+            public Completable addSessionToMemory(Session session) {
+                return memoryService.addSessionToMemory(session);
+            }
+
+            @Override
+            public Single<SearchMemoryResponse> searchMemory(
+                    String appName, String userId, String query) {
+                return answer(findOfUser(appName, userId), appName, userId, query);
+            }
+
+            @Override
+            public Single<SearchMemoryResponse> searchMemory(
+                    String invocationId, String appName, String userId, String query) {
+                return answer(find(invocationId), appName, userId, query);
+            }
+        };
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(prefetchCalls, hits, misses, snippets, prefetches.size());
+    }
+
+    private synchronized Single<SearchMemoryResponse> find(String invocationId) {
+        return prefetches.get(invocationId);
+    }
+
+    private synchronized Single<SearchMemoryResponse> findOfUser(String appName, String userId) {
+        return prefetches.onlyOfUser(appName, userId);
+    }
+
+    /**
+     * Answer a search with the prefetched memories covering it, or with a search otherwise
+     * @param prefetched The prefetched memories of the invocation, or null
+     * @param appName The application name
+     * @param userId The user id
+     * @param query The query
+     * @return The memories
+     */
+    private Single<SearchMemoryResponse> answer(
+            Single<SearchMemoryResponse> prefetched, String appName, String userId, String query) {
+        Single<SearchMemoryResponse> search =
+                Single.defer(() -> memoryService.searchMemory(appName, userId, query));
+        if (prefetched == null) {
+            countMiss();
+            return search;
+        }
+        return prefetched
+                .onErrorResumeWith(
+                        Single.just(SearchMemoryResponse.builder().setMemories(List.of()).build()))
+                .flatMap(
+                        response -> {
+                            List<MemoryEntry> covering = covering(response, query);
+                            if (covering.isEmpty()) {
+                                countMiss();
+                                return search;
+                            }
+                            countHit();
+                            return Single.just(
+                                    SearchMemoryResponse.builder().setMemories(covering).build());
+                        });
+    }
+
+    /**
+     * Prefetched memories covering at least the threshold share of the query tokens
+     * @param response The prefetched memories
+     * @param query The tool query
+     * @return The covering memories, empty if none covers the query
+     */
+    private List<MemoryEntry> covering(SearchMemoryResponse response, String query) {
+        Set<String> queryTokens = new HashSet<>(TokenizerUtil.tokenize(query));
+        List<MemoryEntry> covering = new ArrayList<>();
+        if (queryTokens.isEmpty()) {
+            return covering;
+        }
+        for (MemoryEntry entry : response.memories()) {
+            Set<String> entryTokens =
+                    new HashSet<>(
+                            TokenizerUtil.tokenize(InvocationPrefetches.text(entry.content())));
+            int shared = 0;
+            for (String token : queryTokens) {
+                if (entryTokens.contains(token)) {
+                    shared++;
+                }
+            }
+            if ((double) shared / queryTokens.size() >= matchThreshold) {
+                covering.add(entry);
+            }
+        }
+        return covering;
+    }
+
+    private String snippet(SearchMemoryResponse response) {
+        StringBuilder snippet = new StringBuilder();
+        for (MemoryEntry entry : response.memories()) {
+            String line =
+                    "- "
+                            + InvocationPrefetches.text(entry.content())
+                                    .replaceAll("\\s+", " ")
+                                    .trim()
+                            + "\n";
+            if (line.length() <= 3) {
+                continue;
+            }
+            if (snippet.length() + line.length() > maxSnippetChars) {
+                break;
+            }
+            snippet.append(line);
+        }
+        if (snippet.length() == 0) {
+            return "";
+        }
+        return "Known memories about the user:\n" + snippet.toString().stripTrailing();
+    }
+
+    private synchronized void countHit() {
+        hits++;
+    }
+
+    private synchronized void countMiss() {
+        misses++;
+    }
+
+    private synchronized void countSnippet() {
+        snippets++;
+    }
+
+    /**
+     * Counters of a memory prefetch stage.
+     *
+     * @param prefetchCalls Profile searches started
+     * @param hits Tool searches answered from a prefetch
+     * @param misses Tool searches sent to the memory service
+     * @param snippets System snippets added to model requests
+     * @param liveInvocations Invocations currently holding a prefetch
+     */
+    public record Stats(
+            long prefetchCalls, long hits, long misses, long snippets, int liveInvocations) {
+
+        public double hitRate() {
+            long searches = hits + misses;
+            return searches == 0 ? 0 : (double) hits / searches;
+        }
+    }
+}
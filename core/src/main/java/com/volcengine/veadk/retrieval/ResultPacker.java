@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
+import com.volcengine.veadk.utils.TokenizerUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Post-processor shrinking memory and knowledgebase results before they enter the prompt.
+ *
+ * <p>Results are taken best first, as returned by the search. A result that is a near duplicate of
+ * one already kept is dropped: results are compared by the MinHash estimate of the Jaccard
+ * similarity of their word shingles, CJK characters counting as words. The remaining results are
+ * kept while they fit in the token budget; with truncation enabled, the first result that does not
+ * fit is cut to the remaining budget instead of being dropped.
+ *
+ * <p>To enable it, pass {@link #memoryService(BaseMemoryService)} to the Runner and {@link
+ * #knowledgebaseService(BaseKnowledgebaseService)} to LoadKnowledgebaseTool.
+ */
+public class ResultPacker {
+
+    private static final int DEFAULT_TOKEN_BUDGET = 1500;
+    private static final double DEFAULT_DUPLICATE_THRESHOLD = 0.8;
+    private static final int SHINGLE_SIZE = 3;
+    private static final int NUM_HASHES = 64;
+    // Truncating to fewer tokens keeps too little of a result to be useful
+    private static final int MIN_TRUNCATED_TOKENS = 32;
+    private static final String ELLIPSIS = "...";
+
+    private final int tokenBudget;
+    private final double duplicateThreshold;
+    private final boolean truncate;
+
+    private long results = 0;
+    private long duplicates = 0;
+    private long overBudget = 0;
+    private long truncated = 0;
+    private long tokensIn = 0;
+    private long tokensOut = 0;
+
+    public ResultPacker() {
+        this(DEFAULT_TOKEN_BUDGET, DEFAULT_DUPLICATE_THRESHOLD, true);
+    }
+
+    /**
+     * Create a result packer
+     * @param tokenBudget Maximum estimated tokens of the results of one search
+     * @param duplicateThreshold Estimated Jaccard similarity from which two results are duplicates
+     * @param truncate Whether to cut the first result exceeding the budget instead of dropping it
+     */
+    public ResultPacker(int tokenBudget, double duplicateThreshold, boolean truncate) {
+        if (tokenBudget <= 0) {
+            throw new IllegalArgumentException("tokenBudget must be positive.");
+        }
+        if (duplicateThreshold <= 0 || duplicateThreshold > 1) {
+            throw new IllegalArgumentException("duplicateThreshold must be in (0, 1].");
+        }
+        this.tokenBudget = tokenBudget;
+        this.duplicateThreshold = duplicateThreshold;
+        this.truncate = truncate;
+    }
+
+    /**
+     * Memory service whose search results are packed
+     * @param memoryService The memory service to wrap
+     * @return BaseMemoryService to pass to the Runner
+     */
+    public BaseMemoryService memoryService(BaseMemoryService memoryService) {
+        return new BaseMemoryService() {
+            @Override
+            public Completable addSessionToMemory(Session session) {
+                return memoryService.addSessionToMemory(session);
+            }
+
+            @Override
+            public Single<SearchMemoryResponse> searchMemory(
+                    String appName, String userId, String query) {
+                return memoryService
+                        .searchMemory(appName, userId, query)
+                        .map(
+                                response ->
+                                        SearchMemoryResponse.builder()
+                                                .setMemories(packMemories(response.memories()))
+                                                .build());
+            }
+        };
+    }
+
+    /**
+     * Knowledgebase service whose search results are packed
+     * @param knowledgebaseService The knowledgebase service to wrap
+     * @return BaseKnowledgebaseService to pass to LoadKnowledgebaseTool
+     */
+    public BaseKnowledgebaseService knowledgebaseService(
+            BaseKnowledgebaseService knowledgebaseService) {
+        return new BaseKnowledgebaseService() {
+            @Override
+            public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+                return knowledgebaseService
+                        .searchKnowledgebase(query)
+                        .map(response -> packResponse(response));
+            }
+
+            @Override
+            public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+                    String query, SearchKnowledgebaseOptions options) {
+                return knowledgebaseService
+                        .searchKnowledgebase(query, options)
+                        .map(response -> packResponse(response));
+            }
+
+            private SearchKnowledgebaseResponse packResponse(SearchKnowledgebaseResponse response) {
+                SearchKnowledgebaseResponse packed = new SearchKnowledgebaseResponse();
+                packed.setKnowledgebaseEntries(packKnowledge(response.getKnowledgebaseEntries()));
+                return packed;
+            }
+        };
+    }
+
+    public List<MemoryEntry> packMemories(List<MemoryEntry> memories) {
+        return pack(memories, ResultPacker::text, ResultPacker::withText);
+    }
+
+    public List<KnowledgebaseEntry> packKnowledge(List<KnowledgebaseEntry> entries) {
+        return pack(
+                entries,
+                KnowledgebaseEntry::getContent,
+                (entry, content) -> new KnowledgebaseEntry(content, entry.getMetadata()));
+    }
+
+    /**
+     * Drop near duplicates and keep results within the token budget
+     * @param results The results, best first
+     * @param text Text of a result
+     * @param withText Copy of a result with its text replaced, used for truncation
+     * @return The kept results, best first
+     */
+    public <T> List<T> pack(
+            List<T> results, Function<T, String> text, BiFunction<T, String, T> withText) {
+        List<T> packed = new ArrayList<>();
+        List<int[]> signatures = new ArrayList<>();
+        int remaining = tokenBudget;
+        long in = 0;
+        long dropped = 0;
+        long cut = 0;
+        int duplicateCount = 0;
+        for (T result : results) {
+            String content = text.apply(result) == null ? "" : text.apply(result);
+            int tokens = estimateTokens(content);
+            in += tokens;
+
+            int[] signature = signature(content);
+            if (isDuplicate(signature, signatures)) {
+                duplicateCount++;
+                continue;
+            }
+            if (tokens <= remaining) {
+                packed.add(result);
+                signatures.add(signature);
+                remaining -= tokens;
+            } else if (truncate && remaining >= MIN_TRUNCATED_TOKENS) {
+                packed.add(withText.apply(result, truncate(content, remaining)));
+                signatures.add(signature);
+                remaining = 0;
+                cut++;
+            } else {
+                dropped++;
+            }
+        }
+
+        synchronized (this) {
+            this.results += results.size();
+            this.duplicates += duplicateCount;
+            this.overBudget += dropped;
+            this.truncated += cut;
+            this.tokensIn += in;
+            this.tokensOut += tokenBudget - remaining;
+        }
+        return packed;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(results, duplicates, overBudget, truncated, tokensIn, tokensOut);
+    }
+
+    /**
+     * Statistics of the packed results.
+     *
+     * @param results Results received
+     * @param duplicates Results dropped as near duplicates
+     * @param overBudget Results dropped for exceeding the token budget
+     * @param truncated Results cut to fit the token budget
+     * @param tokensIn Estimated tokens of the received results
+     * @param tokensOut Estimated tokens of the kept results
+     */
+    public record Stats(
+            long results,
+            long duplicates,
+            long overBudget,
+            long truncated,
+            long tokensIn,
+            long tokensOut) {
+
+        public double tokenSavings() {
+            return tokensIn == 0 ? 0 : 1 - (double) tokensOut / tokensIn;
+        }
+    }
+
+    /**
+     * Estimate the LLM tokens of a text: one per CJK character and one per four other non-space
+     * characters of a word
+     * @param text The text
+     * @return The estimated token count
+     */
+    public static int estimateTokens(String text) {
+        int tokens = 0;
+        int wordChars = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (TokenizerUtil.isCjk(codePoint) || Character.isWhitespace(codePoint)) {
+                tokens += (wordChars + 3) / 4;
+                wordChars = 0;
+                if (!Character.isWhitespace(codePoint)) {
+                    tokens++;
+                }
+            } else {
+                wordChars++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return tokens + (wordChars + 3) / 4;
+    }
+
+    private static String truncate(String text, int budget) {
+        int tokens = estimateTokens(ELLIPSIS);
+        int end = 0;
+        // Cut at the last word that fits
+        while (end < text.length()) {
+            int next = end + Character.charCount(text.codePointAt(end));
+            while (next < text.length()
+                    && !Character.isWhitespace(text.codePointAt(next))
+                    && !TokenizerUtil.isCjk(text.codePointAt(next))
+                    && !TokenizerUtil.isCjk(text.codePointAt(end))) {
+                next += Character.charCount(text.codePointAt(next));
+            }
+            if (tokens + estimateTokens(text.substring(end, next)) > budget) {
+                break;
+            }
+            tokens += estimateTokens(text.substring(end, next));
+            end = next;
+        }
+        return text.substring(0, end).stripTrailing() + ELLIPSIS;
+    }
+
+    private boolean isDuplicate(int[] signature, List<int[]> kept) {
+        for (int[] other : kept) {
+            int same = 0;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                if (signature[i] == other[i]) {
+                    same++;
+                }
+            }
+            if ((double) same / NUM_HASHES >= duplicateThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * MinHash signature of the word shingles of a text. Texts shorter than a shingle use their
+     * whole token sequence as the only shingle
+     * @param text The text
+     * @return The minimum hash of the shingles under each of the hash functions
+     */
+    private static int[] signature(String text) {
+        List<String> tokens = TokenizerUtil.tokenize(text);
+        Set<Integer> shingles = new HashSet<>();
+        if (tokens.size() <= SHINGLE_SIZE) {
+            shingles.add(tokens.hashCode());
+        } else {
+            for (int i = 0; i + SHINGLE_SIZE <= tokens.size(); i++) {
+                shingles.add(tokens.subList(i, i + SHINGLE_SIZE).hashCode());
+            }
+        }
+
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int i = 0; i < NUM_HASHES; i++) {
+                signature[i] = Math.min(signature[i], hash(shingle, i));
+            }
+        }
+        return signature;
+    }
+
+    // Seeded variant of the murmur3 finalizer, one seed per hash function
+    private static int hash(int value, int seed) {
+        int h = value ^ (seed * 0x9e3779b9);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static String text(MemoryEntry entry) {
+        StringBuilder text = new StringBuilder();
+        entry.content()
+                .parts()
+                .ifPresent(parts -> parts.forEach(part -> part.text().ifPresent(text::append)));
+        return text.toString();
+    }
+
+    private static MemoryEntry withText(MemoryEntry entry, String text) {
+        MemoryEntry.Builder builder =
+                MemoryEntry.builder()
+                        .author(entry.author())
+                        .content(
+                                Content.builder()
+                                        .role(entry.content().role().orElse("user"))
+                                        .parts(
+                                                Collections.singletonList(
+                                                        Part.builder().text(text).build()))
+                                        .build());
+        if (entry.timestamp() != null) {
+            builder.timestamp(entry.timestamp());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,391 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import com.google.adk.agents.Callbacks;
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
+import com.volcengine.veadk.utils.ReadonlyContextAccessorUtil;
+import com.volcengine.veadk.utils.TokenizerUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opt-in speculative retrieval stage.
+ *
+ * <p>When an invocation starts, the raw user message is sent to the memory and knowledgebase
+ * services in the background, in parallel with the first LLM call. If the model then calls
+ * loadMemory or loadKnowledgebase with a query similar to that message, the prefetched result is
+ * returned instead of issuing a new search. Prefetched results live until the invocation ends.
+ *
+ * <p>To enable it, register {@link #beforeAgentCallback()} and {@link #afterAgentCallback()} on the
+ * root agent, pass {@link #memoryService()} to the Runner and {@link #knowledgebaseService()} to
+ * LoadKnowledgebaseTool.
+ *
+ * <p>A tool query is similar to the user message when at least the configured share of its tokens
+ * appear in the message, since models usually search with a condensed form of what the user said.
+ * Memory searches are only answered from the prefetch of their own invocation, and searches that
+ * do not name their invocation only while the user has a single live invocation. Knowledgebase
+ * results do not depend on the user, so any live prefetch can answer them.
+ */
+public class SpeculativeRetrieval {
+
+    private static final Logger log = LoggerFactory.getLogger(SpeculativeRetrieval.class);
+
+    private static final double DEFAULT_SIMILARITY_THRESHOLD = 0.6;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_INVOCATIONS = 1024;
+
+    private final BaseMemoryService memoryService;
+    private final BaseKnowledgebaseService knowledgebaseService;
+    private final double similarityThreshold;
+    private final InvocationPrefetches<Prefetch> prefetches;
+
+    private long prefetchCalls = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long wastedCalls = 0;
+
+    /**
+     * Create a speculative retrieval stage
+     * @param memoryService The memory service to prefetch from, or null to skip memory
+     * @param knowledgebaseService The knowledgebase to prefetch from, or null to skip it
+     */
+    public SpeculativeRetrieval(
+            BaseMemoryService memoryService, BaseKnowledgebaseService knowledgebaseService) {
+        this(
+                memoryService,
+                knowledgebaseService,
+                DEFAULT_SIMILARITY_THRESHOLD,
+                DEFAULT_TTL,
+                DEFAULT_MAX_INVOCATIONS);
+    }
+
+    public SpeculativeRetrieval(
+            BaseMemoryService memoryService,
+            BaseKnowledgebaseService knowledgebaseService,
+            double similarityThreshold,
+            Duration ttl,
+            int maxInvocations) {
+        this(
+                memoryService,
+                knowledgebaseService,
+                similarityThreshold,
+                ttl,
+                maxInvocations,
+                Clock.systemUTC());
+    }
+
+    SpeculativeRetrieval(
+            BaseMemoryService memoryService,
+            BaseKnowledgebaseService knowledgebaseService,
+            double similarityThreshold,
+            Duration ttl,
+            int maxInvocations,
+            Clock clock) {
+        if (memoryService == null && knowledgebaseService == null) {
+            throw new IllegalArgumentException(
+                    "At least one of memoryService and knowledgebaseService must be set.");
+        }
+        if (similarityThreshold <= 0 || similarityThreshold > 1) {
+            throw new IllegalArgumentException("similarityThreshold must be in (0, 1].");
+        }
+        this.memoryService = memoryService;
+        this.knowledgebaseService = knowledgebaseService;
+        this.similarityThreshold = similarityThreshold;
+        this.prefetches = new InvocationPrefetches<>(ttl, maxInvocations, clock, this::release);
+    }
+
+    /**
+     * Callback that starts the prefetch of an invocation
+     * @return BeforeAgentCallback to register on the root agent
+     */
+    public Callbacks.BeforeAgentCallback beforeAgentCallback() {
+        return callbackContext -> {
+            Optional<String> userText =
+                    callbackContext
+                            .userContent()
+                            .map(InvocationPrefetches::text)
+                            .filter(text -> !text.isEmpty());
+            if (userText.isPresent()) {
+                Session session =
+                        ReadonlyContextAccessorUtil.getInvocationContext(callbackContext).session();
+                prefetch(
+                        callbackContext.invocationId(),
+                        callbackContext.agentName(),
+                        session.appName(),
+                        session.userId(),
+                        userText.get());
+            }
+            return Maybe.empty();
+        };
+    }
+
+    /**
+     * Callback that drops the prefetched results of an invocation once it ends
+     * @return AfterAgentCallback to register on the root agent
+     */
+    public Callbacks.AfterAgentCallback afterAgentCallback() {
+        return callbackContext -> {
+            complete(callbackContext.invocationId(), callbackContext.agentName());
+            return Maybe.empty();
+        };
+    }
+
+    /**
+     * Start searching memory and knowledgebase with the user message. Nested agents of the same
+     * invocation reuse the first prefetch
+     * @param invocationId The invocation id
+     * @param agentName The agent that started the invocation
+     * @param appName The application name
+     * @param userId The user id
+     * @param userText The raw user message
+     */
+    public void prefetch(
+            String invocationId, String agentName, String appName, String userId, String userText) {
+        Prefetch prefetch;
+        synchronized (this) {
+            prefetch =
+                    prefetches.start(
+                            invocationId,
+                            agentName,
+                            appName,
+                            userId,
+                            () -> startPrefetch(appName, userId, userText));
+            if (prefetch == null) {
+                return;
+            }
+        }
+
+        // Subscribe outside the lock, the searches run on the io scheduler
+        if (prefetch.memory != null) {
+            prefetch.memory.subscribe(
+                    response -> {}, e -> log.warn("Speculative memory search failed", e));
+        }
+        if (prefetch.knowledge != null) {
+            prefetch.knowledge.subscribe(
+                    response -> {}, e -> log.warn("Speculative knowledgebase search failed", e));
+        }
+    }
+
+    private Prefetch startPrefetch(String appName, String userId, String userText) {
+        Single<SearchMemoryResponse> memory = null;
+        if (memoryService != null) {
+            memory =
+                    memoryService
+                            .searchMemory(appName, userId, userText)
+                            .subscribeOn(Schedulers.io())
+                            .cache();
+            prefetchCalls++;
+        }
+        Single<SearchKnowledgebaseResponse> knowledge = null;
+        if (knowledgebaseService != null) {
+            knowledge =
+                    knowledgebaseService
+                            .searchKnowledgebase(userText)
+                            .subscribeOn(Schedulers.io())
+                            .cache();
+            prefetchCalls++;
+        }
+        return new Prefetch(new HashSet<>(TokenizerUtil.tokenize(userText)), memory, knowledge);
+    }
+
+    /**
+     * Drop the prefetched results of an invocation
+     * @param invocationId The invocation id
+     * @param agentName The agent finishing, only the agent that started the prefetch ends it
+     */
+    public synchronized void complete(String invocationId, String agentName) {
+        prefetches.complete(invocationId, agentName);
+    }
+
+    /**
+     * Memory service that answers similar queries from the prefetch
+     * @return InvocationMemoryService to pass to the Runner
+     */
+    public InvocationMemoryService memoryService() {
+        Objects.requireNonNull(memoryService, "memoryService is not set.");
+        return new InvocationMemoryService() {
+            @Override
+            public Completable addSessionToMemory(Session session) {
+                return memoryService.addSessionToMemory(session);
+            }
+
+            @Override
+            public Single<SearchMemoryResponse> searchMemory(
+                    String appName, String userId, String query) {
+                return answer(findMemoryOfUser(appName, userId, query), appName, userId, query);
+            }
+
+            @Override
+            public Single<SearchMemoryResponse> searchMemory(
+                    String invocationId, String appName, String userId, String query) {
+                return answer(findMemory(invocationId, query), appName, userId, query);
+            }
+
+            private Single<SearchMemoryResponse> answer(
+                    Optional<Single<SearchMemoryResponse>> prefetched,
+                    String appName,
+                    String userId,
+                    String query) {
+                Single<SearchMemoryResponse> search =
+                        Single.defer(() -> memoryService.searchMemory(appName, userId, query));
+                return prefetched.map(memory -> memory.onErrorResumeWith(search)).orElse(search);
+            }
+        };
+    }
+
+    /**
+     * Knowledgebase service that answers similar queries from the prefetch
+     * @return BaseKnowledgebaseService to pass to LoadKnowledgebaseTool
+     */
+    public BaseKnowledgebaseService knowledgebaseService() {
+        Objects.requireNonNull(knowledgebaseService, "knowledgebaseService is not set.");
+        return new BaseKnowledgebaseService() {
+            @Override
+            public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+                Single<SearchKnowledgebaseResponse> search =
+                        Single.defer(() -> knowledgebaseService.searchKnowledgebase(query));
+                return findKnowledge(query)
+                        .map(knowledge -> knowledge.onErrorResumeWith(search))
+                        .orElse(search);
+            }
+
+            // The prefetch used the default settings, so it cannot answer other ones
+            @Override
+            public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+                    String query, SearchKnowledgebaseOptions options) {
+                return knowledgebaseService.searchKnowledgebase(query, options);
+            }
+        };
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(prefetchCalls, hits, misses, wastedCalls, prefetches.size());
+    }
+
+    private synchronized Optional<Single<SearchMemoryResponse>> findMemory(
+            String invocationId, String query) {
+        return useMemory(prefetches.get(invocationId), query);
+    }
+
+    private synchronized Optional<Single<SearchMemoryResponse>> findMemoryOfUser(
+            String appName, String userId, String query) {
+        return useMemory(prefetches.onlyOfUser(appName, userId), query);
+    }
+
+    private Optional<Single<SearchMemoryResponse>> useMemory(Prefetch prefetch, String query) {
+        if (prefetch != null
+                && prefetch.memory != null
+                && isSimilar(new HashSet<>(TokenizerUtil.tokenize(query)), prefetch.tokens)) {
+            hits++;
+            prefetch.memoryUsed = true;
+            return Optional.of(prefetch.memory);
+        }
+        misses++;
+        return Optional.empty();
+    }
+
+    private synchronized Optional<Single<SearchKnowledgebaseResponse>> findKnowledge(String query) {
+        Set<String> queryTokens = new HashSet<>(TokenizerUtil.tokenize(query));
+        // Knowledgebase results do not depend on the user, any live prefetch can answer
+        for (Prefetch prefetch : prefetches.all()) {
+            if (prefetch.knowledge != null && isSimilar(queryTokens, prefetch.tokens)) {
+                hits++;
+                prefetch.knowledgeUsed = true;
+                return Optional.of(prefetch.knowledge);
+            }
+        }
+        misses++;
+        return Optional.empty();
+    }
+
+    private boolean isSimilar(Set<String> queryTokens, Set<String> messageTokens) {
+        if (queryTokens.isEmpty()) {
+            return false;
+        }
+        int shared = 0;
+        for (String token : queryTokens) {
+            if (messageTokens.contains(token)) {
+                shared++;
+            }
+        }
+        return (double) shared / queryTokens.size() >= similarityThreshold;
+    }
+
+    /** Count the searches of a finished prefetch that no tool call used. */
+    private void release(Prefetch prefetch) {
+        if (prefetch.memory != null && !prefetch.memoryUsed) {
+            wastedCalls++;
+        }
+        if (prefetch.knowledge != null && !prefetch.knowledgeUsed) {
+            wastedCalls++;
+        }
+    }
+
+    private static class Prefetch {
+
+        private final Set<String> tokens;
+        private final Single<SearchMemoryResponse> memory;
+        private final Single<SearchKnowledgebaseResponse> knowledge;
+        private boolean memoryUsed = false;
+        private boolean knowledgeUsed = false;
+
+        private Prefetch(
+                Set<String> tokens,
+                Single<SearchMemoryResponse> memory,
+                Single<SearchKnowledgebaseResponse> knowledge) {
+            this.tokens = tokens;
+            this.memory = memory;
+            this.knowledge = knowledge;
+        }
+    }
+
+    /**
+     * Counters of a speculative retrieval stage.
+     *
+     * @param prefetchCalls Searches started speculatively
+     * @param hits Tool searches answered from a prefetch
+     * @param misses Tool searches that had to call the service
+     * @param wastedCalls Speculative searches that no tool search used
+     * @param liveInvocations Invocations whose prefetch is still held
+     */
+    public record Stats(
+            long prefetchCalls, long hits, long misses, long wastedCalls, int liveInvocations) {
+
+        public double hitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+
+        public double wasteRate() {
+            return prefetchCalls == 0 ? 0 : (double) wastedCalls / prefetchCalls;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.tools.knowledgebase;
+
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import java.time.Duration;
+
+/**
+ * Settings of a knowledgebase tool that streams search results and answers as soon as it has
+ * enough of them.
+ *
+ * @param search The settings of each search. Its deadline is replaced by the timeout
+ * @param tokenBudget Answer once the entries found reach this many estimated tokens
+ * @param timeout Answer with the entries found so far once this much time has passed
+ */
+public record LoadKnowledgebaseOptions(
+        SearchKnowledgebaseOptions search, int tokenBudget, Duration timeout) {
+
+    public LoadKnowledgebaseOptions {
+        if (search == null || tokenBudget <= 0 || timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException(
+                    "search and timeout must be set, tokenBudget positive and timeout not"
+                            + " negative.");
+        }
+    }
+
+    /** Default search settings, a budget of 1500 tokens and a timeout of 3 seconds. */
+    public static LoadKnowledgebaseOptions defaults() {
+        return new LoadKnowledgebaseOptions(
+                SearchKnowledgebaseOptions.defaults(), 1500, Duration.ofSeconds(3));
+    }
+}
@@ -20,55 +20,193 @@ import com.google.adk.tools.Annotations;
 import com.google.adk.tools.FunctionTool;
 import com.google.adk.tools.ToolContext;
 import com.google.common.collect.ImmutableList;
+import com.google.genai.types.FunctionDeclaration;
 import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import com.volcengine.veadk.retrieval.ResultPacker;
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
 import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Lets the model search a knowledgebase.
+ *
+ * <p>Each tool is bound to its own knowledgebase service, so agents in the same process can use
+ * different knowledgebases. An agent can also be given several knowledgebase tools, as long as
+ * each has a distinct name; the description tells the model which knowledgebase to search.
+ */
 public class LoadKnowledgebaseTool extends FunctionTool {
 
-    private static BaseKnowledgebaseService knowledgebaseService;
+    private static final String DEFAULT_NAME = "loadKnowledgebase";
+
+    private final Loader loader;
+    private final String name;
+    private final String description;
 
     private static Method getLoadKnowledgeMethod() {
         try {
-            return LoadKnowledgebaseTool.class.getMethod(
-                    "loadKnowledgebase", String.class, ToolContext.class);
+            return Loader.class.getMethod("loadKnowledgebase", String.class, ToolContext.class);
         } catch (NoSuchMethodException e) {
             throw new IllegalStateException("Failed to load knowledge method.", e);
         }
     }
 
     public LoadKnowledgebaseTool(BaseKnowledgebaseService knowledgebaseService) {
+        this(knowledgebaseService, DEFAULT_NAME, null);
+    }
+
+    /**
+     * Create a knowledgebase tool with its own name, to give an agent several knowledgebases
+     * @param knowledgebaseService The knowledgebase to search
+     * @param name The function name the model calls, unique among the tools of an agent
+     * @param description What the knowledgebase contains, or null for a generic description
+     */
+    public LoadKnowledgebaseTool(
+            BaseKnowledgebaseService knowledgebaseService, String name, String description) {
+        this(knowledgebaseService, name, description, null);
+    }
+
+    /**
+     * Create a knowledgebase tool that streams search results, answering once it has enough of
+     * them rather than waiting for the whole search
+     * @param knowledgebaseService The knowledgebase to search
+     * @param name The function name the model calls, unique among the tools of an agent
+     * @param description What the knowledgebase contains, or null for a generic description
+     * @param options The token budget and timeout of a call, or null to wait for the full search
+     */
+    public LoadKnowledgebaseTool(
+            BaseKnowledgebaseService knowledgebaseService,
+            String name,
+            String description,
+            LoadKnowledgebaseOptions options) {
+        this(new Loader(knowledgebaseService, options), name, description);
+    }
+
+    private LoadKnowledgebaseTool(Loader loader, String name, String description) {
         super(
-                /* instance= */ null,
+                /* instance= */ loader,
                 getLoadKnowledgeMethod(),
                 /* isLongRunning= */ false,
                 /* requireConfirmation= */ false);
-        this.knowledgebaseService = knowledgebaseService;
+        if (name == null || !name.matches("^[a-zA-Z_][a-zA-Z0-9_-]{0,63}$")) {
+            throw new IllegalArgumentException(
+                    "name can only contain English letters, numbers, underscores and dashes, must"
+                            + " not start with a number, and must be at most 64 characters.");
+        }
+        this.loader = loader;
+        this.name = name;
+        this.description = description;
     }
 
-    public static Single<LoadKnowledgebaseResponse> loadKnowledgebase(
-            @Annotations.Schema(name = "query") String query,
-            @Annotations.Schema(name = "toolContext") ToolContext toolContext) {
-        return knowledgebaseService
-                .searchKnowledgebase(query)
+    /**
+     * Search the knowledgebase of this tool
+     * @param query The query
+     * @param toolContext The tool context
+     * @return The matching knowledge
+     */
+    public Single<LoadKnowledgebaseResponse> loadKnowledgebase(
+            String query, ToolContext toolContext) {
+        return loader.loadKnowledgebase(query, toolContext);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String description() {
+        return description == null ? "Search the knowledgebase with a query." : description;
+    }
+
+    @Override
+    public Optional<FunctionDeclaration> declaration() {
+        return super.declaration()
                 .map(
-                        searchKnowledgebaseResponse ->
-                                new LoadKnowledgebaseResponse(
-                                        searchKnowledgebaseResponse.getKnowledgebaseEntries()));
+                        declaration -> {
+                            FunctionDeclaration.Builder builder =
+                                    FunctionDeclaration.builder()
+                                            .name(name())
+                                            .description(description());
+                            declaration.parameters().ifPresent(builder::parameters);
+                            return builder.build();
+                        });
     }
 
     @Override
     public Completable processLlmRequest(
             LlmRequest.Builder llmRequestBuilder, ToolContext toolContext) {
+        String instruction =
+                description == null
+                        ? """
+                        You have a knowledgebase. You can use it to answer questions. If any questions need you
+                        to look up the knowledgebase, you should call %s function with a query.
+                        """
+                                .formatted(name)
+                        : """
+                        You have a knowledgebase: %s. If any questions need you to look up this knowledgebase,
+                        you should call %s function with a query.
+                        """
+                                .formatted(description, name);
         return super.processLlmRequest(llmRequestBuilder, toolContext)
                 .doOnComplete(
-                        () ->
-                                llmRequestBuilder.appendInstructions(
-                                        ImmutableList.of(
-                                                """
-                                                You have a knowledgebase. You can use it to answer questions. If any questions need you
-                                                to look up the knowledgebase, you should call loadKnowledgebase function with a query.
-                                                """)));
+                        () -> llmRequestBuilder.appendInstructions(ImmutableList.of(instruction)));
+    }
+
+    /** Holds the knowledgebase of one tool, since the function is invoked on this object. */
+    public static final class Loader {
+
+        private final BaseKnowledgebaseService knowledgebaseService;
+        private final LoadKnowledgebaseOptions options;
+
+        private Loader(
+                BaseKnowledgebaseService knowledgebaseService, LoadKnowledgebaseOptions options) {
+            this.knowledgebaseService = knowledgebaseService;
+            this.options = options;
+        }
+
+        public Single<LoadKnowledgebaseResponse> loadKnowledgebase(
+                @Annotations.Schema(name = "query") String query,
+                @Annotations.Schema(name = "toolContext") ToolContext toolContext) {
+            if (options != null) {
+                return stream(query);
+            }
+            return knowledgebaseService
+                    .searchKnowledgebase(query)
+                    .map(
+                            searchKnowledgebaseResponse ->
+                                    new LoadKnowledgebaseResponse(
+                                            searchKnowledgebaseResponse.getKnowledgebaseEntries()));
+        }
+
+        // Take entries until they reach the token budget or the timeout passes
+        private Single<LoadKnowledgebaseResponse> stream(String query) {
+            return Flowable.defer(
+                            () -> {
+                                SearchKnowledgebaseOptions search =
+                                        options.search()
+                                                .withDeadline(
+                                                        Instant.now().plus(options.timeout()));
+                                int[] tokens = {0};
+                                return knowledgebaseService
+                                        .streamKnowledgebase(query, search)
+                                        .takeUntil(
+                                                entry -> {
+                                                    if (entry.getContent() != null) {
+                                                        tokens[0] +=
+                                                                ResultPacker.estimateTokens(
+                                                                        entry.getContent());
+                                                    }
+                                                    return tokens[0] >= options.tokenBudget();
+                                                });
+                            })
+                    .take(options.timeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .toList()
+                    .map(LoadKnowledgebaseResponse::new);
+        }
     }
 }
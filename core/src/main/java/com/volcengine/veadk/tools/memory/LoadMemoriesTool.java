@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.tools.memory;
+
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.tools.Annotations;
+import com.google.adk.tools.FunctionTool;
+import com.google.adk.tools.ToolContext;
+import com.google.common.collect.ImmutableList;
+import com.volcengine.veadk.memory.viking.VikingMemoryService;
+import com.volcengine.veadk.retrieval.InvocationMemoryService;
+import com.volcengine.veadk.utils.ReadonlyContextAccessorUtil;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the user's memories for several questions in one tool call, instead of one loadMemory
+ * call per question.
+ *
+ * <p>With a {@link VikingMemoryService}, the questions go through its batch search, which shares
+ * the bounded search pool of the Viking client and merges the memories by score. Other memory
+ * services are searched concurrently here, and their memories are merged rank by rank. Duplicates
+ * are removed either way.
+ */
+public class LoadMemoriesTool extends FunctionTool {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadMemoriesTool.class);
+
+    private static final int MAX_CONCURRENT_QUERIES = 4;
+
+    private static Method getLoadMemoriesMethod() {
+        try {
+            return LoadMemoriesTool.class.getMethod("loadMemories", List.class, ToolContext.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Failed to load memories method.", e);
+        }
+    }
+
+    public LoadMemoriesTool() {
+        super(
+                /* instance= */ null,
+                getLoadMemoriesMethod(),
+                /* isLongRunning= */ false,
+                /* requireConfirmation= */ false);
+    }
+
+    public static Single<LoadMemoriesResponse> loadMemories(
+            @Annotations.Schema(name = "queries") List<String> queries,
+            @Annotations.Schema(name = "toolContext") ToolContext toolContext) {
+        InvocationContext invocationContext =
+                ReadonlyContextAccessorUtil.getInvocationContext(toolContext);
+        if (invocationContext != null
+                && invocationContext.memoryService() instanceof VikingMemoryService memoryService) {
+            return memoryService
+                    .searchMemoryBatch(
+                            invocationContext.session().appName(),
+                            invocationContext.session().userId(),
+                            queries)
+                    .<List<MemoryEntry>>map(SearchMemoryResponse::memories)
+                    .onErrorReturn(
+                            e -> {
+                                log.warn("Batch memory search failed", e);
+                                return List.of();
+                            })
+                    .map(LoadMemoriesResponse::new);
+        }
+        return searchAll(queries, search(toolContext)).map(LoadMemoriesResponse::new);
+    }
+
+    /**
+     * Search through the memory service of the invocation, naming the invocation when the service
+     * answers per invocation, e.g. from prefetched memories
+     * @param toolContext The tool context
+     * @return Searches the memories of one query
+     */
+    static Function<String, Single<SearchMemoryResponse>> search(ToolContext toolContext) {
+        InvocationContext invocationContext =
+                ReadonlyContextAccessorUtil.getInvocationContext(toolContext);
+        if (invocationContext != null
+                && invocationContext.memoryService()
+                        instanceof InvocationMemoryService memoryService) {
+            String invocationId = toolContext.invocationId();
+            String appName = invocationContext.session().appName();
+            String userId = invocationContext.session().userId();
+            return query -> memoryService.searchMemory(invocationId, appName, userId, query);
+        }
+        return toolContext::searchMemory;
+    }
+
+    /**
+     * Run searches concurrently and merge their memories rank by rank, so every query contributes
+     * its best memories first. A failed search contributes no memories
+     * @param queries The queries
+     * @param search Searches the memories of one query
+     * @return The merged memories, without duplicate texts
+     */
+    static Single<List<MemoryEntry>> searchAll(
+            List<String> queries, Function<String, Single<SearchMemoryResponse>> search) {
+        return Flowable.fromIterable(new LinkedHashSet<>(queries))
+                .concatMapEager(
+                        query ->
+                                Single.defer(() -> search.apply(query))
+                                        .<List<MemoryEntry>>map(SearchMemoryResponse::memories)
+                                        .onErrorReturn(
+                                                e -> {
+                                                    log.warn(
+                                                            "Memory search failed for query {}",
+                                                            query,
+                                                            e);
+                                                    return List.of();
+                                                })
+                                        .subscribeOn(Schedulers.io())
+                                        .toFlowable(),
+                        MAX_CONCURRENT_QUERIES,
+                        1)
+                .toList()
+                .map(LoadMemoriesTool::interleave);
+    }
+
+    @Override
+    public Completable processLlmRequest(
+            LlmRequest.Builder llmRequestBuilder, ToolContext toolContext) {
+        return super.processLlmRequest(llmRequestBuilder, toolContext)
+                .doOnComplete(
+                        () ->
+                                llmRequestBuilder.appendInstructions(
+                                        ImmutableList.of(
+                                                """
+                                                You have memory about the user. If answering needs several facts about the user,
+                                                call loadMemories once with one query per fact.
+                                                """)));
+    }
+
+    private static List<MemoryEntry> interleave(List<List<MemoryEntry>> results) {
+        List<MemoryEntry> merged = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int maxRank = results.stream().mapToInt(List::size).max().orElse(0);
+        for (int rank = 0; rank < maxRank; rank++) {
+            for (List<MemoryEntry> memories : results) {
+                if (rank < memories.size() && seen.add(text(memories.get(rank)))) {
+                    merged.add(memories.get(rank));
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static String text(MemoryEntry entry) {
+        StringBuilder text = new StringBuilder();
+        entry.content()
+                .parts()
+                .ifPresent(parts -> parts.forEach(part -> part.text().ifPresent(text::append)));
+        return text.toString();
+    }
+}
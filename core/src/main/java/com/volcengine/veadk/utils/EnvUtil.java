@@ -27,11 +27,14 @@ public class EnvUtil {
     private static final String TLS_REGION = "OBSERVABILITY_OPENTELEMETRY_TLS_REGION";
     private static final String VIKINGMEM_MEMORY_TYPE = "DATABASE_VIKINGMEM_MEMORY_TYPE";
     private static final String MODEL_AGENT_API_KEY = "MODEL_AGENT_API_KEY";
+    private static final String VIKING_COLLECTION_BOOTSTRAP =
+            "DATABASE_VIKING_COLLECTION_BOOTSTRAP";
 
     // default value
     private static final String DEFAULT_TLS_ENDPONT = "https://tls-cn-beijing.volces.com:4317";
     private static final String DEFAULT_TLS_REGION = "cn-beijing";
     private static final String DEFAULT_VIKING_MEMORY_TYPE = "sys_event_v1";
+    private static final String DEFAULT_VIKING_COLLECTION_BOOTSTRAP = "sync";
 
     private EnvUtil() {}
 
@@ -91,6 +94,14 @@ public class EnvUtil {
         return memoryType;
     }
 
+    public static String getVikingCollectionBootstrap() {
+        String bootstrap = System.getenv(VIKING_COLLECTION_BOOTSTRAP);
+        if (StringUtils.isBlank(bootstrap)) {
+            return DEFAULT_VIKING_COLLECTION_BOOTSTRAP;
+        }
+        return bootstrap;
+    }
+
     private static IllegalStateException getIllegalStateException(String configName) {
         return new IllegalStateException(
                 "Missing required configuration: "
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class TokenizerUtil {
+
+    private TokenizerUtil() {}
+
+    /**
+     * Split text into lower-case word tokens. Runs of letters and digits form one token, while
+     * each CJK character is a token of its own since those scripts do not separate words
+     * @param text The text to tokenize
+     * @return Tokens in text order
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        StringBuilder word = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                flush(word, tokens);
+                tokens.add(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(codePoint);
+            } else {
+                flush(word, tokens);
+            }
+            i += Character.charCount(codePoint);
+        }
+        flush(word, tokens);
+        return tokens;
+    }
+
+    /**
+     * Pairs of adjacent CJK characters, which match words of those scripts far more precisely
+     * than the single characters returned by {@link #tokenize(String)}
+     * @param text The text to tokenize
+     * @return Bigrams in text order
+     */
+    public static List<String> cjkBigrams(String text) {
+        List<String> bigrams = new ArrayList<>();
+        if (text == null) {
+            return bigrams;
+        }
+
+        int previous = -1;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                if (previous != -1) {
+                    bigrams.add(
+                            new StringBuilder()
+                                    .appendCodePoint(previous)
+                                    .appendCodePoint(codePoint)
+                                    .toString());
+                }
+                previous = codePoint;
+            } else {
+                previous = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return bigrams;
+    }
+
+    public static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flush(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString().toLowerCase(Locale.ROOT));
+            word.setLength(0);
+        }
+    }
+}
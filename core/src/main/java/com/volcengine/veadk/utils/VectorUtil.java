@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.utils;
+
+public class VectorUtil {
+
+    private VectorUtil() {}
+
+    public static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException(
+                    "vector dimensions differ: " + a.length + " vs " + b.length);
+        }
+        return dot(a, b, a.length);
+    }
+
+    /**
+     * Dot product of the first elements of two vectors. The loop keeps four independent sums so
+     * the JIT can vectorize it and overlap the additions
+     * @param a The first vector
+     * @param b The second vector
+     * @param length Number of elements to multiply
+     * @return The dot product
+     */
+    public static float dot(float[] a, float[] b, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Dot product of two int8 vectors. Integer sums are exact, so the result does not depend on
+     * the order of the additions
+     * @param a The first vector
+     * @param b The second vector
+     * @param length Number of elements to multiply
+     * @return The dot product
+     */
+    public static int dotInt8(byte[] a, byte[] b, int length) {
+        int s0 = 0;
+        int s1 = 0;
+        int s2 = 0;
+        int s3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Quantize a vector to int8 with one symmetric scale, so that each element is approximately
+     * {@code target[i] * scale}
+     * @param vector The vector
+     * @param target Receives the quantized elements, at least as long as the vector
+     * @return The scale
+     */
+    public static float quantizeInt8(float[] vector, byte[] target) {
+        float maxAbs = 0f;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        float scale = maxAbs == 0f ? 1f : maxAbs / 127f;
+        for (int i = 0; i < vector.length; i++) {
+            target[i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    /**
+     * Scale a vector to unit length, so that dot product equals cosine similarity
+     * @param vector The vector
+     * @return A normalized copy, or a plain copy for the zero vector
+     */
+    public static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        if (norm == 0f) {
+            System.arraycopy(vector, 0, normalized, 0, vector.length);
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] / norm;
+        }
+        return normalized;
+    }
+
+    public static float cosine(float[] a, float[] b) {
+        float normA = (float) Math.sqrt(dot(a, a));
+        float normB = (float) Math.sqrt(dot(b, b));
+        if (normA == 0f || normB == 0f) {
+            return 0f;
+        }
+        return dot(a, b) / (normA * normB);
+    }
+}
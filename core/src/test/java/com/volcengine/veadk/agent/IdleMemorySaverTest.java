@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class IdleMemorySaverTest {
+
+    private final RecordingMemoryService memory = new RecordingMemoryService();
+
+    @Test
+    void turnsOfABusySession_areSavedOnceItIsIdle() throws Exception {
+        memory.expect(1);
+        try (IdleMemorySaver saver = new IdleMemorySaver(Duration.ofMillis(200), 10, 1, 10)) {
+            saver.turnCompleted(memory, session("s1"));
+            saver.turnCompleted(memory, session("s1"));
+            saver.turnCompleted(memory, session("s1"));
+            assertEquals(List.of(), memory.saved);
+
+            assertTrue(memory.await());
+            assertEquals(List.of("s1"), memory.saved);
+            assertEquals(1, saver.stats().idleSaves());
+            assertEquals(3.0, saver.stats().turnsPerSave());
+        }
+    }
+
+    @Test
+    void sessionReachingTheTurnLimit_isSavedWithoutWaiting() throws Exception {
+        memory.expect(1);
+        try (IdleMemorySaver saver = new IdleMemorySaver(Duration.ofHours(1), 2, 1, 10)) {
+            saver.turnCompleted(memory, session("s1"));
+            saver.turnCompleted(memory, session("s1"));
+
+            assertTrue(memory.await());
+            assertEquals(1, saver.stats().turnLimitSaves());
+            assertEquals(0, saver.stats().pendingSessions());
+        }
+    }
+
+    @Test
+    void endSession_andClose_saveTheUnsavedTurns() {
+        IdleMemorySaver saver = new IdleMemorySaver(Duration.ofHours(1), 10, 1, 10);
+        saver.turnCompleted(memory, session("s1"));
+        saver.turnCompleted(memory, session("s2"));
+
+        saver.endSession(session("s1")).blockingAwait();
+        assertEquals(List.of("s1"), memory.saved);
+
+        saver.close();
+        assertEquals(List.of("s1", "s2"), memory.saved);
+        assertEquals(1, saver.stats().sessionEndSaves());
+        assertEquals(1, saver.stats().shutdownSaves());
+    }
+
+    @Test
+    void saturatedWorkers_neverSaveOnTheCallersThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        memory.blockUntil(release);
+        IdleMemorySaver saver = new IdleMemorySaver(Duration.ofHours(1), 10, 1, 1);
+        List<Completable> saves = new ArrayList<>();
+        for (String id : List.of("s1", "s2", "s3", "s4")) {
+            saver.turnCompleted(memory, session(id));
+            // One save runs, one waits in the queue, and the others wait on the timer thread
+            saves.add(saver.endSession(session(id)));
+        }
+
+        release.countDown();
+        Completable.merge(saves).blockingAwait();
+        saver.close();
+
+        assertEquals(4, saver.stats().sessionEndSaves());
+        assertTrue(memory.threads.stream().allMatch(name -> name.startsWith("veadk-memory-saver")));
+    }
+
+    private static Session session(String id) {
+        return Session.builder(id).appName("app").userId("user").build();
+    }
+
+    /** Records the ids of saved sessions. */
+    private static class RecordingMemoryService implements BaseMemoryService {
+
+        private final List<String> saved = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+        private CountDownLatch latch = new CountDownLatch(0);
+        private CountDownLatch gate = new CountDownLatch(0);
+
+        void expect(int saves) {
+            latch = new CountDownLatch(saves);
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+
+        void blockUntil(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public Completable addSessionToMemory(Session session) {
+            return Completable.fromAction(
+                    () -> {
+                        threads.add(Thread.currentThread().getName());
+                        gate.await(5, TimeUnit.SECONDS);
+                        saved.add(session.id());
+                        latch.countDown();
+                    });
+        }
+
+        @Override
+        public Single<SearchMemoryResponse> searchMemory(
+                String appName, String userId, String query) {
+            return Single.just(SearchMemoryResponse.builder().setMemories(List.of()).build());
+        }
+    }
+}
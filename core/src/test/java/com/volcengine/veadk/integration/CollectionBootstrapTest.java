@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CollectionBootstrapTest {
+
+    private final AtomicInteger existsCalls = new AtomicInteger();
+    private final AtomicInteger createCalls = new AtomicInteger();
+
+    @BeforeEach
+    void clearKnownCollections() {
+        CollectionBootstrap.clear();
+    }
+
+    @Test
+    void skip_neverChecks() {
+        CompletableFuture<Void> ready =
+                CollectionBootstrap.bootstrap(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.SKIP,
+                        () -> exists(true),
+                        this::create);
+
+        assertTrue(ready.isDone());
+        assertEquals(0, existsCalls.get());
+    }
+
+    @Test
+    void sync_checksBeforeReturning_andCreatesAMissingCollection() {
+        CompletableFuture<Void> ready =
+                CollectionBootstrap.bootstrap(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.SYNC,
+                        () -> exists(false),
+                        this::create);
+
+        assertTrue(ready.isDone());
+        assertEquals(1, existsCalls.get());
+        assertEquals(1, createCalls.get());
+    }
+
+    @Test
+    void async_returnsBeforeTheCheck_andSharesItAcrossServices() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first =
+                CollectionBootstrap.bootstrap(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.ASYNC,
+                        () -> {
+                            await(release);
+                            return exists(true);
+                        },
+                        this::create);
+        CompletableFuture<Void> second =
+                CollectionBootstrap.bootstrap(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.ASYNC,
+                        () -> exists(true),
+                        this::create);
+
+        assertFalse(first.isDone());
+        assertSame(first, second);
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, existsCalls.get());
+        assertEquals(0, createCalls.get());
+    }
+
+    @Test
+    void collectionKnownToExist_isNotCheckedAgain() throws Exception {
+        CollectionBootstrap.bootstrap(
+                "vikingmemory",
+                "app",
+                CollectionBootstrap.Mode.SYNC,
+                () -> exists(true),
+                this::create);
+
+        CollectionBootstrap.bootstrap(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.ASYNC,
+                        () -> exists(true),
+                        this::create)
+                .get(5, TimeUnit.SECONDS);
+        // Collections of another service kind are checked on their own
+        CollectionBootstrap.bootstrap(
+                        "vikingknowledgebase",
+                        "app",
+                        CollectionBootstrap.Mode.ASYNC,
+                        () -> exists(true),
+                        this::create)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, existsCalls.get());
+    }
+
+    @Test
+    void syncCheck_isReusedBySyncServices() {
+        for (int i = 0; i < 3; i++) {
+            CollectionBootstrap.bootstrap(
+                    "vikingmemory",
+                    "app",
+                    CollectionBootstrap.Mode.SYNC,
+                    () -> exists(true),
+                    this::create);
+        }
+
+        assertEquals(1, existsCalls.get());
+    }
+
+    @Test
+    void failedAsyncCheck_isStartedAgainOnAwait() throws Exception {
+        CollectionBootstrap.Readiness readiness =
+                CollectionBootstrap.readiness(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.ASYNC,
+                        () -> {
+                            if (existsCalls.incrementAndGet() == 1) {
+                                throw new IllegalStateException("unavailable");
+                            }
+                            return true;
+                        },
+                        this::create);
+        CompletableFuture<Void> failed = readiness.future();
+        assertThrows(Exception.class, () -> failed.get(5, TimeUnit.SECONDS));
+
+        readiness.await();
+
+        assertEquals(2, existsCalls.get());
+        assertTrue(readiness.future().isDone());
+        assertFalse(readiness.future().isCompletedExceptionally());
+    }
+
+    @Test
+    void failedCreation_isRetriedByTheNextService() throws Exception {
+        CollectionBootstrap.bootstrap(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.ASYNC,
+                        () -> exists(false),
+                        () -> {
+                            createCalls.incrementAndGet();
+                            return false;
+                        })
+                .get(5, TimeUnit.SECONDS);
+
+        CollectionBootstrap.bootstrap(
+                        "vikingmemory",
+                        "app",
+                        CollectionBootstrap.Mode.ASYNC,
+                        () -> exists(false),
+                        this::create)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, existsCalls.get());
+        assertEquals(2, createCalls.get());
+    }
+
+    @Test
+    void parse_ignoresCase_andDefaultsToSync() {
+        assertEquals(CollectionBootstrap.Mode.ASYNC, CollectionBootstrap.Mode.parse(" Async "));
+        assertEquals(CollectionBootstrap.Mode.SYNC, CollectionBootstrap.Mode.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> CollectionBootstrap.Mode.parse("lazy"));
+    }
+
+    private boolean exists(boolean exists) {
+        existsCalls.incrementAndGet();
+        return exists;
+    }
+
+    private boolean create() {
+        createCalls.incrementAndGet();
+        return true;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
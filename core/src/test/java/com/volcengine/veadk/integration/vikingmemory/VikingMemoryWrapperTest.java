@@ -10,10 +10,12 @@ import static org.mockito.Mockito.when;
 import com.volcengine.error.SdkError;
 import com.volcengine.model.response.RawResponse;
 import com.volcengine.veadk.utils.JSONUtil;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -168,4 +170,55 @@ class VikingMemoryWrapperTest {
                         Collections.singletonList("sys_event_v1"));
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void searchMemoryBatch_mergesQueriesByScore_andRemovesDuplicates() throws Exception {
+        when(vikingMemoryWrapper.json(anyString(), isNull(), anyString()))
+                .thenAnswer(
+                        invocation -> {
+                            String body = invocation.getArgument(2);
+                            if (body.contains("\"query\":\"height\"")) {
+                                return searchResponse(
+                                        List.of("180cm", "likes tea"), List.of(0.9, 0.2));
+                            }
+                            if (body.contains("\"query\":\"drinks\"")) {
+                                return searchResponse(List.of("likes tea"), List.of(0.8));
+                            }
+                            return new RawResponse(
+                                    null,
+                                    SdkError.EHTTP.getNumber(),
+                                    new Exception("search failed"));
+                        });
+
+        List<com.google.adk.memory.MemoryEntry> result =
+                vikingMemoryWrapper.searchMemoryBatch(
+                        "test-collection",
+                        "user-1",
+                        List.of("height", "drinks", "failing", "height"),
+                        2,
+                        Collections.singletonList("sys_event_v1"));
+
+        assertEquals(
+                List.of("180cm", "likes tea"),
+                result.stream()
+                        .map(entry -> entry.content().parts().get().get(0).text().get())
+                        .toList());
+        Mockito.verify(vikingMemoryWrapper, Mockito.times(3))
+                .json(anyString(), isNull(), anyString());
+    }
+
+    private static RawResponse searchResponse(List<String> summaries, List<Double> scores)
+            throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < summaries.size(); i++) {
+            results.add(
+                    Map.of(
+                            "memory_info",
+                            Map.of("summary", summaries.get(i)),
+                            "score",
+                            scores.get(i)));
+        }
+        byte[] data = JSONUtil.toJson(Map.of("data", Map.of("result_list", results))).getBytes();
+        return new RawResponse(data, SdkError.SUCCESS.getNumber(), null);
+    }
 }
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+import com.google.adk.tools.ToolContext;
+import com.volcengine.error.SdkError;
+import com.volcengine.model.response.RawResponse;
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.integration.vikingknowledgebase.VikingKnowledgebaseWrapper;
+import com.volcengine.veadk.tools.knowledgebase.LoadKnowledgebaseOptions;
+import com.volcengine.veadk.tools.knowledgebase.LoadKnowledgebaseTool;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class CachingKnowledgebaseServiceTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final List<String> queries = new ArrayList<>();
+    private final BaseKnowledgebaseService knowledgebase =
+            query -> {
+                queries.add(query);
+                return Single.just(response(query));
+            };
+
+    @Test
+    void equivalentQueries_shareAResult_untilItExpires() {
+        CachingKnowledgebaseService cache =
+                new CachingKnowledgebaseService(
+                        knowledgebase, null, Duration.ofMinutes(10), 100, clock);
+
+        cache.searchKnowledgebase("Refund policy").blockingGet();
+        SearchKnowledgebaseResponse cached =
+                cache.searchKnowledgebase("  refund   POLICY ").blockingGet();
+        clock.advance(Duration.ofMinutes(11));
+        cache.searchKnowledgebase("refund policy").blockingGet();
+
+        assertEquals("Refund policy", cached.getKnowledgebaseEntries().get(0).getContent());
+        assertEquals(List.of("Refund policy", "refund policy"), queries);
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void concurrentIdenticalQueries_shareOneSearch() {
+        SingleSubject<SearchKnowledgebaseResponse> pending = SingleSubject.create();
+        List<String> searched = new ArrayList<>();
+        CachingKnowledgebaseService cache =
+                new CachingKnowledgebaseService(
+                        query -> {
+                            searched.add(query);
+                            return pending;
+                        });
+
+        TestObserver<SearchKnowledgebaseResponse> first =
+                cache.searchKnowledgebase("shipping").test();
+        TestObserver<SearchKnowledgebaseResponse> second =
+                cache.searchKnowledgebase("Shipping").test();
+        pending.onSuccess(response("shipping"));
+
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        assertEquals(List.of("shipping"), searched);
+        assertEquals(1, cache.stats().sharedSearches());
+        assertEquals(1, cache.stats().entries());
+    }
+
+    // Reports the settings it ran with, dropping rerank when less than a second is left
+    private final BaseKnowledgebaseService reranking =
+            new BaseKnowledgebaseService() {
+                @Override
+                public Single<SearchKnowledgebaseResponse> searchKnowledgebase(String query) {
+                    return searchKnowledgebase(query, SearchKnowledgebaseOptions.defaults());
+                }
+
+                @Override
+                public Single<SearchKnowledgebaseResponse> searchKnowledgebase(
+                        String query, SearchKnowledgebaseOptions options) {
+                    queries.add(query);
+                    SearchKnowledgebaseResponse response = response(query);
+                    response.setAppliedOptions(
+                            options.remainingMillis(System.currentTimeMillis()) < 1000
+                                    ? options.withRerank(false)
+                                    : options);
+                    return Single.just(response);
+                }
+            };
+
+    @Test
+    void streamedToolSearches_areCached_perSettings() {
+        CachingKnowledgebaseService cache = new CachingKnowledgebaseService(reranking);
+        LoadKnowledgebaseTool tool =
+                new LoadKnowledgebaseTool(
+                        cache, "searchDocs", null, LoadKnowledgebaseOptions.defaults());
+
+        tool.loadKnowledgebase("refunds", Mockito.mock(ToolContext.class)).blockingGet();
+        List<KnowledgebaseEntry> cached =
+                tool.loadKnowledgebase("Refunds", Mockito.mock(ToolContext.class))
+                        .blockingGet()
+                        .knowledges();
+        cache.streamKnowledgebase("refunds", SearchKnowledgebaseOptions.defaults().withTopK(3))
+                .toList()
+                .blockingGet();
+
+        assertEquals("refunds", cached.get(0).getContent());
+        assertEquals(List.of("refunds", "refunds"), queries);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(2, cache.stats().entries());
+    }
+
+    @Test
+    void searchUnderADeadline_isOnlyCachedUnderTheSettingsItRanWith() {
+        CachingKnowledgebaseService cache = new CachingKnowledgebaseService(reranking);
+        SearchKnowledgebaseOptions reranked = SearchKnowledgebaseOptions.defaults();
+
+        cache.searchKnowledgebase("refunds", reranked.withDeadline(Instant.now())).blockingGet();
+        cache.searchKnowledgebase("refunds", reranked).blockingGet();
+        cache.searchKnowledgebase("refunds", reranked.withRerank(false)).blockingGet();
+
+        assertEquals(List.of("refunds", "refunds"), queries);
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void searchUnderADeadline_withoutReportedSettings_isNotCached() {
+        CachingKnowledgebaseService cache = new CachingKnowledgebaseService(knowledgebase);
+        SearchKnowledgebaseOptions options =
+                SearchKnowledgebaseOptions.defaults().withDeadline(Instant.now());
+
+        cache.searchKnowledgebase("refunds", options).blockingGet();
+        cache.searchKnowledgebase("refunds", options).blockingGet();
+
+        assertEquals(List.of("refunds", "refunds"), queries);
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void emptyResults_areNotCached() {
+        CachingKnowledgebaseService cache =
+                new CachingKnowledgebaseService(
+                        query -> {
+                            queries.add(query);
+                            SearchKnowledgebaseResponse response =
+                                    new SearchKnowledgebaseResponse();
+                            response.setKnowledgebaseEntries(List.of());
+                            return Single.just(response);
+                        });
+
+        cache.searchKnowledgebase("refunds").blockingGet();
+        cache.searchKnowledgebase("refunds").blockingGet();
+
+        assertEquals(List.of("refunds", "refunds"), queries);
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void addingADocumentToTheCollection_clearsTheCache() throws Exception {
+        VikingKnowledgebaseWrapper wrapper =
+                Mockito.spy(new VikingKnowledgebaseWrapper("ak", "sk"));
+        byte[] data = "{\"data\":{\"doc_id\":\"doc-1\"}}".getBytes();
+        when(wrapper.json(anyString(), isNull(), anyString()))
+                .thenReturn(new RawResponse(data, SdkError.SUCCESS.getNumber(), null));
+
+        try (CachingKnowledgebaseService cache =
+                        new CachingKnowledgebaseService(knowledgebase, "kb");
+                CachingKnowledgebaseService otherCache =
+                        new CachingKnowledgebaseService(knowledgebase, "other_kb")) {
+            cache.searchKnowledgebase("refunds").blockingGet();
+            otherCache.searchKnowledgebase("refunds").blockingGet();
+
+            wrapper.addDoc("kb", "tos://bucket/new.pdf");
+
+            assertEquals(0, cache.stats().entries());
+            assertEquals(1, cache.stats().invalidations());
+            assertEquals(1, otherCache.stats().entries());
+        }
+    }
+
+    private static SearchKnowledgebaseResponse response(String content) {
+        SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+        response.setKnowledgebaseEntries(List.of(new KnowledgebaseEntry(content, Map.of())));
+        return response;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class HybridKnowledgebaseServiceTest {
+
+    @Test
+    void entriesFoundByBothSources_rankFirst_andAreReturnedOnce() {
+        HybridKnowledgebaseService hybrid =
+                new HybridKnowledgebaseService(
+                        List.of(
+                                new HybridKnowledgebaseService.Source(
+                                        "vector", source("refunds", "shipping", "returns")),
+                                new HybridKnowledgebaseService.Source(
+                                        "keyword", source("returns", "warranty"))));
+
+        List<String> contents = contents(hybrid.searchKnowledgebase("q").blockingGet());
+
+        assertEquals(List.of("returns", "refunds", "shipping", "warranty"), contents);
+        assertEquals(1, hybrid.stats().duplicates());
+    }
+
+    @Test
+    void weights_favourASource() {
+        HybridKnowledgebaseService hybrid =
+                new HybridKnowledgebaseService(
+                        List.of(
+                                new HybridKnowledgebaseService.Source(
+                                        "vector", source("refunds"), 1, Duration.ofSeconds(1)),
+                                new HybridKnowledgebaseService.Source(
+                                        "keyword", source("warranty"), 2, Duration.ofSeconds(1))),
+                        1);
+
+        assertEquals(List.of("warranty"), contents(hybrid.searchKnowledgebase("q").blockingGet()));
+    }
+
+    @Test
+    void contentDifferingInWhitespace_isMerged() {
+        HybridKnowledgebaseService hybrid =
+                new HybridKnowledgebaseService(
+                        List.of(
+                                new HybridKnowledgebaseService.Source(
+                                        "a", source("Refunds  take 5 days")),
+                                new HybridKnowledgebaseService.Source(
+                                        "b", source(" Refunds take 5 days\n"))));
+
+        assertEquals(
+                1, hybrid.searchKnowledgebase("q").blockingGet().getKnowledgebaseEntries().size());
+    }
+
+    @Test
+    void slowOrFailingSources_areLeftOut() {
+        BaseKnowledgebaseService slow =
+                query -> Single.just(response("late")).delay(5, TimeUnit.SECONDS);
+        BaseKnowledgebaseService failing =
+                query -> Single.error(new IllegalStateException("collection missing"));
+        HybridKnowledgebaseService hybrid =
+                new HybridKnowledgebaseService(
+                        List.of(
+                                new HybridKnowledgebaseService.Source(
+                                        "slow", slow, 1, Duration.ofMillis(100)),
+                                new HybridKnowledgebaseService.Source("failing", failing),
+                                new HybridKnowledgebaseService.Source("fast", source("on time"))));
+
+        long start = System.nanoTime();
+        List<String> contents = contents(hybrid.searchKnowledgebase("q").blockingGet());
+
+        assertEquals(List.of("on time"), contents);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+        assertEquals(1, hybrid.stats().timeouts());
+        assertEquals(1, hybrid.stats().failures());
+    }
+
+    @Test
+    void options_limitTheResults_andTheDeadlineCapsSourceTimeouts() {
+        BaseKnowledgebaseService slow =
+                query -> Single.just(response("late")).delay(5, TimeUnit.SECONDS);
+        HybridKnowledgebaseService hybrid =
+                new HybridKnowledgebaseService(
+                        List.of(
+                                new HybridKnowledgebaseService.Source(
+                                        "slow", slow, 1, Duration.ofSeconds(10)),
+                                new HybridKnowledgebaseService.Source(
+                                        "fast", source("refunds", "shipping", "returns"))));
+        SearchKnowledgebaseOptions options =
+                SearchKnowledgebaseOptions.defaults()
+                        .withTopK(2)
+                        .withDeadline(Instant.now().plusMillis(200));
+
+        long start = System.nanoTime();
+        List<String> contents = contents(hybrid.searchKnowledgebase("q", options).blockingGet());
+
+        assertEquals(List.of("refunds", "shipping"), contents);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+        assertEquals(1, hybrid.stats().timeouts());
+    }
+
+    @Test
+    void streamedSearch_countsTheSourcesCutOffAtTheirTimeout() {
+        BaseKnowledgebaseService slow =
+                query -> Single.just(response("late")).delay(5, TimeUnit.SECONDS);
+        HybridKnowledgebaseService hybrid =
+                new HybridKnowledgebaseService(
+                        List.of(
+                                new HybridKnowledgebaseService.Source(
+                                        "slow", slow, 1, Duration.ofMillis(100)),
+                                new HybridKnowledgebaseService.Source("fast", source("on time"))));
+
+        List<String> contents =
+                hybrid.streamKnowledgebase("q", SearchKnowledgebaseOptions.defaults())
+                        .map(KnowledgebaseEntry::getContent)
+                        .toList()
+                        .blockingGet();
+
+        assertEquals(List.of("on time"), contents);
+        assertEquals(1, hybrid.stats().timeouts());
+        assertEquals(0, hybrid.stats().failures());
+    }
+
+    @Test
+    void sourceWithoutTimeout_isRejected() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new HybridKnowledgebaseService.Source("vector", source("refunds"), 1, null));
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        new HybridKnowledgebaseService.Source(
+                                "vector", source("refunds"), 1, Duration.ZERO));
+    }
+
+    private static BaseKnowledgebaseService source(String... contents) {
+        return query -> Single.just(response(contents));
+    }
+
+    private static SearchKnowledgebaseResponse response(String... contents) {
+        SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+        response.setKnowledgebaseEntries(
+                Arrays.stream(contents)
+                        .map(content -> new KnowledgebaseEntry(content, Map.of()))
+                        .toList());
+        return response;
+    }
+
+    private static List<String> contents(SearchKnowledgebaseResponse response) {
+        return response.getKnowledgebaseEntries().stream()
+                .map(KnowledgebaseEntry::getContent)
+                .toList();
+    }
+}
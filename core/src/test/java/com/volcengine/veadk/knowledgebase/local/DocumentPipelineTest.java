@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DocumentPipelineTest {
+
+    @TempDir Path directory;
+
+    @Test
+    void directory_isChunkedInPathOrder_withTheSourceOfEachChunk() throws Exception {
+        Path markdown = directory.resolve("a.md");
+        Path html = directory.resolve("b.html");
+        Files.writeString(markdown, "# Tea\n\nGreen tea is brewed at 80 degrees.\n");
+        Files.writeString(
+                html,
+                "<html><head><script>var x = 1;</script></head>"
+                        + "<body><p>Black tea needs boiling water &amp; time.</p></body></html>");
+        Files.writeString(directory.resolve("c.pdf"), "%PDF-1.7");
+
+        List<KnowledgebaseEntry> entries;
+        try (DocumentPipeline pipeline = new DocumentPipeline(new ChunkingOptions(50, 0, 2))) {
+            entries = pipeline.read(directory).toList().blockingGet();
+        }
+
+        assertEquals(2, entries.size());
+        assertEquals("# Tea\n\nGreen tea is brewed at 80 degrees.", entries.get(0).getContent());
+        assertEquals(
+                Map.of("source", markdown.toString(), "chunk_index", "0"),
+                entries.get(0).getMetadata());
+        assertEquals("Black tea needs boiling water & time.", entries.get(1).getContent());
+        assertEquals(html.toString(), entries.get(1).getMetadata().get("source"));
+    }
+
+    @Test
+    void largeFile_isChunkedBlockByBlock_inOrder() throws Exception {
+        Path manual = directory.resolve("manual.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("Step ").append(i).append(" of the manual.\n");
+        }
+        Files.writeString(manual, text);
+
+        List<KnowledgebaseEntry> entries;
+        try (DocumentPipeline pipeline = new DocumentPipeline(new ChunkingOptions(20, 0, 4), 256)) {
+            entries = pipeline.read(List.of(manual)).toList().blockingGet();
+        }
+
+        int step = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(String.valueOf(i), entries.get(i).getMetadata().get("chunk_index"));
+            for (String line : entries.get(i).getContent().split("\n")) {
+                assertEquals("Step " + step + " of the manual.", line);
+                step++;
+            }
+        }
+        assertEquals(500, step);
+        assertTrue(entries.size() > 1);
+    }
+}
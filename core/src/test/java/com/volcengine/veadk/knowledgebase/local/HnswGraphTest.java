@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.utils.VectorUtil;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HnswGraphTest {
+
+    private static final int DIMENSION = 32;
+    private static final int VECTORS = 2000;
+    private static final int QUERIES = 50;
+    private static final int K = 10;
+
+    @TempDir Path directory;
+
+    @Test
+    void float32_recallAt10_matchesBruteForce() throws Exception {
+        assertTrue(recall(VectorEncoding.FLOAT32) >= 0.9);
+    }
+
+    @Test
+    void int8_recallAt10_matchesBruteForce() throws Exception {
+        assertTrue(recall(VectorEncoding.INT8) >= 0.85);
+    }
+
+    @Test
+    void writtenGraph_isReadBack_withTheSameResults() throws Exception {
+        try (VectorStore vectors =
+                VectorStore.open(directory.resolve("vectors.bin"), VectorEncoding.FLOAT32)) {
+            HnswGraph graph = build(vectors, new Random(1), 300);
+            graph.write(directory.resolve("graph.hnsw"));
+
+            HnswGraph read = HnswGraph.read(directory.resolve("graph.hnsw"), vectors);
+
+            float[] query = randomVector(new Random(2));
+            assertEquals(300, read.size());
+            assertEquals(graph.search(query, K, 64), read.search(query, K, 64));
+        }
+    }
+
+    @Test
+    void emptyGraph_findsNothing() throws Exception {
+        try (VectorStore vectors =
+                VectorStore.open(directory.resolve("vectors.bin"), VectorEncoding.FLOAT32)) {
+            HnswGraph graph = HnswGraph.read(directory.resolve("graph.hnsw"), vectors);
+
+            assertTrue(graph.search(randomVector(new Random(1)), K, 64).isEmpty());
+        }
+    }
+
+    private double recall(VectorEncoding encoding) throws Exception {
+        Random random = new Random(7);
+        try (VectorStore vectors = VectorStore.open(directory.resolve("vectors.bin"), encoding)) {
+            List<float[]> data = new ArrayList<>();
+            HnswGraph graph = new HnswGraph(vectors);
+            for (int i = 0; i < VECTORS; i++) {
+                float[] vector = randomVector(random);
+                data.add(vector);
+                graph.insert(vectors.add(vector));
+            }
+
+            int found = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                float[] query = randomVector(random);
+                Set<Integer> exact = new HashSet<>();
+                IntStream.range(0, VECTORS)
+                        .boxed()
+                        .sorted(
+                                Comparator.comparingDouble(
+                                        (Integer i) -> -VectorUtil.dot(query, data.get(i))))
+                        .limit(K)
+                        .forEach(exact::add);
+                for (HnswGraph.Scored scored : graph.search(query, K, 64)) {
+                    if (exact.contains(scored.node())) {
+                        found++;
+                    }
+                }
+            }
+            return found / (double) (QUERIES * K);
+        }
+    }
+
+    private static HnswGraph build(VectorStore vectors, Random random, int count) throws Exception {
+        HnswGraph graph = new HnswGraph(vectors);
+        for (int i = 0; i < count; i++) {
+            graph.insert(vectors.add(randomVector(random)));
+        }
+        return graph;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return VectorUtil.normalize(vector);
+    }
+}
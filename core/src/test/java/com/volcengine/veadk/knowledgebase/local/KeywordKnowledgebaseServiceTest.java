@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class KeywordKnowledgebaseServiceTest {
+
+    @TempDir Path directory;
+
+    @Test
+    void exactTerm_findsTheChunk_withItsMetadata() {
+        try (KeywordKnowledgebaseService service = new KeywordKnowledgebaseService(directory)) {
+            addDocuments(service);
+
+            List<KnowledgebaseEntry> entries = search(service, "what does E1042 mean");
+
+            assertEquals(1, entries.size());
+            assertEquals("Error E1042: the disk quota is exceeded", entries.get(0).getContent());
+            assertEquals(Map.of("doc_name", "errors.md"), entries.get(0).getMetadata());
+        }
+    }
+
+    @Test
+    void metadataFilter_returnsOnlyMatchingChunks_evenWhenOthersScoreHigher() {
+        try (KeywordKnowledgebaseService service = new KeywordKnowledgebaseService(directory)) {
+            addDocuments(service);
+
+            List<KnowledgebaseEntry> entries =
+                    service.searchKnowledgebase(
+                                    "error quotas exceeded",
+                                    SearchKnowledgebaseOptions.defaults()
+                                            .withTopK(1)
+                                            .withMetadataFilter(Map.of("doc_name", "quota.md")))
+                            .blockingGet()
+                            .getKnowledgebaseEntries();
+
+            assertEquals(1, entries.size());
+            assertEquals("Quotas can be raised in the console", entries.get(0).getContent());
+        }
+    }
+
+    @Test
+    void cjkQuery_prefersChunksWithTheWholeWord() {
+        try (KeywordKnowledgebaseService service = new KeywordKnowledgebaseService(directory)) {
+            service.addDocuments(
+                            List.of(
+                                    new KnowledgebaseEntry("红色的花和绿色的草", Map.of()),
+                                    new KnowledgebaseEntry("绿茶的冲泡温度是80度", Map.of()),
+                                    new KnowledgebaseEntry("红茶需要用沸水冲泡", Map.of())))
+                    .blockingAwait();
+
+            assertEquals("绿茶的冲泡温度是80度", search(service, "绿茶").get(0).getContent());
+        }
+    }
+
+    @Test
+    void queryTerms_dropCjkCharacters_coveredByAPair() {
+        assertEquals(
+                List.of("sku", "42", "茶", "绿茶", "茶叶"),
+                KeywordKnowledgebaseService.queryTerms("SKU 42 绿茶叶，茶"));
+    }
+
+    @Test
+    void flushedSegments_areMergedByTier_andStillSearchable() {
+        try (KeywordKnowledgebaseService service =
+                new KeywordKnowledgebaseService(directory, 5, 2, 2)) {
+            for (int i = 0; i < 8; i++) {
+                service.addDocument("product SKU-" + i + " in stock", Map.of()).blockingAwait();
+            }
+
+            // Two segments of 2 merge into one of 4, and two of 4 into one of 8
+            assertEquals(1, service.segmentCount());
+            assertEquals(8, service.size());
+            for (int i = 0; i < 8; i++) {
+                assertEquals(
+                        "product SKU-" + i + " in stock",
+                        search(service, "sku " + i).get(0).getContent());
+            }
+        }
+    }
+
+    @Test
+    void merge_leavesASingleSegment() {
+        try (KeywordKnowledgebaseService service =
+                new KeywordKnowledgebaseService(directory, 5, 2, 10)) {
+            for (int i = 0; i < 7; i++) {
+                service.addDocument("order " + i + " shipped", Map.of()).blockingAwait();
+            }
+            assertEquals(3, service.segmentCount());
+
+            service.merge();
+
+            assertEquals(1, service.segmentCount());
+            assertEquals("order 6 shipped", search(service, "order 6").get(0).getContent());
+        }
+    }
+
+    @Test
+    void chunks_surviveReopening() {
+        try (KeywordKnowledgebaseService service = new KeywordKnowledgebaseService(directory)) {
+            addDocuments(service);
+        }
+
+        try (KeywordKnowledgebaseService service = new KeywordKnowledgebaseService(directory)) {
+            assertEquals(3, service.size());
+            assertEquals(1, service.segmentCount());
+            assertEquals(
+                    "Error E2001: the token has expired",
+                    search(service, "E2001").get(0).getContent());
+        }
+    }
+
+    @Test
+    void lostSegments_areRebuiltFromTheChunks() throws Exception {
+        try (KeywordKnowledgebaseService service = new KeywordKnowledgebaseService(directory)) {
+            addDocuments(service);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".idx")).toList()) {
+                // A segment covering chunks that do not exist is dropped as well
+                Files.move(file, directory.resolve("segment-0-5.idx"));
+            }
+        }
+
+        try (KeywordKnowledgebaseService service = new KeywordKnowledgebaseService(directory)) {
+            assertEquals(3, service.size());
+            assertEquals(0, service.segmentCount());
+            assertTrue(Files.notExists(directory.resolve("segment-0-5.idx")));
+            assertEquals(
+                    "Error E1042: the disk quota is exceeded",
+                    search(service, "E1042").get(0).getContent());
+        }
+    }
+
+    private static void addDocuments(KeywordKnowledgebaseService service) {
+        service.addDocuments(
+                        List.of(
+                                new KnowledgebaseEntry(
+                                        "Error E1042: the disk quota is exceeded",
+                                        Map.of("doc_name", "errors.md")),
+                                new KnowledgebaseEntry(
+                                        "Error E2001: the token has expired",
+                                        Map.of("doc_name", "errors.md")),
+                                new KnowledgebaseEntry(
+                                        "Quotas can be raised in the console",
+                                        Map.of("doc_name", "quota.md"))))
+                .blockingAwait();
+    }
+
+    private static List<KnowledgebaseEntry> search(
+            KeywordKnowledgebaseService service, String query) {
+        return service.searchKnowledgebase(query).blockingGet().getKnowledgebaseEntries();
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import com.volcengine.veadk.model.BaseEmbedding;
+import io.reactivex.rxjava3.core.Single;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalKnowledgebaseServiceTest {
+
+    @TempDir Path directory;
+
+    private final BaseEmbedding embedding = new WordEmbedding();
+
+    @Test
+    void addedDocuments_areFoundWithTheirMetadata() {
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding, VectorEncoding.FLOAT32, 1)) {
+            addDocuments(service);
+
+            List<KnowledgebaseEntry> entries = search(service, "how to brew green tea");
+
+            assertEquals(3, service.size());
+            assertEquals(1, entries.size());
+            assertEquals("green tea is brewed at 80 degrees", entries.get(0).getContent());
+            assertEquals(Map.of("doc_name", "tea.md"), entries.get(0).getMetadata());
+        }
+    }
+
+    @Test
+    void documents_surviveReopening() {
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding)) {
+            addDocuments(service);
+        }
+
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding, VectorEncoding.FLOAT32, 1)) {
+            assertEquals(3, service.size());
+            assertEquals(
+                    "the train leaves at nine",
+                    search(service, "when does the train leave").get(0).getContent());
+        }
+    }
+
+    @Test
+    void lostGraph_isRebuiltFromTheVectors() throws Exception {
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding)) {
+            addDocuments(service);
+        }
+        Files.delete(directory.resolve("graph.hnsw"));
+
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding, VectorEncoding.FLOAT32, 1)) {
+            assertEquals(3, service.size());
+            assertEquals(
+                    "green tea is brewed at 80 degrees",
+                    search(service, "green tea").get(0).getContent());
+        }
+    }
+
+    @Test
+    void tornChunkWithoutVector_isDropped() throws Exception {
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding)) {
+            addDocuments(service);
+        }
+        Files.write(
+                directory.resolve("chunks.jsonl"),
+                "{\"content\":\"half writ".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding)) {
+            service.addDocument("the museum opens at ten", Map.of()).blockingAwait();
+
+            assertEquals(4, service.size());
+            assertEquals(
+                    "the museum opens at ten", search(service, "museum opens").get(0).getContent());
+        }
+    }
+
+    @Test
+    void metadataFilter_returnsOnlyMatchingChunks_evenWhenOthersAreCloser() {
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding)) {
+            addDocuments(service);
+
+            List<KnowledgebaseEntry> entries =
+                    service.searchKnowledgebase(
+                                    "green tea at the hotel",
+                                    SearchKnowledgebaseOptions.defaults()
+                                            .withTopK(1)
+                                            .withMetadataFilter(Map.of("doc_name", "trip.md")))
+                            .blockingGet()
+                            .getKnowledgebaseEntries();
+
+            assertEquals(1, entries.size());
+            assertEquals("the hotel has a pool", entries.get(0).getContent());
+        }
+    }
+
+    @Test
+    void productQuantizedIndex_findsTheChunks_beforeAndAfterTraining() {
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(
+                        directory,
+                        embedding,
+                        VectorEncoding.FLOAT32,
+                        1,
+                        VectorIndex.PRODUCT_QUANTIZED)) {
+            addDocuments(service);
+            assertEquals(
+                    "the train leaves at nine",
+                    search(service, "when does the train leave").get(0).getContent());
+
+            service.flush();
+
+            assertEquals(
+                    "the train leaves at nine",
+                    search(service, "when does the train leave").get(0).getContent());
+        }
+
+        assertTrue(Files.notExists(directory.resolve("graph.hnsw")));
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(
+                        directory,
+                        embedding,
+                        VectorEncoding.FLOAT32,
+                        1,
+                        VectorIndex.PRODUCT_QUANTIZED)) {
+            service.addDocument("the museum opens at ten", Map.of()).blockingAwait();
+
+            assertEquals(4, service.size());
+            assertEquals(
+                    "green tea is brewed at 80 degrees",
+                    search(service, "green tea").get(0).getContent());
+            assertEquals(
+                    "the museum opens at ten", search(service, "museum opens").get(0).getContent());
+        }
+    }
+
+    @Test
+    void otherEncoding_ofAnExistingKnowledgebase_isRejected() {
+        try (LocalKnowledgebaseService service =
+                new LocalKnowledgebaseService(directory, embedding)) {
+            addDocuments(service);
+        }
+
+        assertThrows(
+                UncheckedIOException.class,
+                () -> new LocalKnowledgebaseService(directory, embedding, VectorEncoding.INT8, 5));
+    }
+
+    private static void addDocuments(LocalKnowledgebaseService service) {
+        service.addDocuments(
+                        List.of(
+                                new KnowledgebaseEntry(
+                                        "green tea is brewed at 80 degrees",
+                                        Map.of("doc_name", "tea.md")),
+                                new KnowledgebaseEntry(
+                                        "the train leaves at nine", Map.of("doc_name", "trip.md")),
+                                new KnowledgebaseEntry(
+                                        "the hotel has a pool", Map.of("doc_name", "trip.md"))))
+                .blockingAwait();
+    }
+
+    private static List<KnowledgebaseEntry> search(
+            LocalKnowledgebaseService service, String query) {
+        return service.searchKnowledgebase(query).blockingGet().getKnowledgebaseEntries();
+    }
+
+    /** Embeds a text as the hashed counts of its words. */
+    private static class WordEmbedding implements BaseEmbedding {
+
+        @Override
+        public Single<float[]> embed(String text) {
+            float[] vector = new float[64];
+            for (String word : text.toLowerCase(Locale.ROOT).split("\\W+")) {
+                if (word.length() > 2) {
+                    vector[Math.floorMod(word.hashCode(), vector.length)] += 1;
+                }
+            }
+            return Single.just(vector);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.utils.VectorUtil;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PqIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int VECTORS = 2000;
+    private static final int QUERIES = 50;
+    private static final int K = 10;
+
+    @TempDir Path directory;
+
+    @Test
+    void rescoredRecallAt10_matchesFloat32BruteForce() throws Exception {
+        assertTrue(recall(VectorEncoding.FLOAT32, 10) >= 0.9);
+    }
+
+    @Test
+    void int8Store_rescoredRecallAt10_matchesFloat32BruteForce() throws Exception {
+        assertTrue(recall(VectorEncoding.INT8, 10) >= 0.85);
+    }
+
+    @Test
+    void sync_encodesOnlyTheNewVectors() throws Exception {
+        Random random = new Random(3);
+        try (VectorStore vectors =
+                VectorStore.open(directory.resolve("vectors.bin"), VectorEncoding.FLOAT32)) {
+            List<float[]> data = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                data.add(randomVector(random));
+                vectors.add(data.get(i));
+            }
+            PqIndex index = new PqIndex(vectors, ProductQuantizer.train(data, 8, 5, 1));
+            index.sync();
+            float[] added = randomVector(random);
+            int id = vectors.add(added);
+
+            assertEquals(300, index.size());
+            index.sync();
+            assertEquals(301, index.size());
+            HnswGraph.Scored top = index.search(added, 1, 10).get(0);
+            assertEquals(id, top.node());
+            assertEquals(1f, top.similarity(), 1e-5);
+        }
+    }
+
+    @Test
+    void quantizer_rejectsMoreSubspacesThanDimensions() {
+        List<float[]> sample = List.of(new float[] {1f, 0f});
+
+        assertThrows(IllegalArgumentException.class, () -> ProductQuantizer.train(sample, 3, 1, 1));
+    }
+
+    private double recall(VectorEncoding encoding, int rescore) throws Exception {
+        Random random = new Random(7);
+        try (VectorStore vectors = VectorStore.open(directory.resolve("vectors.bin"), encoding)) {
+            List<float[]> data = new ArrayList<>();
+            for (int i = 0; i < VECTORS; i++) {
+                float[] vector = randomVector(random);
+                data.add(vector);
+                vectors.add(vector);
+            }
+            PqIndex index = new PqIndex(vectors, ProductQuantizer.train(data, 8, 10, 1));
+            index.sync();
+
+            int found = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                float[] query = randomVector(random);
+                Set<Integer> exact = new HashSet<>();
+                IntStream.range(0, VECTORS)
+                        .boxed()
+                        .sorted(
+                                Comparator.comparingDouble(
+                                        (Integer i) -> -VectorUtil.dot(query, data.get(i))))
+                        .limit(K)
+                        .forEach(exact::add);
+                for (HnswGraph.Scored scored : index.search(query, K, rescore)) {
+                    if (exact.contains(scored.node())) {
+                        found++;
+                    }
+                }
+            }
+            return found / (double) (QUERIES * K);
+        }
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return VectorUtil.normalize(vector);
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.retrieval.ResultPacker;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TextChunkerTest {
+
+    @Test
+    void chunks_stayWithinTheBudget_andEndAtSentences() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("Sentence number ").append(i).append(" is here. ");
+        }
+
+        List<String> chunks = new TextChunker(20, 0).chunk(text.toString());
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(ResultPacker.estimateTokens(chunk) <= 20, chunk);
+            assertTrue(chunk.endsWith("here."), chunk);
+        }
+    }
+
+    @Test
+    void overlap_repeatsTheLastSentences() {
+        List<String> chunks = new TextChunker(6, 3).chunk("a b c. d e f. g h i. j k l.");
+
+        assertEquals(List.of("a b c. d e f.", "d e f. g h i.", "g h i. j k l."), chunks);
+    }
+
+    @Test
+    void cjkText_isSplitBetweenCharacters_keepingPunctuationWithItsCharacter() {
+        List<String> chunks = new TextChunker(5, 0).chunk("我喜欢喝绿茶，也喜欢红茶。");
+
+        assertEquals(List.of("我喜欢喝绿", "茶，也喜欢", "红茶。"), chunks);
+    }
+
+    @Test
+    void wordLongerThanAChunk_isSplit() {
+        String word = "x".repeat(100);
+
+        List<String> chunks = new TextChunker(5, 0).chunk(word);
+
+        assertEquals(word, String.join("", chunks));
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.length() <= 20));
+    }
+
+    @Test
+    void overlapNotBelowTheChunkSize_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(10, 10));
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.viking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class RerankPolicyTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final RerankPolicy policy =
+            new RerankPolicy(Duration.ofMillis(1000), Duration.ofMinutes(5), clock);
+
+    @Test
+    void fewSamples_andNoDeadline_keepTheRequestedSettings() {
+        record(true, 5000, 5);
+
+        SearchKnowledgebaseOptions requested = SearchKnowledgebaseOptions.defaults();
+        assertEquals(requested, policy.apply(requested));
+        assertEquals(-1, policy.stats().rerankP95Millis());
+    }
+
+    @Test
+    void slowRerank_isSkipped_untilItsLatenciesAgeOut() {
+        record(true, 2000, 20);
+
+        SearchKnowledgebaseOptions applied = policy.apply(SearchKnowledgebaseOptions.defaults());
+        assertFalse(applied.rerank());
+        assertEquals(3, applied.chunkDiffusionCount());
+        assertEquals(1, policy.stats().rerankSkips());
+
+        clock.advance(Duration.ofMinutes(6));
+        assertTrue(policy.apply(SearchKnowledgebaseOptions.defaults()).rerank());
+    }
+
+    @Test
+    void tightDeadline_skipsRerank_andThenDiffusion() {
+        record(true, 400, 20);
+        record(false, 100, 20);
+
+        SearchKnowledgebaseOptions requested =
+                SearchKnowledgebaseOptions.defaults().withDeadline(clock.instant().plusMillis(200));
+        SearchKnowledgebaseOptions applied = policy.apply(requested);
+        assertFalse(applied.rerank());
+        assertEquals(3, applied.chunkDiffusionCount());
+
+        applied = policy.apply(requested.withDeadline(clock.instant().plusMillis(50)));
+        assertFalse(applied.rerank());
+        assertEquals(0, applied.chunkDiffusionCount());
+        assertEquals(new RerankPolicy.Stats(2, 1, 400, 100), policy.stats());
+    }
+
+    @Test
+    void roomyDeadline_keepsRerank() {
+        record(true, 400, 20);
+
+        SearchKnowledgebaseOptions requested =
+                SearchKnowledgebaseOptions.defaults().withDeadline(clock.instant().plusSeconds(2));
+        assertEquals(requested, policy.apply(requested));
+    }
+
+    private void record(boolean reranked, long latencyMillis, int times) {
+        for (int i = 0; i < times; i++) {
+            policy.record(reranked, latencyMillis);
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.knowledgebase.viking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+
+import com.volcengine.error.SdkError;
+import com.volcengine.model.response.RawResponse;
+import com.volcengine.veadk.integration.vikingknowledgebase.VikingKnowledgebaseWrapper;
+import com.volcengine.veadk.utils.JSONUtil;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class VikingBulkIngesterTest {
+
+    @TempDir Path directory;
+
+    private final VikingStandIn standIn = new VikingStandIn();
+    private VikingKnowledgebaseWrapper wrapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        wrapper = Mockito.spy(new VikingKnowledgebaseWrapper("ak", "sk"));
+        Mockito.doAnswer(invocation -> standIn.addDoc(invocation.getArgument(2)))
+                .when(wrapper)
+                .json(eq("AddDoc"), isNull(), anyString());
+    }
+
+    @Test
+    void everyDocument_isAddedOnce_byConcurrentWorkers() throws Exception {
+        List<String> tosUrls = tosUrls(40);
+        standIn.latency = Duration.ofMillis(20);
+
+        VikingBulkIngester.Report report =
+                ingester(options(4, 1000, 3)).ingest(tosUrls, directory.resolve("checkpoint"));
+
+        assertEquals(40, report.stats().added());
+        assertEquals(0, report.stats().remaining());
+        assertEquals(40, standIn.added.size());
+        assertTrue(standIn.maxInFlight.get() > 1);
+        assertTrue(standIn.maxInFlight.get() <= 4);
+        assertEquals(40, Files.readAllLines(directory.resolve("checkpoint")).size());
+    }
+
+    @Test
+    void rejectedDocuments_areRetried_andPermanentFailuresReported() throws Exception {
+        standIn.failuresBeforeSuccess.put("tos://bucket/doc-1", 2);
+        standIn.failuresBeforeSuccess.put("tos://bucket/doc-3", Integer.MAX_VALUE);
+
+        VikingBulkIngester.Report report =
+                ingester(options(2, 1000, 3)).ingest(tosUrls(5), directory.resolve("checkpoint"));
+
+        assertEquals(4, report.stats().added());
+        assertEquals(1, report.stats().failed());
+        assertEquals(List.of("tos://bucket/doc-3"), report.failedUrls());
+        // Two retries for doc-1, two for doc-3
+        assertEquals(4, report.stats().retries());
+        assertFalse(
+                Files.readAllLines(directory.resolve("checkpoint")).contains("tos://bucket/doc-3"));
+    }
+
+    @Test
+    void interruptedRun_resumesFromTheCheckpoint() throws Exception {
+        Path checkpoint = directory.resolve("checkpoint");
+        // The last line was cut short by a crash
+        Files.writeString(
+                checkpoint,
+                "tos://bucket/doc-0\ntos://bucket/doc-1\ntos://bucket/do",
+                StandardCharsets.UTF_8);
+
+        VikingBulkIngester.Report report =
+                ingester(options(2, 1000, 3)).ingest(tosUrls(4), checkpoint);
+
+        assertEquals(2, report.stats().skipped());
+        assertEquals(2, report.stats().added());
+        assertEquals(List.of("tos://bucket/doc-2", "tos://bucket/doc-3"), sorted(standIn.added));
+        assertEquals(
+                List.of(
+                        "tos://bucket/doc-0",
+                        "tos://bucket/doc-1",
+                        "tos://bucket/doc-2",
+                        "tos://bucket/doc-3"),
+                sorted(Files.readAllLines(checkpoint)));
+    }
+
+    @Test
+    void requests_stayWithinTheRateLimit() throws Exception {
+        long start = System.nanoTime();
+
+        ingester(options(8, 50, 1)).ingest(tosUrls(11), directory.resolve("checkpoint"));
+
+        // The first request goes out at once, the next ten every 20ms
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(180).toNanos());
+        assertEquals(11, standIn.added.size());
+    }
+
+    private VikingBulkIngester ingester(BulkIngestOptions options) {
+        return new VikingBulkIngester(wrapper, "kb", options);
+    }
+
+    private static BulkIngestOptions options(
+            int workers, double requestsPerSecond, int maxAttempts) {
+        return new BulkIngestOptions(
+                workers,
+                requestsPerSecond,
+                maxAttempts,
+                Duration.ofMillis(1),
+                Duration.ofMillis(5));
+    }
+
+    private static List<String> tosUrls(int count) {
+        List<String> tosUrls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tosUrls.add("tos://bucket/doc-" + i);
+        }
+        return tosUrls;
+    }
+
+    private static List<String> sorted(Iterable<String> values) {
+        List<String> sorted = new ArrayList<>();
+        values.forEach(sorted::add);
+        sorted.sort(null);
+        return sorted;
+    }
+
+    /**
+     * Stand-in for the Viking AddDoc API. Documents can be made to fail a number of times, like
+     * requests over the quota, and requests can be slowed down to observe concurrency.
+     */
+    private static class VikingStandIn {
+
+        private final Map<String, Integer> failuresBeforeSuccess = new ConcurrentHashMap<>();
+        private final Queue<String> added = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile Duration latency = Duration.ZERO;
+
+        RawResponse addDoc(String body) throws Exception {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latency.toMillis());
+                String tosUrl = JSONUtil.parseJson(body).path("tos_path").asText();
+                if (failuresBeforeSuccess.merge(tosUrl, -1, Integer::sum) >= 0) {
+                    return new RawResponse(
+                            null, SdkError.EHTTP.getNumber(), new Exception("quota exceeded"));
+                }
+                added.add(tosUrl);
+                byte[] data =
+                        JSONUtil.toJson(Map.of("data", Map.of("doc_id", "doc-" + added.size())))
+                                .getBytes(StandardCharsets.UTF_8);
+                return new RawResponse(data, SdkError.SUCCESS.getNumber(), null);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -1,24 +1,31 @@
 package com.volcengine.veadk.knowledgebase.viking;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
 import com.volcengine.veadk.integration.vikingknowledgebase.VikingKnowledgebaseWrapper;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
 import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
 import com.volcengine.veadk.utils.EnvUtil;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
 class VikingKnowledgebaseServiceTest {
 
+    @TempDir Path directory;
+
     @Test
     void constructor_invalidAppName_shouldThrow_and_notConstructWrapper() {
         try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
@@ -78,6 +85,25 @@ class VikingKnowledgebaseServiceTest {
         }
     }
 
+    @Test
+    void constructor_bootstrapSkip_shouldNotCheckCollection() {
+        String appName = "SkippedApp";
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingKnowledgebaseWrapper> mockedCtor =
+                        Mockito.mockConstruction(VikingKnowledgebaseWrapper.class)) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+            mockedEnv.when(EnvUtil::getVikingCollectionBootstrap).thenReturn("skip");
+
+            VikingKnowledgebaseService service = new VikingKnowledgebaseService(appName);
+            VikingKnowledgebaseWrapper wrapperMock = mockedCtor.constructed().get(0);
+
+            assertTrue(service.ready().isDone());
+            verify(wrapperMock, never()).isCollectionExists(appName);
+            verify(wrapperMock, never()).createCollection(appName);
+        }
+    }
+
     @Test
     void searchKnowledgebase_returnsResponseWithEntries_and_callsWrapperWithExpectedArgs() {
         String appName = "KbApp";
@@ -108,4 +134,138 @@ class VikingKnowledgebaseServiceTest {
             verify(wrapperMock).searchKnowledge(appName, "q", 5, null, true, 3);
         }
     }
+
+    @Test
+    void searchKnowledgebase_withOptions_passesThemToTheWrapper() {
+        String appName = "KbApp";
+        Map<String, String> filter = Map.of("lang", "en");
+
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingKnowledgebaseWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingKnowledgebaseWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.when(
+                                                    mock.searchKnowledge(
+                                                            appName, "q", 10, filter, false, 0))
+                                            .thenReturn(Collections.emptyList());
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+
+            VikingKnowledgebaseService service = new VikingKnowledgebaseService(appName);
+            SearchKnowledgebaseOptions options =
+                    SearchKnowledgebaseOptions.defaults()
+                            .withTopK(10)
+                            .withRerank(false)
+                            .withChunkDiffusionCount(0)
+                            .withMetadataFilter(filter);
+            SearchKnowledgebaseResponse response =
+                    service.searchKnowledgebase("q", options).blockingGet();
+
+            assertTrue(response.getKnowledgebaseEntries().isEmpty());
+            VikingKnowledgebaseWrapper wrapperMock = mockedCtor.constructed().get(0);
+            verify(wrapperMock).searchKnowledge(appName, "q", 10, filter, false, 0);
+            assertTrue(service.rerankPolicyStats().isEmpty());
+        }
+    }
+
+    @Test
+    void addDocs_reportsTheProgressOfTheLastRun() {
+        String appName = "KbApp";
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingKnowledgebaseWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingKnowledgebaseWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.when(
+                                                    mock.addDoc(
+                                                            Mockito.eq(appName),
+                                                            Mockito.anyString()))
+                                            .thenReturn(true);
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+
+            VikingKnowledgebaseService service = new VikingKnowledgebaseService(appName);
+            assertFalse(service.ingestStats().isPresent());
+            service.addDocs(
+                            List.of("tos://bucket/a.pdf", "tos://bucket/b.pdf"),
+                            directory.resolve("checkpoint"))
+                    .blockingGet();
+
+            assertEquals(2, service.ingestStats().get().added());
+            assertEquals(0, service.ingestStats().get().remaining());
+        }
+    }
+
+    @Test
+    void streamKnowledgebase_runsOneSearch_inRerankedOrder() {
+        String appName = "KbApp";
+        KnowledgebaseEntry b = new KnowledgebaseEntry("b", Map.of());
+        KnowledgebaseEntry c = new KnowledgebaseEntry("c", Map.of());
+
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingKnowledgebaseWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingKnowledgebaseWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.when(
+                                                    mock.searchKnowledge(
+                                                            appName, "q", 5, null, true, 3))
+                                            .thenReturn(List.of(c, b));
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+
+            VikingKnowledgebaseService service = new VikingKnowledgebaseService(appName);
+            List<KnowledgebaseEntry> entries =
+                    service.streamKnowledgebase("q", SearchKnowledgebaseOptions.defaults())
+                            .toList()
+                            .blockingGet();
+
+            assertEquals(List.of(c, b), entries);
+            Mockito.verify(mockedCtor.constructed().get(0), Mockito.never())
+                    .searchKnowledge(appName, "q", 5, null, false, 0);
+        }
+    }
+
+    @Test
+    void streamKnowledgebase_withEarlyPlainResults_emitsPlainEntriesFirst_thenTheOnesRerankAdds() {
+        String appName = "KbApp";
+        KnowledgebaseEntry a = new KnowledgebaseEntry("a", Map.of());
+        KnowledgebaseEntry b = new KnowledgebaseEntry("b", Map.of());
+        KnowledgebaseEntry c = new KnowledgebaseEntry("c", Map.of());
+
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingKnowledgebaseWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingKnowledgebaseWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.when(
+                                                    mock.searchKnowledge(
+                                                            appName, "q", 5, null, false, 0))
+                                            .thenReturn(List.of(a, b));
+                                    Mockito.when(
+                                                    mock.searchKnowledge(
+                                                            appName, "q", 5, null, true, 3))
+                                            .thenReturn(List.of(c, b));
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+
+            VikingKnowledgebaseService service =
+                    new VikingKnowledgebaseService(appName, null, true);
+            List<KnowledgebaseEntry> entries =
+                    service.streamKnowledgebase("q", SearchKnowledgebaseOptions.defaults())
+                            .toList()
+                            .blockingGet();
+
+            assertEquals(List.of(a, b, c), entries);
+        }
+    }
 }
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.adk.events.Event;
+import com.google.adk.sessions.Session;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class SessionWatermarksTest {
+
+    private final SessionWatermarks watermarks = new SessionWatermarks(100);
+    private final List<Event> events = new ArrayList<>();
+
+    @Test
+    void claims_onlyHandOutNewEvents() {
+        Session session = session(3);
+        assertEquals(List.of("e1", "e2", "e3"), ids(watermarks.claim(session)));
+
+        addEvents(2);
+        assertEquals(List.of("e4", "e5"), ids(watermarks.claim(session)));
+        assertEquals(List.of(), ids(watermarks.claim(session)));
+    }
+
+    @Test
+    void failedClaim_isHandedOutAgain_afterALaterClaimSucceeded() {
+        Session session = session(3);
+        SessionWatermarks.Claim first = watermarks.claim(session);
+        addEvents(2);
+        SessionWatermarks.Claim second = watermarks.claim(session);
+
+        watermarks.rollback(first);
+        addEvents(1);
+
+        assertEquals(List.of("e4", "e5"), ids(second));
+        assertEquals(List.of("e1", "e2", "e3", "e6"), ids(watermarks.claim(session)));
+        assertEquals(List.of(), ids(watermarks.claim(session)));
+    }
+
+    @Test
+    void failedClaims_areHandedOutOldestFirst() {
+        Session session = session(2);
+        SessionWatermarks.Claim first = watermarks.claim(session);
+        addEvents(2);
+        SessionWatermarks.Claim second = watermarks.claim(session);
+
+        watermarks.rollback(second);
+        watermarks.rollback(first);
+
+        assertEquals(List.of("e1", "e2", "e3", "e4"), ids(watermarks.claim(session)));
+    }
+
+    private Session session(int eventCount) {
+        addEvents(eventCount);
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.appName()).thenReturn("app");
+        Mockito.when(session.userId()).thenReturn("user");
+        Mockito.when(session.id()).thenReturn("session");
+        Mockito.when(session.events()).thenAnswer(invocation -> List.copyOf(events));
+        return session;
+    }
+
+    private void addEvents(int count) {
+        for (int i = 0; i < count; i++) {
+            int number = events.size() + 1;
+            Event event = Mockito.mock(Event.class);
+            Mockito.when(event.id()).thenReturn("e" + number);
+            Mockito.when(event.timestamp()).thenReturn((long) number);
+            events.add(event);
+        }
+    }
+
+    private static List<String> ids(SessionWatermarks.Claim claim) {
+        return claim.events().stream().map(Event::id).toList();
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.adk.events.Event;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.model.BaseEmbedding;
+import io.reactivex.rxjava3.core.Single;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class LocalMemoryServiceTest {
+
+    @TempDir Path directory;
+
+    @Test
+    void addedUserMessages_areFoundByKeyword() {
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            service.addSessionToMemory(
+                            session(
+                                    mockEvent("e1", 1L, "user", "I am 180cm tall"),
+                                    mockEvent("e2", 2L, "model", "Noted, 180cm tall"),
+                                    mockEvent("e3", 3L, "user", "My favourite food is noodles")))
+                    .blockingAwait();
+
+            List<MemoryEntry> memories =
+                    service.searchMemory("app", "user", "how tall am I").blockingGet().memories();
+
+            assertEquals(2, service.size("app", "user"));
+            assertEquals(1, memories.size());
+            assertEquals("I am 180cm tall", text(memories.get(0)));
+            assertEquals("user", memories.get(0).author());
+            assertEquals(0, search(service, "other_user", "tall").size());
+        }
+    }
+
+    @Test
+    void sessionAddedAgain_onlyStoresNewEvents() {
+        Event first = mockEvent("e1", 1L, "user", "I live in Beijing");
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            service.addSessionToMemory(session(first)).blockingAwait();
+            service.addSessionToMemory(
+                            session(first, mockEvent("e2", 2L, "user", "I work in Shanghai")))
+                    .blockingAwait();
+
+            assertEquals(2, service.size("app", "user"));
+        }
+    }
+
+    @Test
+    void memories_surviveReopening() {
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            service.addSessionToMemory(session(mockEvent("e1", 1L, "user", "我喜欢喝绿茶")))
+                    .blockingAwait();
+        }
+
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            assertEquals(List.of("我喜欢喝绿茶"), search(service, "user", "绿茶"));
+            // Stored events are still known after reopening
+            service.addSessionToMemory(session(mockEvent("e1", 1L, "user", "我喜欢喝绿茶")))
+                    .blockingAwait();
+            assertEquals(1, service.size("app", "user"));
+        }
+    }
+
+    @Test
+    void withEmbedding_findsMemoriesWithoutSharedKeywords() {
+        try (LocalMemoryService service = new LocalMemoryService(directory, new TopicEmbedding())) {
+            service.addSessionToMemory(
+                            session(
+                                    mockEvent("e1", 1L, "user", "I have a cat named Tom"),
+                                    mockEvent("e2", 2L, "user", "I drive a red car")))
+                    .blockingAwait();
+
+            List<String> memories = search(service, "user", "pets");
+
+            assertEquals("I have a cat named Tom", memories.get(0));
+        }
+    }
+
+    @Test
+    void compact_keepsTheNewestCopyOfEachMemory_andRemembersDroppedEvents() {
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            service.addSessionToMemory(
+                            session(
+                                    mockEvent("e1", 1L, "user", "I am vegetarian"),
+                                    mockEvent("e2", 2L, "user", "I am  Vegetarian"),
+                                    mockEvent("e3", 3L, "user", "I like jazz")))
+                    .blockingAwait();
+
+            service.compact("app", "user").blockingAwait();
+            service.addSessionToMemory(session(mockEvent("e1", 1L, "user", "I am vegetarian")))
+                    .blockingAwait();
+
+            assertEquals(2, service.size("app", "user"));
+            List<MemoryEntry> memories =
+                    service.searchMemory("app", "user", "vegetarian").blockingGet().memories();
+            assertEquals(1, memories.size());
+            assertEquals("I am  Vegetarian", text(memories.get(0)));
+        }
+
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            assertEquals(2, service.size("app", "user"));
+        }
+    }
+
+    @Test
+    void tornRecord_isDroppedOnOpen_andOverwrittenByTheNextAppend() throws IOException {
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            service.addSessionToMemory(session(mockEvent("e1", 1L, "user", "I play tennis")))
+                    .blockingAwait();
+            service.addSessionToMemory(session(mockEvent("e2", 2L, "user", "I play chess")))
+                    .blockingAwait();
+        }
+        corruptLastRecord(segmentFile());
+
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            assertEquals(List.of("I play tennis"), search(service, "user", "play"));
+
+            service.addSessionToMemory(session(mockEvent("e3", 3L, "user", "I play golf")))
+                    .blockingAwait();
+        }
+
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            assertEquals(2, service.size("app", "user"));
+            assertTrue(search(service, "user", "golf").contains("I play golf"));
+        }
+    }
+
+    private Path segmentFile() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    void searchingAUserWithoutMemories_createsNoSegment() throws IOException {
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            assertEquals(List.of(), search(service, "stranger", "tall"));
+            assertEquals(0, service.size("app", "stranger"));
+            assertEquals(0, service.openUsers());
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedUser_isClosed_andReopenedWhenUsedAgain() {
+        try (LocalMemoryService service = new LocalMemoryService(directory, null, 5, 1)) {
+            service.addSessionToMemory(
+                            session("alice", mockEvent("e1", 1L, "user", "I am 180cm tall")))
+                    .blockingAwait();
+            service.addSessionToMemory(
+                            session("bob", mockEvent("e2", 2L, "user", "I am 170cm tall")))
+                    .blockingAwait();
+
+            assertEquals(1, service.openUsers());
+            assertEquals(List.of("I am 180cm tall"), search(service, "alice", "tall"));
+            assertEquals(List.of("I am 170cm tall"), search(service, "bob", "tall"));
+            assertEquals(1, service.openUsers());
+        }
+    }
+
+    @Test
+    void appNamesContainingTheSeparator_doNotShareUsers() {
+        try (LocalMemoryService service = new LocalMemoryService(directory)) {
+            service.addSessionToMemory(
+                            session("team/a", "b", mockEvent("e1", 1L, "user", "I am 180cm tall")))
+                    .blockingAwait();
+            service.addSessionToMemory(
+                            session("team", "a/b", mockEvent("e2", 2L, "user", "I am 170cm tall")))
+                    .blockingAwait();
+
+            assertEquals(1, service.size("team/a", "b"));
+            assertEquals(1, service.size("team", "a/b"));
+            assertEquals(2, service.openUsers());
+        }
+    }
+
+    // Flip a payload byte of the last record, as if the process died while writing it
+    private static void corruptLastRecord(Path segment) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int position = 0;
+        int last = 0;
+        while (bytes.getInt(position) > 0) {
+            last = position;
+            position += 2 * Integer.BYTES + bytes.getInt(position);
+        }
+        int payload = last + 2 * Integer.BYTES;
+        bytes.put(payload, (byte) (bytes.get(payload) ^ 0xff));
+        Files.write(segment, bytes.array());
+    }
+
+    private static List<String> search(LocalMemoryService service, String userId, String query) {
+        return service.searchMemory("app", userId, query).blockingGet().memories().stream()
+                .map(LocalMemoryServiceTest::text)
+                .toList();
+    }
+
+    private static String text(MemoryEntry entry) {
+        return entry.content().parts().get().get(0).text().get();
+    }
+
+    private static Session session(Event... events) {
+        return session("user", events);
+    }
+
+    private static Session session(String userId, Event... events) {
+        return session("app", userId, events);
+    }
+
+    private static Session session(String appName, String userId, Event... events) {
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.appName()).thenReturn(appName);
+        Mockito.when(session.userId()).thenReturn(userId);
+        Mockito.when(session.events()).thenReturn(List.of(events));
+        return session;
+    }
+
+    private static Event mockEvent(String id, long timestamp, String author, String text) {
+        Event event = Mockito.mock(Event.class);
+        Mockito.lenient().when(event.id()).thenReturn(id);
+        Mockito.lenient().when(event.timestamp()).thenReturn(timestamp);
+        Mockito.lenient().when(event.author()).thenReturn(author);
+        Mockito.lenient()
+                .when(event.content())
+                .thenReturn(
+                        Optional.of(
+                                Content.builder().role(author).parts(Part.fromText(text)).build()));
+        return event;
+    }
+
+    /** Embeds texts on two axes: pets and vehicles. */
+    private static class TopicEmbedding implements BaseEmbedding {
+
+        @Override
+        public Single<float[]> embed(String text) {
+            String lower = text.toLowerCase();
+            float pets = lower.contains("cat") || lower.contains("pet") ? 1 : 0;
+            float vehicles = lower.contains("car") ? 1 : 0;
+            return Single.just(new float[] {pets, vehicles, 0.1f});
+        }
+    }
+}
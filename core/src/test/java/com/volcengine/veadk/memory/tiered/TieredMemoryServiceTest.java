@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.tiered;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.adk.events.Event;
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class TieredMemoryServiceTest {
+
+    private final ColdMemoryService cold = new ColdMemoryService();
+
+    @Test
+    void addedMessages_areAnsweredFromTheHotTier_andStillWrittenToTheColdTier() {
+        TieredMemoryService service = new TieredMemoryService(cold, 200, 20_000, 0.6, 1);
+
+        service.addSessionToMemory(session("user", mockEvent("e1", "user", "I am 180cm tall")))
+                .blockingAwait();
+        List<MemoryEntry> memories =
+                service.searchMemory("app", "user", "180cm tall").blockingGet().memories();
+
+        assertEquals(List.of("I am 180cm tall"), texts(memories));
+        assertEquals(1, cold.sessions);
+        assertEquals(List.of(), cold.queries);
+        assertEquals(1.0, service.stats().hotHitRate());
+    }
+
+    @Test
+    void weakHotMatch_fallsThroughToTheColdTier_andItsResultsBecomeHot() {
+        TieredMemoryService service = new TieredMemoryService(cold, 200, 20_000, 0.6, 1);
+        service.addSessionToMemory(
+                        session("user", mockEvent("e1", "user", "my favourite food is noodles")))
+                .blockingAwait();
+
+        List<MemoryEntry> memories =
+                service.searchMemory("app", "user", "where does the user live")
+                        .blockingGet()
+                        .memories();
+        service.searchMemory("app", "user", "where does the user live").blockingGet();
+
+        assertEquals(List.of("Lives in Beijing"), texts(memories));
+        assertEquals(List.of("where does the user live"), cold.queries);
+        assertEquals(1, service.stats().hotHits());
+        assertEquals(1, service.stats().coldSearches());
+    }
+
+    @Test
+    void limits_dropTheOldestMemoriesOfAUser_andTheLeastRecentlyUsedUsers() {
+        TieredMemoryService service = new TieredMemoryService(cold, 2, 3, 0.6, 1);
+        service.addSessionToMemory(
+                        session(
+                                "alice",
+                                mockEvent("e1", "user", "alice likes tea"),
+                                mockEvent("e2", "user", "alice likes jazz"),
+                                mockEvent("e3", "user", "alice likes chess")))
+                .blockingAwait();
+        service.addSessionToMemory(
+                        session(
+                                "bob",
+                                mockEvent("e4", "user", "bob likes tea"),
+                                mockEvent("e5", "user", "bob likes golf")))
+                .blockingAwait();
+
+        assertEquals(3, service.stats().entries());
+        assertEquals(2, service.stats().evictions());
+        // alice kept only "likes chess" after both limits
+        assertEquals(
+                List.of("alice likes chess"),
+                texts(
+                        service.searchMemory("app", "alice", "likes chess")
+                                .blockingGet()
+                                .memories()));
+        service.searchMemory("app", "alice", "likes jazz").blockingGet();
+        service.searchMemory("app", "bob", "likes golf").blockingGet();
+        assertEquals(List.of("likes jazz"), cold.queries);
+    }
+
+    @Test
+    void oneStrongHotMatch_answersWithoutTheColdTier_evenBelowTopK() {
+        TieredMemoryService service = new TieredMemoryService(cold);
+        service.addSessionToMemory(session("user", mockEvent("e1", "user", "I am 180cm tall")))
+                .blockingAwait();
+
+        List<MemoryEntry> memories =
+                service.searchMemory("app", "user", "180cm tall").blockingGet().memories();
+
+        assertEquals(List.of("I am 180cm tall"), texts(memories));
+        assertEquals(List.of(), cold.queries);
+        assertEquals(1, service.stats().hotHits());
+    }
+
+    @Test
+    void weakHotMatches_followTheColdResults() {
+        TieredMemoryService service = new TieredMemoryService(cold);
+        service.addSessionToMemory(session("user", mockEvent("e1", "user", "I am 180cm tall")))
+                .blockingAwait();
+
+        List<MemoryEntry> memories =
+                service.searchMemory("app", "user", "how tall is the house")
+                        .blockingGet()
+                        .memories();
+
+        assertEquals(List.of("Lives in Beijing", "I am 180cm tall"), texts(memories));
+        assertEquals(List.of("how tall is the house"), cold.queries);
+        assertEquals(1, service.stats().coldSearches());
+    }
+
+    @Test
+    void coldResults_leaveTheHotTier_afterTheirTtl() {
+        MutableClock clock = new MutableClock();
+        TieredMemoryService service =
+                new TieredMemoryService(cold, 200, 20_000, 0.6, 5, Duration.ofMinutes(10), clock);
+        service.addSessionToMemory(session("user", mockEvent("e1", "user", "I am 180cm tall")))
+                .blockingAwait();
+        service.searchMemory("app", "user", "where does the user live").blockingGet();
+
+        clock.advance(Duration.ofMinutes(9));
+        service.searchMemory("app", "user", "where does the user live").blockingGet();
+        clock.advance(Duration.ofMinutes(2));
+        service.searchMemory("app", "user", "where does the user live").blockingGet();
+
+        assertEquals(2, cold.queries.size());
+        assertEquals(1, service.stats().expirations());
+        // Added messages never expire
+        assertEquals(
+                List.of("I am 180cm tall"),
+                texts(service.searchMemory("app", "user", "180cm tall").blockingGet().memories()));
+    }
+
+    @Test
+    void savingASessionAgain_onlyAddsItsNewMessages() {
+        TieredMemoryService service = new TieredMemoryService(cold, 2, 100, 0.6, 1);
+        Event first = mockEvent("e1", "user", "likes tea");
+        Event second = mockEvent("e2", "user", "likes jazz");
+        Event third = mockEvent("e3", "user", "likes chess");
+        service.addSessionToMemory(session("user", first, second, third)).blockingAwait();
+
+        service.addSessionToMemory(
+                        session(
+                                "user",
+                                first,
+                                second,
+                                third,
+                                mockEvent("e4", "user", "likes golf")))
+                .blockingAwait();
+
+        // Re-adding the earlier messages would have evicted the newer ones again
+        assertEquals(2, service.stats().evictions());
+        assertEquals(
+                List.of("likes chess"),
+                texts(service.searchMemory("app", "user", "likes chess").blockingGet().memories()));
+        assertEquals(2, cold.sessions);
+    }
+
+    private static List<String> texts(List<MemoryEntry> memories) {
+        return memories.stream()
+                .map(entry -> entry.content().parts().get().get(0).text().get())
+                .toList();
+    }
+
+    private static Session session(String userId, Event... events) {
+        Session session = Mockito.mock(Session.class);
+        Mockito.lenient().when(session.id()).thenReturn("session-" + userId);
+        Mockito.when(session.appName()).thenReturn("app");
+        Mockito.when(session.userId()).thenReturn(userId);
+        Mockito.when(session.events()).thenReturn(List.of(events));
+        return session;
+    }
+
+    private static Event mockEvent(String id, String author, String text) {
+        Event event = Mockito.mock(Event.class);
+        Mockito.lenient().when(event.id()).thenReturn(id);
+        Mockito.lenient().when(event.author()).thenReturn(author);
+        Mockito.lenient()
+                .when(event.content())
+                .thenReturn(
+                        Optional.of(
+                                Content.builder().role(author).parts(Part.fromText(text)).build()));
+        return event;
+    }
+
+    /** Records writes and searches, and knows where every user lives. */
+    private static class ColdMemoryService implements BaseMemoryService {
+
+        private int sessions = 0;
+        private final List<String> queries = new ArrayList<>();
+
+        @Override
+        public Completable addSessionToMemory(Session session) {
+            return Completable.fromAction(() -> sessions++);
+        }
+
+        @Override
+        public Single<SearchMemoryResponse> searchMemory(
+                String appName, String userId, String query) {
+            queries.add(query);
+            MemoryEntry entry =
+                    MemoryEntry.builder()
+                            .author("user")
+                            .content(
+                                    Content.builder()
+                                            .parts(Part.fromText("Lives in Beijing"))
+                                            .build())
+                            .build();
+            return Single.just(SearchMemoryResponse.builder().setMemories(List.of(entry)).build());
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
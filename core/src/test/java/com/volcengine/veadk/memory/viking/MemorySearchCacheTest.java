@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.viking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class MemorySearchCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final MemorySearchCache cache =
+            new MemorySearchCache(Duration.ofMinutes(1), Duration.ofMinutes(1), 2, clock);
+    private final AtomicInteger searches = new AtomicInteger();
+    // Incremented once the cache has seen the result
+    private final AtomicInteger completed = new AtomicInteger();
+
+    @Test
+    void repeatedQuery_isAnsweredFromTheCache() {
+        assertEquals("result-1", search("user", "height"));
+        assertEquals("result-1", search("user", "height"));
+
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(0.5, cache.stats().hitRate());
+    }
+
+    @Test
+    void staleResult_isServedWhileItIsRefreshed() throws InterruptedException {
+        search("user", "height");
+        clock.advance(Duration.ofSeconds(90));
+
+        assertEquals("result-1", search("user", "height"));
+        awaitSearches(2);
+        assertEquals("result-2", search("user", "height"));
+
+        assertEquals(1, cache.stats().staleHits());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void resultPastTheStaleWindow_isSearchedAgain() {
+        search("user", "height");
+        clock.advance(Duration.ofMinutes(3));
+
+        assertEquals("result-2", search("user", "height"));
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void invalidate_dropsOnlyTheResultsOfThatUser() {
+        search("user", "height");
+        search("other_user", "height");
+
+        cache.invalidate("app", "user");
+
+        assertEquals("result-3", search("user", "height"));
+        assertEquals("result-2", search("other_user", "height"));
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    void searchInFlightDuringInvalidate_isNotCached() {
+        SingleSubject<SearchMemoryResponse> slowSearch = SingleSubject.create();
+        TestObserver<SearchMemoryResponse> observer =
+                cache.get("app", "user", "height", () -> slowSearch).test();
+
+        cache.invalidate("app", "user");
+        slowSearch.onSuccess(response("before write"));
+        observer.assertValueCount(1);
+
+        assertEquals("result-1", search("user", "height"));
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void leastRecentlyUsedResult_isEvictedBeyondTheBound() {
+        search("user", "a");
+        search("user", "b");
+        search("user", "a");
+        search("user", "c");
+
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.stats().entries());
+        search("user", "a");
+        assertEquals(3, searches.get());
+    }
+
+    private String search(String userId, String query) {
+        Supplier<Single<SearchMemoryResponse>> backend =
+                () ->
+                        Single.fromCallable(() -> response("result-" + searches.incrementAndGet()))
+                                .doAfterSuccess(response -> completed.incrementAndGet());
+        return text(cache.get("app", userId, query, backend).blockingGet());
+    }
+
+    private void awaitSearches(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (completed.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, completed.get());
+    }
+
+    private static SearchMemoryResponse response(String text) {
+        MemoryEntry entry =
+                MemoryEntry.builder()
+                        .author("user")
+                        .content(Content.builder().parts(Part.fromText(text)).build())
+                        .build();
+        return SearchMemoryResponse.builder().setMemories(List.of(entry)).build();
+    }
+
+    private static String text(SearchMemoryResponse response) {
+        return response.memories().get(0).content().parts().get().get(0).text().get();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
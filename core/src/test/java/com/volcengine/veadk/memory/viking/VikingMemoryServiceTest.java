@@ -1,12 +1,14 @@
 package com.volcengine.veadk.memory.viking;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import com.google.adk.events.Event;
 import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
 import com.google.adk.sessions.Session;
 import com.google.genai.types.Content;
 import com.google.genai.types.Part;
@@ -14,11 +16,16 @@ import com.volcengine.veadk.integration.vikingmemory.Metadata;
 import com.volcengine.veadk.integration.vikingmemory.VikingMemoryWrapper;
 import com.volcengine.veadk.utils.EnvUtil;
 import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -280,4 +287,328 @@ class VikingMemoryServiceTest {
             assertEquals(List.of("sys_event_v1", "user_event_v1"), eventTypes);
         }
     }
+
+    @Test
+    void searchMemoryBatch_sendsAllQueriesToTheWrapperInOneCall() throws Exception {
+        String appName = "AppMem";
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingMemoryWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingMemoryWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.doReturn(
+                                                    Collections.singletonList(
+                                                            Mockito.mock(MemoryEntry.class)))
+                                            .when(mock)
+                                            .searchMemoryBatch(
+                                                    Mockito.eq(appName),
+                                                    Mockito.eq("user-1"),
+                                                    Mockito.eq(List.of("height", "drinks")),
+                                                    Mockito.eq(5),
+                                                    Mockito.anyList());
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+            mockedEnv.when(EnvUtil::getVikingMmemoryType).thenReturn("sys_event_v1");
+
+            VikingMemoryService service = new VikingMemoryService(appName);
+            List<MemoryEntry> entries =
+                    service.searchMemoryBatch(appName, "user-1", List.of("height", "drinks"))
+                            .blockingGet()
+                            .memories();
+
+            assertEquals(1, entries.size());
+            verify(mockedCtor.constructed().get(0), Mockito.never())
+                    .searchMemory(
+                            Mockito.anyString(),
+                            Mockito.anyString(),
+                            Mockito.anyString(),
+                            Mockito.anyInt(),
+                            Mockito.anyList());
+        }
+    }
+
+    @Test
+    void addSessionToMemory_calledEveryTurn_sendsOnlyNewMessages_evenAfterRehydration()
+            throws Exception {
+        String appName = "AppMem";
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingMemoryWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingMemoryWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.doReturn(true)
+                                            .when(mock)
+                                            .addSession(
+                                                    Mockito.eq(appName),
+                                                    Mockito.anyList(),
+                                                    Mockito.any(Metadata.class));
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+            mockedEnv.when(EnvUtil::getVikingMmemoryType).thenReturn("sys_event_v1");
+
+            VikingMemoryService service = new VikingMemoryService(appName);
+            VikingMemoryWrapper wrapperMock = mockedCtor.constructed().get(0);
+
+            Event e1 = mockEvent("e1", 1L, "user", "hello");
+            Event e2 = mockEvent("e2", 2L, "model", "hi, how can I help?");
+            Event e3 = mockEvent("e3", 3L, "user", "I am 180cm tall");
+
+            service.addSessionToMemory(mockSession(appName, List.of(e1, e2))).blockingAwait();
+            // Same session loaded again from the session service, with one more turn
+            service.addSessionToMemory(mockSession(appName, List.of(e1, e2, e3))).blockingAwait();
+            // Nothing new since the last call
+            service.addSessionToMemory(mockSession(appName, List.of(e1, e2, e3))).blockingAwait();
+
+            ArgumentCaptor<List> messagesCaptor = ArgumentCaptor.forClass(List.class);
+            verify(wrapperMock, Mockito.times(2))
+                    .addSession(
+                            Mockito.eq(appName),
+                            messagesCaptor.capture(),
+                            Mockito.any(Metadata.class));
+
+            @SuppressWarnings("unchecked")
+            List<List<com.volcengine.veadk.integration.vikingmemory.Message>> calls =
+                    (List) messagesCaptor.getAllValues();
+            assertEquals(1, calls.get(0).size());
+            assertEquals("hello", calls.get(0).get(0).getContent());
+            assertEquals(1, calls.get(1).size());
+            assertEquals("I am 180cm tall", calls.get(1).get(0).getContent());
+        }
+    }
+
+    @Test
+    void addSessionToMemory_afterFailure_resendsTheSameMessages() throws Exception {
+        String appName = "AppMem";
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingMemoryWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingMemoryWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.doThrow(new Exception("backend error"))
+                                            .doReturn(true)
+                                            .when(mock)
+                                            .addSession(
+                                                    Mockito.eq(appName),
+                                                    Mockito.anyList(),
+                                                    Mockito.any(Metadata.class));
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+            mockedEnv.when(EnvUtil::getVikingMmemoryType).thenReturn("sys_event_v1");
+
+            VikingMemoryService service = new VikingMemoryService(appName);
+            VikingMemoryWrapper wrapperMock = mockedCtor.constructed().get(0);
+
+            Session session = mockSession(appName, List.of(mockEvent("e1", 1L, "user", "hello")));
+            assertThrows(
+                    RuntimeException.class,
+                    () -> service.addSessionToMemory(session).blockingAwait());
+            service.addSessionToMemory(session).blockingAwait();
+
+            ArgumentCaptor<List> messagesCaptor = ArgumentCaptor.forClass(List.class);
+            verify(wrapperMock, Mockito.times(2))
+                    .addSession(
+                            Mockito.eq(appName),
+                            messagesCaptor.capture(),
+                            Mockito.any(Metadata.class));
+            @SuppressWarnings("unchecked")
+            List<List<com.volcengine.veadk.integration.vikingmemory.Message>> calls =
+                    (List) messagesCaptor.getAllValues();
+            assertEquals("hello", calls.get(0).get(0).getContent());
+            assertEquals("hello", calls.get(1).get(0).getContent());
+        }
+    }
+
+    @Test
+    void addSessionToMemory_withWriteBehind_returnsBeforeWriting_andWritesOnClose()
+            throws Exception {
+        String appName = "AppMem";
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingMemoryWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingMemoryWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.doReturn(true)
+                                            .when(mock)
+                                            .addSession(
+                                                    Mockito.eq(appName),
+                                                    Mockito.anyList(),
+                                                    Mockito.any(Metadata.class));
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+            mockedEnv.when(EnvUtil::getVikingMmemoryType).thenReturn("sys_event_v1");
+
+            VikingMemoryService service =
+                    new VikingMemoryService(
+                            appName,
+                            new WriteBehindOptions(
+                                    100,
+                                    Duration.ofHours(1),
+                                    10,
+                                    1,
+                                    WriteBehindOptions.DropPolicy.DROP_OLDEST));
+            VikingMemoryWrapper wrapperMock = mockedCtor.constructed().get(0);
+
+            Event e1 = mockEvent("e1", 1L, "user", "hello");
+            Event e2 = mockEvent("e2", 2L, "user", "I am 180cm tall");
+            service.addSessionToMemory(mockSession(appName, List.of(e1))).blockingAwait();
+            service.addSessionToMemory(mockSession(appName, List.of(e1, e2))).blockingAwait();
+            verify(wrapperMock, never())
+                    .addSession(Mockito.anyString(), Mockito.anyList(), Mockito.any());
+
+            service.close();
+
+            ArgumentCaptor<List> messagesCaptor = ArgumentCaptor.forClass(List.class);
+            verify(wrapperMock)
+                    .addSession(
+                            Mockito.eq(appName),
+                            messagesCaptor.capture(),
+                            Mockito.any(Metadata.class));
+            assertEquals(2, messagesCaptor.getValue().size());
+            assertEquals(1, service.writeBehindStats().get().coalesced());
+        }
+    }
+
+    @Test
+    void searchMemory_withCache_searchesVikingAgainOnlyAfterAWriteForTheUser() throws Exception {
+        String appName = "AppMem";
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingMemoryWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingMemoryWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName)).thenReturn(true);
+                                    Mockito.doReturn(
+                                                    Collections.singletonList(
+                                                            Mockito.mock(MemoryEntry.class)))
+                                            .when(mock)
+                                            .searchMemory(
+                                                    Mockito.eq(appName),
+                                                    Mockito.anyString(),
+                                                    Mockito.eq("q"),
+                                                    Mockito.eq(5),
+                                                    Mockito.anyList());
+                                    Mockito.doReturn(true)
+                                            .when(mock)
+                                            .addSession(
+                                                    Mockito.eq(appName),
+                                                    Mockito.anyList(),
+                                                    Mockito.any(Metadata.class));
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+            mockedEnv.when(EnvUtil::getVikingMmemoryType).thenReturn("sys_event_v1");
+
+            VikingMemoryService service =
+                    new VikingMemoryService(
+                            appName,
+                            new MemorySearchCache(Duration.ofMinutes(5), Duration.ZERO, 100));
+            VikingMemoryWrapper wrapperMock = mockedCtor.constructed().get(0);
+
+            service.searchMemory(appName, "user-1", "q").blockingGet();
+            service.searchMemory(appName, "user-1", "q").blockingGet();
+            verify(wrapperMock, Mockito.times(1))
+                    .searchMemory(
+                            Mockito.eq(appName),
+                            Mockito.eq("user-1"),
+                            Mockito.eq("q"),
+                            Mockito.eq(5),
+                            Mockito.anyList());
+
+            service.addSessionToMemory(
+                            mockSession(appName, List.of(mockEvent("e1", 1L, "user", "hi"))))
+                    .blockingAwait();
+            service.searchMemory(appName, "user-1", "q").blockingGet();
+
+            verify(wrapperMock, Mockito.times(2))
+                    .searchMemory(
+                            Mockito.eq(appName),
+                            Mockito.eq("user-1"),
+                            Mockito.eq("q"),
+                            Mockito.eq(5),
+                            Mockito.anyList());
+            assertEquals(1, service.searchCacheStats().get().hits());
+            assertEquals(2, service.searchCacheStats().get().misses());
+        }
+    }
+
+    @Test
+    void constructor_bootstrapAsync_returnsBeforeTheCheck_andSearchWaitsForIt() throws Exception {
+        String appName = "AsyncMemApp";
+        CountDownLatch release = new CountDownLatch(1);
+        try (MockedStatic<EnvUtil> mockedEnv = Mockito.mockStatic(EnvUtil.class);
+                MockedConstruction<VikingMemoryWrapper> mockedCtor =
+                        Mockito.mockConstruction(
+                                VikingMemoryWrapper.class,
+                                (mock, context) -> {
+                                    Mockito.when(mock.isCollectionExists(appName))
+                                            .thenAnswer(
+                                                    invocation ->
+                                                            release.await(5, TimeUnit.SECONDS));
+                                    Mockito.doReturn(Collections.emptyList())
+                                            .when(mock)
+                                            .searchMemory(
+                                                    Mockito.eq(appName),
+                                                    Mockito.anyString(),
+                                                    Mockito.anyString(),
+                                                    Mockito.anyInt(),
+                                                    Mockito.anyList());
+                                })) {
+            mockedEnv.when(EnvUtil::getAccessKey).thenReturn("ak");
+            mockedEnv.when(EnvUtil::getSecretKey).thenReturn("sk");
+            mockedEnv.when(EnvUtil::getVikingMmemoryType).thenReturn("sys_event_v1");
+            mockedEnv.when(EnvUtil::getVikingCollectionBootstrap).thenReturn("async");
+
+            VikingMemoryService service = new VikingMemoryService(appName);
+            VikingMemoryWrapper wrapperMock = mockedCtor.constructed().get(0);
+            assertFalse(service.ready().isDone());
+
+            TestObserver<SearchMemoryResponse> search =
+                    service.searchMemory(appName, "user-1", "q")
+                            .subscribeOn(Schedulers.io())
+                            .test();
+            release.countDown();
+
+            search.await(5, TimeUnit.SECONDS);
+            search.assertComplete();
+            InOrder inOrder = Mockito.inOrder(wrapperMock);
+            inOrder.verify(wrapperMock).isCollectionExists(appName);
+            inOrder.verify(wrapperMock)
+                    .searchMemory(
+                            Mockito.eq(appName),
+                            Mockito.eq("user-1"),
+                            Mockito.eq("q"),
+                            Mockito.eq(5),
+                            Mockito.anyList());
+        }
+    }
+
+    private static Event mockEvent(String id, long timestamp, String author, String text) {
+        Event event = Mockito.mock(Event.class);
+        Mockito.lenient().when(event.id()).thenReturn(id);
+        Mockito.lenient().when(event.timestamp()).thenReturn(timestamp);
+        Mockito.lenient().when(event.author()).thenReturn(author);
+        Mockito.lenient()
+                .when(event.content())
+                .thenReturn(
+                        Optional.of(
+                                Content.builder().role(author).parts(Part.fromText(text)).build()));
+        return event;
+    }
+
+    private static Session mockSession(String appName, List<Event> events) {
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.id()).thenReturn("session-1");
+        Mockito.when(session.events()).thenReturn(events);
+        Mockito.when(session.appName()).thenReturn(appName);
+        Mockito.when(session.userId()).thenReturn("user-1");
+        return session;
+    }
 }
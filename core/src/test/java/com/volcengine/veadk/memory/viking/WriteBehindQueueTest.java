@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.memory.viking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.adk.sessions.Session;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class WriteBehindQueueTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    private final List<Session> writes = new CopyOnWriteArrayList<>();
+    private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+
+    @Test
+    void repeatedSaves_ofAPendingSession_areCoalescedIntoTheLatestSnapshot() {
+        WriteBehindQueue queue = newQueue(100, 10, WriteBehindOptions.DropPolicy.DROP_OLDEST);
+        Session latest = session("s1");
+
+        queue.submit(session("s1"));
+        queue.submit(session("s1"));
+        queue.submit(latest);
+        assertTrue(writes.isEmpty());
+
+        queue.close();
+
+        assertEquals(1, writes.size());
+        assertSame(latest, writes.get(0));
+        assertEquals(3, queue.stats().submitted());
+        assertEquals(2, queue.stats().coalesced());
+        assertEquals(1, queue.stats().written());
+    }
+
+    @Test
+    void fullFlushWindow_isWrittenWithoutWaitingForTheInterval() throws InterruptedException {
+        WriteBehindQueue queue = newQueue(100, 3, WriteBehindOptions.DropPolicy.DROP_OLDEST);
+
+        queue.submit(session("s1"));
+        queue.submit(session("s2"));
+        queue.submit(session("s3"));
+        awaitWrites(3);
+
+        WriteBehindQueue.Stats stats = queue.stats();
+        assertEquals(1, stats.batches());
+        assertEquals(3.0, stats.averageBatchSize());
+        assertEquals(0, stats.queueDepth());
+        queue.close();
+    }
+
+    @Test
+    void fullQueue_dropNewest_rejectsTheNewSession() {
+        WriteBehindQueue queue = newQueue(2, 10, WriteBehindOptions.DropPolicy.DROP_NEWEST);
+
+        queue.submit(session("s1"));
+        queue.submit(session("s2"));
+        queue.submit(session("s3"));
+        assertEquals(1, queue.stats().dropped());
+        assertEquals(2, queue.stats().queueDepth());
+
+        queue.close();
+
+        assertEquals(List.of("s1", "s2"), writes.stream().map(Session::id).toList());
+    }
+
+    @Test
+    void fullQueue_dropOldest_evictsTheOldestPendingSession() {
+        WriteBehindQueue queue = newQueue(2, 10, WriteBehindOptions.DropPolicy.DROP_OLDEST);
+
+        queue.submit(session("s1"));
+        queue.submit(session("s2"));
+        queue.submit(session("s3"));
+        queue.close();
+
+        assertEquals(1, queue.stats().dropped());
+        assertEquals(List.of("s2", "s3"), writes.stream().map(Session::id).toList());
+    }
+
+    @Test
+    void fullQueue_callerRuns_writesOnTheCallingThread() {
+        WriteBehindQueue queue = newQueue(1, 10, WriteBehindOptions.DropPolicy.CALLER_RUNS);
+
+        queue.submit(session("s1"));
+        queue.submit(session("s2"));
+
+        assertEquals(List.of(Thread.currentThread().getName()), writerThreads);
+        assertEquals(0, queue.stats().dropped());
+        queue.close();
+        assertEquals(2, queue.stats().written());
+    }
+
+    @Test
+    void flushIntervalBelowOneMillisecond_isRejected() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        new WriteBehindOptions(
+                                100,
+                                Duration.ZERO,
+                                10,
+                                2,
+                                WriteBehindOptions.DropPolicy.DROP_OLDEST));
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        new WriteBehindOptions(
+                                100,
+                                Duration.ofSeconds(-1),
+                                10,
+                                2,
+                                WriteBehindOptions.DropPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    void failedWrite_isCounted_andDoesNotStopTheBatch() {
+        WriteBehindQueue queue =
+                new WriteBehindQueue(
+                        new WriteBehindOptions(
+                                100, NEVER, 10, 2, WriteBehindOptions.DropPolicy.DROP_OLDEST),
+                        session -> {
+                            if (session.id().equals("bad")) {
+                                throw new IllegalStateException("boom");
+                            }
+                            writes.add(session);
+                        });
+
+        queue.submit(session("bad"));
+        queue.submit(session("good"));
+        queue.close();
+
+        assertEquals(1, queue.stats().failed());
+        assertEquals(1, queue.stats().written());
+        assertEquals("good", writes.get(0).id());
+    }
+
+    private WriteBehindQueue newQueue(
+            int capacity, int maxBatchSessions, WriteBehindOptions.DropPolicy dropPolicy) {
+        return new WriteBehindQueue(
+                new WriteBehindOptions(capacity, NEVER, maxBatchSessions, 2, dropPolicy),
+                session -> {
+                    writes.add(session);
+                    writerThreads.add(Thread.currentThread().getName());
+                });
+    }
+
+    private void awaitWrites(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (writes.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, writes.size());
+    }
+
+    private static Session session(String id) {
+        return Session.builder(id).appName("app").userId("user").build();
+    }
+}
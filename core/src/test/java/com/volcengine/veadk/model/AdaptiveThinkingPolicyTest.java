@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.FunctionTool;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.Part;
+import com.google.genai.types.ThinkingConfig;
+import java.util.List;
+import java.util.Map;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveThinkingPolicyTest {
+
+    private final AdaptiveThinkingPolicy policy = new AdaptiveThinkingPolicy(20, 100);
+
+    @Test
+    void select_shortPromptWithoutTools_disablesThinking() {
+        assertEquals(ThinkingPolicy.DISABLED, policy.select(userRequest("hi there")));
+    }
+
+    @Test
+    void select_longPrompt_enablesThinking() {
+        assertEquals(ThinkingPolicy.ENABLED, policy.select(userRequest("x".repeat(150))));
+    }
+
+    @Test
+    void select_shortPromptWithTools_leavesItToTheModel() {
+        LlmRequest request =
+                userRequest("what is the weather").toBuilder()
+                        .appendTools(List.of(weatherTool()))
+                        .build();
+
+        assertEquals(ThinkingPolicy.AUTO, policy.select(request));
+    }
+
+    @Test
+    void select_afterFunctionResponse_disablesThinking() {
+        Content functionResponse =
+                Content.builder()
+                        .role("user")
+                        .parts(Part.fromFunctionResponse("get_weather", Map.of("temp", 21)))
+                        .build();
+        LlmRequest request =
+                LlmRequest.builder()
+                        .contents(List.of(userContent("x".repeat(150)), functionResponse))
+                        .appendTools(List.of(weatherTool()))
+                        .build();
+
+        assertEquals(ThinkingPolicy.DISABLED, policy.select(request));
+    }
+
+    @Test
+    void select_explicitThinkingConfig_overridesRules() {
+        LlmRequest disabled =
+                userRequest("x".repeat(150)).toBuilder()
+                        .config(
+                                GenerateContentConfig.builder()
+                                        .thinkingConfig(
+                                                ThinkingConfig.builder().thinkingBudget(0).build())
+                                        .build())
+                        .build();
+        LlmRequest enabled =
+                userRequest("hi").toBuilder()
+                        .config(
+                                GenerateContentConfig.builder()
+                                        .thinkingConfig(
+                                                ThinkingConfig.builder()
+                                                        .includeThoughts(true)
+                                                        .build())
+                                        .build())
+                        .build();
+
+        assertEquals(ThinkingPolicy.DISABLED, policy.select(disabled));
+        assertEquals(ThinkingPolicy.ENABLED, policy.select(enabled));
+    }
+
+    @Test
+    void arkLlm_sendsSelectedMode_andReportsItsAverages() throws Exception {
+        try (ArkStandInServer server = new ArkStandInServer()) {
+            ArkLlm llm = newArkLlm(server, policy);
+
+            llm.generateContent(userRequest("x".repeat(150)), false).blockingLast();
+            llm.generateContent(userRequest("thanks"), false).blockingLast();
+            llm.generateContent(userRequest("ok"), false).blockingLast();
+
+            assertEquals(List.of("enabled", "disabled", "disabled"), server.thinkingTypes());
+            ThinkingStats stats = llm.thinkingStats();
+            assertEquals(1, stats.modes().get(ThinkingPolicy.ENABLED).requests());
+            assertEquals(2, stats.modes().get(ThinkingPolicy.DISABLED).requests());
+            assertEquals(500, stats.modes().get(ThinkingPolicy.ENABLED).averageCompletionTokens());
+            assertEquals(20, stats.modes().get(ThinkingPolicy.DISABLED).averageCompletionTokens());
+            assertTrue(stats.modes().get(ThinkingPolicy.ENABLED).averageLatencyMillis() >= 50);
+        }
+    }
+
+    @Test
+    void arkLlm_streaming_requestsAndRecordsTokenUsage() throws Exception {
+        try (ArkStandInServer server = new ArkStandInServer()) {
+            ArkLlm llm = newArkLlm(server, ThinkingPolicy.fixed(ThinkingPolicy.ENABLED));
+
+            List<LlmResponse> responses =
+                    llm.generateContent(userRequest("x".repeat(150)), true).toList().blockingGet();
+
+            ThinkingStats.Mode enabled = llm.thinkingStats().modes().get(ThinkingPolicy.ENABLED);
+            assertEquals(1, enabled.usageReports());
+            assertEquals(500, enabled.averageCompletionTokens());
+            assertFalse(responses.get(responses.size() - 1).partial().orElse(false));
+        }
+    }
+
+    @Test
+    void arkLlm_fixedThinking_isSentOnEveryTurn() throws Exception {
+        try (ArkStandInServer server = new ArkStandInServer()) {
+            ArkLlm llm = newArkLlm(server, ThinkingPolicy.fixed(null));
+
+            llm.generateContent(userRequest("x".repeat(150)), false).blockingLast();
+            llm.generateContent(userRequest("thanks"), false).blockingLast();
+
+            assertEquals(List.of("default", "default"), server.thinkingTypes());
+            assertEquals(2, llm.thinkingStats().modes().get(ThinkingStats.DEFAULT_MODE).requests());
+            assertEquals(
+                    20,
+                    llm.thinkingStats()
+                            .modes()
+                            .get(ThinkingStats.DEFAULT_MODE)
+                            .averageCompletionTokens());
+        }
+    }
+
+    private static ArkLlm newArkLlm(ArkStandInServer server, ThinkingPolicy thinkingPolicy) {
+        Dispatcher dispatcher = new Dispatcher();
+        return new ArkLlm(
+                "test-model",
+                server.arkService(dispatcher, new ConnectionPool()),
+                dispatcher,
+                thinkingPolicy);
+    }
+
+    private static LlmRequest userRequest(String text) {
+        return LlmRequest.builder()
+                .model("test-model")
+                .contents(List.of(userContent(text)))
+                .build();
+    }
+
+    private static Content userContent(String text) {
+        return Content.builder().role("user").parts(Part.fromText(text)).build();
+    }
+
+    private static BaseTool weatherTool() {
+        return FunctionTool.create(AdaptiveThinkingPolicyTest.class, "getWeather");
+    }
+
+    public static Map<String, Object> getWeather(String city) {
+        return Map.of("city", city, "temp", 21);
+    }
+}
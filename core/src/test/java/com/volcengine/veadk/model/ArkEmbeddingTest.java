@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.reactivex.rxjava3.core.Single;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ArkEmbeddingTest {
+
+    private ArkStandInServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new ArkStandInServer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void embed_concurrentCalls_areBatched_andFannedOutInOrder() {
+        ArkEmbedding embedding =
+                new ArkEmbedding(
+                        "test-embedding", server.arkService(), 8, Duration.ofMillis(200), 100);
+
+        List<String> texts = new ArrayList<>();
+        List<Single<float[]>> calls = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String text = "text-" + i;
+            texts.add(text);
+            calls.add(embedding.embed(text).cache());
+        }
+        calls.forEach(Single::subscribe);
+
+        for (int i = 0; i < texts.size(); i++) {
+            assertArrayEquals(
+                    ArkStandInServer.expectedEmbedding(texts.get(i)), calls.get(i).blockingGet());
+        }
+        assertEquals(List.of(8, 8), server.embeddingBatchSizes());
+        assertEquals(2, embedding.stats().batches());
+        assertEquals(8.0, embedding.stats().averageBatchSize());
+        embedding.close();
+    }
+
+    @Test
+    void embed_partialBatch_isSentAfterLinger() {
+        ArkEmbedding embedding =
+                new ArkEmbedding(
+                        "test-embedding", server.arkService(), 32, Duration.ofMillis(20), 100);
+
+        List<float[]> vectors = embedding.embedAll(List.of("a", "bb", "ccc")).blockingGet();
+
+        assertEquals(3, vectors.size());
+        assertArrayEquals(ArkStandInServer.expectedEmbedding("bb"), vectors.get(1));
+        assertEquals(List.of(3), server.embeddingBatchSizes());
+        embedding.close();
+    }
+
+    @Test
+    void embed_repeatedText_isServedFromCache() {
+        ArkEmbedding embedding =
+                new ArkEmbedding(
+                        "test-embedding", server.arkService(), 32, Duration.ofMillis(5), 100);
+
+        float[] first = embedding.embed("hello").blockingGet();
+        float[] second = embedding.embed("hello").blockingGet();
+
+        assertArrayEquals(first, second);
+        assertEquals(1, server.embeddingBatchSizes().size());
+        assertEquals(2, embedding.stats().requests());
+        assertEquals(1, embedding.stats().cacheHits());
+        embedding.close();
+    }
+
+    @Test
+    void embed_duplicateTextsInOneWindow_shareOneSlot() {
+        ArkEmbedding embedding =
+                new ArkEmbedding(
+                        "test-embedding", server.arkService(), 32, Duration.ofMillis(20), 100);
+
+        List<float[]> vectors = embedding.embedAll(List.of("same", "same", "other")).blockingGet();
+
+        assertArrayEquals(vectors.get(0), vectors.get(1));
+        assertEquals(List.of(2), server.embeddingBatchSizes());
+        assertTrue(embedding.stats().batchedTexts() < embedding.stats().requests());
+        embedding.close();
+    }
+}
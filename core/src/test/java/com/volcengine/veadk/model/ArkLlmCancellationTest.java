@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ArkLlmCancellationTest {
+
+    private static final int STREAMS = 50;
+
+    private ArkStandInServer server;
+    private Dispatcher dispatcher;
+    private ConnectionPool connectionPool;
+    private ArkLlm arkLlm;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new ArkStandInServer();
+        // Streams stall after their first chunk, like a model that is still reasoning
+        server.streamStall(Duration.ofSeconds(30));
+        dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(STREAMS);
+        dispatcher.setMaxRequestsPerHost(STREAMS);
+        connectionPool = new ConnectionPool();
+        arkLlm =
+                new ArkLlm(
+                        "test-model",
+                        server.arkService(dispatcher, connectionPool),
+                        dispatcher,
+                        ThinkingPolicy.fixed(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void massCancellation_abortsCallsAndLeaksNoConnections() throws Exception {
+        List<TestSubscriber<LlmResponse>> subscribers = new ArrayList<>();
+        for (int i = 0; i < STREAMS; i++) {
+            subscribers.add(arkLlm.generateContent(request(), true).test());
+        }
+        // Every stream has delivered its first chunk and holds a connection
+        for (TestSubscriber<LlmResponse> subscriber : subscribers) {
+            subscriber.awaitCount(1);
+        }
+        assertEquals(STREAMS, dispatcher.runningCallsCount());
+        assertEquals(STREAMS, connectionPool.connectionCount());
+
+        subscribers.forEach(TestSubscriber::cancel);
+
+        awaitTrue(
+                () ->
+                        dispatcher.runningCallsCount() == 0
+                                && dispatcher.queuedCallsCount() == 0
+                                && connectionPool.connectionCount() == 0);
+    }
+
+    @Test
+    void cancellation_marksModelCallSpanCancelled() throws Exception {
+        List<SpanData> spans = new CopyOnWriteArrayList<>();
+        try (SdkTracerProvider tracerProvider =
+                SdkTracerProvider.builder()
+                        .addSpanProcessor(SimpleSpanProcessor.create(new ListExporter(spans)))
+                        .build()) {
+            Span span = tracerProvider.get("test").spanBuilder("call_llm").startSpan();
+            Flowable<LlmResponse> responses;
+            try (Scope scope = span.makeCurrent()) {
+                responses = arkLlm.generateContent(request(), true);
+            }
+
+            TestSubscriber<LlmResponse> subscriber = responses.test();
+            subscriber.awaitCount(1);
+            subscriber.cancel();
+            span.end();
+
+            assertEquals(1, spans.size());
+            assertEquals(StatusCode.ERROR, spans.get(0).getStatus().getStatusCode());
+            assertEquals("Cancelled", spans.get(0).getStatus().getDescription());
+            assertEquals(
+                    true,
+                    spans.get(0)
+                            .getAttributes()
+                            .get(AttributeKey.booleanKey("veadk.llm.cancelled")));
+            awaitTrue(() -> dispatcher.runningCallsCount() == 0);
+        }
+    }
+
+    @Test
+    void completedStream_isNotAborted() throws Exception {
+        server.streamStall(Duration.ZERO);
+
+        List<LlmResponse> responses =
+                arkLlm.generateContent(request(), true).toList().blockingGet();
+
+        LlmResponse last = responses.get(responses.size() - 1);
+        assertEquals(
+                "Let me think about this question carefully. The answer is ok.",
+                last.content().get().parts().get().get(0).text().get());
+        awaitTrue(() -> dispatcher.runningCallsCount() == 0);
+        // Whatever connection remains is idle in the pool, not held by a call
+        assertEquals(connectionPool.connectionCount(), connectionPool.idleConnectionCount());
+    }
+
+    private static LlmRequest request() {
+        return LlmRequest.builder()
+                .model("test-model")
+                .contents(
+                        List.of(
+                                Content.builder()
+                                        .role("user")
+                                        .parts(Part.fromText("What is the answer?"))
+                                        .build()))
+                .build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private record ListExporter(List<SpanData> spans) implements SpanExporter {
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> batch) {
+            spans.addAll(batch);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
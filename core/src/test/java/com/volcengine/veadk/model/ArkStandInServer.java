@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.volcengine.ark.runtime.service.ArkService;
+import com.volcengine.veadk.utils.JSONUtil;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+
+/**
+ * Local stand-in for the Ark runtime HTTP API, used by tests instead of the real endpoint.
+ *
+ * <p>Embeddings are derived from the input text, so callers can check that every vector was fanned
+ * back to the right text. Chat completions answer "ok" and make thinking-enabled requests slower
+ * and more expensive, like the real reasoning models. Streamed completions can stall after their
+ * first chunk to keep the call in flight, and end with a usage chunk when the request asks for it.
+ */
+class ArkStandInServer implements AutoCloseable {
+
+    static final int DIMENSION = 4;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Queue<Integer> embeddingBatchSizes = new ConcurrentLinkedQueue<>();
+    private final Queue<String> thinkingTypes = new ConcurrentLinkedQueue<>();
+    private volatile Duration streamStall = Duration.ZERO;
+
+    ArkStandInServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v3/";
+    }
+
+    ArkService arkService() {
+        return ArkService.builder().apiKey("test-api-key").baseUrl(baseUrl()).build();
+    }
+
+    ArkService arkService(Dispatcher dispatcher, ConnectionPool connectionPool) {
+        return ArkService.builder()
+                .apiKey("test-api-key")
+                .baseUrl(baseUrl())
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .build();
+    }
+
+    /** Delay between the first and the last chunk of streamed completions. */
+    void streamStall(Duration streamStall) {
+        this.streamStall = streamStall;
+    }
+
+    /** Sizes of the embedding batches received so far. */
+    List<Integer> embeddingBatchSizes() {
+        return new ArrayList<>(embeddingBatchSizes);
+    }
+
+    /** Thinking type of each chat completion received so far, "default" when unset. */
+    List<String> thinkingTypes() {
+        return new ArrayList<>(thinkingTypes);
+    }
+
+    static float[] expectedEmbedding(String text) {
+        return new float[] {text.length(), text.hashCode() % 1000, text.charAt(0), 1};
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        JsonNode body = JSONUtil.parseJson(exchange.getRequestBody().readAllBytes());
+        if (path.endsWith("/embeddings")) {
+            handleEmbeddings(exchange, body);
+        } else if (path.endsWith("/chat/completions")) {
+            handleChatCompletion(exchange, body);
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        }
+    }
+
+    private void handleEmbeddings(HttpExchange exchange, JsonNode body) throws IOException {
+        List<Map<String, Object>> data = new ArrayList<>();
+        int index = 0;
+        for (JsonNode input : body.path("input")) {
+            float[] vector = expectedEmbedding(input.asText());
+            List<Double> values = new ArrayList<>();
+            for (float v : vector) {
+                values.add((double) v);
+            }
+            data.add(Map.of("object", "embedding", "index", index++, "embedding", values));
+        }
+        embeddingBatchSizes.add(data.size());
+
+        writeJson(
+                exchange,
+                Map.of(
+                        "object",
+                        "list",
+                        "model",
+                        body.path("model").asText(),
+                        "data",
+                        data,
+                        "usage",
+                        Map.of("prompt_tokens", data.size(), "total_tokens", data.size())));
+    }
+
+    private void handleChatCompletion(HttpExchange exchange, JsonNode body) throws IOException {
+        String thinking = body.path("thinking").path("type").asText("default");
+        thinkingTypes.add(thinking);
+        if (body.path("stream").asBoolean()) {
+            handleChatCompletionStream(exchange, body, thinking);
+            return;
+        }
+        boolean reasoning = isReasoning(thinking);
+        if (reasoning) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int completionTokens = reasoning ? 500 : 20;
+
+        writeJson(
+                exchange,
+                Map.of(
+                        "id",
+                        "chatcmpl-test",
+                        "object",
+                        "chat.completion",
+                        "model",
+                        body.path("model").asText(),
+                        "choices",
+                        List.of(
+                                Map.of(
+                                        "index",
+                                        0,
+                                        "finish_reason",
+                                        "stop",
+                                        "message",
+                                        Map.of("role", "assistant", "content", "ok"))),
+                        "usage",
+                        Map.of(
+                                "prompt_tokens",
+                                10,
+                                "completion_tokens",
+                                completionTokens,
+                                "total_tokens",
+                                10 + completionTokens)));
+    }
+
+    private void handleChatCompletionStream(HttpExchange exchange, JsonNode body, String thinking)
+            throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            writeChunk(out, body, "Let me think about this question carefully. ", null);
+            Thread.sleep(streamStall.toMillis());
+            writeChunk(out, body, "The answer is ok.", "stop");
+            if (body.path("stream_options").path("include_usage").asBoolean()) {
+                writeUsageChunk(out, body, isReasoning(thinking) ? 500 : 20);
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | InterruptedException e) {
+            // The client went away or the server is shutting down
+        }
+    }
+
+    private void writeChunk(OutputStream out, JsonNode body, String content, String finishReason)
+            throws IOException {
+        Map<String, Object> choice = new HashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", Map.of("role", "assistant", "content", content));
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> chunk =
+                Map.of(
+                        "id",
+                        "chatcmpl-test",
+                        "object",
+                        "chat.completion.chunk",
+                        "model",
+                        body.path("model").asText(),
+                        "choices",
+                        List.of(choice));
+        out.write(("data: " + JSONUtil.toJson(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    // Ark sends the usage of a stream in a last chunk without choices
+    private void writeUsageChunk(OutputStream out, JsonNode body, int completionTokens)
+            throws IOException {
+        Map<String, Object> chunk =
+                Map.of(
+                        "id",
+                        "chatcmpl-test",
+                        "object",
+                        "chat.completion.chunk",
+                        "model",
+                        body.path("model").asText(),
+                        "choices",
+                        List.of(),
+                        "usage",
+                        Map.of(
+                                "prompt_tokens",
+                                10,
+                                "completion_tokens",
+                                completionTokens,
+                                "total_tokens",
+                                10 + completionTokens));
+        out.write(("data: " + JSONUtil.toJson(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static boolean isReasoning(String thinking) {
+        return !"disabled".equals(thinking) && !"default".equals(thinking);
+    }
+
+    private void writeJson(HttpExchange exchange, Object response) throws IOException {
+        byte[] bytes = JSONUtil.toJson(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.model.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.model.BaseEmbedding;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SemanticCacheLlmTest {
+
+    // Paraphrases map to nearby vectors, unrelated questions to orthogonal ones
+    private static final Map<String, float[]> VECTORS =
+            Map.of(
+                    "how do I reset my password", new float[] {1f, 0f, 0f},
+                    "how can I reset my password?", new float[] {0.98f, 0.05f, 0f},
+                    "what is the refund policy", new float[] {0f, 1f, 0f},
+                    "call a tool", new float[] {0f, 0f, 1f},
+                    "and in which color?", new float[] {0.5f, 0.5f, 0.5f});
+
+    private final BaseEmbedding embedding = text -> Single.just(VECTORS.get(text));
+
+    @Test
+    void paraphrasedQuestion_isServedFromCache() {
+        CountingLlm model = new CountingLlm("Go to settings.");
+        SemanticCacheLlm llm = newCachedLlm(model, newCache(Clock.systemUTC(), 100));
+
+        String first =
+                text(llm.generateContent(request("sys", "how do I reset my password"), false));
+        String second =
+                text(llm.generateContent(request("sys", "how can I reset my password?"), false));
+
+        assertEquals("Go to settings.", first);
+        assertEquals("Go to settings.", second);
+        assertEquals(1, model.calls);
+        assertEquals(0.5, llm.cache().stats().hitRate());
+    }
+
+    @Test
+    void unrelatedQuestion_orDifferentSystemPrompt_missesCache() {
+        CountingLlm model = new CountingLlm("answer");
+        SemanticCacheLlm llm = newCachedLlm(model, newCache(Clock.systemUTC(), 100));
+
+        llm.generateContent(request("sys", "how do I reset my password"), false).blockingLast();
+        llm.generateContent(request("sys", "what is the refund policy"), false).blockingLast();
+        llm.generateContent(request("other sys", "how do I reset my password"), false)
+                .blockingLast();
+
+        assertEquals(3, model.calls);
+        assertEquals(0, llm.cache().stats().hits());
+    }
+
+    @Test
+    void expiredEntries_areNotReplayed() {
+        MutableClock clock = new MutableClock();
+        CountingLlm model = new CountingLlm("answer");
+        SemanticCacheLlm llm = newCachedLlm(model, newCache(clock, 100));
+
+        llm.generateContent(request("sys", "how do I reset my password"), false).blockingLast();
+        clock.advance(Duration.ofMinutes(11));
+        llm.generateContent(request("sys", "how do I reset my password"), false).blockingLast();
+
+        assertEquals(2, model.calls);
+    }
+
+    @Test
+    void leastRecentlyUsedEntry_isEvictedWhenFull() {
+        CountingLlm model = new CountingLlm("answer");
+        SemanticCacheLlm llm = newCachedLlm(model, newCache(Clock.systemUTC(), 1));
+
+        llm.generateContent(request("sys", "how do I reset my password"), false).blockingLast();
+        llm.generateContent(request("sys", "what is the refund policy"), false).blockingLast();
+        llm.generateContent(request("sys", "how do I reset my password"), false).blockingLast();
+
+        assertEquals(3, model.calls);
+        assertTrue(llm.cache().stats().evictions() >= 1);
+        assertEquals(1, llm.cache().stats().entries());
+    }
+
+    @Test
+    void toolCallResponses_areNotCached() {
+        CountingLlm model = new CountingLlm(null);
+        SemanticCacheLlm llm = newCachedLlm(model, newCache(Clock.systemUTC(), 100));
+
+        llm.generateContent(request("sys", "call a tool"), false).blockingLast();
+        llm.generateContent(request("sys", "call a tool"), false).blockingLast();
+
+        assertEquals(2, model.calls);
+        assertEquals(0, llm.cache().stats().stores());
+    }
+
+    @Test
+    void sameFollowUp_inDifferentConversations_missesCache() {
+        CountingLlm model = new CountingLlm("answer");
+        SemanticCacheLlm llm = newCachedLlm(model, newCache(Clock.systemUTC(), 100));
+
+        llm.generateContent(
+                        request("sys", "what is the refund policy", "and in which color?"), false)
+                .blockingLast();
+        llm.generateContent(
+                        request("sys", "how do I reset my password", "and in which color?"), false)
+                .blockingLast();
+        llm.generateContent(
+                        request("sys", "how do I reset my password", "and in which color?"), false)
+                .blockingLast();
+
+        assertEquals(2, model.calls);
+        assertEquals(1, llm.cache().stats().hits());
+    }
+
+    private SemanticCacheLlm newCachedLlm(CountingLlm model, SemanticCache cache) {
+        return new SemanticCacheLlm(model, embedding, cache, "support_agent");
+    }
+
+    private static SemanticCache newCache(Clock clock, int maxEntries) {
+        return new SemanticCache(0.95, Duration.ofMinutes(10), maxEntries, 1 << 20, clock);
+    }
+
+    private static LlmRequest request(String systemInstruction, String userText) {
+        return request(systemInstruction, List.of(userText));
+    }
+
+    private static LlmRequest request(
+            String systemInstruction, String firstUserText, String followUpUserText) {
+        return request(systemInstruction, List.of(firstUserText, followUpUserText));
+    }
+
+    // Alternates user turns with model answers, ending with the last user turn
+    private static LlmRequest request(String systemInstruction, List<String> userTexts) {
+        List<Content> contents = new ArrayList<>();
+        for (String userText : userTexts) {
+            if (!contents.isEmpty()) {
+                contents.add(
+                        Content.builder().role("model").parts(Part.fromText("answer")).build());
+            }
+            contents.add(Content.builder().role("user").parts(Part.fromText(userText)).build());
+        }
+        return LlmRequest.builder().model("test-model").contents(contents).build().toBuilder()
+                .appendInstructions(List.of(systemInstruction))
+                .build();
+    }
+
+    private static String text(Flowable<LlmResponse> responses) {
+        return responses.blockingLast().content().get().parts().get().get(0).text().get();
+    }
+
+    /** Answers with a fixed text, or with a function call when the text is null. */
+    private static class CountingLlm extends BaseLlm {
+
+        private final String answer;
+        private int calls = 0;
+
+        CountingLlm(String answer) {
+            super("test-model");
+            this.answer = answer;
+        }
+
+        @Override
+        public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+            calls++;
+            Part part =
+                    answer == null
+                            ? Part.fromFunctionCall("lookup", Map.of("q", "x"))
+                            : Part.fromText(answer);
+            return Flowable.just(
+                    LlmResponse.builder()
+                            .content(Content.builder().role("model").parts(part).build())
+                            .build());
+        }
+
+        @Override
+        public BaseLlmConnection connect(LlmRequest llmRequest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.adk.agents.CallbackContext;
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class MemoryPrefetchTest {
+
+    private static final String PROFILE_QUERY = "user profile";
+
+    private final ProfileMemoryService memory = new ProfileMemoryService();
+    private final MemoryPrefetch prefetch =
+            new MemoryPrefetch(
+                    memory, PROFILE_QUERY, 0.6, 1000, Duration.ofMinutes(1), 16, Clock.systemUTC());
+
+    @Test
+    void searchCoveredByPrefetchedMemories_isAnsweredWithThem() {
+        prefetch.prefetch("inv-1", "agent", "app", "user");
+
+        SearchMemoryResponse response =
+                prefetch.memoryService().searchMemory("app", "user", "height").blockingGet();
+
+        assertEquals(1, response.memories().size());
+        assertEquals("The user's height is 180cm", text(response.memories().get(0)));
+        assertEquals(List.of(PROFILE_QUERY), memory.queries);
+        assertEquals(1, prefetch.stats().hits());
+    }
+
+    @Test
+    void uncoveredSearch_orOtherUser_goesToTheMemoryService() {
+        prefetch.prefetch("inv-1", "agent", "app", "user");
+
+        prefetch.memoryService().searchMemory("app", "user", "favourite food").blockingGet();
+        prefetch.memoryService().searchMemory("app", "other_user", "height").blockingGet();
+
+        assertEquals(List.of(PROFILE_QUERY, "favourite food", "height"), memory.queries);
+        assertEquals(0, prefetch.stats().hits());
+        assertEquals(2, prefetch.stats().misses());
+    }
+
+    @Test
+    void parallelInvocationsOfAUser_areOnlyServedTheirOwnPrefetch() {
+        prefetch.prefetch("inv-1", "agent", "app", "user");
+        prefetch.prefetch("inv-2", "agent", "app", "user");
+
+        // Without an invocation id the search cannot be told apart from the other session's
+        prefetch.memoryService().searchMemory("app", "user", "height").blockingGet();
+        SearchMemoryResponse own =
+                prefetch.memoryService()
+                        .searchMemory("inv-2", "app", "user", "height")
+                        .blockingGet();
+        prefetch.memoryService().searchMemory("inv-3", "app", "user", "height").blockingGet();
+
+        assertEquals("The user's height is 180cm", text(own.memories().get(0)));
+        // The prefetches run in the background, so only count the searches
+        assertEquals(2, Collections.frequency(memory.queries, PROFILE_QUERY));
+        assertEquals(2, Collections.frequency(memory.queries, "height"));
+        assertEquals(1, prefetch.stats().hits());
+        assertEquals(2, prefetch.stats().misses());
+    }
+
+    @Test
+    void nestedAgent_reusesThePrefetch_andOnlyTheStartingAgentEndsIt() {
+        prefetch.prefetch("inv-1", "root", "app", "user");
+        prefetch.prefetch("inv-1", "sub", "app", "user");
+        prefetch.complete("inv-1", "sub");
+        assertEquals(1, prefetch.stats().liveInvocations());
+
+        prefetch.complete("inv-1", "root");
+
+        assertEquals(1, prefetch.stats().prefetchCalls());
+        assertEquals(0, prefetch.stats().liveInvocations());
+    }
+
+    @Test
+    void beforeModelCallback_addsTheMemoriesAsASystemSnippet() {
+        prefetch.prefetch("inv-1", "agent", "app", "user");
+        CallbackContext callbackContext = Mockito.mock(CallbackContext.class);
+        Mockito.when(callbackContext.invocationId()).thenReturn("inv-1");
+        LlmRequest.Builder builder = LlmRequest.builder().model("test-model").contents(List.of());
+
+        prefetch.beforeModelCallback().call(callbackContext, builder).blockingGet();
+
+        List<String> instructions = builder.build().getSystemInstructions();
+        assertEquals(1, instructions.size());
+        assertTrue(instructions.get(0).startsWith("Known memories about the user:"));
+        assertTrue(instructions.get(0).contains("- The user's height is 180cm"));
+        assertTrue(instructions.get(0).contains("- The user is 30 years old"));
+        assertEquals(1, prefetch.stats().snippets());
+    }
+
+    @Test
+    void beforeModelCallback_withoutPrefetch_addsNothing() {
+        CallbackContext callbackContext = Mockito.mock(CallbackContext.class);
+        Mockito.when(callbackContext.invocationId()).thenReturn("inv-1");
+        LlmRequest.Builder builder = LlmRequest.builder().model("test-model").contents(List.of());
+
+        prefetch.beforeModelCallback().call(callbackContext, builder).blockingGet();
+
+        assertTrue(builder.build().getSystemInstructions().isEmpty());
+    }
+
+    private static String text(MemoryEntry entry) {
+        return entry.content().parts().get().get(0).text().get();
+    }
+
+    /** Answers the profile query with two memories and any other query with none. */
+    private static class ProfileMemoryService implements BaseMemoryService {
+
+        private final List<String> queries = new ArrayList<>();
+
+        @Override
+        public Completable addSessionToMemory(Session session) {
+            return Completable.complete();
+        }
+
+        @Override
+        public synchronized Single<SearchMemoryResponse> searchMemory(
+                String appName, String userId, String query) {
+            queries.add(query);
+            List<MemoryEntry> entries =
+                    PROFILE_QUERY.equals(query)
+                            ? List.of(
+                                    entry("The user's height is 180cm"),
+                                    entry("The user is 30 years old"))
+                            : List.of();
+            return Single.just(SearchMemoryResponse.builder().setMemories(entries).build());
+        }
+
+        private static MemoryEntry entry(String text) {
+            return MemoryEntry.builder()
+                    .author("user")
+                    .content(Content.builder().parts(Part.fromText(text)).build())
+                    .build();
+        }
+    }
+}
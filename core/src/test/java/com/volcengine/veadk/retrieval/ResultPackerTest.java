@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
+import io.reactivex.rxjava3.core.Single;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ResultPackerTest {
+
+    private static final String REFUNDS =
+            "The refund policy allows returns within thirty days of purchase when the item is"
+                    + " unused and in its original packaging";
+    private static final String SHIPPING =
+            "Shipping to remote regions takes up to two weeks and costs extra depending on the"
+                    + " weight of the parcel";
+
+    @Test
+    void nearDuplicates_areDropped_keepingTheBetterResult() {
+        ResultPacker packer = new ResultPacker(1000, 0.8, false);
+
+        List<String> packed =
+                packer.pack(List.of(REFUNDS, SHIPPING, REFUNDS + " today"), s -> s, (s, t) -> t);
+
+        assertEquals(List.of(REFUNDS, SHIPPING), packed);
+        assertEquals(1, packer.stats().duplicates());
+    }
+
+    @Test
+    void resultsOverTheBudget_areDropped_withoutTruncation() {
+        ResultPacker packer = new ResultPacker(40, 0.8, false);
+
+        List<String> packed = packer.pack(List.of(REFUNDS, SHIPPING), s -> s, (s, t) -> t);
+
+        assertEquals(List.of(REFUNDS), packed);
+        assertEquals(1, packer.stats().overBudget());
+        assertTrue(packer.stats().tokenSavings() > 0);
+    }
+
+    @Test
+    void firstResultOverTheBudget_isTruncated() {
+        String longText = String.join(" ", Collections.nCopies(100, "lorem ipsum dolor"));
+        ResultPacker packer = new ResultPacker(100, 0.8, true);
+
+        List<String> packed = packer.pack(List.of(REFUNDS, longText), s -> s, (s, t) -> t);
+
+        assertEquals(2, packed.size());
+        assertTrue(packed.get(1).endsWith("..."));
+        assertTrue(
+                ResultPacker.estimateTokens(REFUNDS) + ResultPacker.estimateTokens(packed.get(1))
+                        <= 100);
+        assertEquals(1, packer.stats().truncated());
+    }
+
+    @Test
+    void estimateTokens_countsEachCjkCharacter() {
+        assertEquals(5, ResultPacker.estimateTokens("我喜欢绿茶"));
+        assertEquals(3, ResultPacker.estimateTokens("ok 是的"));
+    }
+
+    @Test
+    void knowledgebaseService_packsTheEntriesOfEverySearch() {
+        BaseKnowledgebaseService knowledgebase =
+                query -> {
+                    SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+                    response.setKnowledgebaseEntries(
+                            List.of(
+                                    new KnowledgebaseEntry(REFUNDS, Map.of("doc", "a")),
+                                    new KnowledgebaseEntry(REFUNDS, Map.of("doc", "b"))));
+                    return Single.just(response);
+                };
+
+        List<KnowledgebaseEntry> entries =
+                new ResultPacker()
+                        .knowledgebaseService(knowledgebase)
+                        .searchKnowledgebase("refunds")
+                        .blockingGet()
+                        .getKnowledgebaseEntries();
+
+        assertEquals(1, entries.size());
+        assertEquals("a", entries.get(0).getMetadata().get("doc"));
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.retrieval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.adk.memory.BaseMemoryService;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
+import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SpeculativeRetrievalTest {
+
+    private final CountingMemoryService memory = new CountingMemoryService();
+    private final AtomicInteger knowledgeSearches = new AtomicInteger();
+    private final BaseKnowledgebaseService knowledgebase =
+            query -> {
+                knowledgeSearches.incrementAndGet();
+                SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+                response.setKnowledgebaseEntries(
+                        List.of(new KnowledgebaseEntry("Height is measured in cm.", Map.of())));
+                return Single.just(response);
+            };
+
+    @Test
+    void similarToolQueries_areServedFromPrefetch() {
+        SpeculativeRetrieval retrieval = newRetrieval(Clock.systemUTC());
+
+        retrieval.prefetch("inv-1", "agent", "app", "user", "How tall am I? Check my height");
+        SearchMemoryResponse memories =
+                retrieval.memoryService().searchMemory("app", "user", "my height").blockingGet();
+        SearchKnowledgebaseResponse knowledge =
+                retrieval.knowledgebaseService().searchKnowledgebase("height").blockingGet();
+
+        assertEquals("How tall am I? Check my height", text(memories));
+        assertEquals(1, knowledge.getKnowledgebaseEntries().size());
+        assertEquals(1, memory.searches.get());
+        assertEquals(1, knowledgeSearches.get());
+        assertEquals(2, retrieval.stats().hits());
+        assertEquals(1.0, retrieval.stats().hitRate());
+    }
+
+    @Test
+    void cjkToolQuery_isServedFromPrefetch() {
+        SpeculativeRetrieval retrieval = newRetrieval(Clock.systemUTC());
+
+        retrieval.prefetch("inv-1", "agent", "app", "user", "我的身高是多少？");
+        retrieval.memoryService().searchMemory("app", "user", "身高").blockingGet();
+
+        assertEquals(1, memory.searches.get());
+        assertEquals(1, retrieval.stats().hits());
+    }
+
+    @Test
+    void unrelatedQuery_orOtherUser_callsTheService() {
+        SpeculativeRetrieval retrieval = newRetrieval(Clock.systemUTC());
+
+        retrieval.prefetch("inv-1", "agent", "app", "user", "How tall am I?");
+        SearchMemoryResponse unrelated =
+                retrieval
+                        .memoryService()
+                        .searchMemory("app", "user", "favourite food")
+                        .blockingGet();
+        retrieval.memoryService().searchMemory("app", "other_user", "how tall").blockingGet();
+
+        assertEquals("favourite food", text(unrelated));
+        assertEquals(3, memory.searches.get());
+        assertEquals(0, retrieval.stats().hits());
+        assertEquals(2, retrieval.stats().misses());
+    }
+
+    @Test
+    void memorySearch_isOnlyServedFromItsOwnInvocation() {
+        SpeculativeRetrieval retrieval = newRetrieval(Clock.systemUTC());
+
+        retrieval.prefetch("inv-1", "agent", "app", "user", "How tall am I? Check my height");
+        retrieval.prefetch("inv-2", "agent", "app", "user", "What food do I like?");
+        SearchMemoryResponse other =
+                retrieval
+                        .memoryService()
+                        .searchMemory("inv-2", "app", "user", "my height")
+                        .blockingGet();
+        // Without an invocation id the search could belong to either session
+        retrieval.memoryService().searchMemory("app", "user", "my height").blockingGet();
+        SearchMemoryResponse own =
+                retrieval
+                        .memoryService()
+                        .searchMemory("inv-1", "app", "user", "my height")
+                        .blockingGet();
+
+        assertEquals("my height", text(other));
+        assertEquals("How tall am I? Check my height", text(own));
+        assertEquals(4, memory.searches.get());
+        assertEquals(1, retrieval.stats().hits());
+        assertEquals(2, retrieval.stats().misses());
+    }
+
+    @Test
+    void unusedPrefetch_isCountedAsWastedWhenTheInvocationEnds() {
+        SpeculativeRetrieval retrieval = newRetrieval(Clock.systemUTC());
+
+        retrieval.prefetch("inv-1", "root", "app", "user", "hello there");
+        // A nested agent of the same invocation neither prefetches again nor ends the prefetch
+        retrieval.prefetch("inv-1", "sub", "app", "user", "hello there");
+        retrieval.complete("inv-1", "sub");
+        assertEquals(1, retrieval.stats().liveInvocations());
+
+        retrieval.complete("inv-1", "root");
+
+        assertEquals(2, retrieval.stats().prefetchCalls());
+        assertEquals(2, retrieval.stats().wastedCalls());
+        assertEquals(1.0, retrieval.stats().wasteRate());
+        assertEquals(0, retrieval.stats().liveInvocations());
+    }
+
+    @Test
+    void expiredPrefetch_isNotServed() {
+        MutableClock clock = new MutableClock();
+        SpeculativeRetrieval retrieval = newRetrieval(clock);
+
+        retrieval.prefetch("inv-1", "agent", "app", "user", "Check my height");
+        clock.advance(Duration.ofMinutes(2));
+        retrieval.memoryService().searchMemory("app", "user", "my height").blockingGet();
+
+        assertEquals(2, memory.searches.get());
+        assertEquals(0, retrieval.stats().hits());
+        assertEquals(2, retrieval.stats().wastedCalls());
+    }
+
+    private SpeculativeRetrieval newRetrieval(Clock clock) {
+        return new SpeculativeRetrieval(
+                memory, knowledgebase, 0.6, Duration.ofMinutes(1), 16, clock);
+    }
+
+    private static String text(SearchMemoryResponse response) {
+        return response.memories().get(0).content().parts().get().get(0).text().get();
+    }
+
+    /** Answers every search with a single memory holding the query. */
+    private static class CountingMemoryService implements BaseMemoryService {
+
+        private final AtomicInteger searches = new AtomicInteger();
+
+        @Override
+        public Completable addSessionToMemory(Session session) {
+            return Completable.complete();
+        }
+
+        @Override
+        public Single<SearchMemoryResponse> searchMemory(
+                String appName, String userId, String query) {
+            searches.incrementAndGet();
+            MemoryEntry entry =
+                    MemoryEntry.builder()
+                            .author("user")
+                            .content(Content.builder().parts(Part.fromText(query)).build())
+                            .build();
+            return Single.just(SearchMemoryResponse.builder().setMemories(List.of(entry)).build());
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.volcengine.veadk.tools.knowledgebase;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,8 +12,11 @@ import com.google.adk.models.LlmRequest;
 import com.google.adk.tools.ToolContext;
 import com.volcengine.veadk.integration.vikingknowledgebase.KnowledgebaseEntry;
 import com.volcengine.veadk.knowledgebase.BaseKnowledgebaseService;
+import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseOptions;
 import com.volcengine.veadk.knowledgebase.SearchKnowledgebaseResponse;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -34,7 +39,7 @@ class LoadKnowledgebaseToolTest {
 
         ToolContext ctx = Mockito.mock(ToolContext.class);
         List<KnowledgebaseEntry> result =
-                LoadKnowledgebaseTool.loadKnowledgebase("cats", ctx).blockingGet().knowledges();
+                tool.loadKnowledgebase("cats", ctx).blockingGet().knowledges();
 
         assertEquals(1, result.size());
         assertEquals("content", result.get(0).getContent());
@@ -61,4 +66,110 @@ class LoadKnowledgebaseToolTest {
         assertTrue(instructions.get(0).contains("knowledgebase"));
         assertTrue(instructions.get(0).contains("loadKnowledgebase"));
     }
+
+    @Test
+    void toolsInOneProcess_searchTheirOwnKnowledgebase() {
+        BaseKnowledgebaseService cats = Mockito.mock(BaseKnowledgebaseService.class);
+        BaseKnowledgebaseService dogs = Mockito.mock(BaseKnowledgebaseService.class);
+        when(cats.searchKnowledgebase(eq("q"))).thenReturn(Single.just(response("meow")));
+        when(dogs.searchKnowledgebase(eq("q"))).thenReturn(Single.just(response("woof")));
+        LoadKnowledgebaseTool catTool = new LoadKnowledgebaseTool(cats, "searchCats", "cat care");
+        LoadKnowledgebaseTool dogTool = new LoadKnowledgebaseTool(dogs, "searchDogs", "dog care");
+
+        ToolContext ctx = Mockito.mock(ToolContext.class);
+        assertEquals(
+                "meow",
+                catTool.loadKnowledgebase("q", ctx).blockingGet().knowledges().get(0).getContent());
+        assertEquals(
+                "woof",
+                dogTool.loadKnowledgebase("q", ctx).blockingGet().knowledges().get(0).getContent());
+        assertEquals("searchCats", catTool.name());
+        assertEquals("dog care", dogTool.description());
+    }
+
+    @Test
+    void processLlmRequest_namesTheToolInTheInstruction() {
+        BaseKnowledgebaseService svc = Mockito.mock(BaseKnowledgebaseService.class);
+        LoadKnowledgebaseTool tool = new LoadKnowledgebaseTool(svc, "searchManuals", "manuals");
+
+        LlmRequest.Builder realBuilder =
+                LlmRequest.builder().model("test-model").contents(Collections.emptyList());
+        LlmRequest.Builder builderSpy = Mockito.spy(realBuilder);
+
+        ToolContext ctx = Mockito.mock(ToolContext.class);
+        tool.processLlmRequest(builderSpy, ctx).blockingAwait();
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(builderSpy).appendInstructions(captor.capture());
+        @SuppressWarnings("unchecked")
+        List<String> instructions = captor.getValue();
+        assertTrue(instructions.get(0).contains("manuals"));
+        assertTrue(instructions.get(0).contains("searchManuals"));
+    }
+
+    @Test
+    void invalidName_shouldThrow() {
+        BaseKnowledgebaseService svc = Mockito.mock(BaseKnowledgebaseService.class);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new LoadKnowledgebaseTool(svc, "search manuals", null));
+    }
+
+    @Test
+    void streaming_answersOnceTheTokenBudgetIsReached() {
+        BaseKnowledgebaseService svc = Mockito.mock(BaseKnowledgebaseService.class);
+        when(svc.streamKnowledgebase(eq("q"), any()))
+                .thenReturn(Flowable.just(entry("one two"), entry("three four"), entry("five")));
+        LoadKnowledgebaseTool tool =
+                new LoadKnowledgebaseTool(
+                        svc,
+                        "searchDocs",
+                        null,
+                        new LoadKnowledgebaseOptions(
+                                SearchKnowledgebaseOptions.defaults(), 3, Duration.ofSeconds(5)));
+
+        List<KnowledgebaseEntry> result =
+                tool.loadKnowledgebase("q", Mockito.mock(ToolContext.class))
+                        .blockingGet()
+                        .knowledges();
+
+        assertEquals(2, result.size());
+        assertEquals("three four", result.get(1).getContent());
+    }
+
+    @Test
+    void streaming_answersWithTheEntriesFoundByTheTimeout() {
+        BaseKnowledgebaseService svc = Mockito.mock(BaseKnowledgebaseService.class);
+        when(svc.streamKnowledgebase(eq("q"), any()))
+                .thenReturn(Flowable.just(entry("fast")).concatWith(Flowable.never()));
+        LoadKnowledgebaseTool tool =
+                new LoadKnowledgebaseTool(
+                        svc,
+                        "searchDocs",
+                        null,
+                        new LoadKnowledgebaseOptions(
+                                SearchKnowledgebaseOptions.defaults(),
+                                1500,
+                                Duration.ofMillis(100)));
+
+        long start = System.nanoTime();
+        List<KnowledgebaseEntry> result =
+                tool.loadKnowledgebase("q", Mockito.mock(ToolContext.class))
+                        .blockingGet()
+                        .knowledges();
+
+        assertEquals(1, result.size());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+    }
+
+    private static SearchKnowledgebaseResponse response(String content) {
+        SearchKnowledgebaseResponse response = new SearchKnowledgebaseResponse();
+        response.setKnowledgebaseEntries(Collections.singletonList(entry(content)));
+        return response;
+    }
+
+    private static KnowledgebaseEntry entry(String content) {
+        return new KnowledgebaseEntry(content, Collections.emptyMap());
+    }
 }
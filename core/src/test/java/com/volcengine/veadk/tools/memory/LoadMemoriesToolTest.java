@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.tools.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.agents.ReadonlyContext;
+import com.google.adk.memory.MemoryEntry;
+import com.google.adk.memory.SearchMemoryResponse;
+import com.google.adk.sessions.Session;
+import com.google.adk.tools.ToolContext;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.volcengine.veadk.memory.viking.VikingMemoryService;
+import io.reactivex.rxjava3.core.Single;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class LoadMemoriesToolTest {
+
+    @Test
+    void loadMemories_searchesEachQueryOnce_andMergesRankByRank() {
+        ToolContext ctx = Mockito.mock(ToolContext.class);
+        when(ctx.searchMemory("height")).thenReturn(response("180cm", "likes tea"));
+        when(ctx.searchMemory("drinks")).thenReturn(response("green tea", "likes tea"));
+
+        List<MemoryEntry> memories =
+                LoadMemoriesTool.loadMemories(List.of("height", "drinks", "height"), ctx)
+                        .blockingGet()
+                        .memories();
+
+        assertEquals(
+                List.of("180cm", "green tea", "likes tea"),
+                memories.stream().map(LoadMemoriesToolTest::text).toList());
+        verify(ctx, times(1)).searchMemory("height");
+    }
+
+    @Test
+    void loadMemories_withVikingMemory_runsOneBatchSearch() throws Exception {
+        VikingMemoryService memoryService = Mockito.mock(VikingMemoryService.class);
+        List<String> queries = List.of("height", "drinks");
+        when(memoryService.searchMemoryBatch("app", "user", queries))
+                .thenReturn(response("180cm", "green tea"));
+        Session session = Mockito.mock(Session.class);
+        when(session.appName()).thenReturn("app");
+        when(session.userId()).thenReturn("user");
+        InvocationContext invocationContext = Mockito.mock(InvocationContext.class);
+        when(invocationContext.memoryService()).thenReturn(memoryService);
+        when(invocationContext.session()).thenReturn(session);
+        ToolContext ctx = Mockito.mock(ToolContext.class);
+        Field field = ReadonlyContext.class.getDeclaredField("invocationContext");
+        field.setAccessible(true);
+        field.set(ctx, invocationContext);
+
+        List<MemoryEntry> memories =
+                LoadMemoriesTool.loadMemories(queries, ctx).blockingGet().memories();
+
+        assertEquals(
+                List.of("180cm", "green tea"),
+                memories.stream().map(LoadMemoriesToolTest::text).toList());
+        verify(memoryService, times(1)).searchMemoryBatch("app", "user", queries);
+        verify(ctx, never()).searchMemory(anyString());
+    }
+
+    @Test
+    void searchAll_ignoresFailedQueries() {
+        List<MemoryEntry> memories =
+                LoadMemoriesTool.searchAll(
+                                List.of("broken", "height"),
+                                query ->
+                                        "broken".equals(query)
+                                                ? Single.error(new IllegalStateException("down"))
+                                                : response("180cm"))
+                        .blockingGet();
+
+        assertEquals(List.of("180cm"), memories.stream().map(LoadMemoriesToolTest::text).toList());
+    }
+
+    private static Single<SearchMemoryResponse> response(String... texts) {
+        List<MemoryEntry> entries =
+                Arrays.stream(texts)
+                        .map(
+                                text ->
+                                        MemoryEntry.builder()
+                                                .author("user")
+                                                .content(
+                                                        Content.builder()
+                                                                .parts(Part.fromText(text))
+                                                                .build())
+                                                .build())
+                        .toList();
+        return Single.just(SearchMemoryResponse.builder().setMemories(entries).build());
+    }
+
+    private static String text(MemoryEntry entry) {
+        return entry.content().parts().get().get(0).text().get();
+    }
+}
@@ -98,4 +98,16 @@ class EnvUtilTest {
     void getVikingMmemoryType_withMissingEnv_shouldReturnDefault() {
         assertThat(EnvUtil.getVikingMmemoryType()).isEqualTo("sys_event_v1");
     }
+
+    @Test
+    @SetEnvironmentVariable(key = "DATABASE_VIKING_COLLECTION_BOOTSTRAP", value = "async")
+    void getVikingCollectionBootstrap() {
+        assertThat(EnvUtil.getVikingCollectionBootstrap()).isEqualTo("async");
+    }
+
+    @Test
+    @ClearEnvironmentVariable(key = "DATABASE_VIKING_COLLECTION_BOOTSTRAP")
+    void getVikingCollectionBootstrap_withMissingEnv_shouldReturnDefault() {
+        assertThat(EnvUtil.getVikingCollectionBootstrap()).isEqualTo("sync");
+    }
 }
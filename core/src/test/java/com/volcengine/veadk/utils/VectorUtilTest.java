@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2025 Beijing Volcano Engine Technology Co., Ltd. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.volcengine.veadk.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class VectorUtilTest {
+
+    @Test
+    void dot_matchesASimpleLoop_forLengthsThatAreNotAMultipleOfFour() {
+        Random random = new Random(1);
+        for (int length = 0; length < 12; length++) {
+            float[] a = randomVector(random, length);
+            float[] b = randomVector(random, length);
+            double expected = 0;
+            for (int i = 0; i < length; i++) {
+                expected += a[i] * b[i];
+            }
+
+            assertEquals(expected, VectorUtil.dot(a, b), 1e-5);
+        }
+    }
+
+    @Test
+    void dot_rejectsVectorsOfDifferentDimensions() {
+        assertThrows(
+                IllegalArgumentException.class, () -> VectorUtil.dot(new float[2], new float[3]));
+    }
+
+    @Test
+    void dotInt8_isExact() {
+        byte[] a = {127, -128, 3, 4, 5};
+        byte[] b = {127, -128, -1, 2, 1};
+
+        assertEquals(127 * 127 + 128 * 128 - 3 + 8 + 5, VectorUtil.dotInt8(a, b, 5));
+        assertEquals(127 * 127, VectorUtil.dotInt8(a, b, 1));
+    }
+
+    @Test
+    void quantizeInt8_roundTripsWithinHalfAStep() {
+        float[] vector = VectorUtil.normalize(randomVector(new Random(2), 64));
+        byte[] quantized = new byte[vector.length];
+
+        float scale = VectorUtil.quantizeInt8(vector, quantized);
+
+        for (int i = 0; i < vector.length; i++) {
+            assertTrue(Math.abs(quantized[i] * scale - vector[i]) <= scale / 2 + 1e-7);
+        }
+        assertEquals(1f, VectorUtil.quantizeInt8(new float[4], quantized));
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}